@@ -0,0 +1,238 @@
+package appeng.test;
+
+import static appeng.util.item.AEItemStackType.ITEM_STACK_TYPE;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.function.Consumer;
+
+import net.minecraft.init.Blocks;
+import net.minecraft.init.Items;
+import net.minecraft.item.ItemStack;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.world.World;
+import net.minecraft.world.WorldProviderSurface;
+import net.minecraft.world.WorldServer;
+import net.minecraft.world.WorldSettings;
+import net.minecraft.world.WorldSettings.GameType;
+import net.minecraft.world.WorldType;
+import net.minecraftforge.common.DimensionManager;
+
+import org.junit.jupiter.api.Test;
+
+import appeng.api.AEApi;
+import appeng.api.config.Actionable;
+import appeng.api.storage.data.IAEItemStack;
+import appeng.api.storage.data.IAEStack;
+import appeng.api.storage.data.IItemList;
+import appeng.core.AEConfig;
+import appeng.crafting.MECraftingInventory;
+import appeng.crafting.v2.CraftingJobV2;
+import appeng.me.cache.NetworkMonitor;
+import appeng.test.mockme.MockAESystem;
+import appeng.util.item.AEItemStack;
+
+/**
+ * Crafting calculations on a shared storage snapshot have to plan exactly like the ones on a full copy of the storage.
+ */
+public class CraftingSnapshotTests {
+
+    private static final int SIMULATION_TIMEOUT_MS = 150;
+    private static World dummyWorld = null;
+
+    public CraftingSnapshotTests() {
+        if (dummyWorld == null) {
+            if (!DimensionManager.isDimensionRegistered(256)) {
+                DimensionManager.registerProviderType(256, WorldProviderSurface.class, false);
+                DimensionManager.registerDimension(256, 256);
+            }
+            dummyWorld = new WorldServer(
+                    MinecraftServer.getServer(),
+                    new DummySaveHandler(),
+                    "DummyTestWorld",
+                    256,
+                    new WorldSettings(256, GameType.SURVIVAL, false, false, WorldType.DEFAULT),
+                    MinecraftServer.getServer().theProfiler) {
+
+                @Override
+                public File getChunkSaveLocation() {
+                    return new File("dummy-ignoreme");
+                }
+            };
+        }
+    }
+
+    private static CraftingJobV2 runJob(final Consumer<MockAESystem> setup, final ItemStack request,
+            final boolean sharedSnapshots) {
+        final boolean previous = AEConfig.instance.sharedCraftingSnapshots;
+        AEConfig.instance.sharedCraftingSnapshots = sharedSnapshots;
+        try {
+            final MockAESystem aeSystem = new MockAESystem(dummyWorld);
+            setup.accept(aeSystem);
+            final CraftingJobV2 job = aeSystem.makeCraftingJob(request.copy());
+            job.simulateFor(SIMULATION_TIMEOUT_MS);
+            assertTrue(job.isDone());
+            assertFalse(job.isCancelled());
+            return job;
+        } finally {
+            AEConfig.instance.sharedCraftingSnapshots = previous;
+        }
+    }
+
+    private static void assertSamePlan(final Consumer<MockAESystem> setup, final ItemStack request) {
+        final CraftingJobV2 copied = runJob(setup, request, false);
+        final CraftingJobV2 shared = runJob(setup, request, true);
+
+        assertEquals(copied.isSimulation(), shared.isSimulation());
+        assertEquals(copied.getByteTotal(), shared.getByteTotal());
+
+        final IItemList<IAEStack<?>> copiedPlan = AEApi.instance().storage().createAEStackList();
+        copied.populatePlan(copiedPlan);
+        final IItemList<IAEStack<?>> sharedPlan = AEApi.instance().storage().createAEStackList();
+        shared.populatePlan(sharedPlan);
+
+        assertEquals(copiedPlan.size(), sharedPlan.size());
+        for (final IAEStack<?> expected : copiedPlan) {
+            final IAEStack<?> actual = sharedPlan.findPrecise(expected);
+            assertNotNull(actual, expected::toString);
+            assertEquals(expected.getStackSize(), actual.getStackSize(), () -> "Stack size of " + expected);
+            assertEquals(
+                    expected.getCountRequestable(),
+                    actual.getCountRequestable(),
+                    () -> "Requestable count of " + expected);
+        }
+    }
+
+    private static void addPlankAndChestPatterns(final MockAESystem aeSystem) {
+        for (int meta = 0; meta < 4; meta++) {
+            aeSystem.newCraftingPattern().allowBeingASubstitute().addInput(new ItemStack(Blocks.log, 1, meta))
+                    .addOutput(new ItemStack(Blocks.planks, 4, meta)).buildAndAdd();
+        }
+        aeSystem.newProcessingPattern().allowUsingSubstitutes().addInput(new ItemStack(Blocks.planks, 8, 0))
+                .addOutput(new ItemStack(Blocks.chest, 1)).buildAndAdd();
+    }
+
+    @Test
+    void simplePatternWithItems() {
+        assertSamePlan(aeSystem -> {
+            aeSystem.addStoredItem(new ItemStack(Items.diamond, 64));
+            aeSystem.addStoredItem(new ItemStack(Items.stick, 5));
+            aeSystem.newProcessingPattern().addInput(new ItemStack(Items.diamond, 1))
+                    .addOutput(new ItemStack(Items.stick, 1)).buildAndAdd();
+        }, new ItemStack(Items.stick, 13));
+    }
+
+    @Test
+    void missingItems() {
+        assertSamePlan(aeSystem -> {
+            aeSystem.addStoredItem(new ItemStack(Items.diamond, 4));
+            aeSystem.newProcessingPattern().addInput(new ItemStack(Items.diamond, 1))
+                    .addOutput(new ItemStack(Items.stick, 1)).buildAndAdd();
+        }, new ItemStack(Items.stick, 13));
+    }
+
+    @Test
+    void fuzzySubstitutesFromMixedLogs() {
+        assertSamePlan(aeSystem -> {
+            aeSystem.addStoredItem(new ItemStack(Blocks.log, 1, 0));
+            aeSystem.addStoredItem(new ItemStack(Blocks.log, 1, 1));
+            aeSystem.addStoredItem(new ItemStack(Blocks.planks, 3, 2));
+            addPlankAndChestPatterns(aeSystem);
+        }, new ItemStack(Blocks.chest, 1));
+    }
+
+    @Test
+    void recipeChain() {
+        assertSamePlan(aeSystem -> {
+            aeSystem.addStoredItem(new ItemStack(Items.iron_ingot, 3));
+            aeSystem.addStoredItem(new ItemStack(Blocks.iron_block, 1));
+            aeSystem.newProcessingPattern().addInput(new ItemStack(Blocks.iron_block, 1))
+                    .addOutput(new ItemStack(Items.iron_ingot, 9)).buildAndAdd();
+            aeSystem.newProcessingPattern().addInput(new ItemStack(Items.iron_ingot, 6))
+                    .addOutput(new ItemStack(Items.iron_door, 1)).buildAndAdd();
+        }, new ItemStack(Items.iron_door, 2));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static NetworkMonitor<IAEItemStack> getItemMonitor(final MockAESystem aeSystem) {
+        return (NetworkMonitor<IAEItemStack>) aeSystem.sgCache.getMEMonitor(ITEM_STACK_TYPE);
+    }
+
+    @Test
+    void snapshotIsSharedAndNeverModified() {
+        final MockAESystem aeSystem = new MockAESystem(dummyWorld);
+        aeSystem.addStoredItem(new ItemStack(Items.diamond, 64));
+        aeSystem.newProcessingPattern().addInput(new ItemStack(Items.diamond, 1))
+                .addOutput(new ItemStack(Items.stick, 1)).buildAndAdd();
+
+        final IItemList<IAEItemStack> snapshot = getItemMonitor(aeSystem).getStorageSnapshot();
+        final CraftingJobV2 job = aeSystem.makeCraftingJob(new ItemStack(Items.stick, 13));
+        job.simulateFor(SIMULATION_TIMEOUT_MS);
+        assertTrue(job.isDone());
+
+        final MECraftingInventory inventory = new MECraftingInventory(aeSystem.sgCache, true, false, false);
+        inventory.extractItems(AEItemStack.create(new ItemStack(Items.diamond, 60)), Actionable.MODULATE);
+        inventory.ignore(AEItemStack.create(new ItemStack(Items.diamond, 1)));
+
+        assertSame(snapshot, getItemMonitor(aeSystem).getStorageSnapshot());
+        assertEquals(64, snapshot.findPrecise(AEItemStack.create(new ItemStack(Items.diamond, 1))).getStackSize());
+
+        final MECraftingInventory fresh = new MECraftingInventory(aeSystem.sgCache, true, false, false);
+        assertEquals(
+                64,
+                fresh.getAvailableItem(AEItemStack.create(new ItemStack(Items.diamond, 1))).getStackSize());
+    }
+
+    @Test
+    void snapshotFollowsStorageChanges() {
+        final MockAESystem aeSystem = new MockAESystem(dummyWorld);
+        aeSystem.addStoredItem(new ItemStack(Items.diamond, 64));
+        final IItemList<IAEItemStack> before = getItemMonitor(aeSystem).getStorageSnapshot();
+
+        aeSystem.addStoredItem(new ItemStack(Items.diamond, 16));
+        final IItemList<IAEItemStack> after = getItemMonitor(aeSystem).getStorageSnapshot();
+
+        assertNotSame(before, after);
+        assertEquals(64, before.findPrecise(AEItemStack.create(new ItemStack(Items.diamond, 1))).getStackSize());
+        assertEquals(80, after.findPrecise(AEItemStack.create(new ItemStack(Items.diamond, 1))).getStackSize());
+    }
+
+    private static long allocatedBytes(final Runnable action) {
+        final com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory
+                .getThreadMXBean();
+        final long threadId = Thread.currentThread().getId();
+        final long before = bean.getThreadAllocatedBytes(threadId);
+        action.run();
+        return bean.getThreadAllocatedBytes(threadId) - before;
+    }
+
+    @Test
+    void sharedSnapshotAllocatesLessThanCopy() {
+        assumeTrue(
+                ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+                        && bean.isThreadAllocatedMemorySupported()
+                        && bean.isThreadAllocatedMemoryEnabled());
+
+        final MockAESystem aeSystem = new MockAESystem(dummyWorld);
+        for (int damage = 0; damage < 20_000; damage++) {
+            aeSystem.addStoredItem(new ItemStack(Items.paper, 1, damage));
+        }
+        // built once, shared by every calculation afterwards as long as something holds it
+        final IItemList<IAEItemStack> snapshot = getItemMonitor(aeSystem).getStorageSnapshot();
+
+        final boolean previous = AEConfig.instance.sharedCraftingSnapshots;
+        try {
+            AEConfig.instance.sharedCraftingSnapshots = false;
+            final long copied = allocatedBytes(() -> new MECraftingInventory(aeSystem.sgCache, true, false, true));
+            AEConfig.instance.sharedCraftingSnapshots = true;
+            final long shared = allocatedBytes(() -> new MECraftingInventory(aeSystem.sgCache, true, false, true));
+
+            assertTrue(shared * 10 < copied, () -> "shared: " + shared + " bytes, copied: " + copied + " bytes");
+            assertSame(snapshot, getItemMonitor(aeSystem).getStorageSnapshot());
+        } finally {
+            AEConfig.instance.sharedCraftingSnapshots = previous;
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package appeng.test.crafting;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.util.ChunkCoordinates;
+import net.minecraft.util.IChatComponent;
+import net.minecraft.world.World;
+import net.minecraft.world.WorldProviderSurface;
+import net.minecraft.world.WorldServer;
+import net.minecraft.world.WorldSettings;
+import net.minecraft.world.WorldSettings.GameType;
+import net.minecraft.world.WorldType;
+import net.minecraftforge.common.DimensionManager;
+
+import org.junit.jupiter.api.Test;
+
+import com.mojang.authlib.GameProfile;
+
+import appeng.api.networking.crafting.ICraftingJob;
+import appeng.api.networking.security.PlayerSource;
+import appeng.api.storage.data.IAEItemStack;
+import appeng.api.storage.data.IAEStack;
+import appeng.api.storage.data.IItemList;
+import appeng.crafting.CraftingCalculationScheduler;
+import appeng.crafting.CraftingCalculationScheduler.Priority;
+import appeng.test.DummySaveHandler;
+
+public class CraftingCalculationSchedulerFunctionalTest {
+
+    private static final class TestJob implements ICraftingJob<IAEItemStack>, Future<ICraftingJob<IAEItemStack>> {
+
+        private final List<TestJob> simulated;
+        private int slices;
+        private boolean cancelled;
+        private Runnable onSimulate;
+
+        private TestJob(final List<TestJob> simulated, final int slices) {
+            this.simulated = simulated;
+            this.slices = slices;
+        }
+
+        @Override
+        public boolean isSimulation() {
+            return false;
+        }
+
+        @Override
+        public long getByteTotal() {
+            return 0;
+        }
+
+        @Override
+        public void populatePlan(final IItemList<IAEStack<?>> plan) {}
+
+        @Override
+        public IAEItemStack getOutput() {
+            return null;
+        }
+
+        @Override
+        public boolean simulateFor(final int milli) {
+            this.simulated.add(this);
+            if (this.onSimulate != null) {
+                this.onSimulate.run();
+            }
+            return --this.slices > 0;
+        }
+
+        @Override
+        public Future<ICraftingJob<IAEItemStack>> schedule() {
+            return this;
+        }
+
+        @Override
+        public boolean cancel(final boolean mayInterruptIfRunning) {
+            this.cancelled = true;
+            return true;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return this.cancelled;
+        }
+
+        @Override
+        public boolean isDone() {
+            return this.cancelled || this.slices <= 0;
+        }
+
+        @Override
+        public ICraftingJob<IAEItemStack> get() {
+            return this;
+        }
+
+        @Override
+        public ICraftingJob<IAEItemStack> get(final long timeout, final TimeUnit unit) {
+            return this;
+        }
+    }
+
+    private static World createDummyWorld() {
+        if (!DimensionManager.isDimensionRegistered(256)) {
+            DimensionManager.registerProviderType(256, WorldProviderSurface.class, false);
+            DimensionManager.registerDimension(256, 256);
+        }
+        return new WorldServer(
+                MinecraftServer.getServer(),
+                new DummySaveHandler(),
+                "DummyTestWorld",
+                256,
+                new WorldSettings(256, GameType.SURVIVAL, false, false, WorldType.DEFAULT),
+                MinecraftServer.getServer().theProfiler) {
+
+            @Override
+            public File getChunkSaveLocation() {
+                return new File("dummy-ignoreme");
+            }
+        };
+    }
+
+    private static PlayerSource playerSource(final World world, final GameProfile profile) {
+        final EntityPlayer player = new EntityPlayer(world, profile) {
+
+            @Override
+            public void addChatMessage(final IChatComponent message) {}
+
+            @Override
+            public boolean canCommandSenderUseCommand(final int permissionLevel, final String command) {
+                return false;
+            }
+
+            @Override
+            public ChunkCoordinates getPlayerCoordinates() {
+                return new ChunkCoordinates(0, 0, 0);
+            }
+        };
+        return new PlayerSource(player, null);
+    }
+
+    private static void runAll(final CraftingCalculationScheduler scheduler) {
+        for (int i = 0; i < 100 && scheduler.getQueueCount(Priority.INTERACTIVE) > 0; i++) {
+            scheduler.tick();
+        }
+        assertEquals(0, scheduler.getQueueCount(Priority.INTERACTIVE));
+    }
+
+    @Test
+    void jobsOfARespawnedPlayerKeepRunningInOrder() {
+        final World world = createDummyWorld();
+        final GameProfile profile = new GameProfile(UUID.randomUUID(), "Crafter");
+        final CraftingCalculationScheduler scheduler = new CraftingCalculationScheduler();
+        final List<TestJob> simulated = new ArrayList<>();
+        final TestJob first = new TestJob(simulated, 2);
+        final TestJob second = new TestJob(simulated, 1);
+        final TestJob afterRespawn = new TestJob(simulated, 1);
+
+        final PlayerSource beforeDeath = playerSource(world, profile);
+        scheduler.submit(world, first, beforeDeath);
+        scheduler.submit(world, second, beforeDeath);
+        scheduler.tick();
+
+        beforeDeath.player.setDead();
+        scheduler.submit(world, afterRespawn, playerSource(world, profile));
+        assertEquals(1, scheduler.getQueueCount(Priority.INTERACTIVE));
+        assertEquals(3, scheduler.getQueueDepth(Priority.INTERACTIVE));
+
+        runAll(scheduler);
+        assertEquals(List.of(first, first, second, afterRespawn), simulated);
+        assertFalse(first.isCancelled());
+        assertFalse(second.isCancelled());
+        assertEquals(3, scheduler.getCompletedJobs());
+        assertEquals(0, scheduler.getAbandonedJobs());
+    }
+
+    @Test
+    void loggingOutCancelsOnlyThatPlayersJobs() {
+        final World world = createDummyWorld();
+        final GameProfile leaving = new GameProfile(UUID.randomUUID(), "Leaving");
+        final CraftingCalculationScheduler scheduler = new CraftingCalculationScheduler();
+        final List<TestJob> simulated = new ArrayList<>();
+        final TestJob first = new TestJob(simulated, 1);
+        final TestJob second = new TestJob(simulated, 1);
+        final TestJob other = new TestJob(simulated, 1);
+
+        final PlayerSource source = playerSource(world, leaving);
+        scheduler.submit(world, first, source);
+        scheduler.submit(world, second, source);
+        scheduler.submit(world, other, playerSource(world, new GameProfile(UUID.randomUUID(), "Staying")));
+
+        scheduler.cancelPlayer(leaving.getId());
+        assertTrue(first.isCancelled());
+        assertTrue(second.isCancelled());
+        assertFalse(other.isCancelled());
+        assertEquals(1, scheduler.getQueueCount(Priority.INTERACTIVE));
+        assertEquals(2, scheduler.getAbandonedJobs());
+
+        runAll(scheduler);
+        assertEquals(List.of(other), simulated);
+    }
+
+    @Test
+    void jobsCanBeSubmittedWhileOneIsSimulated() {
+        final World world = createDummyWorld();
+        final PlayerSource source = playerSource(world, new GameProfile(UUID.randomUUID(), "Crafter"));
+        final CraftingCalculationScheduler scheduler = new CraftingCalculationScheduler();
+        final List<TestJob> simulated = new ArrayList<>();
+        final TestJob running = new TestJob(simulated, 1);
+        final TestJob submitted = new TestJob(simulated, 1);
+        final Thread submitter = new Thread(() -> scheduler.submit(world, submitted, source));
+        running.onSimulate = () -> {
+            submitter.start();
+            try {
+                submitter.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+
+        scheduler.submit(world, running, source);
+        scheduler.tick();
+        assertFalse(submitter.isAlive());
+        assertEquals(1, scheduler.getQueueDepth(Priority.INTERACTIVE));
+
+        runAll(scheduler);
+        assertEquals(List.of(running, submitted), simulated);
+        assertEquals(2, scheduler.getCompletedJobs());
+    }
+}
@@ -0,0 +1,59 @@
+package appeng.test.crafting;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import net.minecraft.init.Items;
+import net.minecraft.item.ItemStack;
+
+import org.junit.jupiter.api.Test;
+
+import appeng.api.config.Actionable;
+import appeng.api.storage.data.IAEItemStack;
+import appeng.api.storage.data.IItemList;
+import appeng.core.AEConfig;
+import appeng.crafting.MECraftingInventory;
+import appeng.test.mockme.MockAESystem;
+import appeng.util.item.AEItemStack;
+import appeng.util.item.ItemList;
+
+public class MECraftingInventoryFunctionalTest {
+
+    private static IAEItemStack diamonds(final long amount) {
+        return AEItemStack.create(new ItemStack(Items.diamond)).setStackSize(amount);
+    }
+
+    private static IAEItemStack sticks(final long amount) {
+        return AEItemStack.create(new ItemStack(Items.stick)).setStackSize(amount);
+    }
+
+    @Test
+    void drainedStacksStayDrainedAfterIterating() {
+        final boolean shared = AEConfig.instance.sharedCraftingSnapshots;
+        AEConfig.instance.sharedCraftingSnapshots = true;
+        try {
+            final MockAESystem aeSystem = new MockAESystem(null);
+            aeSystem.addStoredItem(new ItemStack(Items.diamond, 10));
+            aeSystem.addStoredItem(new ItemStack(Items.stick, 5));
+            final MECraftingInventory inv = new MECraftingInventory(aeSystem.sgCache, false, false, false);
+
+            assertEquals(10, inv.extractItems(diamonds(10), Actionable.MODULATE).getStackSize());
+
+            final IItemList<IAEItemStack> listed = inv.getAvailableItems(new ItemList());
+            assertNull(listed.findPrecise(diamonds(1)));
+            assertEquals(5, listed.findPrecise(sticks(1)).getStackSize());
+
+            // iterating again must not bring the stored amount back
+            assertNull(inv.getAvailableItems(new ItemList()).findPrecise(diamonds(1)));
+            assertNull(inv.getAvailableItem(diamonds(1)));
+            assertNull(inv.extractItems(diamonds(1), Actionable.SIMULATE));
+            assertNull(inv.extractItems(diamonds(1), Actionable.MODULATE));
+
+            // and stacks can still be put back
+            inv.injectItems(diamonds(3), Actionable.MODULATE);
+            assertEquals(3, inv.getAvailableItem(diamonds(1)).getStackSize());
+            assertEquals(3, inv.getAvailableItems(new ItemList()).findPrecise(diamonds(1)).getStackSize());
+        } finally {
+            AEConfig.instance.sharedCraftingSnapshots = shared;
+        }
+    }
+}
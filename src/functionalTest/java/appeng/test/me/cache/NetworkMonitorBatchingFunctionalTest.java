@@ -0,0 +1,204 @@
+package appeng.test.me.cache;
+
+import static appeng.util.item.AEItemStackType.ITEM_STACK_TYPE;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import net.minecraft.init.Items;
+import net.minecraft.item.ItemStack;
+
+import org.junit.jupiter.api.Test;
+
+import appeng.api.config.Actionable;
+import appeng.api.networking.security.BaseActionSource;
+import appeng.api.networking.storage.IBaseMonitor;
+import appeng.api.networking.storage.IStackWatcher;
+import appeng.api.networking.storage.IStackWatcherHost;
+import appeng.api.storage.IMEMonitor;
+import appeng.api.storage.IMEMonitorHandlerReceiver;
+import appeng.api.storage.StorageChannel;
+import appeng.api.storage.data.IAEItemStack;
+import appeng.api.storage.data.IAEStack;
+import appeng.api.storage.data.IItemList;
+import appeng.me.storage.ItemWatcher;
+import appeng.test.mockme.MockAESystem;
+import appeng.util.item.AEItemStack;
+
+public class NetworkMonitorBatchingFunctionalTest {
+
+    private static final class Post {
+
+        private final BaseActionSource src;
+        private final List<IAEStack<?>> changes = new ArrayList<>();
+
+        private Post(final BaseActionSource src, final Iterable<IAEStack<?>> changes) {
+            this.src = src;
+            for (final IAEStack<?> change : changes) {
+                this.changes.add(change.copy());
+            }
+        }
+    }
+
+    private static final class TestReceiver implements IMEMonitorHandlerReceiver<IAEStack<?>> {
+
+        private final boolean immediate;
+        private final List<Post> posts = new ArrayList<>();
+
+        private TestReceiver(final boolean immediate) {
+            this.immediate = immediate;
+        }
+
+        @Override
+        public boolean isValid(final Object verificationToken) {
+            return true;
+        }
+
+        @Override
+        public void postChange(final IBaseMonitor<IAEStack<?>> monitor, final Iterable<IAEStack<?>> change,
+                final BaseActionSource actionSource) {
+            this.posts.add(new Post(actionSource, change));
+        }
+
+        @Override
+        public boolean requiresImmediateChanges() {
+            return this.immediate;
+        }
+
+        @Override
+        public void onListUpdate() {}
+    }
+
+    private static final class TestWatcherHost implements IStackWatcherHost {
+
+        private final boolean immediate;
+        private final List<Long> differences = new ArrayList<>();
+
+        private TestWatcherHost(final boolean immediate) {
+            this.immediate = immediate;
+        }
+
+        @Override
+        public void updateWatcher(final IStackWatcher newWatcher) {}
+
+        @Override
+        public void onStackChange(final IItemList o, final IAEStack fullStack, final IAEStack diffStack,
+                final BaseActionSource src, final StorageChannel chan) {
+            this.differences.add(diffStack.getStackSize());
+        }
+
+        @Override
+        public boolean requiresImmediateChanges() {
+            return this.immediate;
+        }
+    }
+
+    private static IAEItemStack diamonds(final long amount) {
+        return AEItemStack.create(new ItemStack(Items.diamond)).setStackSize(amount);
+    }
+
+    private static IAEItemStack sticks(final long amount) {
+        return AEItemStack.create(new ItemStack(Items.stick)).setStackSize(amount);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static IMEMonitor<IAEItemStack> getItemMonitor(final MockAESystem aeSystem) {
+        return (IMEMonitor<IAEItemStack>) aeSystem.sgCache.getMEMonitor(ITEM_STACK_TYPE);
+    }
+
+    private static long sizeOf(final Post post, final IAEStack<?> stack) {
+        for (final IAEStack<?> change : post.changes) {
+            if (change.isSameType(stack)) {
+                return change.getStackSize();
+            }
+        }
+        return 0;
+    }
+
+    @Test
+    void changesOfATickArePostedOnceAndMerged() {
+        final MockAESystem aeSystem = new MockAESystem(null);
+        final IMEMonitor<IAEItemStack> monitor = getItemMonitor(aeSystem);
+        final TestReceiver batched = new TestReceiver(false);
+        final TestReceiver immediate = new TestReceiver(true);
+        monitor.addListener(batched, null);
+        monitor.addListener(immediate, null);
+
+        final BaseActionSource src = new BaseActionSource();
+        for (int i = 0; i < 10; i++) {
+            assertNull(monitor.injectItems(diamonds(1), Actionable.MODULATE, src));
+        }
+        monitor.extractItems(diamonds(4), Actionable.MODULATE, src);
+
+        assertEquals(11, immediate.posts.size());
+        assertTrue(batched.posts.isEmpty());
+        // the storage list already follows the changes
+        assertEquals(6, monitor.getStorageList().findPrecise(diamonds(1)).getStackSize());
+
+        aeSystem.sgCache.onUpdateTick();
+        assertEquals(11, immediate.posts.size());
+        assertEquals(1, batched.posts.size());
+        assertSame(src, batched.posts.get(0).src);
+        assertEquals(1, batched.posts.get(0).changes.size());
+        assertEquals(6, sizeOf(batched.posts.get(0), diamonds(1)));
+
+        // nothing is posted again on the next tick
+        aeSystem.sgCache.onUpdateTick();
+        assertEquals(1, batched.posts.size());
+    }
+
+    @Test
+    void batchesArePostedPerSourceInTheOrderTheyStarted() {
+        final MockAESystem aeSystem = new MockAESystem(null);
+        final IMEMonitor<IAEItemStack> monitor = getItemMonitor(aeSystem);
+        final TestReceiver batched = new TestReceiver(false);
+        monitor.addListener(batched, null);
+
+        final BaseActionSource first = new BaseActionSource();
+        final BaseActionSource second = new BaseActionSource();
+        final BaseActionSource third = new BaseActionSource();
+        monitor.injectItems(diamonds(5), Actionable.MODULATE, first);
+        monitor.injectItems(sticks(3), Actionable.MODULATE, second);
+        monitor.injectItems(sticks(2), Actionable.MODULATE, first);
+        // changes that cancel out aren't posted
+        monitor.injectItems(sticks(7), Actionable.MODULATE, third);
+        monitor.extractItems(sticks(7), Actionable.MODULATE, third);
+        monitor.extractItems(diamonds(1), Actionable.MODULATE, second);
+
+        aeSystem.sgCache.onUpdateTick();
+        assertEquals(2, batched.posts.size());
+
+        final Post fromFirst = batched.posts.get(0);
+        assertSame(first, fromFirst.src);
+        assertEquals(5, sizeOf(fromFirst, diamonds(1)));
+        assertEquals(2, sizeOf(fromFirst, sticks(1)));
+
+        final Post fromSecond = batched.posts.get(1);
+        assertSame(second, fromSecond.src);
+        assertEquals(3, sizeOf(fromSecond, sticks(1)));
+        assertEquals(-1, sizeOf(fromSecond, diamonds(1)));
+    }
+
+    @Test
+    void watchersGetChangesAsTheyAsked() {
+        final MockAESystem aeSystem = new MockAESystem(null);
+        final IMEMonitor<IAEItemStack> monitor = getItemMonitor(aeSystem);
+        final TestWatcherHost batched = new TestWatcherHost(false);
+        final TestWatcherHost immediate = new TestWatcherHost(true);
+        new ItemWatcher(aeSystem.sgCache, batched).add(diamonds(1));
+        new ItemWatcher(aeSystem.sgCache, immediate).add(diamonds(1));
+
+        final BaseActionSource src = new BaseActionSource();
+        monitor.injectItems(diamonds(3), Actionable.MODULATE, src);
+        monitor.injectItems(sticks(3), Actionable.MODULATE, src);
+        monitor.injectItems(diamonds(4), Actionable.MODULATE, src);
+
+        assertEquals(List.of(3L, 4L), immediate.differences);
+        assertTrue(batched.differences.isEmpty());
+
+        aeSystem.sgCache.onUpdateTick();
+        assertEquals(List.of(3L, 4L), immediate.differences);
+        assertEquals(List.of(7L), batched.differences);
+    }
+}
@@ -0,0 +1,210 @@
+package appeng.test.me.cache;
+
+import static appeng.util.item.AEItemStackType.ITEM_STACK_TYPE;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+
+import net.minecraft.init.Items;
+import net.minecraft.item.ItemStack;
+
+import org.junit.jupiter.api.Test;
+
+import appeng.api.AEApi;
+import appeng.api.config.Actionable;
+import appeng.api.networking.events.MENetworkCellArrayUpdate;
+import appeng.api.networking.security.BaseActionSource;
+import appeng.api.networking.storage.IStorageGrid;
+import appeng.api.storage.ICellProvider;
+import appeng.api.storage.IMEInventory;
+import appeng.api.storage.IMEInventoryHandler;
+import appeng.api.storage.IMEMonitor;
+import appeng.api.storage.data.IAEItemStack;
+import appeng.api.storage.data.IAEStackType;
+import appeng.api.storage.data.IItemList;
+import appeng.me.cache.GridStorageCache;
+import appeng.me.cache.StorageLocationIndex.StoredLocation;
+import appeng.me.storage.CellInventory;
+import appeng.me.storage.MEPassThrough;
+import appeng.test.mockme.MockGrid;
+import appeng.util.item.AEItemStack;
+import appeng.util.item.ItemList;
+
+public class StorageLocationIndexFunctionalTest {
+
+    private static final class TestProvider implements ICellProvider {
+
+        private final List<IMEInventoryHandler> handlers = new ArrayList<>();
+
+        @Override
+        public List<IMEInventoryHandler> getCellArray(final IAEStackType<?> type) {
+            return type == ITEM_STACK_TYPE ? this.handlers : Collections.emptyList();
+        }
+
+        @Override
+        public int getPriority() {
+            return 0;
+        }
+    }
+
+    /**
+     * Stands in for the inventory behind a storage bus, counting how often its whole content is listed.
+     */
+    private static final class ExternalInventory implements IMEInventory<IAEItemStack> {
+
+        private final IItemList<IAEItemStack> stored = new ItemList();
+        private int listings;
+
+        @Override
+        public IAEItemStack injectItems(final IAEItemStack input, final Actionable type, final BaseActionSource src) {
+            if (type == Actionable.MODULATE) {
+                this.stored.add(input);
+            }
+            return null;
+        }
+
+        @Override
+        public IAEItemStack extractItems(final IAEItemStack request, final Actionable mode,
+                final BaseActionSource src) {
+            return null;
+        }
+
+        @Override
+        public IItemList<IAEItemStack> getAvailableItems(final IItemList<IAEItemStack> out, final int iteration) {
+            this.listings++;
+            for (final IAEItemStack stack : this.stored) {
+                out.add(stack);
+            }
+            return out;
+        }
+
+        @Override
+        public IAEItemStack getAvailableItem(@Nonnull final IAEItemStack request, final int iteration) {
+            final IAEItemStack found = this.stored.findPrecise(request);
+            return found == null ? null : found.copy();
+        }
+
+        @Nonnull
+        @Override
+        public IAEStackType<?> getStackType() {
+            return ITEM_STACK_TYPE;
+        }
+    }
+
+    private static IAEItemStack diamonds(final long amount) {
+        return AEItemStack.create(new ItemStack(Items.diamond)).setStackSize(amount);
+    }
+
+    private static IAEItemStack sticks(final long amount) {
+        return AEItemStack.create(new ItemStack(Items.stick)).setStackSize(amount);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static IMEInventoryHandler<IAEItemStack> newCell(final IAEItemStack... content) {
+        final ItemStack cell = AEApi.instance().definitions().items().cellUniverse().maybeStack(1).get();
+        final IMEInventoryHandler<IAEItemStack> handler = (IMEInventoryHandler<IAEItemStack>) CellInventory
+                .getCell(cell, null, ITEM_STACK_TYPE);
+        for (final IAEItemStack stack : content) {
+            assertNull(handler.injectItems(stack.copy(), Actionable.MODULATE, null));
+        }
+        return handler;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static IMEMonitor<IAEItemStack> getItemMonitor(final GridStorageCache storage) {
+        return (IMEMonitor<IAEItemStack>) storage.getMEMonitor(ITEM_STACK_TYPE);
+    }
+
+    private static List<StoredLocation> find(final GridStorageCache storage, final IAEItemStack stack) {
+        return storage.getStorageLocations().find(stack);
+    }
+
+    @Test
+    void cellsAreIndexedPerProviderWithTheirStoredStacks() {
+        final GridStorageCache storage = new MockGrid().getCache(IStorageGrid.class);
+        final TestProvider first = new TestProvider();
+        final TestProvider second = new TestProvider();
+        final IMEInventoryHandler<IAEItemStack> sticksCell = newCell(sticks(5));
+        final IMEInventoryHandler<IAEItemStack> mixedCell = newCell(sticks(2), diamonds(3));
+        first.handlers.add(sticksCell);
+        second.handlers.add(mixedCell);
+        storage.registerCellProvider(first);
+        storage.registerCellProvider(second);
+
+        final List<StoredLocation> stickLocations = find(storage, sticks(1));
+        assertEquals(2, stickLocations.size());
+        for (final StoredLocation location : stickLocations) {
+            if (location.getProvider() == first) {
+                assertSame(sticksCell, location.getHandler());
+                assertEquals(5, location.getStored().getStackSize());
+            } else {
+                assertSame(second, location.getProvider());
+                assertSame(mixedCell, location.getHandler());
+                assertEquals(2, location.getStored().getStackSize());
+            }
+        }
+
+        final List<StoredLocation> diamondLocations = find(storage, diamonds(1));
+        assertEquals(1, diamondLocations.size());
+        assertSame(second, diamondLocations.get(0).getProvider());
+
+        storage.unregisterCellProvider(second);
+        assertEquals(1, find(storage, sticks(1)).size());
+        assertTrue(find(storage, diamonds(1)).isEmpty());
+    }
+
+    @Test
+    void networkInjectionsAndExtractionsUpdateTheIndex() {
+        final GridStorageCache storage = new MockGrid().getCache(IStorageGrid.class);
+        final TestProvider provider = new TestProvider();
+        final IMEInventoryHandler<IAEItemStack> cell = newCell();
+        provider.handlers.add(cell);
+        storage.registerCellProvider(provider);
+        assertTrue(find(storage, diamonds(1)).isEmpty());
+
+        final IMEMonitor<IAEItemStack> monitor = getItemMonitor(storage);
+        final BaseActionSource src = new BaseActionSource();
+        assertNull(monitor.injectItems(diamonds(4), Actionable.MODULATE, src));
+
+        final List<StoredLocation> locations = find(storage, diamonds(1));
+        assertEquals(1, locations.size());
+        assertSame(cell, locations.get(0).getHandler());
+        assertEquals(4, locations.get(0).getStored().getStackSize());
+
+        monitor.extractItems(diamonds(4), Actionable.MODULATE, src);
+        assertTrue(find(storage, diamonds(1)).isEmpty());
+    }
+
+    @Test
+    void cellArrayUpdatesDoNotListExternalInventories() {
+        final GridStorageCache storage = new MockGrid().getCache(IStorageGrid.class);
+        final TestProvider provider = new TestProvider();
+        final ExternalInventory external = new ExternalInventory();
+        external.injectItems(sticks(7), Actionable.MODULATE, null);
+        provider.handlers.add(new MEPassThrough<>(external, ITEM_STACK_TYPE));
+        storage.registerCellProvider(provider);
+        // listed once to post its content to the network
+        assertEquals(1, external.listings);
+
+        final IMEInventoryHandler<IAEItemStack> cell = newCell(diamonds(2));
+        provider.handlers.add(cell);
+        storage.cellUpdate(new MENetworkCellArrayUpdate());
+        assertEquals(1, external.listings);
+        assertEquals(1, find(storage, diamonds(1)).size());
+
+        final List<StoredLocation> locations = find(storage, sticks(1));
+        assertEquals(1, locations.size());
+        assertSame(provider, locations.get(0).getProvider());
+        assertEquals(7, locations.get(0).getStored().getStackSize());
+        assertEquals(1, external.listings);
+
+        // swapped out cells are dropped
+        provider.handlers.remove(cell);
+        storage.cellUpdate(new MENetworkCellArrayUpdate());
+        assertTrue(find(storage, diamonds(1)).isEmpty());
+    }
+}
@@ -0,0 +1,217 @@
+package appeng.test.me.storage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+
+import net.minecraft.init.Items;
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraftforge.fluids.FluidRegistry;
+import net.minecraftforge.fluids.FluidStack;
+
+import org.junit.jupiter.api.Test;
+
+import appeng.api.AEApi;
+import appeng.api.config.Actionable;
+import appeng.api.exceptions.AppEngException;
+import appeng.api.storage.data.IAEFluidStack;
+import appeng.api.storage.data.IAEItemStack;
+import appeng.api.storage.data.IItemList;
+import appeng.core.AEConfig;
+import appeng.me.storage.FluidCellInventory;
+import appeng.me.storage.ItemCellInventory;
+import appeng.util.item.AEFluidStack;
+import appeng.util.item.AEItemStack;
+import appeng.util.item.FluidList;
+import appeng.util.item.ItemList;
+
+public class CellStorageFormatFunctionalTest {
+
+    private static final String STACK_DATA = "StackData";
+    private static final String FIRST_SLOT = "#0";
+    private static final long HUGE = (3L << 31) + 5;
+
+    private static ItemStack universeCell() {
+        return AEApi.instance().definitions().items().cellUniverse().maybeStack(1).get();
+    }
+
+    private static IAEItemStack item(final ItemStack is, final long amount) {
+        return AEItemStack.create(is).setStackSize(amount);
+    }
+
+    private static IAEItemStack[] testItems() {
+        final ItemStack named = new ItemStack(Items.paper);
+        named.setStackDisplayName("Notes");
+        final ItemStack damaged = new ItemStack(Items.diamond_sword, 1, 17);
+        damaged.setStackDisplayName("Notes");
+        final ItemStack enchanted = new ItemStack(Items.diamond_sword, 1, 3);
+        enchanted.setTagCompound(new NBTTagCompound());
+        enchanted.getTagCompound().setInteger("RepairCost", 4);
+
+        return new IAEItemStack[] { item(new ItemStack(Items.stick), 1), item(named, HUGE),
+                item(new ItemStack(Items.diamond_sword), 2), item(damaged, 3), item(enchanted, Integer.MAX_VALUE),
+                item(new ItemStack(Items.dye, 1, 4), HUGE * 2) };
+    }
+
+    private static IAEFluidStack[] testFluids() {
+        final NBTTagCompound tag = new NBTTagCompound();
+        tag.setString("Owner", "test");
+        return new IAEFluidStack[] { AEFluidStack.create(new FluidStack(FluidRegistry.WATER, 1)).setStackSize(1000),
+                AEFluidStack.create(new FluidStack(FluidRegistry.LAVA, 1)).setStackSize(HUGE),
+                AEFluidStack.create(new FluidStack(FluidRegistry.LAVA, 1, tag)).setStackSize(7) };
+    }
+
+    private static void storeItems(final ItemStack cell, final IAEItemStack... stacks) throws AppEngException {
+        final ItemCellInventory inv = new ItemCellInventory(cell, null);
+        for (final IAEItemStack stack : stacks) {
+            assertNull(inv.injectItems(stack.copy(), Actionable.MODULATE, null), "Should fit: " + stack);
+        }
+    }
+
+    private static IItemList<IAEItemStack> readItems(final ItemStack cell) throws AppEngException {
+        return new ItemCellInventory(cell, null).getAvailableItems(new ItemList(), 1);
+    }
+
+    private static void assertItems(final ItemStack cell, final IAEItemStack... expected) throws AppEngException {
+        final IItemList<IAEItemStack> stored = readItems(cell);
+        assertEquals(expected.length, stored.size(), "Stored types: " + Arrays.toString(expected));
+        for (final IAEItemStack stack : expected) {
+            final IAEItemStack found = stored.findPrecise(stack);
+            assertNotNull(found, "Missing " + stack);
+            assertEquals(stack.getStackSize(), found.getStackSize(), "Amount of " + stack);
+        }
+    }
+
+    private static void setCompact(final boolean compact) {
+        AEConfig.instance.compactCellStorage = compact;
+    }
+
+    @Test
+    public void testItemsSurviveBothFormats() throws AppEngException {
+        final boolean previous = AEConfig.instance.compactCellStorage;
+        try {
+            for (final boolean compact : new boolean[] { false, true }) {
+                setCompact(compact);
+                final ItemStack cell = universeCell();
+                storeItems(cell, testItems());
+
+                assertEquals(compact, cell.getTagCompound().hasKey(STACK_DATA));
+                assertEquals(!compact, cell.getTagCompound().hasKey(FIRST_SLOT));
+                assertItems(cell, testItems());
+            }
+        } finally {
+            setCompact(previous);
+        }
+    }
+
+    @Test
+    public void testFluidsSurviveBothFormats() throws AppEngException {
+        final boolean previous = AEConfig.instance.compactCellStorage;
+        try {
+            for (final boolean compact : new boolean[] { false, true }) {
+                setCompact(compact);
+                // fluid cells come from an addon, the tags of any cell can hold fluids
+                final ItemStack cell = universeCell();
+                final FluidCellInventory inv = new FluidCellInventory(cell, null);
+                for (final IAEFluidStack stack : testFluids()) {
+                    assertNull(inv.injectItems(stack.copy(), Actionable.MODULATE, null), "Should fit: " + stack);
+                }
+
+                assertEquals(compact, cell.getTagCompound().hasKey(STACK_DATA));
+                final IItemList<IAEFluidStack> stored = new FluidCellInventory(cell, null)
+                        .getAvailableItems(new FluidList(), 1);
+                assertEquals(testFluids().length, stored.size());
+                for (final IAEFluidStack stack : testFluids()) {
+                    final IAEFluidStack found = stored.findPrecise(stack);
+                    assertNotNull(found, "Missing " + stack);
+                    assertEquals(stack.getStackSize(), found.getStackSize(), "Amount of " + stack);
+                }
+            }
+        } finally {
+            setCompact(previous);
+        }
+    }
+
+    @Test
+    public void testFormatChangesOnTheNextWrite() throws AppEngException {
+        final boolean previous = AEConfig.instance.compactCellStorage;
+        try {
+            for (final boolean compact : new boolean[] { false, true }) {
+                setCompact(!compact);
+                final ItemStack cell = universeCell();
+                storeItems(cell, testItems());
+                final NBTTagCompound written = (NBTTagCompound) cell.getTagCompound().copy();
+
+                // reading the cell doesn't rewrite it
+                setCompact(compact);
+                assertItems(cell, testItems());
+                assertEquals(written, cell.getTagCompound());
+
+                final IAEItemStack added = item(new ItemStack(Items.apple), 5);
+                storeItems(cell, added);
+
+                assertEquals(compact, cell.getTagCompound().hasKey(STACK_DATA), "Upgraded to compact: " + compact);
+                assertEquals(!compact, cell.getTagCompound().hasKey(FIRST_SLOT), "Downgraded: " + !compact);
+
+                final IAEItemStack[] expected = Arrays.copyOf(testItems(), testItems().length + 1);
+                expected[expected.length - 1] = added;
+                assertItems(cell, expected);
+            }
+        } finally {
+            setCompact(previous);
+        }
+    }
+
+    @Test
+    public void testUnreadableDataIsLeftAlone() throws AppEngException {
+        final boolean previous = AEConfig.instance.compactCellStorage;
+        try {
+            setCompact(true);
+            final ItemStack cell = universeCell();
+            storeItems(cell, item(new ItemStack(Items.stick), 1));
+            final byte[] data = cell.getTagCompound().getByteArray(STACK_DATA);
+
+            final byte[][] corrupt = { { 9 }, Arrays.copyOf(data, data.length / 2), data.clone() };
+            // the only entry is id index, damage, tag index and amount, point it at an id that isn't in the table
+            corrupt[2][data.length - 4] = 0x7F;
+
+            for (final byte[] bytes : corrupt) {
+                cell.getTagCompound().setByteArray(STACK_DATA, bytes);
+                assertEquals(0, readItems(cell).size());
+                assertArrayEquals(bytes, cell.getTagCompound().getByteArray(STACK_DATA));
+            }
+        } finally {
+            setCompact(previous);
+        }
+    }
+
+    @Test
+    public void testUnreadableCellsRefuseChanges() throws AppEngException {
+        final boolean previous = AEConfig.instance.compactCellStorage;
+        try {
+            for (final boolean compact : new boolean[] { false, true }) {
+                setCompact(compact);
+                final ItemStack cell = universeCell();
+                final IAEItemStack stick = item(new ItemStack(Items.stick), 1);
+                storeItems(cell, stick);
+
+                // data written by a future version, and data that is cut off
+                final byte[][] unreadable = { { 2, 0, 0, 0 }, { 1, 1 } };
+                for (final byte[] bytes : unreadable) {
+                    cell.getTagCompound().setByteArray(STACK_DATA, bytes);
+                    final NBTTagCompound written = (NBTTagCompound) cell.getTagCompound().copy();
+
+                    final ItemCellInventory inv = new ItemCellInventory(cell, null);
+                    final IAEItemStack apple = item(new ItemStack(Items.apple), 5);
+                    assertEquals(5, inv.injectItems(apple.copy(), Actionable.MODULATE, null).getStackSize());
+                    assertNull(inv.extractItems(stick.copy(), Actionable.MODULATE, null));
+                    assertTrue(inv.isUnreadable());
+                    assertEquals(written, cell.getTagCompound());
+                }
+            }
+        } finally {
+            setCompact(previous);
+        }
+    }
+}
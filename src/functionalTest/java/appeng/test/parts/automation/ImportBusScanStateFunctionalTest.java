@@ -0,0 +1,358 @@
+package appeng.test.parts.automation;
+
+import static appeng.util.item.AEFluidStackType.FLUID_STACK_TYPE;
+import static appeng.util.item.AEItemStackType.ITEM_STACK_TYPE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.init.Blocks;
+import net.minecraft.init.Items;
+import net.minecraft.inventory.IInventory;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+
+import org.junit.jupiter.api.Test;
+
+import appeng.api.AEApi;
+import appeng.api.config.Actionable;
+import appeng.api.networking.energy.IEnergyGrid;
+import appeng.api.networking.events.MENetworkCellArrayUpdate;
+import appeng.api.networking.events.MENetworkStorageEvent;
+import appeng.api.networking.security.BaseActionSource;
+import appeng.api.networking.ticking.TickRateModulation;
+import appeng.api.storage.IMEInventory;
+import appeng.api.storage.IMEMonitor;
+import appeng.api.storage.MEMonitorHandler;
+import appeng.api.storage.data.IAEItemStack;
+import appeng.api.storage.data.IAEStackType;
+import appeng.api.storage.data.IItemList;
+import appeng.me.helpers.AENetworkProxy;
+import appeng.me.storage.MEPassThrough;
+import appeng.parts.automation.ImportBusScanState;
+import appeng.parts.automation.PartImportBus;
+import appeng.test.mockme.MockGrid;
+import appeng.util.InventoryAdaptor;
+import appeng.util.inv.AdaptorIInventory;
+
+public class ImportBusScanStateFunctionalTest {
+
+    private static final int SLOTS = 2048;
+
+    private static final class TestInventory implements IInventory {
+
+        private final ItemStack[] slots = new ItemStack[SLOTS];
+
+        @Override
+        public int getSizeInventory() {
+            return this.slots.length;
+        }
+
+        @Override
+        public ItemStack getStackInSlot(final int slot) {
+            return this.slots[slot];
+        }
+
+        @Override
+        public ItemStack decrStackSize(final int slot, final int amount) {
+            final ItemStack is = this.slots[slot];
+            if (is == null) {
+                return null;
+            }
+            if (is.stackSize <= amount) {
+                this.slots[slot] = null;
+                return is;
+            }
+            return is.splitStack(amount);
+        }
+
+        @Override
+        public ItemStack getStackInSlotOnClosing(final int slot) {
+            return null;
+        }
+
+        @Override
+        public void setInventorySlotContents(final int slot, final ItemStack stack) {
+            this.slots[slot] = stack;
+        }
+
+        @Override
+        public String getInventoryName() {
+            return "test";
+        }
+
+        @Override
+        public boolean hasCustomInventoryName() {
+            return false;
+        }
+
+        @Override
+        public int getInventoryStackLimit() {
+            return 64;
+        }
+
+        @Override
+        public void markDirty() {}
+
+        @Override
+        public boolean isUseableByPlayer(final EntityPlayer player) {
+            return false;
+        }
+
+        @Override
+        public void openInventory() {}
+
+        @Override
+        public void closeInventory() {}
+
+        @Override
+        public boolean isItemValidForSlot(final int slot, final ItemStack stack) {
+            return true;
+        }
+    }
+
+    /**
+     * The network only takes iron ingots.
+     */
+    private static final class TestNetwork implements IMEInventory<IAEItemStack> {
+
+        private int simulations;
+        private long stored;
+
+        @Override
+        public IAEItemStack injectItems(final IAEItemStack input, final Actionable type,
+                final BaseActionSource src) {
+            if (input == null) {
+                return null;
+            }
+            if (type == Actionable.SIMULATE) {
+                this.simulations++;
+            }
+            if (input.getItem() != Items.iron_ingot) {
+                return input;
+            }
+            if (type == Actionable.MODULATE) {
+                this.stored += input.getStackSize();
+            }
+            return null;
+        }
+
+        @Override
+        public IAEItemStack extractItems(final IAEItemStack request, final Actionable mode,
+                final BaseActionSource src) {
+            return null;
+        }
+
+        @Override
+        public IItemList<IAEItemStack> getAvailableItems(final IItemList<IAEItemStack> out, final int iteration) {
+            return out;
+        }
+
+        @Override
+        public IAEStackType<?> getStackType() {
+            return ITEM_STACK_TYPE;
+        }
+    }
+
+    private static final class TestProxy extends AENetworkProxy {
+
+        private final IEnergyGrid energy;
+
+        private TestProxy(final PartImportBus bus, final IEnergyGrid energy) {
+            super(bus, "part", bus.getItemStack(), false);
+            this.energy = energy;
+        }
+
+        @Override
+        public boolean isActive() {
+            return true;
+        }
+
+        @Override
+        public IEnergyGrid getEnergy() {
+            return this.energy;
+        }
+    }
+
+    /**
+     * An import bus without a config on an active network, facing the test inventory.
+     */
+    private static final class TestImportBus extends PartImportBus {
+
+        private final InventoryAdaptor target;
+        private final IMEMonitor<IAEItemStack> monitor;
+        private final TestProxy testProxy;
+
+        private TestImportBus(final IInventory source, final TestNetwork network, final IEnergyGrid energy) {
+            super(AEApi.instance().definitions().parts().importBus().maybeStack(1).get());
+            this.target = new AdaptorIInventory(source);
+            this.monitor = new MEMonitorHandler<>(new MEPassThrough<>(network, ITEM_STACK_TYPE));
+            this.testProxy = new TestProxy(this, energy);
+        }
+
+        @Override
+        public AENetworkProxy getProxy() {
+            // the parts this extends already use the proxy while they are constructed
+            return this.testProxy == null ? super.getProxy() : this.testProxy;
+        }
+
+        @Override
+        protected Object getTarget() {
+            return this.target;
+        }
+
+        @Override
+        protected boolean canDoBusWork() {
+            return true;
+        }
+
+        @Override
+        protected IMEMonitor<IAEItemStack> getMonitor() {
+            return this.monitor;
+        }
+
+        private TickRateModulation tick() {
+            return this.tickingRequest(null, 1);
+        }
+    }
+
+    private static IEnergyGrid createEnergy(final boolean powered) {
+        final IEnergyGrid energy = new MockGrid().getCache(IEnergyGrid.class);
+        energy.setHasInfiniteStore(powered);
+        return energy;
+    }
+
+    private static TestInventory createFullInventory() {
+        final Item[] items = { Item.getItemFromBlock(Blocks.cobblestone), Item.getItemFromBlock(Blocks.dirt),
+                Item.getItemFromBlock(Blocks.sand), Item.getItemFromBlock(Blocks.gravel) };
+        final TestInventory inventory = new TestInventory();
+        for (int slot = 0; slot < SLOTS; slot++) {
+            if (slot % 7 != 0) {
+                inventory.slots[slot] = new ItemStack(items[slot % items.length], 1 + slot % 64);
+            }
+        }
+        return inventory;
+    }
+
+    @Test
+    public void testUnchangedInventoryIsNotSimulatedAgain() {
+        final TestNetwork network = new TestNetwork();
+        final TestImportBus bus = new TestImportBus(createFullInventory(), network, createEnergy(true));
+        for (int i = 0; i < 100; i++) {
+            bus.tick();
+        }
+
+        // without the scan state every operation simulates every filled slot, this is once per kind of item
+        assertEquals(4, network.simulations);
+        assertEquals(0, network.stored);
+    }
+
+    @Test
+    public void testChangesAreScanned() {
+        final TestNetwork network = new TestNetwork();
+        final TestInventory inventory = createFullInventory();
+        final TestImportBus bus = new TestImportBus(inventory, network, createEnergy(true));
+        bus.tick();
+        bus.tick();
+        assertEquals(4, network.simulations);
+
+        // a machine puts something into a slot at the end, a bus without upgrades takes one item per operation
+        inventory.slots[2000] = new ItemStack(Items.iron_ingot, 10);
+        for (int i = 0; i < 10; i++) {
+            assertEquals(TickRateModulation.FASTER, bus.tick());
+        }
+        assertEquals(10, network.stored);
+        assertNull(inventory.slots[2000]);
+
+        // the bus worked, so it looks again before it rests
+        final int afterImport = network.simulations;
+        assertEquals(TickRateModulation.SLOWER, bus.tick());
+        bus.tick();
+        bus.tick();
+        assertEquals(afterImport, network.simulations);
+    }
+
+    @Test
+    public void testStorageChangesRetryRejectedStacks() {
+        final TestNetwork network = new TestNetwork();
+        final TestImportBus bus = new TestImportBus(createFullInventory(), network, createEnergy(true));
+        bus.tick();
+        bus.tick();
+        assertEquals(4, network.simulations);
+
+        // other kinds of storage don't matter to an item bus
+        bus.storageChanged(new MENetworkStorageEvent(bus.getMonitor(), FLUID_STACK_TYPE));
+        bus.tick();
+        assertEquals(4, network.simulations);
+
+        bus.storageChanged(new MENetworkStorageEvent(bus.getMonitor(), ITEM_STACK_TYPE));
+        bus.tick();
+        bus.tick();
+        assertEquals(8, network.simulations);
+
+        bus.cellsChanged(new MENetworkCellArrayUpdate());
+        bus.tick();
+        bus.tick();
+        assertEquals(12, network.simulations);
+    }
+
+    @Test
+    public void testPassesWithoutPowerDontRest() {
+        final TestNetwork network = new TestNetwork();
+        final IEnergyGrid energy = createEnergy(false);
+        final TestImportBus bus = new TestImportBus(createFullInventory(), network, energy);
+
+        // nothing can be imported, but the bus didn't look at anything either
+        bus.tick();
+        assertEquals(0, network.simulations);
+
+        energy.setHasInfiniteStore(true);
+        bus.tick();
+        assertEquals(4, network.simulations);
+        bus.tick();
+        assertEquals(4, network.simulations);
+    }
+
+    @Test
+    public void testSkippedTicksBackOff() {
+        final TestImportBus bus = new TestImportBus(createFullInventory(), new TestNetwork(), createEnergy(true));
+        assertEquals(TickRateModulation.SLOWER, bus.tick());
+
+        for (int i = 0; i < 8; i++) {
+            assertEquals(TickRateModulation.SLOWER, bus.tick());
+        }
+        assertEquals(TickRateModulation.IDLE, bus.tick());
+    }
+
+    @Test
+    public void testScanStateSeesChangedSlots() {
+        final ImportBusScanState state = new ImportBusScanState();
+        final TestInventory inventory = createFullInventory();
+        final AdaptorIInventory adaptor = new AdaptorIInventory(inventory);
+
+        assertTrue(state.needsScan(adaptor));
+        state.afterScan(adaptor, true);
+        assertFalse(state.needsScan(adaptor));
+
+        // a stack grows in place
+        inventory.slots[5].stackSize++;
+        assertTrue(state.needsScan(adaptor));
+        state.afterScan(adaptor, true);
+        assertFalse(state.needsScan(adaptor));
+
+        // a stack is replaced in the last range
+        inventory.slots[SLOTS - 1] = new ItemStack(Items.iron_ingot);
+        assertTrue(state.needsScan(adaptor));
+        state.afterScan(adaptor, false);
+
+        // the bus worked, so it looks again before it rests
+        assertTrue(state.needsScan(adaptor));
+        state.afterScan(adaptor, true);
+        assertFalse(state.needsScan(adaptor));
+
+        state.reset();
+        assertTrue(state.needsScan(adaptor));
+    }
+}
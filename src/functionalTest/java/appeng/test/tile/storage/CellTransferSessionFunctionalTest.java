@@ -0,0 +1,264 @@
+package appeng.test.tile.storage;
+
+import static appeng.util.item.AEItemStackType.ITEM_STACK_TYPE;
+import static org.junit.jupiter.api.Assertions.*;
+
+import net.minecraft.init.Items;
+import net.minecraft.item.ItemStack;
+
+import org.junit.jupiter.api.Test;
+
+import appeng.api.config.Actionable;
+import appeng.api.networking.energy.IEnergySource;
+import appeng.api.networking.security.BaseActionSource;
+import appeng.api.storage.IMEInventory;
+import appeng.api.storage.data.IAEItemStack;
+import appeng.api.storage.data.IAEStack;
+import appeng.api.storage.data.IAEStackType;
+import appeng.api.storage.data.IItemList;
+import appeng.tile.storage.CellTransferSession;
+import appeng.util.item.AEItemStack;
+import appeng.util.item.ItemList;
+
+public class CellTransferSessionFunctionalTest {
+
+    private static final IEnergySource INFINITE_ENERGY = (amt, mode, multiplier) -> amt;
+
+    private static final class TestInventory implements IMEInventory<IAEItemStack> {
+
+        private final IItemList<IAEItemStack> stored = new ItemList();
+        private final long capacity;
+        private long count;
+        private int listings;
+        private int simulations;
+        // like a storage bus on extract-only storage
+        private boolean extractOnly;
+        // simulations succeed, but the items are refused when they arrive
+        private boolean refusesOnModulate;
+
+        private TestInventory(final long capacity) {
+            this.capacity = capacity;
+        }
+
+        @Override
+        public IAEItemStack injectItems(final IAEItemStack input, final Actionable type,
+                final BaseActionSource src) {
+            if (type == Actionable.SIMULATE) {
+                this.simulations++;
+            }
+            if (this.extractOnly || (this.refusesOnModulate && type == Actionable.MODULATE)) {
+                return input;
+            }
+            final long accepted = Math.min(input.getStackSize(), this.capacity - this.count);
+            if (accepted <= 0) {
+                return input;
+            }
+            if (type == Actionable.MODULATE) {
+                this.stored.add(input.copy().setStackSize(accepted));
+                this.count += accepted;
+            }
+            return accepted == input.getStackSize() ? null : input.copy().setStackSize(input.getStackSize() - accepted);
+        }
+
+        @Override
+        public IAEItemStack extractItems(final IAEItemStack request, final Actionable mode,
+                final BaseActionSource src) {
+            final IAEItemStack stack = this.stored.findPrecise(request);
+            if (stack == null || stack.getStackSize() <= 0) {
+                return null;
+            }
+            final long extracted = Math.min(stack.getStackSize(), request.getStackSize());
+            if (mode == Actionable.MODULATE) {
+                stack.decStackSize(extracted);
+                this.count -= extracted;
+            }
+            return request.copy().setStackSize(extracted);
+        }
+
+        @Override
+        public IItemList<IAEItemStack> getAvailableItems(final IItemList<IAEItemStack> out, final int iteration) {
+            this.listings++;
+            for (final IAEItemStack stack : this.stored) {
+                out.add(stack);
+            }
+            return out;
+        }
+
+        @Override
+        public IAEStackType<?> getStackType() {
+            return ITEM_STACK_TYPE;
+        }
+    }
+
+    private static TestInventory createSource(final int types, final long amount) {
+        final TestInventory source = new TestInventory(Long.MAX_VALUE);
+        for (int damage = 0; damage < types; damage++) {
+            source.injectItems(
+                    AEItemStack.create(new ItemStack(Items.paper, 1, damage)).setStackSize(amount),
+                    Actionable.MODULATE,
+                    new BaseActionSource());
+        }
+        return source;
+    }
+
+    @Test
+    void listsTheSourceOncePerPass() {
+        final int types = 10_000;
+        final TestInventory source = createSource(types, 3);
+        final TestInventory destination = new TestInventory(Long.MAX_VALUE);
+        final CellTransferSession session = new CellTransferSession(source, destination, new BaseActionSource(), true);
+
+        CellTransferSession.Result result;
+        int transfers = 0;
+        do {
+            result = session.transfer(INFINITE_ENERGY, 64);
+            transfers++;
+        } while (!result.isSourceEmpty() && transfers < types);
+
+        assertTrue(result.isSourceEmpty());
+        assertEquals(1, session.getListings());
+        assertEquals(1, source.listings);
+        assertEquals(0, source.count);
+        assertEquals(3L * types, destination.count);
+        assertEquals(types, destination.stored.size());
+    }
+
+    @Test
+    void continuesWithThePartiallyMovedStack() {
+        final TestInventory source = createSource(2, 100);
+        final TestInventory destination = new TestInventory(Long.MAX_VALUE);
+        final CellTransferSession session = new CellTransferSession(source, destination, new BaseActionSource(), true);
+
+        final CellTransferSession.Result first = session.transfer(INFINITE_ENERGY, 60);
+        assertEquals(0, first.getItemsLeftToMove());
+        assertFalse(first.isSourceEmpty());
+        assertEquals(1, destination.stored.size());
+
+        final CellTransferSession.Result second = session.transfer(INFINITE_ENERGY, 60);
+        assertEquals(0, second.getItemsLeftToMove());
+        assertEquals(2, destination.stored.size());
+        assertEquals(80, source.count);
+        for (final IAEItemStack stack : destination.stored) {
+            // the first stack was finished before moving on to the second one
+            assertTrue(stack.getStackSize() == 100 || stack.getStackSize() == 20, stack::toString);
+        }
+        assertEquals(1, session.getListings());
+    }
+
+    @Test
+    void reportsFullDestinationAndKeepsTheRest() {
+        final TestInventory source = createSource(4, 10);
+        final TestInventory destination = new TestInventory(25);
+        final CellTransferSession session = new CellTransferSession(source, destination, new BaseActionSource(), true);
+
+        final CellTransferSession.Result result = session.transfer(INFINITE_ENERGY, 1000);
+        assertTrue(result.isDestinationFull());
+        assertFalse(result.isSourceEmpty());
+        assertEquals(25, destination.count);
+        assertEquals(15, source.count);
+    }
+
+    @Test
+    void insertsOnceWhileTheDestinationTakesEverything() {
+        final TestInventory source = createSource(100, 10);
+        final TestInventory destination = new TestInventory(Long.MAX_VALUE);
+        final CellTransferSession session = new CellTransferSession(source, destination, new BaseActionSource(), true);
+
+        final CellTransferSession.Result result = session.transfer(INFINITE_ENERGY, 1000);
+        assertTrue(result.isSourceEmpty());
+        assertEquals(1000, destination.count);
+        assertEquals(0, destination.simulations);
+    }
+
+    @Test
+    void returnsRefusedStacksAndSimulatesAfterwards() {
+        final TestInventory source = createSource(4, 10);
+        final TestInventory destination = new TestInventory(15);
+        final CellTransferSession session = new CellTransferSession(source, destination, new BaseActionSource(), true);
+
+        final CellTransferSession.Result result = session.transfer(INFINITE_ENERGY, 1000);
+        assertTrue(result.isDestinationFull());
+        assertFalse(result.isSourceEmpty());
+        assertEquals(15, destination.count);
+        assertEquals(25, source.count);
+        assertNull(session.getLeftover());
+        // the two stacks after the refused one were only simulated
+        assertEquals(2, destination.simulations);
+    }
+
+    @Test
+    void doesNotExtractWhatTheDestinationRefuses() {
+        final TestInventory source = createSource(4, 10);
+        source.extractOnly = true;
+        final TestInventory destination = new TestInventory(0);
+        // without a place for a leftover, every insert is simulated first
+        final CellTransferSession session = new CellTransferSession(source, destination, new BaseActionSource(), false);
+
+        final CellTransferSession.Result result = session.transfer(INFINITE_ENERGY, 1000);
+        assertTrue(result.isDestinationFull());
+        assertFalse(result.isSourceEmpty());
+        assertEquals(40, source.count);
+        assertEquals(0, destination.count);
+        assertNull(session.takeLeftover());
+    }
+
+    @Test
+    void keepsWhatNeitherSideTakesBack() {
+        final TestInventory source = createSource(4, 10);
+        source.extractOnly = true;
+        final TestInventory destination = new TestInventory(Long.MAX_VALUE);
+        destination.refusesOnModulate = true;
+        final CellTransferSession session = new CellTransferSession(source, destination, new BaseActionSource(), true);
+
+        final CellTransferSession.Result first = session.transfer(INFINITE_ENERGY, 1000);
+        assertTrue(first.isDestinationFull());
+        assertFalse(first.isSourceEmpty());
+        assertEquals(30, source.count);
+        assertEquals(0, destination.count);
+
+        // nothing else is extracted while the leftover has no place
+        final CellTransferSession.Result second = session.transfer(INFINITE_ENERGY, 1000);
+        assertTrue(second.isDestinationFull());
+        assertEquals(30, source.count);
+
+        // the leftover goes to the destination once it takes items again
+        destination.refusesOnModulate = false;
+        final CellTransferSession.Result third = session.transfer(INFINITE_ENERGY, 1000);
+        assertEquals(40, destination.count);
+        assertEquals(0, source.count);
+        // the leftover isn't counted again, it was counted when it was extracted
+        assertEquals(970, third.getItemsLeftToMove());
+        assertNull(session.takeLeftover());
+    }
+
+    @Test
+    void handsOutTheLeftover() {
+        final TestInventory source = createSource(1, 10);
+        source.extractOnly = true;
+        final TestInventory destination = new TestInventory(Long.MAX_VALUE);
+        destination.refusesOnModulate = true;
+        final CellTransferSession session = new CellTransferSession(source, destination, new BaseActionSource(), true);
+
+        session.transfer(INFINITE_ENERGY, 1000);
+        final IAEStack<?> leftover = session.takeLeftover();
+        assertNotNull(leftover);
+        assertEquals(10, leftover.getStackSize());
+        assertEquals(0, source.count + destination.count);
+        assertNull(session.takeLeftover());
+    }
+
+    @Test
+    void placesARestoredLeftoverFirst() {
+        final TestInventory source = createSource(1, 10);
+        final TestInventory destination = new TestInventory(Long.MAX_VALUE);
+        final CellTransferSession session = new CellTransferSession(source, destination, new BaseActionSource(), true);
+        session.setLeftover(AEItemStack.create(new ItemStack(Items.stick)).setStackSize(5));
+
+        // the leftover goes back to the source before it is listed, and moves along with the rest
+        final CellTransferSession.Result result = session.transfer(INFINITE_ENERGY, 1000);
+        assertNull(session.getLeftover());
+        assertEquals(0, source.count);
+        assertEquals(15, destination.count);
+        assertEquals(985, result.getItemsLeftToMove());
+    }
+}
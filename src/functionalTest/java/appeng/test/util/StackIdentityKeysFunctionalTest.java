@@ -0,0 +1,66 @@
+package appeng.test.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import net.minecraft.init.Items;
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraftforge.fluids.FluidRegistry;
+import net.minecraftforge.fluids.FluidStack;
+
+import org.junit.jupiter.api.Test;
+
+import appeng.api.storage.data.IAEFluidStack;
+import appeng.api.storage.data.IAEItemStack;
+import appeng.util.item.AEFluidStack;
+import appeng.util.item.AEItemStack;
+
+public class StackIdentityKeysFunctionalTest {
+
+    private static IAEItemStack item(final ItemStack is) {
+        return AEItemStack.create(is);
+    }
+
+    private static IAEFluidStack taggedLava(final String owner) {
+        final NBTTagCompound tag = new NBTTagCompound();
+        tag.setString("Owner", owner);
+        return AEFluidStack.create(new FluidStack(FluidRegistry.LAVA, 1, tag));
+    }
+
+    @Test
+    void itemKeysFollowItemDamageAndTag() {
+        final ItemStack named = new ItemStack(Items.paper);
+        named.setStackDisplayName("Notes");
+
+        final long paper = item(new ItemStack(Items.paper)).getIdentityKey();
+        assertEquals(paper, item(new ItemStack(Items.paper, 5)).getIdentityKey());
+        assertNotEquals(paper, item(new ItemStack(Items.paper, 1, 1)).getIdentityKey());
+        assertNotEquals(paper, item(named).getIdentityKey());
+        assertNotEquals(paper, item(new ItemStack(Items.stick)).getIdentityKey());
+        assertTrue(paper >= 1L << 48);
+    }
+
+    @Test
+    void damageOutsideOfAShortStillGetsAKey() {
+        final IAEItemStack huge = item(new ItemStack(Items.paper, 1, 1 << 20));
+        final long key = huge.getIdentityKey();
+
+        assertTrue(key < 0);
+        assertEquals(key, huge.copy().getIdentityKey());
+        assertEquals(key, item(new ItemStack(Items.paper, 1, 1 << 20)).getIdentityKey());
+        assertNotEquals(key, item(new ItemStack(Items.paper, 1, (1 << 20) + 1)).getIdentityKey());
+        assertNotEquals(key, item(new ItemStack(Items.paper)).getIdentityKey());
+    }
+
+    @Test
+    void otherStacksShareTheirKeyWhileOneIsAlive() {
+        final IAEFluidStack held = taggedLava("a");
+        final long key = held.getIdentityKey();
+
+        assertTrue(key < 0);
+        assertEquals(key, taggedLava("a").getIdentityKey());
+        assertEquals(key, held.copy().getIdentityKey());
+        assertNotEquals(key, taggedLava("b").getIdentityKey());
+        assertNotEquals(key, AEFluidStack.create(new FluidStack(FluidRegistry.LAVA, 1)).getIdentityKey());
+    }
+}
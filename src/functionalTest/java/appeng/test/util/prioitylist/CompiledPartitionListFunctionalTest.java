@@ -0,0 +1,152 @@
+package appeng.test.util.prioitylist;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import net.minecraft.init.Blocks;
+import net.minecraft.init.Items;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraftforge.fluids.FluidRegistry;
+import net.minecraftforge.fluids.FluidStack;
+import net.minecraftforge.oredict.OreDictionary;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import appeng.api.config.FuzzyMode;
+import appeng.api.storage.data.IAEItemStack;
+import appeng.api.storage.data.IAEStack;
+import appeng.api.storage.data.IItemList;
+import appeng.util.item.AEFluidStack;
+import appeng.util.item.AEItemStack;
+import appeng.util.item.IAEStackList;
+import appeng.util.item.ItemList;
+import appeng.util.prioitylist.CompiledPartitionList;
+import appeng.util.prioitylist.DefaultPriorityList;
+import appeng.util.prioitylist.FuzzyPriorityList;
+import appeng.util.prioitylist.IPartitionList;
+import appeng.util.prioitylist.MergedPriorityList;
+import appeng.util.prioitylist.OreFilteredList;
+import appeng.util.prioitylist.PrecisePriorityList;
+
+public class CompiledPartitionListFunctionalTest {
+
+    private static final String[] ORE_FILTERS = { "ingotIron", "ingot*", "dye*|ingotGold", "*Test*", "!ingotIron" };
+
+    private static final List<IAEItemStack> items = new ArrayList<>();
+
+    @BeforeAll
+    public static void createItems() {
+        OreDictionary.registerOre("ingotIron", new ItemStack(Items.iron_ingot));
+        OreDictionary.registerOre("ingotGold", new ItemStack(Items.gold_ingot));
+        OreDictionary.registerOre("ingotTestShared", new ItemStack(Items.iron_ingot));
+        OreDictionary.registerOre("ingotTestShared", new ItemStack(Items.gold_ingot));
+        OreDictionary.registerOre("dyeTestAny", new ItemStack(Items.dye, 1, OreDictionary.WILDCARD_VALUE));
+        OreDictionary.registerOre("dyeTestRed", new ItemStack(Items.dye, 1, 1));
+        OreDictionary.registerOre("toolTestSword", new ItemStack(Items.golden_sword, 1, OreDictionary.WILDCARD_VALUE));
+
+        for (final int damage : new int[] { 0, 1, 15, 16, 31, 32, 100, 780, 1170, 1500, 1560, 1561 }) {
+            items.add(AEItemStack.create(new ItemStack(Items.diamond_sword, 1, damage)));
+        }
+        for (final int damage : new int[] { 0, 1, 8, 16, 31, 32 }) {
+            items.add(AEItemStack.create(new ItemStack(Items.golden_sword, 1, damage)));
+        }
+        for (int meta = 0; meta < 16; meta++) {
+            items.add(AEItemStack.create(new ItemStack(Items.dye, 1, meta)));
+            items.add(AEItemStack.create(new ItemStack(Item.getItemFromBlock(Blocks.wool), 1, meta)));
+        }
+        items.add(AEItemStack.create(new ItemStack(Items.iron_ingot)));
+        items.add(AEItemStack.create(new ItemStack(Items.gold_ingot)));
+        items.add(AEItemStack.create(new ItemStack(Items.stick)));
+
+        final ItemStack namedSword = new ItemStack(Items.diamond_sword, 1, 300);
+        namedSword.setStackDisplayName("Named");
+        items.add(AEItemStack.create(namedSword));
+        final ItemStack taggedDye = new ItemStack(Items.dye, 1, 4);
+        taggedDye.setTagCompound(new NBTTagCompound());
+        taggedDye.getTagCompound().setInteger("test", 1);
+        items.add(AEItemStack.create(taggedDye));
+    }
+
+    private static IItemList<IAEItemStack> randomItemList(final Random random) {
+        final IItemList<IAEItemStack> list = new ItemList();
+        final int size = 1 + random.nextInt(6);
+        for (int i = 0; i < size; i++) {
+            list.add(items.get(random.nextInt(items.size())));
+        }
+        return list;
+    }
+
+    private static IPartitionList<IAEItemStack> randomList(final Random random, final boolean allowMerged) {
+        final FuzzyMode[] modes = FuzzyMode.values();
+        return switch (random.nextInt(allowMerged ? 5 : 4)) {
+            case 0 -> new PrecisePriorityList<>(randomItemList(random));
+            case 1, 2 -> new FuzzyPriorityList<>(randomItemList(random), modes[random.nextInt(modes.length)]);
+            case 3 -> random.nextInt(4) == 0 ? new DefaultPriorityList<>()
+                    : new OreFilteredList(ORE_FILTERS[random.nextInt(ORE_FILTERS.length)]);
+            default -> {
+                final MergedPriorityList<IAEItemStack> merged = new MergedPriorityList<>();
+                final int lists = 1 + random.nextInt(4);
+                for (int i = 0; i < lists; i++) {
+                    merged.addNewList(randomList(random, false), random.nextBoolean());
+                }
+                yield merged;
+            }
+        };
+    }
+
+    @Test
+    public void testRandomConfigsGiveTheSameAnswers() {
+        final Random random = new Random(47);
+
+        for (int config = 0; config < 2000; config++) {
+            final IPartitionList<IAEItemStack> list = randomList(random, true);
+            final IPartitionList<IAEItemStack> compiled = CompiledPartitionList.compile(list);
+
+            assertEquals(list.isEmpty(), compiled.isEmpty());
+            for (final IAEItemStack input : items) {
+                assertEquals(list.isListed(input), compiled.isListed(input), () -> input + " in config " + list);
+            }
+        }
+    }
+
+    @Test
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public void testMixedListsGiveTheSameAnswers() {
+        final Random random = new Random(48);
+        final List<IAEStack<?>> inputs = new ArrayList<>(items);
+        inputs.add(AEFluidStack.create(new FluidStack(FluidRegistry.WATER, 1000)));
+        inputs.add(AEFluidStack.create(new FluidStack(FluidRegistry.LAVA, 1000)));
+
+        for (int config = 0; config < 500; config++) {
+            final MergedPriorityList merged = new MergedPriorityList();
+            final int lists = 1 + random.nextInt(3);
+            for (int i = 0; i < lists; i++) {
+                final IItemList list = new IAEStackList();
+                final int size = 1 + random.nextInt(6);
+                for (int j = 0; j < size; j++) {
+                    list.add(inputs.get(random.nextInt(inputs.size())));
+                }
+
+                final IPartitionList sublist = switch (random.nextInt(3)) {
+                    case 0 -> new PrecisePriorityList(list);
+                    case 1 -> new FuzzyPriorityList(
+                            list,
+                            FuzzyMode.values()[random.nextInt(FuzzyMode.values().length)]);
+                    default -> new OreFilteredList(ORE_FILTERS[random.nextInt(ORE_FILTERS.length)]);
+                };
+                merged.addNewList(sublist, random.nextBoolean());
+            }
+
+            final IPartitionList compiled = CompiledPartitionList.compile(merged);
+            for (final IAEStack<?> input : inputs) {
+                assertEquals(merged.isListed(input), compiled.isListed(input), input + " in config " + config);
+            }
+        }
+    }
+}
@@ -38,4 +38,14 @@ public interface IStackWatcherHost {
      * @param chan      storage channel
      */
     void onStackChange(IItemList o, IAEStack fullStack, IAEStack diffStack, BaseActionSource src, StorageChannel chan);
+
+    /**
+     * Network monitors collect the changes of a tick and report them once per tick, merged per stack. Return true to
+     * be notified of every single change right away instead. Only asked when the watcher of the host is created.
+     *
+     * @return true if changes have to be reported immediately
+     */
+    default boolean requiresImmediateChanges() {
+        return false;
+    }
 }
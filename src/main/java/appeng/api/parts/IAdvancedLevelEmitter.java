@@ -22,4 +22,12 @@ public interface IAdvancedLevelEmitter
     boolean isSlotInverted(int slot);
 
     void setSlotInverted(int slot, boolean inverted);
+
+    /**
+     * Redstone output has to follow the network in the same tick.
+     */
+    @Override
+    default boolean requiresImmediateChanges() {
+        return true;
+    }
 }
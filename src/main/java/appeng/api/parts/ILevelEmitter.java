@@ -26,4 +26,12 @@ public interface ILevelEmitter
     }
 
     default void updateEmitableStatus(IAEStack<?> stack) {}
+
+    /**
+     * Redstone output has to follow the network in the same tick.
+     */
+    @Override
+    default boolean requiresImmediateChanges() {
+        return true;
+    }
 }
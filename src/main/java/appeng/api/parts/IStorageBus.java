@@ -33,4 +33,12 @@ public interface IStorageBus
     default IItemList getItemList() {
         return getStackType().createList();
     }
+
+    /**
+     * The network of the storage bus has to see the changes of the inventory it is attached to in the same tick.
+     */
+    @Override
+    default boolean requiresImmediateChanges() {
+        return true;
+    }
 }
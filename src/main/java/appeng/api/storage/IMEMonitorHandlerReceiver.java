@@ -34,6 +34,16 @@ public interface IMEMonitorHandlerReceiver<StackType extends IAEStack> {
      */
     void postChange(IBaseMonitor<StackType> monitor, Iterable<StackType> change, BaseActionSource actionSource);
 
+    /**
+     * Network monitors collect the changes of a tick and post them once per tick, merged per stack. Return true to
+     * receive every single change right away instead. Only asked when the receiver is added to a monitor.
+     *
+     * @return true if changes have to be posted immediately
+     */
+    default boolean requiresImmediateChanges() {
+        return false;
+    }
+
     /**
      * called when the list updates its contents, this is mostly for handling power events.
      */
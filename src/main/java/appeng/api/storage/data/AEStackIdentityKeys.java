@@ -0,0 +1,44 @@
+package appeng.api.storage.data;
+
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.collect.MapMaker;
+
+/**
+ * Hands out the {@link IAEStack#getIdentityKey()} of stacks that have no cheaper key of their own. Their keys are
+ * negative.
+ * <p>
+ * Every stack that asked for a key keeps the identity of its type alive, equal stacks share it. Once no stack holds the
+ * identity anymore it is forgotten, and the next stack of that type gets a new key. Keys are never handed out twice.
+ */
+public final class AEStackIdentityKeys {
+
+    // weak keys compare by identity, so every stack instance holds the identity it was given
+    private static final ConcurrentMap<IAEStack<?>, Identity> HELD = new MapMaker().weakKeys().makeMap();
+    private static final ConcurrentMap<IAEStack<?>, Identity> BY_TYPE = new MapMaker().weakValues().makeMap();
+    private static final AtomicLong NEXT_KEY = new AtomicLong(-1);
+
+    private static final class Identity {
+
+        private final long key;
+
+        private Identity(final long key) {
+            this.key = key;
+        }
+    }
+
+    private AEStackIdentityKeys() {}
+
+    public static long getKey(final IAEStack<?> stack) {
+        Identity identity = HELD.get(stack);
+        if (identity == null) {
+            identity = BY_TYPE.get(stack);
+            if (identity == null) {
+                identity = BY_TYPE.computeIfAbsent(stack.copy(), k -> new Identity(NEXT_KEY.getAndDecrement()));
+            }
+            HELD.put(stack, identity);
+        }
+        return identity.key;
+    }
+}
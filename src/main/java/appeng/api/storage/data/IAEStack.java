@@ -260,6 +260,18 @@ public interface IAEStack<StackType extends IAEStack> {
     @Override
     boolean equals(Object obj);
 
+    /**
+     * A primitive key for the type of this stack, ignoring amounts: equal for stacks that are {@link #equals equal}
+     * and different otherwise. Meant for long keyed collections in hot paths.
+     * <p>
+     * Keys are only guaranteed to stay stable while a stack of that type is alive, keep one next to the key.
+     *
+     * @return identity key, never 0
+     */
+    default long getIdentityKey() {
+        return AEStackIdentityKeys.getKey(this);
+    }
+
     /**
      * compare stacks using fuzzy logic
      * <p>
@@ -44,6 +44,7 @@ import org.lwjgl.opengl.GL11;
 import com.gtnewhorizon.gtnhlib.event.PickBlockEvent;
 
 import appeng.api.parts.CableRenderMode;
+import appeng.api.storage.data.IAEItemStack;
 import appeng.api.util.AEColor;
 import appeng.block.AEBaseBlock;
 import appeng.client.render.BaseBlockRender;
@@ -69,6 +70,7 @@ import appeng.core.AELog;
 import appeng.core.CommonHelper;
 import appeng.core.sync.network.NetworkHandler;
 import appeng.core.sync.packets.PacketAssemblerAnimation;
+import appeng.core.sync.packets.PacketAssemblerAnimations;
 import appeng.core.sync.packets.PacketValueConfig;
 import appeng.entity.EntityFloatingItem;
 import appeng.entity.EntityTinyTNTPrimed;
@@ -188,7 +190,16 @@ public class ClientHelper extends ServerHelper {
 
     private void spawnAssembler(final World worldObj, final double posX, final double posY, final double posZ,
             final Object o) {
-        final PacketAssemblerAnimation paa = (PacketAssemblerAnimation) o;
+        final byte rate;
+        final IAEItemStack is;
+        if (o instanceof PacketAssemblerAnimations.Animation animation) {
+            rate = animation.rate;
+            is = animation.is;
+        } else {
+            final PacketAssemblerAnimation paa = (PacketAssemblerAnimation) o;
+            rate = paa.rate;
+            is = paa.is;
+        }
 
         final AssemblerFX fx = new AssemblerFX(
                 Minecraft.getMinecraft().theWorld,
@@ -198,8 +209,8 @@ public class ClientHelper extends ServerHelper {
                 0.0D,
                 0.0D,
                 0.0D,
-                paa.rate,
-                paa.is);
+                rate,
+                is);
         Minecraft.getMinecraft().effectRenderer.addEffect(fx);
     }
 
@@ -57,9 +57,8 @@ import appeng.api.networking.security.BaseActionSource;
 import appeng.api.networking.security.IActionHost;
 import appeng.api.networking.security.ISecurityGrid;
 import appeng.api.networking.security.PlayerSource;
+import appeng.api.networking.storage.IStorageGrid;
 import appeng.api.parts.IPart;
-import appeng.api.storage.IMEInventoryHandler;
-import appeng.api.storage.StorageChannel;
 import appeng.api.storage.StorageName;
 import appeng.api.storage.data.IAEItemStack;
 import appeng.api.storage.data.IAEStack;
@@ -99,16 +98,15 @@ import appeng.helpers.InventoryAction;
 import appeng.helpers.WirelessTerminalGuiObject;
 import appeng.items.materials.ItemMultiMaterial;
 import appeng.me.Grid;
-import appeng.me.MachineSet;
 import appeng.me.NetworkList;
+import appeng.me.cache.GridStorageCache;
 import appeng.me.cache.ItemFlowGridCache;
-import appeng.me.storage.MEInventoryHandler;
+import appeng.me.cache.StorageLocationIndex.StoredLocation;
 import appeng.parts.automation.UpgradeInventory;
 import appeng.parts.misc.PartStorageBus;
 import appeng.tile.inventory.IAEStackInventory;
 import appeng.tile.storage.TileChest;
 import appeng.tile.storage.TileDrive;
-import appeng.util.IterationCounter;
 import appeng.util.Platform;
 import appeng.util.item.AEItemStack;
 import io.netty.buffer.ByteBuf;
@@ -794,8 +792,6 @@ public abstract class AEBaseContainer extends Container {
                 }
             }
             case FIND_ITEMS -> {
-                final Class<? extends IGridHost>[] checkedMachineClasses = new Class[] { TileDrive.class,
-                        TileChest.class, PartStorageBus.class, };
                 if (slotItem == null) return;
 
                 IGrid g = null;
@@ -812,86 +808,58 @@ public abstract class AEBaseContainer extends Container {
 
                 List<ItemSearchDTO> coords = new ArrayList<>();
 
-                List<IGridNode> machineList = new ArrayList<>();
-                Class<? extends IGridHost> classType = null;
-                if (slotItem.getChannel() == StorageChannel.ITEMS) {
-                    classType = PartStorageBus.class;
-                } else if (slotItem.getChannel() == StorageChannel.FLUIDS) {
-                    // TODO Support Fluids for item searching
-                }
-
                 // Retrieve list of all grids
-                NetworkList grids = g.getAllRecursiveGridConnections(classType);
+                NetworkList grids = g.getAllRecursiveGridConnections(PartStorageBus.class);
 
                 for (Grid subnet : grids) {
-                    for (Class<? extends IGridHost> type : checkedMachineClasses) {
-                        MachineSet subMachines = (MachineSet) subnet.getMachines(type);
-                        if (!subMachines.isEmpty()) {
-                            machineList.addAll(subMachines);
+                    if (!(subnet.getCache(IStorageGrid.class) instanceof GridStorageCache storage)) continue;
+
+                    for (StoredLocation location : storage.getStorageLocations().find(slotItem)) {
+                        if (!(location.getProvider() instanceof IActionHost machine)) continue;
+
+                        final IGridNode gridNode = machine.getActionableNode();
+                        if (gridNode == null) continue;
+
+                        final HighlightNameData machineNameData = this
+                                .getHighlightNameData(gridNode, gridNode.getMachine());
+                        final IAEStack<?> result = location.getStored();
+
+                        if (machine instanceof TileDrive innerMachine) {
+                            for (int i = 0; i < innerMachine.getSizeInventory(); i++) {
+                                if (innerMachine.getCellInvBySlot(i) != location.getHandler()) continue;
+
+                                coords.add(
+                                        new ItemSearchDTO(
+                                                innerMachine.getLocation(),
+                                                result,
+                                                machineNameData.name,
+                                                machineNameData.translate,
+                                                i,
+                                                innerMachine.getForward(),
+                                                innerMachine.getUp()));
+                            }
                         }
-                    }
-                }
-
-                int machineCount = 0;
-                for (IGridNode gridNode : machineList) {
-                    if (machineCount > AEConfig.instance.maxMachineChecks) {
-                        break;
-                    }
-                    machineCount++;
-                    IGridHost machine = gridNode.getMachine();
-                    final HighlightNameData machineNameData = this.getHighlightNameData(gridNode, machine);
-
-                    if (machine instanceof TileDrive innerMachine) {
-                        for (int i = 0; i < innerMachine.getSizeInventory(); i++) {
-                            IMEInventoryHandler<IAEItemStack> cell = innerMachine.getCellInvBySlot(i);
-                            if (cell == null || cell.getChannel() != slotItem.getChannel()) continue;
-
-                            IAEStack<IAEItemStack> result = cell
-                                    .getAvailableItem(slotItem, IterationCounter.fetchNewId());
-                            if (result == null) continue;
+                        if (machine instanceof PartStorageBus innerMachine) {
+                            // Check if storageBus is subnet
+                            if (innerMachine.getConnectedGrid() != null
+                                    || innerMachine.getStackType() != ITEM_STACK_TYPE) {
+                                continue;
+                            }
 
                             coords.add(
                                     new ItemSearchDTO(
                                             innerMachine.getLocation(),
                                             result,
                                             machineNameData.name,
-                                            machineNameData.translate,
-                                            i,
-                                            innerMachine.getForward(),
-                                            innerMachine.getUp()));
-                        }
-                    }
-                    if (machine instanceof PartStorageBus innerMachine) {
-                        // Check if storageBus is subnet
-                        if (innerMachine.getConnectedGrid() != null || innerMachine.getStackType() != ITEM_STACK_TYPE) {
-                            continue;
+                                            machineNameData.translate));
                         }
-
-                        MEInventoryHandler<IAEItemStack> handler = innerMachine.getInternalHandler();
-                        if (handler == null) continue;
-                        IAEStack<IAEItemStack> result = handler
-                                .getAvailableItem(slotItem, IterationCounter.fetchNewId());
-                        if (result == null) continue;
-                        coords.add(
-                                new ItemSearchDTO(
-                                        innerMachine.getLocation(),
-                                        result,
-                                        machineNameData.name,
-                                        machineNameData.translate));
-                    }
-                    if (machine instanceof TileChest innerMachine) {
-                        try {
-                            IMEInventoryHandler handler = innerMachine.getHandler(slotItem.getStackType());
-                            IAEStack result = handler.getAvailableItem(slotItem, IterationCounter.fetchNewId());
-                            if (result == null) continue;
+                        if (machine instanceof TileChest innerMachine) {
                             coords.add(
                                     new ItemSearchDTO(
                                             innerMachine.getLocation(),
                                             result,
                                             machineNameData.name,
                                             machineNameData.translate));
-                        } catch (Exception e) {
-                            // :/
                         }
                     }
                 }
@@ -14,20 +14,15 @@ import net.minecraft.nbt.NBTTagList;
 import net.minecraft.nbt.NBTTagString;
 import net.minecraftforge.common.util.ForgeDirection;
 
-import org.jetbrains.annotations.NotNull;
-
-import appeng.api.AEApi;
 import appeng.api.config.CraftingAllow;
 import appeng.api.networking.IGrid;
 import appeng.api.networking.IGridHost;
 import appeng.api.networking.IGridNode;
-import appeng.api.networking.crafting.CraftingItemList;
 import appeng.api.networking.crafting.ICraftingCPU;
 import appeng.api.networking.security.BaseActionSource;
 import appeng.api.networking.storage.IBaseMonitor;
 import appeng.api.storage.IMEMonitorHandlerReceiver;
 import appeng.api.storage.data.IAEStack;
-import appeng.api.storage.data.IItemList;
 import appeng.container.AEBaseContainer;
 import appeng.container.guisync.GuiSync;
 import appeng.core.sync.network.NetworkHandler;
@@ -36,13 +31,15 @@ import appeng.core.sync.packets.PacketCraftingCpuUpdate;
 import appeng.helpers.ICustomNameObject;
 import appeng.me.cluster.IAEMultiBlock;
 import appeng.me.cluster.implementations.CraftingCPUCluster;
+import appeng.me.cluster.implementations.CraftingCpuStatusTable;
 import appeng.tile.crafting.TileCraftingTile;
 import appeng.util.Platform;
 
 public class ContainerCraftingCPU extends AEBaseContainer
         implements IMEMonitorHandlerReceiver<IAEStack<?>>, ICustomNameObject {
 
-    private final IItemList<IAEStack<?>> changedStacks = AEApi.instance().storage().createAEStackList();
+    private static final int MAX_ENTRIES_PER_UPDATE = 256;
+
     private final IGrid network;
     private CraftingCPUCluster cpu;
     private String cpuName = "";
@@ -59,6 +56,8 @@ public class ContainerCraftingCPU extends AEBaseContainer
     private boolean pendingVisualClear = true;
     private boolean pendingFollowSync = true;
     private int lastSentRemainingOperations = Integer.MIN_VALUE;
+    private int seenGeneration = -1;
+    private long seenVersion;
 
     public ContainerCraftingCPU(final InventoryPlayer inventoryPlayer, final Object target) {
         super(inventoryPlayer, target);
@@ -110,8 +109,7 @@ public class ContainerCraftingCPU extends AEBaseContainer
         if (cpu instanceof CraftingCPUCluster cluster) {
             this.cpu = cluster;
             this.cpuName = cpu.getName();
-            this.changedStacks.resetStatus();
-            this.cpu.getModernListOfItem(this.changedStacks, CraftingItemList.ALL);
+            this.seenVersion = 0;
             this.cpu.addListener(this, null);
             this.elapsed = 0;
             this.allow = this.cpu.getCraftingAllowMode();
@@ -174,25 +172,6 @@ public class ContainerCraftingCPU extends AEBaseContainer
         return result;
     }
 
-    private static List<CraftingCpuEntry> buildVisualEntryUpdates(@NotNull final CraftingCPUCluster monitor,
-            final Iterable<IAEStack<?>> changedStacks) {
-        final List<CraftingCpuEntry> updates = new ArrayList<>();
-        for (final IAEStack<?> stack : changedStacks) {
-            final IAEStack<?> normalizedStack = CraftingCpuEntry.normalizeStack(stack);
-            final long storedAmount = monitor.getStackAmount(normalizedStack, CraftingItemList.STORAGE);
-            final long activeAmount = monitor.getStackAmount(normalizedStack, CraftingItemList.ACTIVE);
-            final long pendingAmount = monitor.getStackAmount(normalizedStack, CraftingItemList.PENDING);
-            updates.add(
-                    new CraftingCpuEntry(
-                            normalizedStack,
-                            storedAmount,
-                            activeAmount,
-                            pendingAmount,
-                            monitor.getScheduledReason(normalizedStack)));
-        }
-        return updates;
-    }
-
     private void sendCompressedNbtToCrafters(final NBTTagCompound data) {
         for (final Object crafter : this.crafters) {
             if (crafter instanceof EntityPlayerMP player) {
@@ -211,10 +190,24 @@ public class ContainerCraftingCPU extends AEBaseContainer
                 this.elapsed = this.cpu.getElapsedTime();
                 final int remainingOperations = this.cpu.getRemainingOperations();
 
-                if (this.pendingVisualClear || !this.changedStacks.isEmpty()
+                final CraftingCpuStatusTable statusTable = this.cpu.getStatusTable();
+                statusTable.update();
+                if (statusTable.getGeneration() != this.seenGeneration) {
+                    this.seenGeneration = statusTable.getGeneration();
+                    this.pendingVisualClear = true;
+                }
+                if (this.pendingVisualClear) {
+                    this.seenVersion = 0;
+                }
+
+                // large tables are sent over several ticks
+                final List<CraftingCpuEntry> updates = new ArrayList<>();
+                final long nextVersion = statusTable.collectChanges(this.seenVersion, MAX_ENTRIES_PER_UPDATE, updates);
+
+                if (this.pendingVisualClear || !updates.isEmpty()
                         || remainingOperations != this.lastSentRemainingOperations) {
                     final PacketCraftingCpuUpdate visualEntriesPacket = new PacketCraftingCpuUpdate(
-                            buildVisualEntryUpdates(this.cpu, this.changedStacks),
+                            updates,
                             this.pendingVisualClear,
                             remainingOperations);
 
@@ -224,10 +217,10 @@ public class ContainerCraftingCPU extends AEBaseContainer
                         }
                     }
 
-                    this.changedStacks.resetStatus();
                     this.pendingVisualClear = false;
                     this.lastSentRemainingOperations = remainingOperations;
                 }
+                this.seenVersion = nextVersion;
 
                 if (this.pendingFollowSync) {
                     this.sendUpdateFollowPacket(this.getPlayersFollowingCurrentCraft());
@@ -261,11 +254,7 @@ public class ContainerCraftingCPU extends AEBaseContainer
     @Override
     public void postChange(final IBaseMonitor<IAEStack<?>> monitor, final Iterable<IAEStack<?>> change,
             final BaseActionSource actionSource) {
-        for (IAEStack<?> stack : change) {
-            stack = stack.copy();
-            stack.setStackSize(1);
-            this.changedStacks.add(stack);
-        }
+        // the entries are read from the status table of the CPU
     }
 
     @Override
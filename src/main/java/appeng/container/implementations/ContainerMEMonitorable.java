@@ -492,6 +492,14 @@ public class ContainerMEMonitorable extends AEBaseContainer
         }
     }
 
+    /**
+     * The queued changes are sent to the client before the network ticks, batched changes would show up a tick late.
+     */
+    @Override
+    public boolean requiresImmediateChanges() {
+        return true;
+    }
+
     @Override
     public void onListUpdate() {
         this.needListUpdate = true;
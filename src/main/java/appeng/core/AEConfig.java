@@ -113,6 +113,7 @@ public final class AEConfig extends Configuration implements IConfigurableObject
 
     public boolean debugLogTiming = false;
     public boolean debugPathFinding = false;
+    public boolean debugCellStatistics = false;
     public boolean captureGAEStacks = false;
     public int wirelessTerminalBattery = 1600000;
     public int entropyManipulatorBattery = 200000;
@@ -127,6 +128,7 @@ public final class AEConfig extends Configuration implements IConfigurableObject
     public String[] meteoriteValidBlocks = { "examplemod:example_block" };
     public String[] meteoriteInvalidBlocks = { "examplemod:example_block" };
     public int craftingCalculationTimePerTick = 5;
+    public int craftingCalculationAutomationShare = 50;
     PowerUnits selectedPowerUnit = PowerUnits.AE;
     CellType selectedCellType = CellType.ITEM;
     private double WirelessBaseCost = 8;
@@ -144,6 +146,12 @@ public final class AEConfig extends Configuration implements IConfigurableObject
     public int maxCraftingSteps = 2_000_000;
     public int maxCraftingTreeVisualizationSize = 32 * 1024 * 1024; // 32 MiB
     public boolean limitCraftingCPUSpill = true;
+    public boolean parallelPatternDecoding = false;
+    public int decodedPatternCacheSize = 32_768;
+    public boolean parallelCellDecoding = false;
+    public boolean compactCellStorage = false;
+    public boolean sharedCraftingSnapshots = true;
+    public boolean weightedItemTunnelRouting = false;
     public boolean enableCraftingDiagnostics = true;
     public SearchBoxFocusPriority searchBoxFocusPriority = SearchBoxFocusPriority.NEVER;
 
@@ -286,6 +294,12 @@ public final class AEConfig extends Configuration implements IConfigurableObject
         this.debugLogTiming = this.get("debug", "LogTiming", this.debugLogTiming).getBoolean(this.debugLogTiming);
         this.debugPathFinding = this.get("debug", "LogPathFinding", this.debugPathFinding)
                 .getBoolean(this.debugPathFinding);
+        this.debugCellStatistics = this.get(
+                "debug",
+                "CheckCellStatistics",
+                this.debugCellStatistics,
+                "Counts the bytes of all cells periodically and logs when the network totals differ")
+                .getBoolean(this.debugCellStatistics);
         this.craftingCalculatorVersion = this.get("debug", "CraftingCalculatorVersion", this.craftingCalculatorVersion)
                 .getInt(this.craftingCalculatorVersion);
         this.craftingCalculatorVersion = Math.max(1, Math.min(this.craftingCalculatorVersion, 2));
@@ -300,6 +314,43 @@ public final class AEConfig extends Configuration implements IConfigurableObject
                 .max(4096, Math.min(this.maxCraftingTreeVisualizationSize, 1024 * 1024 * 1024));
         this.limitCraftingCPUSpill = this.get("misc", "LimitCraftingCPUSpill", this.limitCraftingCPUSpill)
                 .getBoolean(this.limitCraftingCPUSpill);
+        this.parallelPatternDecoding = this.get(
+                "misc",
+                "ParallelPatternDecoding",
+                this.parallelPatternDecoding,
+                "Decode the processing patterns of interfaces on background threads while the world loads. Crafting patterns need the world to look up their recipe and are decoded on the server thread.")
+                .getBoolean(this.parallelPatternDecoding);
+        this.decodedPatternCacheSize = this.get(
+                "misc",
+                "DecodedPatternCacheSize",
+                this.decodedPatternCacheSize,
+                "How many distinct encoded patterns are kept decoded, at least 1024.")
+                .getInt(this.decodedPatternCacheSize);
+        this.decodedPatternCacheSize = Math.max(1024, this.decodedPatternCacheSize);
+        this.parallelCellDecoding = this.get(
+                "misc",
+                "ParallelCellDecoding",
+                this.parallelCellDecoding,
+                "Decode the contents of item and fluid storage cells in drives and ME chests on background threads while chunks load.")
+                .getBoolean(this.parallelCellDecoding);
+        this.compactCellStorage = this.get(
+                "misc",
+                "CompactCellStorage",
+                this.compactCellStorage,
+                "Store the contents of item and fluid cells in a compact binary format. Cells are converted when they are next used, in both directions.")
+                .getBoolean(this.compactCellStorage);
+        this.sharedCraftingSnapshots = this.get(
+                "misc",
+                "SharedCraftingSnapshots",
+                this.sharedCraftingSnapshots,
+                "Let crafting calculations read a shared snapshot of the network storage and only copy the stacks they change, instead of copying the whole storage for every calculation.")
+                .getBoolean(this.sharedCraftingSnapshots);
+        this.weightedItemTunnelRouting = this.get(
+                "misc",
+                "WeightedItemTunnelRouting",
+                this.weightedItemTunnelRouting,
+                "Let item P2P tunnels give the first slots to their outputs in proportion to the slots of the outputs, instead of in turn.")
+                .getBoolean(this.weightedItemTunnelRouting);
         final Property enableCraftingDiagnostics = this
                 .get("Features.CraftingDiagnostic", "EnableCraftingDiagnostics", this.enableCraftingDiagnostics);
         this.enableCraftingDiagnostics = enableCraftingDiagnostics.getBoolean(this.enableCraftingDiagnostics);
@@ -378,6 +429,12 @@ public final class AEConfig extends Configuration implements IConfigurableObject
             this.craftingCalculationTimePerTick = this
                     .get("craftingCPU", "craftingCalculationTimePerTick", this.craftingCalculationTimePerTick)
                     .getInt(this.craftingCalculationTimePerTick);
+            this.craftingCalculationAutomationShare = this.get(
+                    "craftingCPU",
+                    "craftingCalculationAutomationShare",
+                    this.craftingCalculationAutomationShare,
+                    "Percentage of craftingCalculationTimePerTick reserved for machine requests while players are calculating too.")
+                    .getInt(this.craftingCalculationAutomationShare);
         }
 
         this.updatable = true;
@@ -30,9 +30,11 @@ import appeng.core.features.AEFeature;
 import appeng.core.sync.GuiBridge;
 import appeng.core.sync.network.NetworkHandler;
 import appeng.core.worlddata.WorldData;
+import appeng.helpers.DecodedPatternCache;
 import appeng.hooks.CraftingNotificationManager;
 import appeng.hooks.TickHandler;
 import appeng.integration.IntegrationRegistry;
+import appeng.me.storage.CellStackPrefetcher;
 import appeng.recipes.CustomRecipeConfig;
 import appeng.recipes.CustomRecipeForgeConfiguration;
 import appeng.server.AECommand;
@@ -240,6 +242,7 @@ public final class AppEng {
     @EventHandler
     private void serverAboutToStart(final FMLServerAboutToStartEvent evt) {
         WorldData.onServerAboutToStart();
+        DecodedPatternCache.invalidate();
     }
 
     @EventHandler
@@ -256,6 +259,8 @@ public final class AppEng {
         CraftingNotificationManager.clear();
         MinecraftForge.EVENT_BUS.post(new LocatableEventAnnounce(null, LocatableEvent.RemoveAll));
         InventoryAdaptor.clearCache();
+        DecodedPatternCache.invalidate();
+        CellStackPrefetcher.clear();
     }
 
     @EventHandler
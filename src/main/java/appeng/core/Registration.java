@@ -79,6 +79,7 @@ import appeng.me.cache.PathGridCache;
 import appeng.me.cache.SecurityCache;
 import appeng.me.cache.SpatialPylonCache;
 import appeng.me.cache.TickManagerCache;
+import appeng.me.cache.WirelessGridCache;
 import appeng.me.storage.AEExternalHandler;
 import appeng.parts.PartPlacement;
 import appeng.recipes.AEItemResolver;
@@ -550,6 +551,7 @@ public final class Registration {
         gcr.registerGridCache(ISecurityGrid.class, SecurityCache.class);
         gcr.registerGridCache(ICraftingGrid.class, CraftingGridCache.class);
         gcr.registerGridCache(ItemFlowGridCache.class, ItemFlowGridCache.class);
+        gcr.registerGridCache(WirelessGridCache.class, WirelessGridCache.class);
 
         registries.externalStorage().addExternalStorageInterface(new AEExternalHandler());
 
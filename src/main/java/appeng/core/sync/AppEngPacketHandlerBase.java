@@ -16,6 +16,7 @@ import java.util.HashMap;
 import java.util.Map;
 
 import appeng.core.sync.packets.PacketAssemblerAnimation;
+import appeng.core.sync.packets.PacketAssemblerAnimations;
 import appeng.core.sync.packets.PacketClick;
 import appeng.core.sync.packets.PacketClickOrDragFakeSlot;
 import appeng.core.sync.packets.PacketColorSelect;
@@ -161,7 +162,8 @@ public class AppEngPacketHandlerBase {
         PACKET_SUPER_WIRELESS_TOOL_COMMAND(PacketWirelessToolCommand.class),
         PACKET_CRAFTING_DIAGNOSTIC_RESET(PacketCraftingDiagnosticReset.class),
         PACKET_HIGHLIGHT_ITEM_FLOW(PacketHighlightItemFlow.class),
-        PACKET_FLOW_RATES(PacketFlowRates.class);
+        PACKET_FLOW_RATES(PacketFlowRates.class),
+        PACKET_ASSEMBLER_ANIMATIONS(PacketAssemblerAnimations.class);
 
         private final Class<? extends AppEngPacket> packetClass;
         private final Constructor<? extends AppEngPacket> packetConstructor;
@@ -0,0 +1,90 @@
+package appeng.core.sync.packets;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import net.minecraft.entity.player.EntityPlayer;
+
+import appeng.api.storage.data.IAEItemStack;
+import appeng.client.EffectType;
+import appeng.core.CommonHelper;
+import appeng.core.sync.AppEngPacket;
+import appeng.core.sync.network.INetworkInfo;
+import appeng.util.item.AEItemStack;
+import cpw.mods.fml.relauncher.Side;
+import cpw.mods.fml.relauncher.SideOnly;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+/**
+ * The Molecular Assembler animations of one tick for one player, see
+ * {@link appeng.hooks.AssemblerAnimationBatcher}.
+ */
+public class PacketAssemblerAnimations extends AppEngPacket {
+
+    public static final class Animation {
+
+        public final int x;
+        public final int y;
+        public final int z;
+        public final byte rate;
+        public final IAEItemStack is;
+
+        public Animation(final int x, final int y, final int z, final byte rate, final IAEItemStack is) {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.rate = rate;
+            this.is = is;
+        }
+    }
+
+    private final List<Animation> animations;
+
+    // automatic.
+    public PacketAssemblerAnimations(final ByteBuf stream) throws IOException {
+        final int size = stream.readShort();
+        this.animations = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            final int x = stream.readInt();
+            final int y = stream.readInt();
+            final int z = stream.readInt();
+            final byte rate = stream.readByte();
+            this.animations.add(new Animation(x, y, z, rate, AEItemStack.loadItemStackFromPacket(stream)));
+        }
+    }
+
+    // api
+    public PacketAssemblerAnimations(final List<Animation> animations) throws IOException {
+        this.animations = animations;
+
+        final ByteBuf data = Unpooled.buffer();
+
+        data.writeInt(this.getPacketID());
+        data.writeShort(animations.size());
+        for (final Animation animation : animations) {
+            data.writeInt(animation.x);
+            data.writeInt(animation.y);
+            data.writeInt(animation.z);
+            data.writeByte(animation.rate);
+            animation.is.writeToPacket(data);
+        }
+
+        this.configureWrite(data);
+    }
+
+    @Override
+    @SideOnly(Side.CLIENT)
+    public void clientPacketData(final INetworkInfo network, final AppEngPacket packet, final EntityPlayer player) {
+        for (final Animation animation : this.animations) {
+            CommonHelper.proxy.spawnEffect(
+                    EffectType.Assembler,
+                    player.getEntityWorld(),
+                    animation.x + 0.5d,
+                    animation.y + 0.5d,
+                    animation.z + 0.5d,
+                    animation);
+        }
+    }
+}
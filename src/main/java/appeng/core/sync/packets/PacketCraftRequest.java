@@ -125,8 +125,14 @@ public class PacketCraftRequest extends AppEngPacket {
                             ccc.setJob(futureJob);
                             ccc.setPrimaryGui(pg);
                             cca.detectAndSendChanges();
+                            futureJob = null;
                         }
                     }
+
+                    if (futureJob != null) {
+                        // nobody is going to look at the result
+                        futureJob.cancel(true);
+                    }
                 } catch (final Throwable e) {
                     if (futureJob != null) {
                         futureJob.cancel(true);
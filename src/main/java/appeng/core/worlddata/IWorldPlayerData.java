@@ -27,4 +27,9 @@ public interface IWorldPlayerData {
     EntityPlayer getPlayerFromID(int playerID);
 
     int getPlayerID(GameProfile profile);
+
+    /**
+     * Writes the players that got an ID since the last save.
+     */
+    void flush();
 }
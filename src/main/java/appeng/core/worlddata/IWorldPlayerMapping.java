@@ -32,6 +32,14 @@ public interface IWorldPlayerMapping {
     @Nonnull
     Optional<UUID> get(int id);
 
+    /**
+     * Retrieves the ID of a player.
+     *
+     * @param uuid UUID of the searched player
+     * @return the ID of the player, -1 if the player has none yet
+     */
+    int getID(@Nonnull UUID uuid);
+
     /**
      * Put in new players when they join the server
      *
@@ -44,6 +44,7 @@ final class PlayerData implements IWorldPlayerData, IOnWorldStartable, IOnWorldS
     private final IWorldPlayerMapping playerMapping;
 
     private int lastPlayerID;
+    private boolean dirty;
 
     public PlayerData(@Nonnull final Configuration configFile) {
         Preconditions.checkNotNull(configFile);
@@ -74,23 +75,34 @@ final class PlayerData implements IWorldPlayerData, IOnWorldStartable, IOnWorldS
     @Override
     public int getPlayerID(@Nonnull final GameProfile profile) {
         Preconditions.checkNotNull(profile);
-        Preconditions.checkNotNull(this.config.getCategory("players"));
         Preconditions.checkState(profile.isComplete());
 
-        final ConfigCategory players = this.config.getCategory("players");
-        final String uuid = profile.getId().toString();
-        final Property maybePlayerID = players.get(uuid);
-
-        if (maybePlayerID != null && maybePlayerID.isIntValue()) {
-            return maybePlayerID.getInt();
-        } else {
-            final int newPlayerID = this.nextPlayer();
-            final Property newPlayer = new Property(uuid, String.valueOf(newPlayerID), Property.Type.INTEGER);
-            players.put(uuid, newPlayer);
-            this.playerMapping.put(newPlayerID, profile.getId()); // add to reverse map
-            this.config.save();
+        final UUID uuid = profile.getId();
+        final int playerID = this.playerMapping.getID(uuid);
+
+        if (playerID >= 0) {
+            return playerID;
+        }
+
+        final int newPlayerID = this.nextPlayer();
+        final String key = uuid.toString();
+        final Property newPlayer = new Property(key, String.valueOf(newPlayerID), Property.Type.INTEGER);
+        this.config.getCategory("players").put(key, newPlayer);
+        this.playerMapping.put(newPlayerID, uuid);
+        this.dirty = true;
 
-            return newPlayerID;
+        return newPlayerID;
+    }
+
+    /**
+     * New players are written with the world, the settings are shared with the other world data and written on the
+     * server thread.
+     */
+    @Override
+    public void flush() {
+        if (this.dirty) {
+            this.dirty = false;
+            this.config.save();
         }
     }
 
@@ -111,6 +123,7 @@ final class PlayerData implements IWorldPlayerData, IOnWorldStartable, IOnWorldS
 
     @Override
     public void onWorldStop() {
+        this.dirty = false;
         this.config.save();
 
         this.lastPlayerID = 0;
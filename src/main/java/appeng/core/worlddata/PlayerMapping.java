@@ -20,6 +20,8 @@ import net.minecraftforge.common.config.ConfigCategory;
 import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
 
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+
 /**
  * Wrapper class for the player mappings. Will grant access to a pre initialized player map based on the "players"
  * category in the settings.cfg
@@ -31,10 +33,20 @@ final class PlayerMapping implements IWorldPlayerMapping {
      */
     private final Map<Integer, UUID> mappings;
 
+    /**
+     * Reverse view of the mappings, so looking up a player doesn't need to go through the settings
+     */
+    private final Object2IntOpenHashMap<UUID> ids;
+
     public PlayerMapping(final ConfigCategory category) {
         final PlayerMappingsInitializer init = new PlayerMappingsInitializer(category);
 
         this.mappings = init.getPlayerMappings();
+        this.ids = new Object2IntOpenHashMap<>(this.mappings.size());
+        this.ids.defaultReturnValue(-1);
+        for (final Map.Entry<Integer, UUID> entry : this.mappings.entrySet()) {
+            this.ids.put(entry.getValue(), (int) entry.getKey());
+        }
     }
 
     @Nonnull
@@ -50,5 +62,13 @@ final class PlayerMapping implements IWorldPlayerMapping {
         Preconditions.checkNotNull(uuid);
 
         this.mappings.put(id, uuid);
+        this.ids.put(uuid, id);
+    }
+
+    @Override
+    public int getID(@Nonnull final UUID uuid) {
+        Preconditions.checkNotNull(uuid);
+
+        return this.ids.getInt(uuid);
     }
 }
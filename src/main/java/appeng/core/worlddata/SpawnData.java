@@ -14,99 +14,216 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.LinkedList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 import javax.annotation.Nonnull;
 
 import net.minecraft.nbt.CompressedStreamTools;
 import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.nbt.NBTTagIntArray;
+import net.minecraft.nbt.NBTTagList;
 
 import com.google.common.base.Preconditions;
 
 import appeng.core.AELog;
 
 /**
+ * Keeps the meteorite spawn data per region of 16x16 chunks, one file per region.
+ * <p>
+ * The generated chunks of a region are a bitset, its meteorites a list. Regions are cached in a bounded LRU, split into
+ * stripes by region so that lookups of different regions don't wait for each other. Dirty regions are written when
+ * they are evicted or flushed, and stay cached until they could be written. Files of the old format, with a boolean tag per chunk and numbered meteorite tags, are
+ * read once and written in the new format with the next flush.
+ *
  * @author thatsIch
  * @version rv3 - 30.05.2015
  * @since rv3 30.05.2015
  */
 final class SpawnData implements IWorldSpawnData, IOnWorldStoppable {
 
+    static final int REGION_SHIFT = 4;
+    private static final int REGION_MASK = (1 << REGION_SHIFT) - 1;
+    private static final int STRIPES = 16;
+    private static final int DEFAULT_CACHED_REGIONS = 512;
+
+    private static final int FORMAT_VERSION = 2;
+    private static final String TAG_VERSION = "version";
+    private static final String TAG_GENERATED = "generated";
+    private static final String TAG_METEORITES = "meteorites";
+    private static final String LEGACY_TAG_COUNT = "num";
+
     @Nonnull
     private final File spawnDirectory;
 
     @Nonnull
     private final MeteorDataNameEncoder encoder;
 
-    private final HashMap<String, NBTTagCompound> cache = new HashMap<>();
-    private final HashSet<String> dirty = new HashSet<>();
+    private final Stripe[] stripes = new Stripe[STRIPES];
 
     public SpawnData(@Nonnull final File spawnDirectory) {
+        this(spawnDirectory, DEFAULT_CACHED_REGIONS);
+    }
+
+    SpawnData(@Nonnull final File spawnDirectory, final int maxCachedRegions) {
         Preconditions.checkNotNull(spawnDirectory);
+        Preconditions.checkArgument(maxCachedRegions > 0);
 
         this.spawnDirectory = spawnDirectory;
-        this.encoder = new MeteorDataNameEncoder(4);
+        this.encoder = new MeteorDataNameEncoder(REGION_SHIFT);
+
+        final int regionsPerStripe = Math.max(1, maxCachedRegions / STRIPES);
+        for (int i = 0; i < STRIPES; i++) {
+            this.stripes[i] = new Stripe(regionsPerStripe);
+        }
     }
 
-    @Override
-    public void setGenerated(final int dim, final int chunkX, final int chunkZ) {
-        synchronized (SpawnData.class) {
-            final NBTTagCompound data = this.loadSpawnData(dim, chunkX, chunkZ);
+    private static final class RegionKey {
+
+        private int dim;
+        private int x;
+        private int z;
+
+        private RegionKey(final int dim, final int x, final int z) {
+            this.dim = dim;
+            this.x = x;
+            this.z = z;
+        }
 
-            // edit.
-            data.setBoolean(chunkX + "," + chunkZ, true);
+        @Override
+        public boolean equals(final Object obj) {
+            return obj instanceof RegionKey other && other.dim == this.dim && other.x == this.x && other.z == this.z;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash(this.dim, this.x, this.z);
+        }
 
-            this.dirty.add(this.encoder.encode(dim, chunkX, chunkZ));
+        private static int hash(final int dim, final int x, final int z) {
+            return (dim * 31 + x) * 31 + z;
+        }
+    }
+
+    private static final class Region {
+
+        private final String fileName;
+        // one bit per chunk of the region, indexed by (x << 4) | z
+        private final long[] generated = new long[(1 << (REGION_SHIFT * 2)) / Long.SIZE];
+        private final List<NBTTagCompound> meteorites = new ArrayList<>();
+        private boolean dirty;
+
+        private Region(final String fileName) {
+            this.fileName = fileName;
+        }
+
+        private static int bit(final int chunkX, final int chunkZ) {
+            return ((chunkX & REGION_MASK) << REGION_SHIFT) | (chunkZ & REGION_MASK);
+        }
+
+        private boolean isGenerated(final int chunkX, final int chunkZ) {
+            final int bit = bit(chunkX, chunkZ);
+            return (this.generated[bit >>> 6] & (1L << bit)) != 0;
+        }
+
+        private void setGenerated(final int chunkX, final int chunkZ) {
+            final int bit = bit(chunkX, chunkZ);
+            this.generated[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    private final class Stripe {
+
+        // used for lookups, so that only a miss allocates a key
+        private final RegionKey probe = new RegionKey(0, 0, 0);
+        private final Map<RegionKey, Region> regions;
+
+        private Stripe(final int maxRegions) {
+            this.regions = new LinkedHashMap<>(16, 0.75f, true) {
+
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<RegionKey, Region> eldest) {
+                    // a region that can't be written is kept, so its changes aren't lost
+                    return this.size() > maxRegions && SpawnData.this.writeIfDirty(eldest.getValue());
+                }
+            };
+        }
+
+        private Region get(final int dim, final int regionX, final int regionZ) {
+            this.probe.dim = dim;
+            this.probe.x = regionX;
+            this.probe.z = regionZ;
+
+            Region region = this.regions.get(this.probe);
+            if (region == null) {
+                region = SpawnData.this.loadRegion(dim, regionX, regionZ);
+                this.regions.put(new RegionKey(dim, regionX, regionZ), region);
+            }
+            return region;
+        }
+    }
+
+    private Stripe getStripe(final int dim, final int regionX, final int regionZ) {
+        final int hash = RegionKey.hash(dim, regionX, regionZ);
+        return this.stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+    }
+
+    @Override
+    public void setGenerated(final int dim, final int chunkX, final int chunkZ) {
+        final int regionX = chunkX >> REGION_SHIFT;
+        final int regionZ = chunkZ >> REGION_SHIFT;
+        final Stripe stripe = this.getStripe(dim, regionX, regionZ);
+
+        synchronized (stripe) {
+            final Region region = stripe.get(dim, regionX, regionZ);
+            if (!region.isGenerated(chunkX, chunkZ)) {
+                region.setGenerated(chunkX, chunkZ);
+                region.dirty = true;
+            }
         }
     }
 
     @Override
     public boolean hasGenerated(final int dim, final int chunkX, final int chunkZ) {
-        synchronized (SpawnData.class) {
-            final NBTTagCompound data = this.loadSpawnData(dim, chunkX, chunkZ);
-            return data.getBoolean(chunkX + "," + chunkZ);
+        final int regionX = chunkX >> REGION_SHIFT;
+        final int regionZ = chunkZ >> REGION_SHIFT;
+        final Stripe stripe = this.getStripe(dim, regionX, regionZ);
+
+        synchronized (stripe) {
+            return stripe.get(dim, regionX, regionZ).isGenerated(chunkX, chunkZ);
         }
     }
 
     @Override
     public boolean addNearByMeteorites(final int dim, final int chunkX, final int chunkZ,
             final NBTTagCompound newData) {
-        synchronized (SpawnData.class) {
-            final NBTTagCompound data = this.loadSpawnData(dim, chunkX, chunkZ);
-
-            // edit.
-            final int size = data.getInteger("num");
-            data.setTag(String.valueOf(size), newData);
-            data.setInteger("num", size + 1);
-
-            this.dirty.add(this.encoder.encode(dim, chunkX, chunkZ));
-
+        final int regionX = chunkX >> REGION_SHIFT;
+        final int regionZ = chunkZ >> REGION_SHIFT;
+        final Stripe stripe = this.getStripe(dim, regionX, regionZ);
+
+        synchronized (stripe) {
+            final Region region = stripe.get(dim, regionX, regionZ);
+            region.meteorites.add(newData);
+            region.dirty = true;
             return true;
         }
     }
 
     @Override
     public Collection<NBTTagCompound> getNearByMeteorites(final int dim, final int chunkX, final int chunkZ) {
-        final Collection<NBTTagCompound> ll = new LinkedList<>();
-
-        synchronized (SpawnData.class) {
-            for (int x = -1; x <= 1; x++) {
-                for (int z = -1; z <= 1; z++) {
-                    final int cx = x + (chunkX >> 4);
-                    final int cz = z + (chunkZ >> 4);
-
-                    final NBTTagCompound data = this.loadSpawnData(dim, cx << 4, cz << 4);
-
-                    if (data != null) {
-                        // edit.
-                        final int size = data.getInteger("num");
-                        for (int s = 0; s < size; s++) {
-                            ll.add(data.getCompoundTag(String.valueOf(s)));
-                        }
-                    }
+        final Collection<NBTTagCompound> ll = new ArrayList<>();
+
+        for (int x = -1; x <= 1; x++) {
+            for (int z = -1; z <= 1; z++) {
+                final int regionX = x + (chunkX >> REGION_SHIFT);
+                final int regionZ = z + (chunkZ >> REGION_SHIFT);
+                final Stripe stripe = this.getStripe(dim, regionX, regionZ);
+
+                synchronized (stripe) {
+                    ll.addAll(stripe.get(dim, regionX, regionZ).meteorites);
                 }
             }
         }
@@ -114,29 +231,32 @@ final class SpawnData implements IWorldSpawnData, IOnWorldStoppable {
         return ll;
     }
 
-    private NBTTagCompound loadSpawnData(final int dim, final int chunkX, final int chunkZ) {
-        if (!Thread.holdsLock(SpawnData.class)) {
-            throw new IllegalStateException("Invalid Request");
-        }
-
-        final String fileName = this.encoder.encode(dim, chunkX, chunkZ);
-
-        NBTTagCompound cached = this.cache.get(fileName);
-        if (cached != null) {
-            return cached;
+    /**
+     * @return the number of regions currently held in memory
+     */
+    int getCachedRegions() {
+        int count = 0;
+        for (final Stripe stripe : this.stripes) {
+            synchronized (stripe) {
+                count += stripe.regions.size();
+            }
         }
+        return count;
+    }
 
-        NBTTagCompound data = null;
+    private Region loadRegion(final int dim, final int regionX, final int regionZ) {
+        final String fileName = this.encoder.encode(dim, regionX << REGION_SHIFT, regionZ << REGION_SHIFT);
+        final Region region = new Region(fileName);
         final File file = new File(this.spawnDirectory, fileName);
 
         if (file.isFile()) {
+            NBTTagCompound data = null;
             FileInputStream fileInputStream = null;
 
             try {
                 fileInputStream = new FileInputStream(file);
                 data = CompressedStreamTools.readCompressed(fileInputStream);
             } catch (final Throwable e) {
-                data = new NBTTagCompound();
                 AELog.debug(e);
             } finally {
                 if (fileInputStream != null) {
@@ -147,23 +267,94 @@ final class SpawnData implements IWorldSpawnData, IOnWorldStoppable {
                     }
                 }
             }
-        } else {
-            data = new NBTTagCompound();
+
+            if (data != null) {
+                if (data.getInteger(TAG_VERSION) == FORMAT_VERSION) {
+                    readRegion(region, data);
+                } else {
+                    readLegacyRegion(region, data);
+                    region.dirty = true;
+                }
+            }
+        }
+
+        return region;
+    }
+
+    private static void readRegion(final Region region, final NBTTagCompound data) {
+        final int[] generated = data.getIntArray(TAG_GENERATED);
+        for (int i = 0; i < generated.length && i / 2 < region.generated.length; i++) {
+            region.generated[i / 2] |= (generated[i] & 0xFFFFFFFFL) << ((i & 1) * Integer.SIZE);
+        }
+
+        final NBTTagList meteorites = data.getTagList(TAG_METEORITES, 10);
+        for (int i = 0; i < meteorites.tagCount(); i++) {
+            region.meteorites.add(meteorites.getCompoundTagAt(i));
+        }
+    }
+
+    /**
+     * Reads the old format: a boolean tag per generated chunk keyed by "chunkX,chunkZ", and the meteorites as tags
+     * "0" to "num - 1".
+     */
+    private static void readLegacyRegion(final Region region, final NBTTagCompound data) {
+        final int size = data.getInteger(LEGACY_TAG_COUNT);
+        for (int s = 0; s < size; s++) {
+            region.meteorites.add(data.getCompoundTag(String.valueOf(s)));
+        }
+
+        for (final Object key : data.func_150296_c()) {
+            final String name = (String) key;
+            final int separator = name.indexOf(',');
+            if (separator <= 0 || !data.getBoolean(name)) {
+                continue;
+            }
+
+            try {
+                final int chunkX = Integer.parseInt(name.substring(0, separator));
+                final int chunkZ = Integer.parseInt(name.substring(separator + 1));
+                region.setGenerated(chunkX, chunkZ);
+            } catch (final NumberFormatException e) {
+                AELog.debug(e);
+            }
         }
+    }
+
+    private static NBTTagCompound writeRegion(final Region region) {
+        final NBTTagCompound data = new NBTTagCompound();
+        data.setInteger(TAG_VERSION, FORMAT_VERSION);
 
-        this.cache.put(fileName, data);
+        final int[] generated = new int[region.generated.length * 2];
+        for (int i = 0; i < generated.length; i++) {
+            generated[i] = (int) (region.generated[i / 2] >>> ((i & 1) * Integer.SIZE));
+        }
+        data.setTag(TAG_GENERATED, new NBTTagIntArray(generated));
+
+        final NBTTagList meteorites = new NBTTagList();
+        for (final NBTTagCompound meteorite : region.meteorites) {
+            meteorites.appendTag(meteorite);
+        }
+        data.setTag(TAG_METEORITES, meteorites);
         return data;
     }
 
-    private void writeSpawnData(final String fileName, final NBTTagCompound data) {
-        final File file = new File(this.spawnDirectory, fileName);
+    /**
+     * @return false if the region is dirty and couldn't be written
+     */
+    private boolean writeIfDirty(final Region region) {
+        if (!region.dirty) {
+            return true;
+        }
+
+        final File file = new File(this.spawnDirectory, region.fileName);
         FileOutputStream fileOutputStream = null;
 
         try {
             fileOutputStream = new FileOutputStream(file);
-            CompressedStreamTools.writeCompressed(data, fileOutputStream);
+            CompressedStreamTools.writeCompressed(writeRegion(region), fileOutputStream);
         } catch (final Throwable e) {
             AELog.debug(e);
+            return false;
         } finally {
             if (fileOutputStream != null) {
                 try {
@@ -173,18 +364,19 @@ final class SpawnData implements IWorldSpawnData, IOnWorldStoppable {
                 }
             }
         }
+
+        region.dirty = false;
+        return true;
     }
 
     @Override
     public void flush() {
-        synchronized (SpawnData.class) {
-            for (final String fileName : this.dirty) {
-                final NBTTagCompound data = this.cache.get(fileName);
-                if (data != null) {
-                    this.writeSpawnData(fileName, data);
+        for (final Stripe stripe : this.stripes) {
+            synchronized (stripe) {
+                for (final Region region : stripe.regions.values()) {
+                    this.writeIfDirty(region);
                 }
             }
-            this.dirty.clear();
         }
     }
 
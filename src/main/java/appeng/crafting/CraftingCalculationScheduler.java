@@ -0,0 +1,285 @@
+package appeng.crafting;
+
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Future;
+
+import net.minecraft.world.World;
+
+import appeng.api.networking.crafting.ICraftingJob;
+import appeng.api.networking.security.BaseActionSource;
+import appeng.api.networking.security.MachineSource;
+import appeng.api.networking.security.PlayerSource;
+import appeng.core.AEConfig;
+
+/**
+ * Server wide scheduler for crafting calculations.
+ * <p>
+ * Every player and every machine gets its own FIFO queue, only the head of a queue is simulated, so a player spamming
+ * requests only competes with themselves. Queues are served round-robin inside their {@link Priority}, and the
+ * per-tick time budget ({@link AEConfig#craftingCalculationTimePerTick}) is shared by all worlds and split between the
+ * priorities by {@link AEConfig#craftingCalculationAutomationShare}. Time left unused by one priority goes to the
+ * other.
+ */
+public class CraftingCalculationScheduler {
+
+    public enum Priority {
+        /**
+         * Requests issued by machines, like export buses, level emitters and interfaces.
+         */
+        AUTOMATION,
+        /**
+         * Requests issued by a player through a terminal.
+         */
+        INTERACTIVE
+    }
+
+    private static final class ScheduledJob {
+
+        private final World world;
+        private final ICraftingJob<?> job;
+
+        private ScheduledJob(final World world, final ICraftingJob<?> job) {
+            this.world = world;
+            this.job = job;
+        }
+    }
+
+    private static final class JobQueue {
+
+        private final Object owner;
+        private final ArrayDeque<ScheduledJob> jobs = new ArrayDeque<>();
+
+        private JobQueue(final Object owner) {
+            this.owner = owner;
+        }
+    }
+
+    private final Map<Object, JobQueue> queues = new HashMap<>();
+    private final EnumMap<Priority, ArrayDeque<JobQueue>> rotations = new EnumMap<>(Priority.class);
+
+    private long lastTickNanos;
+    private long totalNanos;
+    private final long[] nanosByPriority = new long[Priority.values().length];
+    private long completedJobs;
+    private long abandonedJobs;
+
+    public CraftingCalculationScheduler() {
+        for (final Priority priority : Priority.values()) {
+            this.rotations.put(priority, new ArrayDeque<>());
+        }
+    }
+
+    public static Priority getPriority(final BaseActionSource source) {
+        return source instanceof PlayerSource ? Priority.INTERACTIVE : Priority.AUTOMATION;
+    }
+
+    private static Object getOwner(final ICraftingJob<?> job, final BaseActionSource source) {
+        if (source instanceof PlayerSource ps && ps.player != null) {
+            return ps.player.getUniqueID();
+        }
+        if (source instanceof MachineSource ms && ms.via != null) {
+            return ms.via;
+        }
+        return job;
+    }
+
+    public synchronized void submit(final World world, final ICraftingJob<?> job, final BaseActionSource source) {
+        final Object owner = getOwner(job, source);
+        JobQueue queue = this.queues.get(owner);
+        if (queue == null) {
+            queue = new JobQueue(owner);
+            this.queues.put(owner, queue);
+            this.rotations.get(getPriority(source)).add(queue);
+        }
+        queue.jobs.add(new ScheduledJob(world, job));
+    }
+
+    /**
+     * Simulates queued jobs until this tick's budget is used up. The scheduler isn't locked while a job is simulated,
+     * so jobs can be submitted meanwhile.
+     */
+    public void tick() {
+        final long start = System.nanoTime();
+        final long budget = Math.max(1, AEConfig.instance.craftingCalculationTimePerTick) * 1_000_000L;
+        final long automationBudget;
+        synchronized (this) {
+            this.dropAbandoned();
+            final boolean contended = !this.rotations.get(Priority.AUTOMATION).isEmpty()
+                    && !this.rotations.get(Priority.INTERACTIVE).isEmpty();
+            automationBudget = contended
+                    ? budget * Math.max(0, Math.min(100, AEConfig.instance.craftingCalculationAutomationShare)) / 100
+                    : budget;
+        }
+
+        long spent = this.run(Priority.AUTOMATION, automationBudget);
+        spent += this.run(Priority.INTERACTIVE, budget - spent);
+        if (spent < budget) {
+            this.run(Priority.AUTOMATION, budget - spent);
+        }
+
+        synchronized (this) {
+            this.lastTickNanos = System.nanoTime() - start;
+            this.totalNanos += this.lastTickNanos;
+        }
+    }
+
+    private long run(final Priority priority, final long budget) {
+        final ArrayDeque<JobQueue> rotation = this.rotations.get(priority);
+        final int queueCount;
+        synchronized (this) {
+            queueCount = rotation.size();
+        }
+        if (queueCount == 0 || budget <= 0) {
+            return 0;
+        }
+
+        final int slice = (int) Math.max(1, budget / queueCount / 1_000_000L);
+        final long start = System.nanoTime();
+        long spent = 0;
+
+        for (int i = 0; i < queueCount && spent < budget; i++) {
+            final JobQueue queue;
+            final ScheduledJob head;
+            synchronized (this) {
+                queue = rotation.poll();
+                if (queue == null) {
+                    break;
+                }
+                head = queue.jobs.peek();
+            }
+
+            final boolean done = !head.job.simulateFor(slice);
+
+            synchronized (this) {
+                if (done && queue.jobs.remove(head)) {
+                    this.completedJobs++;
+                }
+
+                // the queue is gone if the scheduler was cleared while the job was simulated
+                if (this.queues.get(queue.owner) == queue) {
+                    if (queue.jobs.isEmpty()) {
+                        this.queues.remove(queue.owner);
+                    } else {
+                        rotation.add(queue);
+                    }
+                }
+            }
+
+            spent = System.nanoTime() - start;
+        }
+
+        synchronized (this) {
+            this.nanosByPriority[priority.ordinal()] += spent;
+        }
+        return spent;
+    }
+
+    /**
+     * Removes jobs that were cancelled, for example by closing the crafting confirmation screen.
+     */
+    private void dropAbandoned() {
+        for (final ArrayDeque<JobQueue> rotation : this.rotations.values()) {
+            final Iterator<JobQueue> queueIt = rotation.iterator();
+            while (queueIt.hasNext()) {
+                final JobQueue queue = queueIt.next();
+                final Iterator<ScheduledJob> it = queue.jobs.iterator();
+                while (it.hasNext()) {
+                    final ScheduledJob scheduled = it.next();
+                    if (scheduled.job instanceof Future<?> future && future.isDone()) {
+                        it.remove();
+                        this.abandonedJobs++;
+                    }
+                }
+
+                if (queue.jobs.isEmpty()) {
+                    queueIt.remove();
+                    this.queues.remove(queue.owner);
+                }
+            }
+        }
+    }
+
+    private static void cancel(final ICraftingJob<?> job) {
+        if (job instanceof Future<?> future) {
+            future.cancel(true);
+        }
+    }
+
+    /**
+     * Cancels and drops all jobs of a world that is being unloaded.
+     */
+    public synchronized void cancelWorld(final World world) {
+        for (final JobQueue queue : this.queues.values()) {
+            for (final ScheduledJob scheduled : queue.jobs) {
+                if (scheduled.world == world) {
+                    cancel(scheduled.job);
+                }
+            }
+        }
+        this.dropAbandoned();
+    }
+
+    /**
+     * Cancels and drops all jobs of a player who logged out. Jobs of players are kept by their id, so they survive the
+     * player respawning or changing dimensions.
+     */
+    public synchronized void cancelPlayer(final UUID player) {
+        final JobQueue queue = this.queues.get(player);
+        if (queue != null) {
+            for (final ScheduledJob scheduled : queue.jobs) {
+                cancel(scheduled.job);
+            }
+            this.dropAbandoned();
+        }
+    }
+
+    public synchronized void clear() {
+        this.queues.clear();
+        for (final ArrayDeque<JobQueue> rotation : this.rotations.values()) {
+            rotation.clear();
+        }
+    }
+
+    /**
+     * @return number of jobs waiting or running for the given priority
+     */
+    public synchronized int getQueueDepth(final Priority priority) {
+        int depth = 0;
+        for (final JobQueue queue : this.rotations.get(priority)) {
+            depth += queue.jobs.size();
+        }
+        return depth;
+    }
+
+    /**
+     * @return number of players and machines with pending jobs for the given priority
+     */
+    public synchronized int getQueueCount(final Priority priority) {
+        return this.rotations.get(priority).size();
+    }
+
+    public synchronized long getNanosSpent(final Priority priority) {
+        return this.nanosByPriority[priority.ordinal()];
+    }
+
+    public synchronized long getLastTickNanos() {
+        return this.lastTickNanos;
+    }
+
+    public synchronized long getTotalNanos() {
+        return this.totalNanos;
+    }
+
+    public synchronized long getCompletedJobs() {
+        return this.completedJobs;
+    }
+
+    public synchronized long getAbandonedJobs() {
+        return this.abandonedJobs;
+    }
+}
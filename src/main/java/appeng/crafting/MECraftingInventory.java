@@ -39,8 +39,10 @@ import appeng.api.storage.data.AEStackTypeRegistry;
 import appeng.api.storage.data.IAEStack;
 import appeng.api.storage.data.IAEStackType;
 import appeng.api.storage.data.IItemList;
+import appeng.core.AEConfig;
 import appeng.core.AELog;
 import appeng.core.localization.PlayerMessages;
+import appeng.me.cache.NetworkMonitor;
 import appeng.util.Platform;
 
 public class MECraftingInventory implements IMEInventory<IAEStack> {
@@ -139,9 +141,17 @@ public class MECraftingInventory implements IMEInventory<IAEStack> {
         }
 
         for (IAEStackType<?> type : AEStackTypeRegistry.getAllTypes()) {
+            final IMEMonitor<?> monitor = target.getMEMonitor(type);
+            if (AEConfig.instance.sharedCraftingSnapshots && monitor instanceof NetworkMonitor<?>networkMonitor) {
+                // only the stacks touched by the calculation are copied
+                this.inventoryMap
+                        .put(type, new OverlayItemList(networkMonitor.getStorageSnapshot(), type.createList()));
+                continue;
+            }
+
             IItemList list = type.createList();
             this.inventoryMap.put(type, list);
-            for (final IAEStack<?> is : target.getMEMonitor(type).getStorageList()) {
+            for (final IAEStack<?> is : monitor.getStorageList()) {
                 list.add(is.copy());
             }
         }
@@ -164,7 +174,8 @@ public class MECraftingInventory implements IMEInventory<IAEStack> {
             final Actionable mode) {
         if (request == null) return null;
 
-        IAEStack<?> stack = this.inventoryMap.get(request.getStackType()).findPrecise(request);
+        final IItemList<IAEStack> list = this.inventoryMap.get(request.getStackType());
+        IAEStack<?> stack = mode == Actionable.MODULATE ? list.findPrecise(request) : peek(list, request);
         if (stack == null || stack.getStackSize() <= 0) return null;
 
         if (stack.getStackSize() >= request.getStackSize()) {
@@ -211,10 +222,21 @@ public class MECraftingInventory implements IMEInventory<IAEStack> {
 
     @SuppressWarnings({ "rawtypes" })
     public IAEStack getAvailableItem(@Nonnull IAEStack request) {
-        IAEStack<?> stack = this.inventoryMap.get(request.getStackType()).findPrecise(request);
+        IAEStack<?> stack = peek(this.inventoryMap.get(request.getStackType()), request);
         return stack != null ? stack.copy() : null;
     }
 
+    /**
+     * Looks up a stack that won't be modified, without copying it out of a shared snapshot.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static IAEStack<?> peek(final IItemList<IAEStack> list, final IAEStack request) {
+        if (list instanceof OverlayItemList overlay) {
+            return (IAEStack<?>) overlay.peek(request);
+        }
+        return list.findPrecise(request);
+    }
+
     @SuppressWarnings({ "unchecked", "rawtypes" })
     public <StackType extends IAEStack<StackType>> Collection<StackType> findFuzzy(final StackType filter,
             final FuzzyMode fuzzy) {
@@ -0,0 +1,163 @@
+package appeng.crafting;
+
+import java.util.Collection;
+import java.util.Iterator;
+
+import org.jetbrains.annotations.Nullable;
+
+import com.google.common.collect.Iterators;
+
+import appeng.api.config.FuzzyMode;
+import appeng.api.storage.data.IAEStack;
+import appeng.api.storage.data.IAEStackType;
+import appeng.api.storage.data.IItemList;
+import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet;
+
+/**
+ * A list on top of a shared read-only base list. The base is never modified: a stack is copied into the list's own
+ * delta the first time it could be changed, and from then on the base stack stays hidden. The delta drops its records
+ * that ran out while it is iterated, so the copied stacks are remembered separately.
+ */
+final class OverlayItemList<T extends IAEStack> implements IItemList<T> {
+
+    private final IItemList<T> base;
+    private final IItemList<T> delta;
+    // the stacks of the base that were copied into the delta
+    private final ObjectOpenHashSet<T> copied = new ObjectOpenHashSet<>();
+    private boolean baseReset = false;
+
+    OverlayItemList(final IItemList<T> base, final IItemList<T> delta) {
+        this.base = base;
+        this.delta = delta;
+    }
+
+    /**
+     * @return the current stack without copying it out of the base, must not be modified
+     */
+    T peek(final T request) {
+        final T stack = this.delta.findPrecise(request);
+        if (stack != null || this.baseReset || this.copied.contains(request)) {
+            return stack;
+        }
+        return this.base.findPrecise(request);
+    }
+
+    /**
+     * @return the stack of the delta, copied from the base if it wasn't in the delta yet
+     */
+    private T touch(final T request) {
+        final T stack = this.delta.findPrecise(request);
+        if (stack != null || this.baseReset || this.copied.contains(request)) {
+            return stack;
+        }
+
+        final T stored = this.base.findPrecise(request);
+        if (stored == null) {
+            return null;
+        }
+        this.copied.add(stored);
+        this.delta.add(stored);
+        return this.delta.findPrecise(request);
+    }
+
+    @Override
+    public void add(final T option) {
+        if (option != null) {
+            this.touch(option);
+            this.delta.add(option);
+        }
+    }
+
+    @Override
+    public void addStorage(final T option) {
+        if (option != null) {
+            this.touch(option);
+            this.delta.addStorage(option);
+        }
+    }
+
+    @Override
+    public void addCrafting(final T option) {
+        if (option != null) {
+            this.touch(option);
+            this.delta.addCrafting(option);
+        }
+    }
+
+    @Override
+    public void addRequestable(final T option) {
+        if (option != null) {
+            this.touch(option);
+            this.delta.addRequestable(option);
+        }
+    }
+
+    @Override
+    public T findPrecise(final T i) {
+        if (i == null) {
+            return null;
+        }
+        return this.touch(i);
+    }
+
+    @Override
+    public Collection<T> findFuzzy(final T input, final FuzzyMode fuzzy) {
+        if (input != null && !this.baseReset) {
+            for (final T stored : this.base.findFuzzy(input, fuzzy)) {
+                if (this.copied.add(stored)) {
+                    this.delta.add(stored);
+                }
+            }
+        }
+        return this.delta.findFuzzy(input, fuzzy);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return !this.iterator().hasNext();
+    }
+
+    @Override
+    public T getFirstItem() {
+        final Iterator<T> it = this.iterator();
+        return it.hasNext() ? it.next() : null;
+    }
+
+    @Override
+    public int size() {
+        int size = this.delta.size();
+        if (!this.baseReset) {
+            for (final T stored : this.base) {
+                if (!this.copied.contains(stored)) {
+                    size++;
+                }
+            }
+        }
+        return size;
+    }
+
+    /**
+     * The stacks that are still only in the base are handed out as they are and must not be modified.
+     */
+    @Override
+    public Iterator<T> iterator() {
+        if (this.baseReset) {
+            return this.delta.iterator();
+        }
+        return Iterators.concat(
+                this.delta.iterator(),
+                Iterators.filter(this.base.iterator(), stored -> !this.copied.contains(stored)));
+    }
+
+    @Override
+    public void resetStatus() {
+        this.delta.resetStatus();
+        this.baseReset = true;
+        this.copied.clear();
+    }
+
+    @Override
+    public @Nullable IAEStackType<T> getStackType() {
+        return this.base.getStackType();
+    }
+}
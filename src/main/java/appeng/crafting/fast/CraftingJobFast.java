@@ -1,7 +1,6 @@
 package appeng.crafting.fast;
 
 import java.util.ArrayDeque;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.CompletableFuture;
@@ -47,8 +46,8 @@ public final class CraftingJobFast<StackType extends IAEStack<StackType>> implem
     private final ICraftingCallback callback;
 
     private final AbstractObject2LongMap<ICraftingPatternDetails> tasks = new Object2LongOpenHashMap<>();
-    private final AbstractObject2LongMap<IAEStack<?>> ingredients = new Object2LongOpenHashMap<>();
-    private final AbstractObject2LongMap<IAEStack<?>> missingIngredients = new Object2LongOpenHashMap<>();
+    private final StackCounter ingredients = new StackCounter();
+    private final StackCounter missingIngredients = new StackCounter();
     private boolean calculated = false;
     private boolean isSimulated = false;
     private long byteCost = 0;
@@ -141,7 +140,7 @@ public final class CraftingJobFast<StackType extends IAEStack<StackType>> implem
         // This solves the bug that the crafting plan complete with no apparent missing item
         // in the crafting plan gui, but the internal missing list is non-empty that it prevent
         // the player from starting it.
-        for (var stack : new ArrayList<>(missingIngredients.keySet())) {
+        for (var stack : missingIngredients.stacks()) {
             moveMissingByExtract(stack);
         }
     }
@@ -159,27 +158,27 @@ public final class CraftingJobFast<StackType extends IAEStack<StackType>> implem
                 throw new IllegalStateException(
                         String.format("Pattern %s has negative inputs", current.getDisplayName()));
             }
-            addCountToMap(missingIngredients, stack, Math.multiplyExact(stack.getStackSize(), patternMultiplier));
+            missingIngredients.add(stack, Math.multiplyExact(stack.getStackSize(), patternMultiplier));
         }
         addCountToMap(tasks, pattern, patternMultiplier);
         byteCost += CraftingCalculations
                 .adjustByteCost(current, Math.multiplyExact(currentPair.leftLong(), patternMultiplier));
-        addCountToMap(missingIngredients, current, -count);
+        missingIngredients.add(current, -count);
     }
 
     // Returns the remainder count, updates the missingIngredient map directly.
     private long moveMissingByExtract(IAEStack<?> stack) {
-        long count = missingIngredients.getLong(stack);
+        long count = missingIngredients.get(stack);
         IAEStack<?> result = context.itemModel.extractItems(stack.copy().setStackSize(count), Actionable.MODULATE);
         if (result != null) {
             long extracted = result.getStackSize();
-            addCountToMap(ingredients, stack, extracted);
+            ingredients.add(stack, extracted);
             byteCost += CraftingCalculations.adjustByteCost(stack, extracted);
             if (extracted >= count) {
-                missingIngredients.removeLong(stack);
+                missingIngredients.remove(stack);
                 return 0;
             }
-            addCountToMap(missingIngredients, stack, -extracted);
+            missingIngredients.add(stack, -extracted);
             return count - extracted;
         }
         return count;
@@ -239,7 +238,7 @@ public final class CraftingJobFast<StackType extends IAEStack<StackType>> implem
     @Override
     public Future<ICraftingJob<StackType>> schedule() {
         calculate();
-        TickHandler.INSTANCE.registerCraftingSimulation(this.context.world, this);
+        TickHandler.INSTANCE.registerCraftingSimulation(this.context.world, this, this.context.actionSource);
         return CompletableFuture.completedFuture(this);
     }
 
@@ -260,12 +259,8 @@ public final class CraftingJobFast<StackType extends IAEStack<StackType>> implem
         for (var entry : tasks.object2LongEntrySet()) {
             cluster.addCrafting(entry.getKey(), entry.getLongValue());
         }
-        for (var entry : ingredients.object2LongEntrySet()) {
-            pullStack(storage, cluster, entry.getKey(), entry.getLongValue());
-        }
-        for (var entry : missingIngredients.object2LongEntrySet()) {
-            pullStack(storage, cluster, entry.getKey(), entry.getLongValue());
-        }
+        ingredients.forEach((stack, count) -> pullStack(storage, cluster, stack, count));
+        missingIngredients.forEach((stack, count) -> pullStack(storage, cluster, stack, count));
     }
 
     private void pullStack(MECraftingInventory storage, CraftingCPUCluster cluster, IAEStack<?> stack, long count) {
@@ -300,16 +295,14 @@ public final class CraftingJobFast<StackType extends IAEStack<StackType>> implem
                                 .setCountRequestableCrafts(entry.getLongValue()));
             }
         }
-        for (var entry : ingredients.object2LongEntrySet()) {
-            plan.add(entry.getKey().copy().setStackSize(entry.getLongValue()));
-        }
-        for (var entry : missingIngredients.object2LongEntrySet()) {
+        ingredients.forEach((stack, count) -> plan.add(stack.copy().setStackSize(count)));
+        missingIngredients.forEach((stack, count) -> {
             if (originalRequest.craftingMode == CraftingMode.IGNORE_MISSING) {
-                plan.addRequestable(entry.getKey().copy().setStackSize(0).setCountRequestable(entry.getLongValue()));
+                plan.addRequestable(stack.copy().setStackSize(0).setCountRequestable(count));
             } else {
-                plan.add(entry.getKey().copy().setStackSize(entry.getLongValue()));
+                plan.add(stack.copy().setStackSize(count));
             }
-        }
+        });
     }
 
     @Override
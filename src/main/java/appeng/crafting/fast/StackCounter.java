@@ -0,0 +1,69 @@
+package appeng.crafting.fast;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import appeng.api.storage.data.IAEStack;
+import it.unimi.dsi.fastutil.longs.Long2LongMap;
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectLongBiConsumer;
+
+/**
+ * Amounts per stack type, keyed by {@link IAEStack#getIdentityKey()} instead of stack equality.
+ */
+final class StackCounter {
+
+    private final Long2LongOpenHashMap counts = new Long2LongOpenHashMap();
+    private final Long2ObjectOpenHashMap<IAEStack<?>> stacks = new Long2ObjectOpenHashMap<>();
+
+    long get(IAEStack<?> stack) {
+        return counts.get(stack.getIdentityKey());
+    }
+
+    /**
+     * @return the new amount, the entry is removed when it reaches 0
+     */
+    long add(IAEStack<?> stack, long count) {
+        final long key = stack.getIdentityKey();
+        final long newValue = Math.addExact(counts.get(key), count);
+        if (newValue == 0) {
+            counts.remove(key);
+            stacks.remove(key);
+            return 0;
+        }
+        if (newValue < 0) {
+            throw new IllegalStateException(String.format("Negative result for %s, this is a bug.", stack));
+        }
+        if (counts.put(key, newValue) == 0) {
+            stacks.put(key, stack);
+        }
+        return newValue;
+    }
+
+    void put(IAEStack<?> stack, long count) {
+        final long key = stack.getIdentityKey();
+        counts.put(key, count);
+        stacks.put(key, stack);
+    }
+
+    void remove(IAEStack<?> stack) {
+        final long key = stack.getIdentityKey();
+        counts.remove(key);
+        stacks.remove(key);
+    }
+
+    boolean isEmpty() {
+        return counts.isEmpty();
+    }
+
+    List<IAEStack<?>> stacks() {
+        return new ArrayList<>(stacks.values());
+    }
+
+    void forEach(ObjectLongBiConsumer<IAEStack<?>> consumer) {
+        for (final Long2LongMap.Entry entry : counts.long2LongEntrySet()) {
+            consumer.accept(stacks.get(entry.getLongKey()), entry.getLongValue());
+        }
+    }
+}
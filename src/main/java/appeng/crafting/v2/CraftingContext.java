@@ -4,10 +4,8 @@ import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.function.Supplier;
@@ -22,8 +20,6 @@ import net.minecraft.world.World;
 import net.minecraft.world.WorldServer;
 
 import com.google.common.collect.ClassToInstanceMap;
-import com.google.common.collect.ImmutableList;
-import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.MutableClassToInstanceMap;
 
 import appeng.api.AEApi;
@@ -46,7 +42,6 @@ import appeng.me.cache.CraftingGridCache;
 import appeng.me.cluster.implementations.CraftingCPUCluster;
 import appeng.util.Platform;
 import appeng.util.item.AEItemStack;
-import appeng.util.item.OreListMultiMap;
 import cpw.mods.fml.common.FMLCommonHandler;
 import cpw.mods.fml.relauncher.Side;
 
@@ -126,10 +121,7 @@ public final class CraftingContext {
     private boolean doingWork = false;
     // State at the point when the last task executed.
     private CraftingTask.State finishedState = CraftingTask.State.FAILURE;
-    private final ImmutableMap<IAEStack<?>, ImmutableList<ICraftingPatternDetails>> availablePatterns;
-    private final Map<IAEStack<?>, List<ICraftingPatternDetails>> precisePatternCache = new HashMap<>();
-    private final Map<ICraftingPatternDetails, IAEItemStack> crafterIconCache = new HashMap<>();
-    private final OreListMultiMap<ICraftingPatternDetails> fuzzyPatternCache = new OreListMultiMap<>();
+    private final CraftingPatternCache patternCache;
     private final IdentityHashMap<ICraftingPatternDetails, Boolean> isPatternComplexCache = new IdentityHashMap<>();
     private final ClassToInstanceMap<Object> userCaches = MutableClassToInstanceMap.create();
 
@@ -142,7 +134,8 @@ public final class CraftingContext {
         this.itemModel = new MECraftingInventory(sg, true, false, true);
         this.byproductsInventory = new MECraftingInventory();
         this.availableCache = new MECraftingInventory(sg, false, false, false);
-        this.availablePatterns = craftingGrid.getCraftingMultiPatterns();
+        this.patternCache = craftingGrid instanceof CraftingGridCache cgc ? cgc.getPatternCache()
+                : new CraftingPatternCache(craftingGrid.getCraftingMultiPatterns());
     }
 
     /**
@@ -175,8 +168,15 @@ public final class CraftingContext {
         queueNextTaskOf(processing, true);
     }
 
+    /**
+     * @return the pattern lookups of the grid, shared with other calculations on the same pattern set
+     */
+    public CraftingPatternCache getPatternCache() {
+        return patternCache;
+    }
+
     public IAEItemStack getCrafterIconForPattern(@Nonnull ICraftingPatternDetails pattern) {
-        return crafterIconCache.computeIfAbsent(pattern, ignored -> {
+        return patternCache.getCrafterIcon(pattern, ignored -> {
             if (craftingGrid instanceof CraftingGridCache) {
                 final List<ICraftingMedium> mediums = ((CraftingGridCache) craftingGrid).getMediums(pattern);
                 for (ICraftingMedium medium : mediums) {
@@ -191,31 +191,11 @@ public final class CraftingContext {
     }
 
     public List<ICraftingPatternDetails> getPrecisePatternsFor(@Nonnull IAEStack<?> stack) {
-        return precisePatternCache.compute(stack, (key, value) -> {
-            if (value == null) {
-                return availablePatterns.getOrDefault(stack, ImmutableList.of());
-            } else {
-                return value;
-            }
-        });
+        return patternCache.getPrecisePatternsFor(stack);
     }
 
     public List<ICraftingPatternDetails> getFuzzyPatternsFor(@Nonnull IAEStack<?> stack) {
-        if (stack instanceof IAEItemStack aiStack) {
-            if (!fuzzyPatternCache.isPopulated()) {
-                for (final ImmutableList<ICraftingPatternDetails> patternSet : availablePatterns.values()) {
-                    for (final ICraftingPatternDetails pattern : patternSet) {
-                        if (pattern.canBeSubstitute()) {
-                            for (final IAEStack<?> output : pattern.getOutputs()) {
-                                if (output instanceof IAEItemStack ais) fuzzyPatternCache.put(ais.copy(), pattern);
-                            }
-                        }
-                    }
-                }
-                fuzzyPatternCache.freeze();
-            }
-            return fuzzyPatternCache.get(aiStack);
-        } else return getPrecisePatternsFor(stack);
+        return patternCache.getFuzzyPatternsFor(stack);
     }
 
     /**
@@ -232,9 +212,10 @@ public final class CraftingContext {
         }
 
         final IAEStack<?>[] inputs = pattern.getAEInputs();
-        final IAEItemStack[] mcOutputs = simulateComplexCrafting((IAEItemStack[]) inputs, pattern);
-
-        final boolean isComplex = Arrays.stream(mcOutputs).anyMatch(Objects::nonNull)
+        // only the substitute check depends on the items in the network
+        final boolean isComplex = patternCache.leavesItemsInGrid(
+                pattern,
+                p -> Arrays.stream(simulateComplexCrafting((IAEItemStack[]) inputs, p)).anyMatch(Objects::nonNull))
                 || hasReusableSubstituteInput(pattern, inputs);
         isPatternComplexCache.put(pattern, isComplex);
         return isComplex;
@@ -237,7 +237,7 @@ public class CraftingJobV2<StackType extends IAEStack<StackType>>
 
     @Override
     public Future<ICraftingJob<StackType>> schedule() {
-        TickHandler.INSTANCE.registerCraftingSimulation(this.context.world, this);
+        TickHandler.INSTANCE.registerCraftingSimulation(this.context.world, this, this.context.actionSource);
         return this;
     }
 
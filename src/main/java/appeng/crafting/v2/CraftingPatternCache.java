@@ -0,0 +1,140 @@
+package appeng.crafting.v2;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import javax.annotation.Nonnull;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import appeng.api.networking.crafting.ICraftingPatternDetails;
+import appeng.api.storage.data.IAEItemStack;
+import appeng.api.storage.data.IAEStack;
+import appeng.util.item.OreListMultiMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+
+/**
+ * Pattern lookups shared by all crafting calculations of a grid, for one version of its pattern set.
+ * <p>
+ * Everything cached here only depends on the patterns, never on the stored items, so repeated requests (level emitters,
+ * export buses with crafting cards) skip re-resolving which patterns to try and only re-check inventory amounts. A new
+ * instance is created by {@link appeng.me.cache.CraftingGridCache} whenever its patterns change; running calculations
+ * keep the instance they started with.
+ */
+public final class CraftingPatternCache {
+
+    private static final AtomicLong VERSIONS = new AtomicLong();
+    private static final Comparator<ICraftingPatternDetails> BY_PRIORITY = Comparator
+            .comparing(ICraftingPatternDetails::getPriority).reversed();
+
+    private final long version = VERSIONS.incrementAndGet();
+    private final ImmutableMap<IAEStack<?>, ImmutableList<ICraftingPatternDetails>> availablePatterns;
+    private final Long2ObjectOpenHashMap<ImmutableList<ICraftingPatternDetails>> preciseSelections = new Long2ObjectOpenHashMap<>();
+    private final Long2ObjectOpenHashMap<ImmutableList<ICraftingPatternDetails>> fuzzySelections = new Long2ObjectOpenHashMap<>();
+    private final Map<ICraftingPatternDetails, IAEItemStack> crafterIcons = new ConcurrentHashMap<>();
+    private final Map<ICraftingPatternDetails, Boolean> leavesItemsInGrid = new ConcurrentHashMap<>();
+    private volatile OreListMultiMap<ICraftingPatternDetails> fuzzyPatterns;
+
+    public CraftingPatternCache(@Nonnull ImmutableMap<IAEStack<?>, ImmutableList<ICraftingPatternDetails>> patterns) {
+        this.availablePatterns = patterns;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public ImmutableMap<IAEStack<?>, ImmutableList<ICraftingPatternDetails>> getAvailablePatterns() {
+        return availablePatterns;
+    }
+
+    public ImmutableList<ICraftingPatternDetails> getPrecisePatternsFor(@Nonnull IAEStack<?> stack) {
+        return availablePatterns.getOrDefault(stack, ImmutableList.of());
+    }
+
+    public ImmutableList<ICraftingPatternDetails> getFuzzyPatternsFor(@Nonnull IAEStack<?> stack) {
+        if (stack instanceof IAEItemStack aiStack) {
+            return getFuzzyPatternMap().get(aiStack);
+        }
+        return getPrecisePatternsFor(stack);
+    }
+
+    private OreListMultiMap<ICraftingPatternDetails> getFuzzyPatternMap() {
+        OreListMultiMap<ICraftingPatternDetails> map = fuzzyPatterns;
+        if (map == null) {
+            synchronized (this) {
+                map = fuzzyPatterns;
+                if (map == null) {
+                    map = new OreListMultiMap<>();
+                    for (final ImmutableList<ICraftingPatternDetails> patternSet : availablePatterns.values()) {
+                        for (final ICraftingPatternDetails pattern : patternSet) {
+                            if (pattern.canBeSubstitute()) {
+                                for (final IAEStack<?> output : pattern.getOutputs()) {
+                                    if (output instanceof IAEItemStack ais) map.put(ais.copy(), pattern);
+                                }
+                            }
+                        }
+                    }
+                    map.freeze();
+                    fuzzyPatterns = map;
+                }
+            }
+        }
+        return map;
+    }
+
+    /**
+     * @return the patterns a crafting request for the stack tries, in order: precise patterns by descending priority,
+     *         followed by the fuzzy ones by descending priority if {@code acceptFuzzy} is set
+     */
+    public ImmutableList<ICraftingPatternDetails> getPatternSelection(@Nonnull IAEStack<?> stack,
+            boolean acceptFuzzy) {
+        final Long2ObjectOpenHashMap<ImmutableList<ICraftingPatternDetails>> selections = acceptFuzzy
+                ? fuzzySelections
+                : preciseSelections;
+        final long key = stack.getIdentityKey();
+        ImmutableList<ICraftingPatternDetails> selection;
+        synchronized (selections) {
+            selection = selections.get(key);
+        }
+        if (selection == null) {
+            final List<ICraftingPatternDetails> patterns = new ArrayList<>(getPrecisePatternsFor(stack));
+            patterns.sort(BY_PRIORITY);
+            if (acceptFuzzy) {
+                final List<ICraftingPatternDetails> fuzzy = new ArrayList<>(getFuzzyPatternsFor(stack));
+                fuzzy.sort(BY_PRIORITY);
+                patterns.addAll(fuzzy);
+            }
+            selection = ImmutableList.copyOf(patterns);
+            synchronized (selections) {
+                selections.put(key, selection);
+            }
+        }
+        return selection;
+    }
+
+    public IAEItemStack getCrafterIcon(@Nonnull ICraftingPatternDetails pattern,
+            @Nonnull Function<ICraftingPatternDetails, IAEItemStack> lookup) {
+        return crafterIcons.computeIfAbsent(pattern, lookup);
+    }
+
+    /**
+     * @param simulation crafts the pattern once, returns true if something was left in the crafting grid
+     * @return if a single craft of the pattern leaves items in the crafting grid
+     */
+    public boolean leavesItemsInGrid(@Nonnull ICraftingPatternDetails pattern,
+            @Nonnull Predicate<ICraftingPatternDetails> simulation) {
+        Boolean cached = leavesItemsInGrid.get(pattern);
+        if (cached == null) {
+            cached = simulation.test(pattern);
+            leavesItemsInGrid.put(pattern, cached);
+        }
+        return cached;
+    }
+}
@@ -675,17 +675,11 @@ public class CraftableItemResolver implements CraftingRequestResolver {
             @Nonnull CraftingContext context) {
         final ArrayList<CraftingTask> tasks = new ArrayList<>();
         final Set<ICraftingPatternDetails> denyList = request.patternParents;
-        final List<ICraftingPatternDetails> patterns = new ArrayList<>(context.getPrecisePatternsFor(request.stack));
+        // Precise patterns first, then fuzzy ones if allowed, each by descending priority
+        final List<ICraftingPatternDetails> patterns = new ArrayList<>(
+                context.getPatternCache()
+                        .getPatternSelection(request.stack, request.substitutionMode == SubstitutionMode.ACCEPT_FUZZY));
         patterns.removeAll(denyList);
-        patterns.sort(Comparator.comparing(ICraftingPatternDetails::getPriority).reversed());
-        // If fuzzy patterns are allowed,
-        if (request.substitutionMode == SubstitutionMode.ACCEPT_FUZZY) {
-            final List<ICraftingPatternDetails> fuzzyPatterns = new ArrayList<>(
-                    context.getFuzzyPatternsFor(request.stack));
-            fuzzyPatterns.removeAll(denyList);
-            fuzzyPatterns.sort(Comparator.comparing(ICraftingPatternDetails::getPriority).reversed());
-            patterns.addAll(fuzzyPatterns);
-        }
         int priority = CraftingTask.PRIORITY_CRAFT_OFFSET + patterns.size() - 1;
 
         tasks.ensureCapacity(patterns.size() + 1);
@@ -0,0 +1,191 @@
+/*
+ * This file is part of Applied Energistics 2. Copyright (c) 2013 - 2014, AlgorithmX2, All rights reserved. Applied
+ * Energistics 2 is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser General
+ * Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version. Applied Energistics 2 is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details. You should have received a copy of the GNU Lesser General Public License along with
+ * Applied Energistics 2. If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.helpers;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.minecraft.inventory.IInventory;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.crafting.CraftingManager;
+import net.minecraft.item.crafting.IRecipe;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.world.World;
+
+import appeng.core.AEConfig;
+import appeng.items.misc.ItemEncodedPattern;
+
+/**
+ * Encoded patterns decoded once per distinct pattern item and NBT.
+ * <p>
+ * Interfaces, terminals and tooltips all decode the same pattern items over and over; the NBT parsing and the recipe
+ * lookup of crafting patterns only happen for the first one here. Every caller still gets its own
+ * {@link PatternHelper}, since the priority is set per interface, but the decoded inputs, outputs, recipe and slot test
+ * results are shared.
+ * <p>
+ * The cache keeps the most recently used {@link AEConfig#decodedPatternCacheSize} patterns, clients fill it with
+ * tooltips and never stop a server. It is dropped by {@link #invalidate()} when the server starts and stops, and when
+ * the crafting recipe list is replaced or changes its size.
+ */
+public final class DecodedPatternCache {
+
+    private static final ThreadPoolExecutor DECODER;
+
+    static {
+        final ThreadFactory factory = ar -> {
+            final Thread thread = new Thread(ar, "AE Pattern Decoder");
+            thread.setDaemon(true);
+            return thread;
+        };
+        final int threads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+        DECODER = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), factory);
+        DECODER.allowCoreThreadTimeOut(true);
+    }
+
+    private static final Map<Key, PatternHelper> DECODED = Collections
+            .synchronizedMap(new LinkedHashMap<Key, PatternHelper>(256, 0.75f, true) {
+
+                private static final long serialVersionUID = -2307315012584318377L;
+
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<Key, PatternHelper> eldest) {
+                    return this.size() > AEConfig.instance.decodedPatternCacheSize;
+                }
+            });
+
+    // patterns decoded before the last invalidation are not cached
+    private static final AtomicInteger GENERATION = new AtomicInteger();
+
+    private static volatile List<IRecipe> recipeList;
+    private static volatile int recipeCount;
+
+    private DecodedPatternCache() {}
+
+    /**
+     * @return the pattern of the stack, see {@link PatternHelper#PatternHelper(ItemStack, World)} for the exceptions
+     *         thrown for invalid patterns
+     */
+    public static PatternHelper getPattern(final ItemStack is, final World w) {
+        final NBTTagCompound tag = is.getTagCompound();
+        if (tag == null) {
+            return new PatternHelper(is, w);
+        }
+
+        checkRecipes();
+
+        final PatternHelper decoded = DECODED.get(new Key(is.getItem(), tag));
+        if (decoded != null) {
+            return new PatternHelper(decoded, is);
+        }
+
+        // decoding may mark the tag as invalid, so the key has to be copied first
+        final Key key = new Key(is.getItem(), (NBTTagCompound) tag.copy());
+        final int generation = GENERATION.get();
+        final PatternHelper template = new PatternHelper(is, w);
+        synchronized (DECODED) {
+            if (generation != GENERATION.get()) {
+                return template;
+            }
+
+            final PatternHelper existing = DECODED.putIfAbsent(key, template);
+            return new PatternHelper(existing != null ? existing : template, is);
+        }
+    }
+
+    /**
+     * Decodes the processing patterns of an inventory on background threads, so they are cached by the time the owner
+     * asks for them. Crafting patterns look up their recipe in the world and are left for the owner's thread. Used
+     * while the world loads, when {@link AEConfig#parallelPatternDecoding} is enabled.
+     */
+    public static void decodeInBackground(final IInventory patterns) {
+        for (int x = 0; x < patterns.getSizeInventory(); x++) {
+            final ItemStack is = patterns.getStackInSlot(x);
+            if (is == null || !(is.getItem() instanceof ItemEncodedPattern)) {
+                continue;
+            }
+
+            final NBTTagCompound tag = is.getTagCompound();
+            if (tag == null || tag.getBoolean("crafting") || DECODED.containsKey(new Key(is.getItem(), tag))) {
+                continue;
+            }
+
+            final ItemStack copy = is.copy();
+            DECODER.execute(() -> {
+                try {
+                    getPattern(copy, null);
+                } catch (final Throwable ignored) {
+                    // decoded again, and marked as invalid, on the owner's thread
+                }
+            });
+        }
+    }
+
+    /**
+     * Recipe changes nobody reported are noticed when the list is replaced or its size changes.
+     */
+    private static void checkRecipes() {
+        final List<IRecipe> recipes = CraftingManager.getInstance().getRecipeList();
+        if (recipes == recipeList && recipes.size() == recipeCount) {
+            return;
+        }
+
+        synchronized (DECODED) {
+            if (recipes != recipeList || recipes.size() != recipeCount) {
+                invalidate();
+                recipeList = recipes;
+                recipeCount = recipes.size();
+            }
+        }
+    }
+
+    /**
+     * Drops every decoded pattern, patterns that are being decoded right now aren't cached either. Mods and commands
+     * that change crafting recipes while the game runs should call this.
+     */
+    public static void invalidate() {
+        synchronized (DECODED) {
+            GENERATION.incrementAndGet();
+            DECODED.clear();
+        }
+    }
+
+    private static final class Key {
+
+        private final Item item;
+        private final NBTTagCompound tag;
+        private final int hash;
+
+        private Key(final Item item, final NBTTagCompound tag) {
+            this.item = item;
+            this.tag = tag;
+            this.hash = 31 * System.identityHashCode(item) + tag.hashCode();
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            return obj instanceof Key other && this.item == other.item && this.tag.equals(other.tag);
+        }
+    }
+}
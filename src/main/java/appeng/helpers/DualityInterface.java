@@ -342,6 +342,9 @@ public class DualityInterface implements IGridTickable, IStorageMonitorable, IIn
         this.upgrades.readFromNBT(data, "upgrades");
         this.config.readFromNBT(data, "config");
         this.patterns.readFromNBT(data, "patterns");
+        if (AEConfig.instance.parallelPatternDecoding && Platform.isServer()) {
+            DecodedPatternCache.decodeInBackground(this.patterns);
+        }
         this.storage.readFromNBT(data, "storage");
         this.priority = data.getInteger("priority");
         this.cm.readFromNBT(data);
@@ -11,15 +11,12 @@
 package appeng.helpers;
 
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Set;
 
 import net.minecraft.inventory.InventoryCrafting;
 import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
-import net.minecraft.item.crafting.CraftingManager;
 import net.minecraft.item.crafting.IRecipe;
 import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.nbt.NBTTagList;
@@ -34,12 +31,14 @@ import appeng.container.ContainerNull;
 import appeng.util.ItemSorters;
 import appeng.util.Platform;
 import appeng.util.item.AEItemStack;
+import it.unimi.dsi.fastutil.longs.Long2BooleanLinkedOpenHashMap;
 
 public class PatternHelper implements ICraftingPatternDetails, Comparable<PatternHelper> {
 
+    private static final int MAX_SLOT_TESTS = 1024;
+
     private final ItemStack patternItem;
-    private final InventoryCrafting crafting = new InventoryCrafting(new ContainerNull(), 3, 3);
-    private final InventoryCrafting testFrame = new InventoryCrafting(new ContainerNull(), 3, 3);
+    private final InventoryCrafting crafting;
     private final ItemStack correctOutput;
     private final IRecipe standardRecipe;
     private final IAEItemStack[] condensedInputs;
@@ -49,8 +48,11 @@ public class PatternHelper implements ICraftingPatternDetails, Comparable<Patter
     private final boolean isCrafting;
     private final boolean canSubstitute;
     private final boolean canBeSubstitute;
-    private final Set<TestLookup> failCache = new HashSet<>();
-    private final Set<TestLookup> passCache = new HashSet<>();
+    /**
+     * Results of substitution tests by {@link #getSlotTestKey} in least recently used order, shared by all instances of
+     * the same pattern. Also the lock the tests run under, recipes may not be safe to test from several threads.
+     */
+    private final Long2BooleanLinkedOpenHashMap slotTests;
     private final IAEItemStack pattern;
     private int priority = 0;
 
@@ -67,14 +69,10 @@ public class PatternHelper implements ICraftingPatternDetails, Comparable<Patter
 
         this.canSubstitute = nbt.getBoolean("substitute");
         this.canBeSubstitute = nbt.getBoolean("beSubstitute");
+        this.crafting = new InventoryCrafting(new ContainerNull(), 3, 3);
+        this.slotTests = new Long2BooleanLinkedOpenHashMap();
         this.patternItem = is;
-        if (nbt.hasKey("author")) {
-            final ItemStack forComparison = this.patternItem.copy();
-            forComparison.stackTagCompound.removeTag("author");
-            this.pattern = AEItemStack.create(forComparison);
-        } else {
-            this.pattern = AEItemStack.create(is);
-        }
+        this.pattern = createPatternStack(is);
 
         final List<IAEItemStack> in = new ArrayList<>();
         final List<IAEItemStack> out = new ArrayList<>();
@@ -96,14 +94,10 @@ public class PatternHelper implements ICraftingPatternDetails, Comparable<Patter
             }
 
             if (gs != null && (!this.isCrafting || !gs.hasTagCompound())) {
-                this.markItemAs(x, gs, TestStatus.ACCEPT);
+                this.markItemAs(x, gs, true);
             }
 
             in.add(AEApi.instance().storage().createItemStack(gs));
-            if (this.isCrafting) // processing recipes are not tested anyway
-            {
-                this.testFrame.setInventorySlotContents(x, gs);
-            }
         }
 
         if (this.isCrafting) {
@@ -146,12 +140,52 @@ public class PatternHelper implements ICraftingPatternDetails, Comparable<Patter
         }
     }
 
-    private void markItemAs(final int slotIndex, final ItemStack i, final TestStatus b) {
-        if (b == TestStatus.TEST || i.hasTagCompound()) {
+    /**
+     * Creates a pattern for another stack of the same encoded pattern, sharing everything decoded from the NBT and the
+     * slot test results with {@code decoded}. See {@link DecodedPatternCache}.
+     */
+    PatternHelper(final PatternHelper decoded, final ItemStack is) {
+        this.patternItem = is;
+        this.pattern = createPatternStack(is);
+        this.crafting = decoded.crafting;
+        this.correctOutput = decoded.correctOutput;
+        this.standardRecipe = decoded.standardRecipe;
+        this.condensedInputs = decoded.condensedInputs;
+        this.condensedOutputs = decoded.condensedOutputs;
+        this.inputs = decoded.inputs;
+        this.outputs = decoded.outputs;
+        this.isCrafting = decoded.isCrafting;
+        this.canSubstitute = decoded.canSubstitute;
+        this.canBeSubstitute = decoded.canBeSubstitute;
+        this.slotTests = decoded.slotTests;
+    }
+
+    private static IAEItemStack createPatternStack(final ItemStack is) {
+        if (is.getTagCompound().hasKey("author")) {
+            final ItemStack forComparison = is.copy();
+            forComparison.stackTagCompound.removeTag("author");
+            return AEItemStack.create(forComparison);
+        }
+        return AEItemStack.create(is);
+    }
+
+    private static long getSlotTestKey(final int slotIndex, final ItemStack i) {
+        return ((long) i.getItemDamage() << 32) | ((Item.getIdFromItem(i.getItem()) & 0xFFFFFFFL) << 4) | slotIndex;
+    }
+
+    private void markItemAs(final int slotIndex, final ItemStack i, final boolean valid) {
+        if (i.hasTagCompound()) {
             return;
         }
 
-        (b == TestStatus.ACCEPT ? this.passCache : this.failCache).add(new TestLookup(slotIndex, i));
+        synchronized (this.slotTests) {
+            // fuzzy patterns may see any number of items, the least recently used results are dropped
+            if (this.slotTests.size() >= MAX_SLOT_TESTS) {
+                this.slotTests.removeFirstBoolean();
+            }
+
+            this.slotTests.putAndMoveToLast(getSlotTestKey(slotIndex, i), valid);
+        }
     }
 
     @Override
@@ -160,55 +194,46 @@ public class PatternHelper implements ICraftingPatternDetails, Comparable<Patter
     }
 
     @Override
-    public synchronized boolean isValidItemForSlot(final int slotIndex, final IAEStack<?> i, final World w) {
+    public boolean isValidItemForSlot(final int slotIndex, final IAEStack<?> i, final World w) {
         if (isCrafting) return isValidItemForSlot(slotIndex, ((IAEItemStack) i).getItemStack(), w);
         else throw new IllegalStateException("Only crafting recipes supported.");
     }
 
     @Override
-    public synchronized boolean isValidItemForSlot(final int slotIndex, final ItemStack i, final World w) {
+    public boolean isValidItemForSlot(final int slotIndex, final ItemStack i, final World w) {
         if (!this.isCrafting) {
             throw new IllegalStateException("Only crafting recipes supported.");
         }
 
-        final TestStatus result = this.getStatus(slotIndex, i);
+        synchronized (this.slotTests) {
+            final TestStatus result = this.getStatus(slotIndex, i);
 
-        switch (result) {
-            case ACCEPT -> {
-                return true;
-            }
-            case DECLINE -> {
-                return false;
+            switch (result) {
+                case ACCEPT -> {
+                    return true;
+                }
+                case DECLINE -> {
+                    return false;
+                }
+                default -> {}
             }
-            default -> {}
-        }
 
-        for (int x = 0; x < this.crafting.getSizeInventory(); x++) {
-            this.testFrame.setInventorySlotContents(x, this.crafting.getStackInSlot(x));
-        }
+            // a frame per test, the pattern is shared between threads
+            final InventoryCrafting testFrame = new InventoryCrafting(new ContainerNull(), 3, 3);
+            for (int x = 0; x < this.crafting.getSizeInventory(); x++) {
+                testFrame.setInventorySlotContents(x, this.crafting.getStackInSlot(x));
+            }
 
-        this.testFrame.setInventorySlotContents(slotIndex, i);
+            testFrame.setInventorySlotContents(slotIndex, i);
 
-        if (this.standardRecipe.matches(this.testFrame, w)) {
-            final ItemStack testOutput = this.standardRecipe.getCraftingResult(this.testFrame);
+            final ItemStack testOutput = this.standardRecipe.matches(testFrame, w)
+                    ? this.standardRecipe.getCraftingResult(testFrame)
+                    : Platform.findMatchingRecipeOutput(testFrame, w);
+            final boolean valid = Platform.isItemStackIdentical(this.correctOutput, testOutput);
 
-            if (Platform.isItemStackIdentical(this.correctOutput, testOutput)) {
-                this.testFrame.setInventorySlotContents(slotIndex, this.crafting.getStackInSlot(slotIndex));
-                this.markItemAs(slotIndex, i, TestStatus.ACCEPT);
-                return true;
-            }
-        } else {
-            final ItemStack testOutput = CraftingManager.getInstance().findMatchingRecipe(this.testFrame, w);
-
-            if (Platform.isItemStackIdentical(this.correctOutput, testOutput)) {
-                this.testFrame.setInventorySlotContents(slotIndex, this.crafting.getStackInSlot(slotIndex));
-                this.markItemAs(slotIndex, i, TestStatus.ACCEPT);
-                return true;
-            }
+            this.markItemAs(slotIndex, i, valid);
+            return valid;
         }
-
-        this.markItemAs(slotIndex, i, TestStatus.DECLINE);
-        return false;
     }
 
     @Override
@@ -278,15 +303,12 @@ public class PatternHelper implements ICraftingPatternDetails, Comparable<Patter
             return TestStatus.TEST;
         }
 
-        if (this.passCache.contains(new TestLookup(slotIndex, i))) {
-            return TestStatus.ACCEPT;
-        }
-
-        if (this.failCache.contains(new TestLookup(slotIndex, i))) {
-            return TestStatus.DECLINE;
+        final long key = getSlotTestKey(slotIndex, i);
+        if (!this.slotTests.containsKey(key)) {
+            return TestStatus.TEST;
         }
 
-        return TestStatus.TEST;
+        return this.slotTests.getAndMoveToLast(key) ? TestStatus.ACCEPT : TestStatus.DECLINE;
     }
 
     @Override
@@ -332,43 +354,6 @@ public class PatternHelper implements ICraftingPatternDetails, Comparable<Patter
         TEST
     }
 
-    private static final class TestLookup {
-
-        private final int slot;
-        private final int ref;
-        private final int hash;
-
-        public TestLookup(final int slot, final ItemStack i) {
-            this(slot, i.getItem(), i.getItemDamage());
-        }
-
-        public TestLookup(final int slot, final Item item, final int dmg) {
-            this.slot = slot;
-            this.ref = (dmg << Platform.DEF_OFFSET) | (Item.getIdFromItem(item) & 0xffff);
-            final int offset = 3 * slot;
-            this.hash = (this.ref << offset) | (this.ref >> (offset + 32));
-        }
-
-        @Override
-        public int hashCode() {
-            return this.hash;
-        }
-
-        @Override
-        public boolean equals(final Object obj) {
-            final boolean equality;
-
-            if (obj instanceof TestLookup b) {
-
-                equality = b.slot == this.slot && b.ref == this.ref;
-            } else {
-                equality = false;
-            }
-
-            return equality;
-        }
-    }
-
     public static IAEItemStack[] loadIAEItemStackFromNBT(final NBTTagList tags, boolean saveOrder,
             final ItemStack unknownItem) {
         final List<IAEItemStack> items = new ArrayList<>();
@@ -50,6 +50,7 @@ import appeng.core.localization.GuiText;
 import appeng.items.contents.PinsHandler;
 import appeng.items.contents.PinsHolder;
 import appeng.items.contents.WirelessTerminalViewCells;
+import appeng.me.cache.WirelessGridCache;
 import appeng.tile.networking.TileWireless;
 import appeng.util.TerminalSettings;
 import cpw.mods.fml.relauncher.Side;
@@ -196,16 +197,24 @@ public class WirelessTerminalGuiObject implements IPortableCell, IActionHost, II
             }
         }
 
-        final IMachineSet tw = this.targetGrid.getMachines(TileWireless.class);
-
         this.myWap = null;
 
-        for (final IGridNode n : tw) {
-            final IWirelessAccessPoint wap = (IWirelessAccessPoint) n.getMachine();
-            if (infinityRange || this.testWap(wap)) {
-                this.myWap = wap;
+        if (infinityRange) {
+            final IMachineSet tw = this.targetGrid.getMachines(TileWireless.class);
+            for (final IGridNode n : tw) {
+                this.myWap = (IWirelessAccessPoint) n.getMachine();
                 break;
             }
+        } else {
+            final WirelessGridCache wirelessCache = this.targetGrid.getCache(WirelessGridCache.class);
+            final IWirelessAccessPoint wap = wirelessCache.getAccessPointInRange(
+                    this.myPlayer.worldObj.provider.dimensionId,
+                    this.myPlayer.posX,
+                    this.myPlayer.posY,
+                    this.myPlayer.posZ);
+            if (wap != null && this.testWap(wap)) {
+                this.myWap = wap;
+            }
         }
 
         return this.myWap != null;
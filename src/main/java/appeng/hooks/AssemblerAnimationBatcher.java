@@ -0,0 +1,163 @@
+package appeng.hooks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import net.minecraft.entity.player.EntityPlayerMP;
+import net.minecraft.item.ItemStack;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.util.Vec3;
+import net.minecraft.world.World;
+
+import appeng.api.storage.data.IAEItemStack;
+import appeng.core.sync.network.NetworkHandler;
+import appeng.core.sync.packets.PacketAssemblerAnimations;
+import appeng.core.sync.packets.PacketAssemblerAnimations.Animation;
+import appeng.util.item.AEItemStack;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+
+/**
+ * Collects the Molecular Assembler animations of a server tick per chunk and sends every nearby player at most one
+ * packet with them at the end of the tick.
+ * <p>
+ * Players within {@link #FULL_DETAIL_RANGE} blocks get every animation they can see, players further away only
+ * {@link #FAR_ANIMATIONS_PER_CHUNK} per chunk. Animations behind a player are skipped, unless they are right next to
+ * them.
+ */
+public final class AssemblerAnimationBatcher {
+
+    private static final int RANGE = 32;
+    private static final int FULL_DETAIL_RANGE = 16;
+    private static final int ALWAYS_VISIBLE_RANGE = 4;
+    private static final int FAR_ANIMATIONS_PER_CHUNK = 2;
+    // roughly the widest field of view a client can be set to
+    private static final double VIEW_COS = 0.2;
+
+    private static final class PendingAnimation {
+
+        private final int x;
+        private final int y;
+        private final int z;
+        private final byte rate;
+        private final ItemStack output;
+        private Animation animation;
+
+        private PendingAnimation(final int x, final int y, final int z, final byte rate, final ItemStack output) {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.rate = rate;
+            this.output = output;
+        }
+
+        private Animation getAnimation() {
+            if (this.animation == null) {
+                final IAEItemStack is = AEItemStack.create(this.output);
+                this.animation = new Animation(this.x, this.y, this.z, this.rate, is);
+            }
+            return this.animation;
+        }
+    }
+
+    private final Int2ObjectOpenHashMap<Long2ObjectOpenHashMap<Long2ObjectLinkedOpenHashMap<PendingAnimation>>> pending = new Int2ObjectOpenHashMap<>();
+
+    /**
+     * Queues the animation of a finished craft, a later craft of the same assembler in the same tick replaces it.
+     */
+    public void add(final World w, final int x, final int y, final int z, final byte rate, final ItemStack output) {
+        if (output == null) {
+            return;
+        }
+
+        Long2ObjectOpenHashMap<Long2ObjectLinkedOpenHashMap<PendingAnimation>> chunks = this.pending
+                .get(w.provider.dimensionId);
+        if (chunks == null) {
+            chunks = new Long2ObjectOpenHashMap<>();
+            this.pending.put(w.provider.dimensionId, chunks);
+        }
+
+        final long chunk = ((long) (x >> 4) << 32) | ((z >> 4) & 0xFFFFFFFFL);
+        Long2ObjectLinkedOpenHashMap<PendingAnimation> animations = chunks.get(chunk);
+        if (animations == null) {
+            animations = new Long2ObjectLinkedOpenHashMap<>();
+            chunks.put(chunk, animations);
+        }
+
+        final long pos = ((long) x & 0x3FFFFFF) << 38 | ((long) z & 0x3FFFFFF) << 12 | (y & 0xFFF);
+        animations.put(pos, new PendingAnimation(x, y, z, rate, output.copy()));
+    }
+
+    /**
+     * Sends the animations of this tick.
+     */
+    public void flush() {
+        if (this.pending.isEmpty()) {
+            return;
+        }
+
+        final MinecraftServer server = MinecraftServer.getServer();
+        if (server != null) {
+            for (final EntityPlayerMP player : server.getConfigurationManager().playerEntityList) {
+                final Long2ObjectOpenHashMap<Long2ObjectLinkedOpenHashMap<PendingAnimation>> chunks = this.pending
+                        .get(player.dimension);
+                if (chunks == null) {
+                    continue;
+                }
+
+                final List<Animation> visible = this.getVisible(player, chunks);
+                if (!visible.isEmpty()) {
+                    try {
+                        NetworkHandler.instance.sendTo(new PacketAssemblerAnimations(visible), player);
+                    } catch (final IOException e) {
+                        // ;P
+                    }
+                }
+            }
+        }
+
+        this.pending.clear();
+    }
+
+    private List<Animation> getVisible(final EntityPlayerMP player,
+            final Long2ObjectOpenHashMap<Long2ObjectLinkedOpenHashMap<PendingAnimation>> chunks) {
+        final List<Animation> visible = new ArrayList<>();
+        final Vec3 look = player.getLookVec();
+        final double eyeY = player.posY + player.getEyeHeight();
+
+        for (final Long2ObjectLinkedOpenHashMap<PendingAnimation> animations : chunks.values()) {
+            int far = 0;
+            for (final PendingAnimation animation : animations.values()) {
+                final double dx = animation.x + 0.5 - player.posX;
+                final double dy = animation.y + 0.5 - eyeY;
+                final double dz = animation.z + 0.5 - player.posZ;
+                final double distanceSq = dx * dx + dy * dy + dz * dz;
+
+                if (distanceSq > RANGE * RANGE) {
+                    continue;
+                }
+
+                if (distanceSq > ALWAYS_VISIBLE_RANGE * ALWAYS_VISIBLE_RANGE) {
+                    final double dot = dx * look.xCoord + dy * look.yCoord + dz * look.zCoord;
+                    if (dot < VIEW_COS * Math.sqrt(distanceSq)) {
+                        continue;
+                    }
+                }
+
+                if (distanceSq > FULL_DETAIL_RANGE * FULL_DETAIL_RANGE && far++ >= FAR_ANIMATIONS_PER_CHUNK) {
+                    continue;
+                }
+
+                visible.add(animation.getAnimation());
+            }
+        }
+
+        return visible;
+    }
+
+    public void clear() {
+        this.pending.clear();
+    }
+}
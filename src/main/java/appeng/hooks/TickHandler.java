@@ -10,7 +10,6 @@
 
 package appeng.hooks;
 
-import java.util.Collection;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.Queue;
@@ -25,19 +24,18 @@ import net.minecraftforge.event.world.ChunkEvent;
 import net.minecraftforge.event.world.WorldEvent;
 
 import com.google.common.base.Stopwatch;
-import com.google.common.collect.LinkedListMultimap;
-import com.google.common.collect.Multimap;
 
 import appeng.api.AEApi;
 import appeng.api.networking.IGridNode;
 import appeng.api.networking.crafting.ICraftingJob;
+import appeng.api.networking.security.BaseActionSource;
 import appeng.api.parts.CableRenderMode;
 import appeng.api.util.AEColor;
-import appeng.core.AEConfig;
 import appeng.core.AELog;
 import appeng.core.CommonHelper;
 import appeng.core.sync.packets.PacketPaintedEntity;
 import appeng.core.worlddata.WorldData;
+import appeng.crafting.CraftingCalculationScheduler;
 import appeng.entity.EntityFloatingItem;
 import appeng.me.Grid;
 import appeng.me.NetworkList;
@@ -47,6 +45,7 @@ import appeng.util.IWorldCallable;
 import appeng.util.Platform;
 import cpw.mods.fml.common.FMLCommonHandler;
 import cpw.mods.fml.common.eventhandler.SubscribeEvent;
+import cpw.mods.fml.common.gameevent.PlayerEvent.PlayerLoggedOutEvent;
 import cpw.mods.fml.common.gameevent.TickEvent;
 import cpw.mods.fml.common.gameevent.TickEvent.Phase;
 import cpw.mods.fml.common.gameevent.TickEvent.Type;
@@ -58,7 +57,8 @@ public class TickHandler {
     public static final TickHandler INSTANCE = new TickHandler();
 
     private final Queue<IWorldCallable<?>> serverQueue = new LinkedList<>();
-    private final Multimap<World, ICraftingJob> craftingJobs = LinkedListMultimap.create();
+    private final CraftingCalculationScheduler craftingScheduler = new CraftingCalculationScheduler();
+    private final AssemblerAnimationBatcher assemblerAnimations = new AssemblerAnimationBatcher();
     private final WeakHashMap<World, Queue<IWorldCallable<?>>> callQueue = new WeakHashMap<>();
     private final HandlerRep server = new HandlerRep();
     private final HandlerRep client = new HandlerRep();
@@ -122,7 +122,8 @@ public class TickHandler {
     public void shutdown() {
         this.getRepo().clear();
         serverQueue.clear();
-        craftingJobs.clear();
+        craftingScheduler.clear();
+        assemblerAnimations.clear();
     }
 
     @SubscribeEvent
@@ -144,13 +145,20 @@ public class TickHandler {
             }
 
             callQueue.remove(ev.world);
+            craftingScheduler.cancelWorld(ev.world);
         }
     }
 
+    @SubscribeEvent
+    public void onPlayerLoggedOut(final PlayerLoggedOutEvent ev) {
+        craftingScheduler.cancelPlayer(ev.player.getUniqueID());
+    }
+
     @SubscribeEvent
     public void onWorldSave(final WorldEvent.Save event) {
         if (Platform.isServer()) {
             WorldData.instance().spawnData().flush();
+            WorldData.instance().playerData().flush();
         }
     }
 
@@ -182,19 +190,8 @@ public class TickHandler {
             }
         }
 
-        if (ev.type == Type.WORLD && ev.phase == Phase.END) {
-            final WorldTickEvent wte = (WorldTickEvent) ev;
-            synchronized (this.craftingJobs) {
-                final Collection<ICraftingJob> jobSet = this.craftingJobs.get(wte.world);
-                if (!jobSet.isEmpty()) {
-                    final int simTime = Math.max(1, AEConfig.instance.craftingCalculationTimePerTick / jobSet.size());
-                    jobSet.removeIf(cj -> !cj.simulateFor(simTime));
-                }
-            }
-        }
-
         // for no there is no reason to care about this on the client...
-        else if (ev.type == Type.SERVER && ev.phase == Phase.END) {
+        if (ev.type == Type.SERVER && ev.phase == Phase.END) {
             this.tickColors(this.srvPlayerColors);
             // ready tiles.
             final HandlerRep repo = this.getRepo();
@@ -210,6 +207,12 @@ public class TickHandler {
                 g.update();
             }
 
+            // crafting calculations of all worlds.
+            this.craftingScheduler.tick();
+
+            // animations of the assemblers that crafted this tick.
+            this.assemblerAnimations.flush();
+
             // cross world queue.
             this.processQueue(this.serverQueue, null);
         }
@@ -265,9 +268,20 @@ public class TickHandler {
     }
 
     public void registerCraftingSimulation(final World world, final ICraftingJob craftingJob) {
-        synchronized (this.craftingJobs) {
-            this.craftingJobs.put(world, craftingJob);
-        }
+        this.registerCraftingSimulation(world, craftingJob, null);
+    }
+
+    public void registerCraftingSimulation(final World world, final ICraftingJob craftingJob,
+            final BaseActionSource source) {
+        this.craftingScheduler.submit(world, craftingJob, source);
+    }
+
+    public CraftingCalculationScheduler getCraftingScheduler() {
+        return this.craftingScheduler;
+    }
+
+    public AssemblerAnimationBatcher getAssemblerAnimations() {
+        return this.assemblerAnimations;
     }
 
     private static class HandlerRep {
@@ -47,7 +47,7 @@ import appeng.client.render.items.ItemEncodedPatternRenderer;
 import appeng.core.CommonHelper;
 import appeng.core.features.AEFeature;
 import appeng.core.localization.GuiText;
-import appeng.helpers.PatternHelper;
+import appeng.helpers.DecodedPatternCache;
 import appeng.items.AEBaseItem;
 import appeng.util.Platform;
 import codechicken.nei.NEIClientConfig;
@@ -203,7 +203,7 @@ public class ItemEncodedPattern extends AEBaseItem implements ICraftingPatternIt
     @Override
     public ICraftingPatternDetails getPatternForItem(final ItemStack is, final World w) {
         try {
-            return new PatternHelper(is, w);
+            return DecodedPatternCache.getPattern(is, w);
         } catch (final Throwable t) {
             return null;
         }
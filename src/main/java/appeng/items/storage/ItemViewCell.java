@@ -43,6 +43,7 @@ import appeng.items.contents.CellConfigLegacy;
 import appeng.items.contents.CellUpgrades;
 import appeng.tile.inventory.IAEStackInventory;
 import appeng.util.Platform;
+import appeng.util.prioitylist.CompiledPartitionList;
 import appeng.util.prioitylist.FuzzyPriorityList;
 import appeng.util.prioitylist.IPartitionList;
 import appeng.util.prioitylist.MergedPriorityList;
@@ -118,7 +119,7 @@ public class ItemViewCell extends AEBaseItem implements ICellWorkbenchItem {
             }
         }
 
-        return myPartitionList;
+        return myPartitionList == null ? null : CompiledPartitionList.compile(myPartitionList);
     }
 
     @Override
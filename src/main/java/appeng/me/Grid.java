@@ -61,9 +61,8 @@ public class Grid implements IGrid {
         for (final Entry<Class<? extends IGridCache>, IGridCache> c : myCaches.entrySet()) {
             final Class<? extends IGridCache> key = c.getKey();
             final IGridCache value = c.getValue();
-            final Class<? extends IGridCache> valueClass = value.getClass();
 
-            this.eventBus.readClass(key, valueClass);
+            this.eventBus.addCache(value);
             this.caches.put(key, value);
         }
 
@@ -130,7 +129,7 @@ public class Grid implements IGrid {
         if (nodes == null) {
             nodes = new MachineSet(mClass);
             this.machines.put(mClass, nodes);
-            this.eventBus.readClass(mClass, mClass);
+            this.eventBus.addMachines(nodes);
         }
 
         // handle loading grid storages.
@@ -193,14 +192,14 @@ public class Grid implements IGrid {
     @Override
     public MENetworkEvent postEvent(final MENetworkEvent ev) {
         CraftingGridCache.pauseRebuilds();
-        final MENetworkEvent ret = this.eventBus.postEvent(this, ev);
+        final MENetworkEvent ret = this.eventBus.postEvent(ev);
         CraftingGridCache.unpauseRebuilds();
         return ret;
     }
 
     @Override
     public MENetworkEvent postEventTo(final IGridNode node, final MENetworkEvent ev) {
-        return this.eventBus.postEventTo(this, (GridNode) node, ev);
+        return this.eventBus.postEventTo((GridNode) node, ev);
     }
 
     @Override
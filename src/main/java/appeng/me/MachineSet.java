@@ -10,13 +10,13 @@
 
 package appeng.me;
 
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 
 import appeng.api.networking.IGridHost;
 import appeng.api.networking.IGridNode;
 import appeng.api.networking.IMachineSet;
 
-public class MachineSet extends HashSet<IGridNode> implements IMachineSet {
+public class MachineSet extends LinkedHashSet<IGridNode> implements IMachineSet {
 
     private static final long serialVersionUID = 3224660708327386933L;
 
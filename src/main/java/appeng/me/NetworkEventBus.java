@@ -10,85 +10,78 @@
 
 package appeng.me;
 
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
-import java.util.ArrayList;
-import java.util.Collection;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
-import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 
 import appeng.api.networking.IGridCache;
 import appeng.api.networking.IGridNode;
 import appeng.api.networking.events.MENetworkEvent;
 import appeng.api.networking.events.MENetworkEventSubscribe;
 import appeng.core.AELog;
-
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+
+/**
+ * Delivers the events of one grid.
+ * <p>
+ * The subscriber methods of every class are read once, and called through invokers generated for them. Each grid keeps
+ * the caches and machine classes that subscribe to an event, so posting an event only visits its subscribers. Caches
+ * are visited first, in the order they were added, then the machines by class, in the order the classes joined the
+ * grid.
+ */
 public class NetworkEventBus {
 
-    private static final Collection<Class> READ_CLASSES = new HashSet<>();
-    private static final Map<Class<? extends MENetworkEvent>, Map<Class, MENetworkEventInfo>> EVENTS = new HashMap<>();
-
-    void readClass(final Class listAs, final Class c) {
-        if (READ_CLASSES.contains(c)) {
-            return;
-        }
-        READ_CLASSES.add(c);
-
-        try {
-            for (final Method m : c.getMethods()) {
-                final MENetworkEventSubscribe s = m.getAnnotation(MENetworkEventSubscribe.class);
-                if (s != null) {
-                    final Class[] types = m.getParameterTypes();
-                    if (types.length == 1) {
-                        if (MENetworkEvent.class.isAssignableFrom(types[0])) {
+    private static final Map<Class<?>, Map<Class<?>, EventInvoker[]>> SUBSCRIPTIONS = new HashMap<>();
+    private static final MethodType INVOKER_TYPE = MethodType
+            .methodType(void.class, Object.class, MENetworkEvent.class);
 
-                            Map<Class, MENetworkEventInfo> classEvents = EVENTS
-                                    .computeIfAbsent(types[0], k -> new HashMap<>());
+    private final Map<Class<?>, Subscriber[]> subscribers = new Reference2ObjectOpenHashMap<>();
 
-                            MENetworkEventInfo thisEvent = classEvents.get(listAs);
-                            if (thisEvent == null) {
-                                thisEvent = new MENetworkEventInfo();
-                            }
+    void addCache(final IGridCache cache) {
+        this.addSubscriber(cache.getClass(), cache, null);
+    }
 
-                            thisEvent.Add(types[0], c, m);
+    /**
+     * @param machines the nodes of a machine class, kept up to date by the grid
+     */
+    void addMachines(final MachineSet machines) {
+        this.addSubscriber(machines.getMachineClass(), null, machines);
+    }
 
-                            classEvents.put(listAs, thisEvent);
-                        } else {
-                            throw new IllegalStateException(
-                                    "Invalid ME Network Event Subscriber, " + m.getName()
-                                            + "s Parameter must extend MENetworkEvent.");
-                        }
-                    } else {
-                        throw new IllegalStateException(
-                                "Invalid ME Network Event Subscriber, " + m.getName()
-                                        + " must have exactly 1 parameter.");
-                    }
-                }
-            }
-        } catch (final Throwable t) {
-            throw new IllegalStateException("Error while adding " + c.getName() + " to event bus", t);
+    private void addSubscriber(final Class<?> c, final IGridCache cache, final MachineSet machines) {
+        for (final Map.Entry<Class<?>, EventInvoker[]> entry : getSubscriptions(c).entrySet()) {
+            // replaced instead of changed, subscribers can join the grid while an event is posted
+            final Subscriber[] previous = this.subscribers.get(entry.getKey());
+            final Subscriber[] next = previous == null ? new Subscriber[1]
+                    : Arrays.copyOf(previous, previous.length + 1);
+            next[next.length - 1] = new Subscriber(entry.getValue(), cache, machines);
+            this.subscribers.put(entry.getKey(), next);
         }
     }
 
-    MENetworkEvent postEvent(final Grid g, final MENetworkEvent e) {
-        final Map<Class, MENetworkEventInfo> subscribers = EVENTS.get(e.getClass());
+    MENetworkEvent postEvent(final MENetworkEvent e) {
+        final Subscriber[] targets = this.subscribers.get(e.getClass());
         int x = 0;
 
         try {
-            if (subscribers != null) {
-                for (final Entry<Class, MENetworkEventInfo> subscriber : subscribers.entrySet()) {
-                    final MENetworkEventInfo target = subscriber.getValue();
-                    final IGridCache cache = g.getCaches().get(subscriber.getKey());
-                    if (cache != null) {
+            if (targets != null) {
+                for (final Subscriber target : targets) {
+                    if (target.cache != null) {
                         x++;
-                        target.invoke(cache, e);
-                    }
-
-                    for (final IGridNode obj : g.getMachines(subscriber.getKey())) {
-                        x++;
-                        target.invoke(obj.getMachine(), e);
+                        invoke(target.invokers, target.cache, e);
+                    } else {
+                        for (final IGridNode obj : target.machines) {
+                            x++;
+                            invoke(target.invokers, obj.getMachine(), e);
+                        }
                     }
                 }
             }
@@ -100,17 +93,14 @@ public class NetworkEventBus {
         return e;
     }
 
-    MENetworkEvent postEventTo(final Grid grid, final GridNode node, final MENetworkEvent e) {
-        final Map<Class, MENetworkEventInfo> subscribers = EVENTS.get(e.getClass());
+    MENetworkEvent postEventTo(final GridNode node, final MENetworkEvent e) {
+        final EventInvoker[] invokers = getSubscriptions(node.getMachineClass()).get(e.getClass());
         int x = 0;
 
         try {
-            if (subscribers != null) {
-                final MENetworkEventInfo target = subscribers.get(node.getMachineClass());
-                if (target != null) {
-                    x++;
-                    target.invoke(node.getMachine(), e);
-                }
+            if (invokers != null) {
+                x++;
+                invoke(invokers, node.getMachine(), e);
             }
         } catch (final NetworkEventDone done) {
             // Early out.
@@ -120,26 +110,11 @@ public class NetworkEventBus {
         return e;
     }
 
-    private static class NetworkEventDone extends Throwable {
-
-        private static final long serialVersionUID = -3079021487019171205L;
-    }
-
-    private class EventMethod {
-
-        private final Class objClass;
-        private final Method objMethod;
-        private final Class objEvent;
-
-        public EventMethod(final Class Event, final Class ObjClass, final Method ObjMethod) {
-            this.objClass = ObjClass;
-            this.objMethod = ObjMethod;
-            this.objEvent = Event;
-        }
-
-        private void invoke(final Object obj, final MENetworkEvent e) throws NetworkEventDone {
+    private static void invoke(final EventInvoker[] invokers, final Object obj, final MENetworkEvent e)
+            throws NetworkEventDone {
+        for (final EventInvoker invoker : invokers) {
             try {
-                this.objMethod.invoke(obj, e);
+                invoker.invoke(obj, e);
             } catch (final Throwable e1) {
                 AELog.error("[AppEng] Network Event caused exception:");
                 AELog.error("Offending Class: " + obj.getClass().getName());
@@ -154,18 +129,120 @@ public class NetworkEventBus {
         }
     }
 
-    private class MENetworkEventInfo {
+    private static Map<Class<?>, EventInvoker[]> getSubscriptions(final Class<?> c) {
+        Map<Class<?>, EventInvoker[]> subscriptions = SUBSCRIPTIONS.get(c);
+        if (subscriptions == null) {
+            subscriptions = readClass(c);
+            SUBSCRIPTIONS.put(c, subscriptions);
+        }
+        return subscriptions;
+    }
 
-        private final List<EventMethod> methods = new ArrayList<>();
+    private static Map<Class<?>, EventInvoker[]> readClass(final Class<?> c) {
+        final Map<Class<?>, EventInvoker[]> classEvents = new HashMap<>();
 
-        private void Add(final Class Event, final Class ObjClass, final Method ObjMethod) {
-            this.methods.add(new EventMethod(Event, ObjClass, ObjMethod));
+        try {
+            for (final Method m : c.getMethods()) {
+                final MENetworkEventSubscribe s = m.getAnnotation(MENetworkEventSubscribe.class);
+                if (s != null) {
+                    final Class<?>[] types = m.getParameterTypes();
+                    if (types.length == 1) {
+                        if (MENetworkEvent.class.isAssignableFrom(types[0])) {
+                            final Class<?> event = types[0];
+                            final EventInvoker[] previous = classEvents.get(event);
+                            final EventInvoker[] next = previous == null ? new EventInvoker[1]
+                                    : Arrays.copyOf(previous, previous.length + 1);
+                            next[next.length - 1] = createInvoker(m);
+                            classEvents.put(event, next);
+                        } else {
+                            throw new IllegalStateException(
+                                    "Invalid ME Network Event Subscriber, " + m.getName()
+                                            + "s Parameter must extend MENetworkEvent.");
+                        }
+                    } else {
+                        throw new IllegalStateException(
+                                "Invalid ME Network Event Subscriber, " + m.getName()
+                                        + " must have exactly 1 parameter.");
+                    }
+                }
+            }
+        } catch (final Throwable t) {
+            throw new IllegalStateException("Error while adding " + c.getName() + " to event bus", t);
         }
 
-        private void invoke(final Object obj, final MENetworkEvent e) throws NetworkEventDone {
-            for (final EventMethod em : this.methods) {
-                em.invoke(obj, e);
-            }
+        return classEvents.isEmpty() ? Collections.emptyMap() : classEvents;
+    }
+
+    /**
+     * Generates a class calling the method directly. Methods it can't be generated for, like static ones or the ones of
+     * classes the generated class can't see, are called through their method handle.
+     */
+    private static EventInvoker createInvoker(final Method m) throws Throwable {
+        final Class<?> owner = m.getDeclaringClass();
+        final Class<?> event = m.getParameterTypes()[0];
+        final boolean isStatic = Modifier.isStatic(m.getModifiers());
+
+        if (!Modifier.isPublic(owner.getModifiers())) {
+            m.setAccessible(true);
+        }
+
+        final MethodHandles.Lookup lookup = MethodHandles.lookup();
+        final MethodHandle handle = lookup.unreflect(m);
+
+        if (!isStatic && isVisible(owner) && isVisible(event)) {
+            final CallSite site = LambdaMetafactory.metafactory(
+                    lookup,
+                    "invoke",
+                    MethodType.methodType(EventInvoker.class),
+                    INVOKER_TYPE,
+                    handle,
+                    MethodType.methodType(void.class, owner, event));
+            return (EventInvoker) site.getTarget().invokeExact();
+        }
+
+        final MethodHandle target = isStatic ? MethodHandles.dropArguments(handle, 0, Object.class).asType(INVOKER_TYPE)
+                : handle.asType(INVOKER_TYPE);
+        return (obj, e) -> {
+            target.invokeExact(obj, e);
+        };
+    }
+
+    /**
+     * @return true if the generated invokers can use the class, they are defined next to this class
+     */
+    private static boolean isVisible(final Class<?> c) {
+        if (!Modifier.isPublic(c.getModifiers())) {
+            return false;
+        }
+
+        try {
+            return Class.forName(c.getName(), false, NetworkEventBus.class.getClassLoader()) == c;
+        } catch (final ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    @FunctionalInterface
+    interface EventInvoker {
+
+        void invoke(Object obj, MENetworkEvent e) throws Throwable;
+    }
+
+    private static class NetworkEventDone extends Throwable {
+
+        private static final long serialVersionUID = -3079021487019171205L;
+    }
+
+    private static class Subscriber {
+
+        private final EventInvoker[] invokers;
+        private final IGridCache cache;
+        private final MachineSet machines;
+
+        private Subscriber(final EventInvoker[] invokers, final IGridCache cache, final MachineSet machines) {
+            this.invokers = invokers;
+            this.cache = cache;
+            this.machines = machines;
         }
     }
 }
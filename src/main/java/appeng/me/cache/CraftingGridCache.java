@@ -94,6 +94,7 @@ import appeng.crafting.CraftingLinkNexus;
 import appeng.crafting.CraftingWatcher;
 import appeng.crafting.fast.CraftingJobFast;
 import appeng.crafting.v2.CraftingJobV2;
+import appeng.crafting.v2.CraftingPatternCache;
 import appeng.me.cluster.implementations.CraftingCPUCluster;
 import appeng.me.diagnostics.CraftingDiagnosticSessionId;
 import appeng.me.diagnostics.CraftingNetworkDiagnostics;
@@ -128,6 +129,7 @@ public class CraftingGridCache
     protected final Map<IAEItemStack, ImmutableList<ICraftingPatternDetails>> craftableItemsLegacy = new HashMap<>();
     protected final Map<IAEStack<?>, ImmutableList<ICraftingPatternDetails>> craftableItems = new HashMap<>();
     protected final Map<UUID, ICraftingPatternDetails> inputOnlyPatterns = new HashMap<>();
+    protected CraftingPatternCache patternCache;
     protected final Map<String, CraftingLinkNexus> craftingLinks = new HashMap<>();
     protected final Multimap<IAEStack, CraftingWatcher> interests = HashMultimap.create();
     protected final GenericInterestManager<CraftingWatcher> interestManager = new GenericInterestManager<>(
@@ -361,6 +363,9 @@ public class CraftingGridCache
             final IAEItemStack ais = stackConvert(e.getKey());
             if (ais != null) craftableItemsLegacy.put(ais, ImmutableList.copyOf(e.getValue()));
         }
+
+        // running calculations keep the old instance
+        this.patternCache = null;
     }
 
     public ICraftingPatternDetails getInputOnlyPattern(final UUID uuid) {
@@ -545,7 +550,18 @@ public class CraftingGridCache
 
     @Override
     public ImmutableMap<IAEStack<?>, ImmutableList<ICraftingPatternDetails>> getCraftingMultiPatterns() {
-        return ImmutableMap.copyOf(this.craftableItems);
+        return this.getPatternCache().getAvailablePatterns();
+    }
+
+    /**
+     * @return pattern lookups shared by the crafting calculations of this grid, replaced whenever the patterns change
+     */
+    public CraftingPatternCache getPatternCache() {
+        CraftingPatternCache cache = this.patternCache;
+        if (cache == null) {
+            cache = this.patternCache = new CraftingPatternCache(ImmutableMap.copyOf(this.craftableItems));
+        }
+        return cache;
     }
 
     @Override
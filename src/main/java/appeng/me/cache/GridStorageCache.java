@@ -27,8 +27,6 @@ import net.minecraft.item.ItemStack;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import com.google.common.collect.HashMultimap;
-import com.google.common.collect.SetMultimap;
 import com.gtnewhorizon.gtnhlib.util.map.ItemStackMap;
 
 import appeng.api.networking.IGrid;
@@ -47,6 +45,7 @@ import appeng.api.networking.storage.IStorageGrid;
 import appeng.api.storage.ICellCacheRegistry;
 import appeng.api.storage.ICellContainer;
 import appeng.api.storage.ICellProvider;
+import appeng.api.storage.IMEInventory;
 import appeng.api.storage.IMEInventoryHandler;
 import appeng.api.storage.IMEMonitor;
 import appeng.api.storage.StorageChannel;
@@ -57,6 +56,8 @@ import appeng.api.storage.data.IAEStack;
 import appeng.api.storage.data.IAEStackType;
 import appeng.api.storage.data.IItemList;
 import appeng.core.AEConfig;
+import appeng.core.AELog;
+import appeng.me.cache.helpers.CellStatistics;
 import appeng.me.helpers.GenericInterestManager;
 import appeng.me.storage.ItemWatcher;
 import appeng.me.storage.MEInventoryHandler;
@@ -64,51 +65,24 @@ import appeng.me.storage.NetworkInventoryHandler;
 import appeng.tile.storage.TileChest;
 import appeng.tile.storage.TileDrive;
 import appeng.util.IterationCounter;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectArrayMap;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
 
 public class GridStorageCache implements IStorageGrid {
 
     private final IGrid myGrid;
     private final HashSet<ICellProvider> activeCellProviders = new HashSet<>();
     private final HashSet<ICellProvider> inactiveCellProviders = new HashSet<>();
-    private final SetMultimap<IAEStack, ItemWatcher> interests = HashMultimap.create();
-    private final GenericInterestManager<ItemWatcher> interestManager = new GenericInterestManager<>(this.interests);
+    private final GenericInterestManager<ItemWatcher> interestManager = new GenericInterestManager<>();
+    private final GenericInterestManager<ItemWatcher> immediateInterestManager = new GenericInterestManager<>();
     private final Map<IAEStackType<?>, NetworkMonitor<?>> monitors = new IdentityHashMap<>();
     private final Map<IAEStackType<?>, NetworkInventoryHandler<?>> inventoryHandlers = new IdentityHashMap<>();
     private final HashMap<IGridNode, IStackWatcher> watchers = new HashMap<>();
-    private double itemBytesTotal;
-    private double itemBytesUsed;
-    private long itemTypesTotal;
-    private long itemTypesUsed;
-    private long itemCellG;
-    private long itemCellB;
-    private long itemCellO;
-    private long itemCellR;
-    private long itemCellCount;
-    private double fluidBytesTotal;
-    private double fluidBytesUsed;
-    private long fluidTypesTotal;
-    private long fluidTypesUsed;
-    private long fluidCellG;
-    private long fluidCellB;
-    private long fluidCellO;
-    private long fluidCellR;
-    private long fluidCellCount;
-    private double essentiaBytesTotal;
-    private double essentiaBytesUsed;
-    private long essentiaTypesTotal;
-    private long essentiaTypesUsed;
-    private long essentiaCellG;
-    private long essentiaCellB;
-    private long essentiaCellO;
-    private long essentiaCellR;
-    private long essentiaCellCount;
+    private final StorageLocationIndex storageLocations = new StorageLocationIndex();
+    private final CellStatistics cellStatistics = new CellStatistics();
     private int ticksCount;
     private int networkBytesUpdateFrequency;
 
-    private final ItemStackMap<Integer> itemCells = new ItemStackMap<>();
-    private final ItemStackMap<Integer> fluidCells = new ItemStackMap<>();
-    private final ItemStackMap<Integer> essentiaCells = new ItemStackMap<>();
-
     private static final int CELL_GREEN = 1;
     private static final int CELL_BLUE = 2;
     private static final int CELL_ORANGE = 3;
@@ -130,12 +104,17 @@ public class GridStorageCache implements IStorageGrid {
             monitor.onTick();
         }
 
+        this.cellStatistics.applyChanges();
+
         // update every 1s by default
         if (this.ticksCount < this.networkBytesUpdateFrequency) {
             this.ticksCount++;
         } else {
             this.ticksCount = 0;
-            this.updateBytesInfo();
+            this.cellStatistics.refreshUnreported();
+            if (AEConfig.instance.debugCellStatistics) {
+                this.checkCellStatistics();
+            }
         }
     }
 
@@ -204,9 +183,11 @@ public class GridStorageCache implements IStorageGrid {
 
             for (IAEStackType<?> type : AEStackTypeRegistry.getAllTypes()) {
                 for (final IMEInventoryHandler<?> h : cc.getCellArray(type)) {
-                    tracker.postChanges(type, 1, h, actionSrc);
+                    tracker.postChanges(cc, type, 1, h, actionSrc);
                 }
             }
+
+            this.cellStatistics.setCells(cc, getCells(cc));
         }
 
         return tracker;
@@ -225,9 +206,11 @@ public class GridStorageCache implements IStorageGrid {
 
             for (IAEStackType<?> type : AEStackTypeRegistry.getAllTypes()) {
                 for (final IMEInventoryHandler<?> h : cc.getCellArray(type)) {
-                    tracker.postChanges(type, -1, h, actionSrc);
+                    tracker.postChanges(cc, type, -1, h, actionSrc);
                 }
             }
+
+            this.cellStatistics.removeProvider(cc);
         }
 
         return tracker;
@@ -262,6 +245,8 @@ public class GridStorageCache implements IStorageGrid {
                 }
             }
 
+            this.updateStorageLocations();
+
             for (NetworkMonitor<?> monitor : this.monitors.values()) {
                 monitor.forceUpdate();
             }
@@ -272,6 +257,24 @@ public class GridStorageCache implements IStorageGrid {
         }
     }
 
+    /**
+     * Cells can be swapped without their provider leaving the grid, so the handlers of the active providers are
+     * compared with the indexed ones. Only handlers that weren't indexed yet are added.
+     */
+    private void updateStorageLocations() {
+        final Set<IMEInventoryHandler<?>> current = new ReferenceOpenHashSet<>();
+        for (final ICellProvider cc : this.activeCellProviders) {
+            this.cellStatistics.setCells(cc, getCells(cc));
+            for (IAEStackType<?> type : AEStackTypeRegistry.getAllTypes()) {
+                for (final IMEInventoryHandler<?> h : cc.getCellArray(type)) {
+                    current.add(h);
+                    this.storageLocations.addHandler(cc, h);
+                }
+            }
+        }
+        this.storageLocations.retainHandlers(current);
+    }
+
     private void setMonitorsLocked(final boolean locked) {
         for (final NetworkMonitor<?> monitor : this.monitors.values()) {
             monitor.setLocked(locked);
@@ -286,7 +289,7 @@ public class GridStorageCache implements IStorageGrid {
     private void buildNetworkStorage(final IAEStackType<?> type) {
         final SecurityCache security = this.getGrid().getCache(ISecurityGrid.class);
 
-        final NetworkInventoryHandler handler = new NetworkInventoryHandler<>(type, security);
+        final NetworkInventoryHandler handler = new NetworkInventoryHandler<>(type, security, this.storageLocations);
         for (final ICellProvider cc : this.activeCellProviders) {
             for (final IMEInventoryHandler<?> h : cc.getCellArray(type)) {
                 handler.addNewStorage(h);
@@ -306,6 +309,7 @@ public class GridStorageCache implements IStorageGrid {
     @Deprecated
     public void postAlterationOfStoredItems(final StorageChannel chan, final Iterable<? extends IAEStack<?>> input,
             final BaseActionSource src) {
+        this.onStoredItemsAltered(input, src);
         if (chan == StorageChannel.ITEMS) {
             this.monitors.get(ITEM_STACK_TYPE).postChange(true, (Iterable<IAEStack<?>>) input, src);
         } else if (chan == StorageChannel.FLUIDS) {
@@ -316,9 +320,16 @@ public class GridStorageCache implements IStorageGrid {
     @Override
     public void postAlterationOfStoredItems(IAEStackType<?> type, Iterable<? extends IAEStack<?>> input,
             BaseActionSource src) {
+        this.onStoredItemsAltered(input, src);
         this.monitors.get(type).postChange(true, (Iterable<IAEStack<?>>) input, src);
     }
 
+    private void onStoredItemsAltered(final Iterable<? extends IAEStack<?>> input, final BaseActionSource src) {
+        if (src instanceof MachineSource ms && ms.via instanceof ICellProvider cc) {
+            this.storageLocations.onChanged(cc, input);
+        }
+    }
+
     @Override
     public void registerCellProvider(final ICellProvider provider) {
         this.inactiveCellProviders.add(provider);
@@ -346,10 +357,24 @@ public class GridStorageCache implements IStorageGrid {
         return this.monitors.get(type);
     }
 
+    /**
+     * @return where the stacks of this grid, without its subnets, are stored
+     */
+    public StorageLocationIndex getStorageLocations() {
+        return this.storageLocations;
+    }
+
     public GenericInterestManager<ItemWatcher> getInterestManager() {
         return this.interestManager;
     }
 
+    /**
+     * @return the interests of watchers whose hosts require immediate changes
+     */
+    public GenericInterestManager<ItemWatcher> getImmediateInterestManager() {
+        return this.immediateInterestManager;
+    }
+
     IGrid getGrid() {
         return this.myGrid;
     }
@@ -361,13 +386,19 @@ public class GridStorageCache implements IStorageGrid {
         final IItemList list;
         final BaseActionSource src;
 
-        public CellChangeTrackerRecord(final IAEStackType<?> type, final int i,
+        public CellChangeTrackerRecord(final ICellProvider cc, final IAEStackType<?> type, final int i,
                 final IMEInventoryHandler<? extends IAEStack> h, final BaseActionSource actionSrc) {
             this.type = type;
             this.up_or_down = i;
             this.src = actionSrc;
 
             this.list = h.getAvailableItems((IItemList) type.createList(), IterationCounter.fetchNewId());
+
+            if (i > 0) {
+                GridStorageCache.this.storageLocations.addHandler(cc, h);
+            } else {
+                GridStorageCache.this.storageLocations.removeHandler(h);
+            }
         }
 
         public void applyChanges() {
@@ -379,9 +410,9 @@ public class GridStorageCache implements IStorageGrid {
 
         final List<CellChangeTrackerRecord> data = new LinkedList<>();
 
-        public void postChanges(final IAEStackType<?> type, final int i,
+        public void postChanges(final ICellProvider cc, final IAEStackType<?> type, final int i,
                 final IMEInventoryHandler<? extends IAEStack> h, final BaseActionSource actionSrc) {
-            this.data.add(new CellChangeTrackerRecord(type, i, h, actionSrc));
+            this.data.add(new CellChangeTrackerRecord(cc, type, i, h, actionSrc));
         }
 
         public void applyChanges() {
@@ -391,127 +422,63 @@ public class GridStorageCache implements IStorageGrid {
         }
     }
 
-    private void updateItemCellStatus(final double bytesTotalToAdd, final double bytesUsedToAdd, final int cellStatus,
-            final double typesTotalToAdd, final double typesUsedToAdd) {
-        this.itemBytesTotal += bytesTotalToAdd;
-        this.itemBytesUsed += bytesUsedToAdd;
-        switch (cellStatus) {
-            case CELL_GREEN -> itemCellG++;
-            case CELL_BLUE -> itemCellB++;
-            case CELL_ORANGE -> itemCellO++;
-            case CELL_RED -> itemCellR++;
-        }
-        this.itemTypesTotal += typesTotalToAdd;
-        this.itemTypesUsed += typesUsedToAdd;
-        this.itemCellCount++;
-    }
-
-    private void updateFluidCellStatus(final double bytesTotalToAdd, final double bytesUsedToAdd, final int cellStatus,
-            final double typesTotalToAdd, final double typesUsedToAdd) {
-        this.fluidBytesTotal += bytesTotalToAdd;
-        this.fluidBytesUsed += bytesUsedToAdd;
-        switch (cellStatus) {
-            case CELL_GREEN -> fluidCellG++;
-            case CELL_BLUE -> fluidCellB++;
-            case CELL_ORANGE -> fluidCellO++;
-            case CELL_RED -> fluidCellR++;
-        }
-        this.fluidTypesTotal += typesTotalToAdd;
-        this.fluidTypesUsed += typesUsedToAdd;
-        this.fluidCellCount++;
-    }
-
-    private void updateEssentiaCellStatus(final double bytesTotalToAdd, final double bytesUsedToAdd,
-            final int cellStatus, final double typesTotalToAdd, final double typesUsedToAdd) {
-        this.essentiaBytesTotal += bytesTotalToAdd;
-        this.essentiaBytesUsed += bytesUsedToAdd;
-        switch (cellStatus) {
-            case CELL_GREEN -> essentiaCellG++;
-            case CELL_BLUE -> essentiaCellB++;
-            case CELL_ORANGE -> essentiaCellO++;
-            case CELL_RED -> essentiaCellR++;
-        }
-        this.essentiaTypesTotal += typesTotalToAdd;
-        this.essentiaTypesUsed += typesUsedToAdd;
-        this.essentiaCellCount++;
-    }
-
-    private void updateCellsStatusFromRegistry(final ICellCacheRegistry iccr, final ItemStack newCellStack) {
-        switch (iccr.getCellType()) {
-            case ITEM -> {
-                this.updateItemCellStatus(
-                        iccr.getTotalBytes(),
-                        iccr.getUsedBytes(),
-                        iccr.getCellStatus(),
-                        iccr.getTotalTypes(),
-                        iccr.getUsedTypes());
-                this.putItemStackIntoMap(itemCells, newCellStack, iccr.getCellStatus());
-            }
-            case FLUID -> {
-                this.updateFluidCellStatus(
-                        iccr.getTotalBytes(),
-                        iccr.getUsedBytes(),
-                        iccr.getCellStatus(),
-                        iccr.getTotalTypes(),
-                        iccr.getUsedTypes());
-                this.putItemStackIntoMap(fluidCells, newCellStack, iccr.getCellStatus());
+    /**
+     * @return the cells of the provider that can tell their bytes, with the item of each cell
+     */
+    private static Map<ICellCacheRegistry, ItemStack> getCells(final ICellProvider icp) {
+        final Map<ICellCacheRegistry, ItemStack> cells = new Reference2ObjectArrayMap<>();
+        if (icp instanceof TileDrive td) {
+            for (int index = 0; index < td.getCellCount(); index++) {
+                MEInventoryHandler<IAEItemStack> cellInv = td.getCellInvBySlot(index);
+
+                if (cellInv != null && cellInv.getInternal() instanceof ICellCacheRegistry iccr) {
+                    cells.put(iccr, td.getStackInSlot(index));
+                }
             }
-            case ESSENTIA -> {
-                this.updateEssentiaCellStatus(
-                        iccr.getTotalBytes(),
-                        iccr.getUsedBytes(),
-                        iccr.getCellStatus(),
-                        iccr.getTotalTypes(),
-                        iccr.getUsedTypes());
-                this.putItemStackIntoMap(essentiaCells, newCellStack, iccr.getCellStatus());
+        } else if (icp instanceof TileChest tc) {
+            // Check if chest is empty
+            ItemStack stack = tc.getStackInSlot(1);
+            if (stack == null) {
+                return cells;
             }
-        }
-    }
 
-    private void updateBytesInfo() {
-        this.resetCellInfo();
-        try {
-            for (ICellProvider icp : this.activeCellProviders) {
-                if (icp instanceof TileDrive td) {
-                    for (int index = 0; index < td.getCellCount(); index++) {
-                        MEInventoryHandler<IAEItemStack> cellInv = td.getCellInvBySlot(index);
-
-                        if (cellInv != null && cellInv.getInternal() instanceof ICellCacheRegistry iccr
-                                && iccr.canGetInv()) {
-                            ItemStack stack = td.getStackInSlot(index);
-                            this.updateCellsStatusFromRegistry(iccr, stack);
-                        }
-
-                    }
-
-                } else if (icp instanceof TileChest tc) {
-
-                    // Check if chest is empty
-                    ItemStack stack = tc.getStackInSlot(1);
-                    if (stack == null) continue;
-
-                    IMEInventoryHandler<?> handler = null;
-                    for (IAEStackType<?> type : AEStackTypeRegistry.getAllTypes()) {
-                        handler = tc.getInternalHandler(type);
-                        if (handler != null) {
-                            break;
-                        }
-                    }
-
-                    if (handler instanceof ICellCacheRegistry iccr && iccr.canGetInv()) {
-                        this.updateCellsStatusFromRegistry(iccr, stack);
-                    }
+            IMEInventoryHandler<?> handler = null;
+            for (IAEStackType<?> type : AEStackTypeRegistry.getAllTypes()) {
+                handler = tc.getInternalHandler(type);
+                if (handler != null) {
+                    break;
                 }
             }
-        } catch (Exception e) {
-            // XD Normally won't be here, just normally..
+
+            if (handler instanceof ICellCacheRegistry iccr) {
+                cells.put(iccr, stack);
+            }
         }
+        return cells;
+    }
+
+    /**
+     * Counts the bytes of a cell again, called when the content of the cell changed.
+     */
+    public void postCellChanged(final IMEInventory<?> cellInventory) {
+        this.cellStatistics.markChanged(cellInventory);
     }
 
-    private void putItemStackIntoMap(final ItemStackMap<Integer> map, final ItemStack stack, final int cellStatus) {
-        ItemStack newStack = new ItemStack(stack.getItem(), 1, stack.getItemDamage());
-        if (map.computeIfPresent(newStack, (currentStack, stackCount) -> stackCount + 1) == null) {
-            map.put(newStack, 1);
+    /**
+     * Counts all cells and compares them with the totals that were kept up to date.
+     */
+    private void checkCellStatistics() {
+        final CellStatistics counted = new CellStatistics();
+        for (final ICellProvider icp : this.activeCellProviders) {
+            counted.setCells(icp, getCells(icp));
+        }
+
+        if (!counted.hasSameTotals(this.cellStatistics)) {
+            AELog.warn("Cell statistics of grid %s are out of sync, counting all cells again", this.myGrid);
+            for (final ICellProvider icp : this.activeCellProviders) {
+                this.cellStatistics.removeProvider(icp);
+                this.cellStatistics.setCells(icp, getCells(icp));
+            }
         }
     }
 
@@ -519,157 +486,123 @@ public class GridStorageCache implements IStorageGrid {
         return Collections.unmodifiableSet(this.activeCellProviders);
     }
 
-    private void resetCellInfo() {
-        this.itemBytesTotal = 0;
-        this.itemBytesUsed = 0;
-        this.itemTypesTotal = 0;
-        this.itemTypesUsed = 0;
-        this.itemCellG = 0;
-        this.itemCellB = 0;
-        this.itemCellO = 0;
-        this.itemCellR = 0;
-        this.itemCellCount = 0;
-        this.fluidBytesTotal = 0;
-        this.fluidBytesUsed = 0;
-        this.fluidTypesTotal = 0;
-        this.fluidTypesUsed = 0;
-        this.fluidCellG = 0;
-        this.fluidCellB = 0;
-        this.fluidCellO = 0;
-        this.fluidCellR = 0;
-        this.fluidCellCount = 0;
-        this.essentiaBytesTotal = 0;
-        this.essentiaBytesUsed = 0;
-        this.essentiaTypesTotal = 0;
-        this.essentiaTypesUsed = 0;
-        this.essentiaCellG = 0;
-        this.essentiaCellB = 0;
-        this.essentiaCellO = 0;
-        this.essentiaCellR = 0;
-        this.essentiaCellCount = 0;
-
-        this.itemCells.clear();
-        this.fluidCells.clear();
-        this.essentiaCells.clear();
-    }
-
     public ItemStackMap<Integer> getItemCells() {
-        return itemCells;
+        return this.cellStatistics.getCellItems(ICellCacheRegistry.TYPE.ITEM);
     }
 
     public ItemStackMap<Integer> getFluidCells() {
-        return fluidCells;
+        return this.cellStatistics.getCellItems(ICellCacheRegistry.TYPE.FLUID);
     }
 
     public ItemStackMap<Integer> getEssentiaCells() {
-        return essentiaCells;
+        return this.cellStatistics.getCellItems(ICellCacheRegistry.TYPE.ESSENTIA);
     }
 
     public double getItemBytesTotal() {
-        return itemBytesTotal;
+        return this.cellStatistics.getBytesTotal(ICellCacheRegistry.TYPE.ITEM);
     }
 
     public double getItemBytesUsed() {
-        return itemBytesUsed;
+        return this.cellStatistics.getBytesUsed(ICellCacheRegistry.TYPE.ITEM);
     }
 
     public long getItemTypesTotal() {
-        return itemTypesTotal;
+        return this.cellStatistics.getTypesTotal(ICellCacheRegistry.TYPE.ITEM);
     }
 
     public long getItemTypesUsed() {
-        return itemTypesUsed;
+        return this.cellStatistics.getTypesUsed(ICellCacheRegistry.TYPE.ITEM);
     }
 
     public long getItemCellG() {
-        return itemCellG;
+        return this.cellStatistics.getCells(ICellCacheRegistry.TYPE.ITEM, CELL_GREEN);
     }
 
     public long getItemCellB() {
-        return itemCellB;
+        return this.cellStatistics.getCells(ICellCacheRegistry.TYPE.ITEM, CELL_BLUE);
     }
 
     public long getItemCellO() {
-        return itemCellO;
+        return this.cellStatistics.getCells(ICellCacheRegistry.TYPE.ITEM, CELL_ORANGE);
     }
 
     public long getItemCellR() {
-        return itemCellR;
+        return this.cellStatistics.getCells(ICellCacheRegistry.TYPE.ITEM, CELL_RED);
     }
 
     public long getItemCellCount() {
-        return itemCellCount;
+        return this.cellStatistics.getCellCount(ICellCacheRegistry.TYPE.ITEM);
     }
 
     public double getFluidBytesTotal() {
-        return fluidBytesTotal;
+        return this.cellStatistics.getBytesTotal(ICellCacheRegistry.TYPE.FLUID);
     }
 
     public double getFluidBytesUsed() {
-        return fluidBytesUsed;
+        return this.cellStatistics.getBytesUsed(ICellCacheRegistry.TYPE.FLUID);
     }
 
     public long getFluidTypesTotal() {
-        return fluidTypesTotal;
+        return this.cellStatistics.getTypesTotal(ICellCacheRegistry.TYPE.FLUID);
     }
 
     public long getFluidTypesUsed() {
-        return fluidTypesUsed;
+        return this.cellStatistics.getTypesUsed(ICellCacheRegistry.TYPE.FLUID);
     }
 
     public long getFluidCellG() {
-        return fluidCellG;
+        return this.cellStatistics.getCells(ICellCacheRegistry.TYPE.FLUID, CELL_GREEN);
     }
 
     public long getFluidCellB() {
-        return fluidCellB;
+        return this.cellStatistics.getCells(ICellCacheRegistry.TYPE.FLUID, CELL_BLUE);
     }
 
     public long getFluidCellO() {
-        return fluidCellO;
+        return this.cellStatistics.getCells(ICellCacheRegistry.TYPE.FLUID, CELL_ORANGE);
     }
 
     public long getFluidCellR() {
-        return fluidCellR;
+        return this.cellStatistics.getCells(ICellCacheRegistry.TYPE.FLUID, CELL_RED);
     }
 
     public long getFluidCellCount() {
-        return fluidCellCount;
+        return this.cellStatistics.getCellCount(ICellCacheRegistry.TYPE.FLUID);
     }
 
     public double getEssentiaBytesTotal() {
-        return essentiaBytesTotal;
+        return this.cellStatistics.getBytesTotal(ICellCacheRegistry.TYPE.ESSENTIA);
     }
 
     public double getEssentiaBytesUsed() {
-        return essentiaBytesUsed;
+        return this.cellStatistics.getBytesUsed(ICellCacheRegistry.TYPE.ESSENTIA);
     }
 
     public long getEssentiaTypesTotal() {
-        return essentiaTypesTotal;
+        return this.cellStatistics.getTypesTotal(ICellCacheRegistry.TYPE.ESSENTIA);
     }
 
     public long getEssentiaTypesUsed() {
-        return essentiaTypesUsed;
+        return this.cellStatistics.getTypesUsed(ICellCacheRegistry.TYPE.ESSENTIA);
     }
 
     public long getEssentiaCellG() {
-        return essentiaCellG;
+        return this.cellStatistics.getCells(ICellCacheRegistry.TYPE.ESSENTIA, CELL_GREEN);
     }
 
     public long getEssentiaCellB() {
-        return essentiaCellB;
+        return this.cellStatistics.getCells(ICellCacheRegistry.TYPE.ESSENTIA, CELL_BLUE);
     }
 
     public long getEssentiaCellO() {
-        return essentiaCellO;
+        return this.cellStatistics.getCells(ICellCacheRegistry.TYPE.ESSENTIA, CELL_ORANGE);
     }
 
     public long getEssentiaCellR() {
-        return essentiaCellR;
+        return this.cellStatistics.getCells(ICellCacheRegistry.TYPE.ESSENTIA, CELL_RED);
     }
 
     public long getEssentiaCellCount() {
-        return essentiaCellCount;
+        return this.cellStatistics.getCellCount(ICellCacheRegistry.TYPE.ESSENTIA);
     }
 }
@@ -1,7 +1,7 @@
 package appeng.me.cache;
 
-import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
@@ -18,11 +18,24 @@ import appeng.api.storage.data.IAEStack;
 import appeng.api.util.DimensionalCoord;
 import appeng.api.util.FlowSearchDTO;
 import appeng.core.AEConfig;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2LongMap;
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
 import it.unimi.dsi.fastutil.objects.Object2LongLinkedOpenHashMap;
 import it.unimi.dsi.fastutil.objects.Object2LongMap;
-import it.unimi.dsi.fastutil.objects.Object2LongOpenHashMap;
 import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
-
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+
+/**
+ * Tracks how much of every item was moved in and out of the grid by which machine over the last few minutes.
+ * <p>
+ * The window is a ring of {@link #BUCKET_TICKS} tick buckets. Every bucket keeps the flow per item and node, while the
+ * totals of the whole window are kept up to date as flows are recorded and buckets expire, so queries don't have to
+ * merge the buckets. Items and nodes are referred to by small ids, and buckets are reused, so recording a flow doesn't
+ * allocate once the window is warmed up.
+ */
 public class ItemFlowGridCache implements IGridCache {
 
     public static class FlowRate {
@@ -48,33 +61,55 @@ public class ItemFlowGridCache implements IGridCache {
         }
     }
 
+    /**
+     * The flows of a few ticks, one cell per item and node that moved it. Buckets are reused once they drop out of the
+     * window.
+     */
     private static final class Bucket {
 
-        public final long start;
-        public final Map<IAEStack<?>, ItemFlowAccumulator> byItem = new Object2ObjectOpenHashMap<>();
+        private final Long2IntOpenHashMap cellIndex = new Long2IntOpenHashMap();
+        private final LongArrayList cells = new LongArrayList();
+        private final LongArrayList in = new LongArrayList();
+        private final LongArrayList out = new LongArrayList();
 
-        public Bucket(final long start) {
-            this.start = start;
+        private Bucket() {
+            this.cellIndex.defaultReturnValue(-1);
         }
     }
 
-    private static final class ItemFlowAccumulator {
-
-        public long in;
-        public long out;
-        public final Object2LongOpenHashMap<DimensionalCoord> netByLocation = new Object2LongOpenHashMap<>();
-
-    }
-
-    private static final long BUCKET_SIZE_MS = 200L;
+    private static final int BUCKET_TICKS = 4;
 
     private static final String TRACKING_ENABLED_KEY = "ItemFlowTrackingEnabled";
 
-    private final ArrayDeque<Bucket> buckets = new ArrayDeque<>();
+    private Bucket[] buckets = new Bucket[0];
+    private int currentBucket;
+    private long ticks;
+
+    // items and nodes get small ids for as long as a bucket in the window refers to them
+    private final Long2IntOpenHashMap itemIds = new Long2IntOpenHashMap();
+    private final IntArrayList freeItemIds = new IntArrayList();
+    private int nextItemId;
+    private IAEStack<?>[] items = new IAEStack<?>[16];
+    private long[] itemIn = new long[16];
+    private long[] itemOut = new long[16];
+    private int[] itemCells = new int[16];
+
+    private final Reference2IntOpenHashMap<IGridNode> nodeIds = new Reference2IntOpenHashMap<>();
+    private final IntArrayList freeNodeIds = new IntArrayList();
+    private int nextNodeId;
+    private IGridNode[] nodes = new IGridNode[16];
+    private DimensionalCoord[] nodeLocations = new DimensionalCoord[16];
+    private int[] nodeCells = new int[16];
+
+    // the net flow of every cell over the whole window
+    private final Long2LongOpenHashMap netByCell = new Long2LongOpenHashMap();
 
     private boolean trackingEnabled = false;
 
-    public ItemFlowGridCache(final IGrid grid) {}
+    public ItemFlowGridCache(final IGrid grid) {
+        this.itemIds.defaultReturnValue(-1);
+        this.nodeIds.defaultReturnValue(-1);
+    }
 
     public boolean isTrackingEnabled() {
         return this.trackingEnabled;
@@ -83,7 +118,7 @@ public class ItemFlowGridCache implements IGridCache {
     public void setTrackingEnabled(final boolean enabled) {
         this.trackingEnabled = enabled;
         if (!enabled) {
-            this.buckets.clear();
+            this.reset(0);
         }
     }
 
@@ -101,47 +136,69 @@ public class ItemFlowGridCache implements IGridCache {
             return;
         }
 
-        final DimensionalCoord location = node.getGridBlock().getLocation();
-        if (location == null) {
-            return;
+        if (this.buckets.length == 0) {
+            this.reset(getBucketCount());
         }
 
-        final long now = System.currentTimeMillis();
-        Bucket bucket = this.buckets.peekLast();
+        int nodeId = this.nodeIds.getInt(node);
+        if (nodeId < 0) {
+            final DimensionalCoord location = node.getGridBlock().getLocation();
+            if (location == null) {
+                return;
+            }
+            nodeId = this.addNode(node, location);
+        }
 
-        if (bucket == null || now - bucket.start >= BUCKET_SIZE_MS) {
-            bucket = new Bucket(now);
-            this.buckets.addLast(bucket);
+        final long key = diff.getIdentityKey();
+        int itemId = this.itemIds.get(key);
+        if (itemId < 0) {
+            itemId = this.addItem(key, diff);
         }
 
-        final long size = diff.getStackSize();
-        final ItemFlowAccumulator accumulator = bucket.byItem
-                .computeIfAbsent(diff.copy(), k -> new ItemFlowAccumulator());
+        Bucket bucket = this.buckets[this.currentBucket];
+        if (bucket == null) {
+            bucket = new Bucket();
+            this.buckets[this.currentBucket] = bucket;
+        }
 
+        final long cell = (long) itemId << 32 | nodeId & 0xFFFFFFFFL;
+        int index = bucket.cellIndex.get(cell);
+        if (index < 0) {
+            index = bucket.cells.size();
+            bucket.cellIndex.put(cell, index);
+            bucket.cells.add(cell);
+            bucket.in.add(0);
+            bucket.out.add(0);
+            this.itemCells[itemId]++;
+            this.nodeCells[nodeId]++;
+        }
+
+        final long size = diff.getStackSize();
         if (size < 0) {
-            accumulator.out -= size;
+            bucket.out.set(index, bucket.out.getLong(index) - size);
+            this.itemOut[itemId] -= size;
         } else {
-            accumulator.in += size;
+            bucket.in.set(index, bucket.in.getLong(index) + size);
+            this.itemIn[itemId] += size;
         }
 
-        accumulator.netByLocation.addTo(location, size);
+        if (size != 0) {
+            this.netByCell.addTo(cell, size);
+        }
     }
 
     public List<FlowSearchDTO> getRecentFlow(final IAEStack<?> queryStack) {
-        final Object2LongLinkedOpenHashMap<DimensionalCoord> sources = new Object2LongLinkedOpenHashMap<>();
         final List<FlowSearchDTO> result = new ArrayList<>();
+        final int itemId = this.itemIds.get(queryStack.getIdentityKey());
+        if (itemId < 0) {
+            return result;
+        }
 
-        for (final Bucket bucket : this.buckets) {
-            for (final Map.Entry<IAEStack<?>, ItemFlowAccumulator> entry : bucket.byItem.entrySet()) {
-
-                if (!entry.getKey().isSameType(queryStack)) {
-                    continue;
-                }
-
-                for (final Object2LongMap.Entry<DimensionalCoord> locationEntry : entry.getValue().netByLocation
-                        .object2LongEntrySet()) {
-                    sources.addTo(locationEntry.getKey(), locationEntry.getLongValue());
-                }
+        // several nodes can share a block
+        final Object2LongLinkedOpenHashMap<DimensionalCoord> sources = new Object2LongLinkedOpenHashMap<>();
+        for (final Long2LongMap.Entry entry : this.netByCell.long2LongEntrySet()) {
+            if ((int) (entry.getLongKey() >>> 32) == itemId) {
+                sources.addTo(this.nodeLocations[(int) entry.getLongKey()], entry.getLongValue());
             }
         }
 
@@ -155,31 +212,132 @@ public class ItemFlowGridCache implements IGridCache {
     }
 
     public Map<IAEStack<?>, FlowRate> getAllRecentFlow() {
-        final Object2LongLinkedOpenHashMap<IAEStack<?>> totalsIn = new Object2LongLinkedOpenHashMap<>();
-        final Object2LongLinkedOpenHashMap<IAEStack<?>> totalsOut = new Object2LongLinkedOpenHashMap<>();
-        final Map<IAEStack<?>, FlowRate> result = new Object2ObjectOpenHashMap<>();
-
-        for (final Bucket bucket : this.buckets) {
-            for (final Map.Entry<IAEStack<?>, ItemFlowAccumulator> entry : bucket.byItem.entrySet()) {
-                totalsIn.addTo(entry.getKey(), entry.getValue().in);
-                totalsOut.addTo(entry.getKey(), entry.getValue().out);
+        final Map<IAEStack<?>, FlowRate> result = new Object2ObjectOpenHashMap<>(this.itemIds.size());
+        for (int id = 0; id < this.nextItemId; id++) {
+            if (this.items[id] != null) {
+                result.put(this.items[id], new FlowRate(this.itemIn[id], this.itemOut[id]));
             }
         }
-
-        for (final Object2LongMap.Entry<IAEStack<?>> entry : totalsIn.object2LongEntrySet()) {
-            result.put(entry.getKey(), new FlowRate(entry.getLongValue(), totalsOut.getLong(entry.getKey())));
-        }
-
         return result;
     }
 
     @Override
     public void onUpdateTick() {
-        final long cutoff = System.currentTimeMillis()
-                - Math.max(1, AEConfig.instance.itemFlowTrackingWindowMinutes) * 60_000L;
-        while (!this.buckets.isEmpty() && this.buckets.peekFirst().start + BUCKET_SIZE_MS <= cutoff) {
-            this.buckets.pollFirst();
+        if (this.buckets.length == 0 || ++this.ticks % BUCKET_TICKS != 0) {
+            return;
+        }
+
+        final int bucketCount = getBucketCount();
+        if (this.buckets.length != bucketCount) {
+            this.reset(bucketCount);
+            return;
         }
+
+        this.currentBucket = (this.currentBucket + 1) % this.buckets.length;
+        final Bucket bucket = this.buckets[this.currentBucket];
+        if (bucket != null) {
+            this.expire(bucket);
+        }
+    }
+
+    private static int getBucketCount() {
+        return Math.max(1, AEConfig.instance.itemFlowTrackingWindowMinutes) * 60 * 20 / BUCKET_TICKS;
+    }
+
+    /**
+     * Takes the flows of a bucket that left the window out of the totals.
+     */
+    private void expire(final Bucket bucket) {
+        for (int i = 0; i < bucket.cells.size(); i++) {
+            final long cell = bucket.cells.getLong(i);
+            final int itemId = (int) (cell >>> 32);
+            final int nodeId = (int) cell;
+            final long in = bucket.in.getLong(i);
+            final long out = bucket.out.getLong(i);
+
+            this.itemIn[itemId] -= in;
+            this.itemOut[itemId] -= out;
+            if (this.netByCell.addTo(cell, out - in) == in - out) {
+                this.netByCell.remove(cell);
+            }
+
+            if (--this.itemCells[itemId] == 0) {
+                this.itemIds.remove(this.items[itemId].getIdentityKey());
+                this.items[itemId] = null;
+                this.freeItemIds.add(itemId);
+            }
+            if (--this.nodeCells[nodeId] == 0) {
+                this.nodeIds.removeInt(this.nodes[nodeId]);
+                this.nodes[nodeId] = null;
+                this.nodeLocations[nodeId] = null;
+                this.freeNodeIds.add(nodeId);
+            }
+        }
+
+        bucket.cellIndex.clear();
+        bucket.cells.clear();
+        bucket.in.clear();
+        bucket.out.clear();
+    }
+
+    private int addItem(final long key, final IAEStack<?> stack) {
+        final int id;
+        if (this.freeItemIds.isEmpty()) {
+            id = this.nextItemId++;
+            if (id == this.items.length) {
+                final int length = id * 2;
+                this.items = Arrays.copyOf(this.items, length);
+                this.itemIn = Arrays.copyOf(this.itemIn, length);
+                this.itemOut = Arrays.copyOf(this.itemOut, length);
+                this.itemCells = Arrays.copyOf(this.itemCells, length);
+            }
+        } else {
+            id = this.freeItemIds.popInt();
+        }
+
+        this.items[id] = stack.copy();
+        this.itemIn[id] = 0;
+        this.itemOut[id] = 0;
+        this.itemCells[id] = 0;
+        this.itemIds.put(key, id);
+        return id;
+    }
+
+    private int addNode(final IGridNode node, final DimensionalCoord location) {
+        final int id;
+        if (this.freeNodeIds.isEmpty()) {
+            id = this.nextNodeId++;
+            if (id == this.nodes.length) {
+                final int length = id * 2;
+                this.nodes = Arrays.copyOf(this.nodes, length);
+                this.nodeLocations = Arrays.copyOf(this.nodeLocations, length);
+                this.nodeCells = Arrays.copyOf(this.nodeCells, length);
+            }
+        } else {
+            id = this.freeNodeIds.popInt();
+        }
+
+        this.nodes[id] = node;
+        this.nodeLocations[id] = location;
+        this.nodeCells[id] = 0;
+        this.nodeIds.put(node, id);
+        return id;
+    }
+
+    private void reset(final int bucketCount) {
+        this.buckets = new Bucket[bucketCount];
+        this.currentBucket = 0;
+        this.ticks = 0;
+        this.itemIds.clear();
+        this.freeItemIds.clear();
+        this.nextItemId = 0;
+        Arrays.fill(this.items, null);
+        this.nodeIds.clear();
+        this.freeNodeIds.clear();
+        this.nextNodeId = 0;
+        Arrays.fill(this.nodes, null);
+        Arrays.fill(this.nodeLocations, null);
+        this.netByCell.clear();
     }
 
     @Override
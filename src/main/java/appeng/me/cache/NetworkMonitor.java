@@ -10,11 +10,15 @@
 
 package appeng.me.cache;
 
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -44,6 +48,7 @@ import appeng.api.storage.StorageChannel;
 import appeng.api.storage.data.IAEStack;
 import appeng.api.storage.data.IAEStackType;
 import appeng.api.storage.data.IItemList;
+import appeng.me.helpers.GenericInterestManager;
 import appeng.me.storage.ItemWatcher;
 import appeng.util.IterationCounter;
 import appeng.util.item.LazyItemList;
@@ -52,6 +57,24 @@ import appeng.util.item.PrioritizedNetworkItemList;
 
 public class NetworkMonitor<T extends IAEStack<T>> implements IMEMonitor<T> {
 
+    /**
+     * Which receivers a change is posted to, see {@link IMEMonitorHandlerReceiver#requiresImmediateChanges()}.
+     */
+    private enum Delivery {
+
+        ALL,
+        IMMEDIATE,
+        BATCHED;
+
+        private boolean includesImmediate() {
+            return this != BATCHED;
+        }
+
+        private boolean includesBatched() {
+            return this != IMMEDIATE;
+        }
+    }
+
     @Nonnull
     private static final Deque<NetworkMonitor<?>> GLOBAL_DEPTH = Lists.newLinkedList();
 
@@ -62,9 +85,21 @@ public class NetworkMonitor<T extends IAEStack<T>> implements IMEMonitor<T> {
 
     @Nonnull
     private final IItemList<T> cachedList;
+    private int cachedListVersion;
+    // a full copy of the storage list, only kept while a calculation uses it
+    private WeakReference<IItemList<T>> snapshot = new WeakReference<>(null);
+    private int snapshotVersion;
 
     @Nonnull
     private final Map<IMEMonitorHandlerReceiver, Object> listeners;
+    @Nonnull
+    private final Map<IMEMonitorHandlerReceiver, Object> immediateListeners;
+
+    /**
+     * Changes made through this monitor since the last tick, merged per stack and grouped by their source.
+     */
+    @Nonnull
+    private final Map<BaseActionSource, IItemList<T>> pendingChanges = new LinkedHashMap<>();
 
     private boolean sendEvent = false;
     private boolean hasChanged = false;
@@ -81,6 +116,7 @@ public class NetworkMonitor<T extends IAEStack<T>> implements IMEMonitor<T> {
         this.stackType = type;
         this.cachedList = type.createList();
         this.listeners = new HashMap<>();
+        this.immediateListeners = new HashMap<>();
     }
 
     public void setLocked(boolean locked) {
@@ -97,7 +133,11 @@ public class NetworkMonitor<T extends IAEStack<T>> implements IMEMonitor<T> {
 
     @Override
     public void addListener(final IMEMonitorHandlerReceiver l, final Object verificationToken) {
-        this.listeners.put(l, verificationToken);
+        if (l.requiresImmediateChanges()) {
+            this.immediateListeners.put(l, verificationToken);
+        } else {
+            this.listeners.put(l, verificationToken);
+        }
     }
 
     @Override
@@ -167,12 +207,11 @@ public class NetworkMonitor<T extends IAEStack<T>> implements IMEMonitor<T> {
     public IItemList<T> getStorageList() {
         if (this.hasChanged) {
             this.hasChanged = false;
+            this.cachedListVersion++;
             this.cachedList.resetStatus();
             final IItemList<T> ret = this.getAvailableItems(this.cachedList, IterationCounter.fetchNewId());
-            if (ret instanceof NetworkItemList) {
-                for (T item : ret) {
-                    this.cachedList.add(item);
-                }
+            if (ret instanceof NetworkItemList<T>networkItemList) {
+                networkItemList.buildFinalItemList(this.cachedList);
             }
             return this.cachedList;
         }
@@ -180,6 +219,25 @@ public class NetworkMonitor<T extends IAEStack<T>> implements IMEMonitor<T> {
         return this.cachedList;
     }
 
+    /**
+     * @return a copy of the storage list that is shared until the content of the network changes or nothing holds it
+     *         anymore, must not be modified
+     */
+    @Nonnull
+    public IItemList<T> getStorageSnapshot() {
+        final IItemList<T> storageList = this.getStorageList();
+        IItemList<T> snapshot = this.snapshotVersion == this.cachedListVersion ? this.snapshot.get() : null;
+        if (snapshot == null) {
+            snapshot = this.stackType.createList();
+            for (final T is : storageList) {
+                snapshot.add(is);
+            }
+            this.snapshot = new WeakReference<>(snapshot);
+            this.snapshotVersion = this.cachedListVersion;
+        }
+        return snapshot;
+    }
+
     @Override
     public T injectItems(T input, final Actionable mode, final BaseActionSource src) {
         if (this.locked && !isReshuffleSource(src)) {
@@ -220,6 +278,7 @@ public class NetworkMonitor<T extends IAEStack<T>> implements IMEMonitor<T> {
     @Override
     public void removeListener(final IMEMonitorHandlerReceiver l) {
         this.listeners.remove(l);
+        this.immediateListeners.remove(l);
     }
 
     @Override
@@ -247,9 +306,6 @@ public class NetworkMonitor<T extends IAEStack<T>> implements IMEMonitor<T> {
         return this.myGridCache.getGrid();
     }
 
-    private Iterator<Entry<IMEMonitorHandlerReceiver, Object>> getListeners() {
-        return this.listeners.entrySet().iterator();
-    }
 
     private T monitorDifference(final IAEStack original, final T leftOvers, final boolean extraction,
             final BaseActionSource src) {
@@ -262,7 +318,19 @@ public class NetworkMonitor<T extends IAEStack<T>> implements IMEMonitor<T> {
         }
 
         if (diff.getStackSize() != 0) {
-            this.postChangesToListeners(ImmutableList.of(diff), src);
+            IItemList<T> pending = this.pendingChanges.get(src);
+            if (pending == null) {
+                pending = this.stackType.createList();
+                this.pendingChanges.put(src, pending);
+            }
+            pending.add(diff);
+            this.hasChanged = true;
+            this.sendEvent = true;
+
+            // only receivers that asked for it get the change right away, everybody else once per tick
+            if (!this.immediateListeners.isEmpty() || !this.myGridCache.getImmediateInterestManager().isEmpty()) {
+                this.postChange(true, ImmutableList.of(diff), src, Delivery.IMMEDIATE);
+            }
             final ItemFlowGridCache flowCache = this.myGridCache.getGrid().getCache(ItemFlowGridCache.class);
             flowCache.recordFlow(diff, src);
         }
@@ -270,9 +338,20 @@ public class NetworkMonitor<T extends IAEStack<T>> implements IMEMonitor<T> {
         return leftOvers;
     }
 
-    private void notifyListenersOfChange(final Iterable<IAEStack<?>> diff, final BaseActionSource src) {
+    private void notifyListenersOfChange(final Iterable<IAEStack<?>> diff, final BaseActionSource src,
+            final Delivery delivery) {
         this.hasChanged = true;
-        final Iterator<Entry<IMEMonitorHandlerReceiver, Object>> i = this.getListeners();
+        if (delivery.includesImmediate()) {
+            this.notifyListenersOfChange(this.immediateListeners, diff, src);
+        }
+        if (delivery.includesBatched()) {
+            this.notifyListenersOfChange(this.listeners, diff, src);
+        }
+    }
+
+    private void notifyListenersOfChange(final Map<IMEMonitorHandlerReceiver, Object> receivers,
+            final Iterable<IAEStack<?>> diff, final BaseActionSource src) {
+        final Iterator<Entry<IMEMonitorHandlerReceiver, Object>> i = receivers.entrySet().iterator();
 
         while (i.hasNext()) {
             final Entry<IMEMonitorHandlerReceiver, Object> o = i.next();
@@ -285,11 +364,37 @@ public class NetworkMonitor<T extends IAEStack<T>> implements IMEMonitor<T> {
         }
     }
 
-    private void postChangesToListeners(final Iterable<IAEStack<?>> changes, final BaseActionSource src) {
-        this.postChange(true, changes, src);
+    /**
+     * Posts the changes collected since the last tick, one batch per action source.
+     */
+    private void flushPendingChanges() {
+        if (this.pendingChanges.isEmpty()) {
+            return;
+        }
+
+        final Map<BaseActionSource, IItemList<T>> batches = new LinkedHashMap<>(this.pendingChanges);
+        this.pendingChanges.clear();
+
+        for (final Entry<BaseActionSource, IItemList<T>> batch : batches.entrySet()) {
+            final List<IAEStack<?>> changes = new ArrayList<>();
+            for (final T diff : batch.getValue()) {
+                if (diff.getStackSize() != 0) {
+                    changes.add(diff);
+                }
+            }
+
+            if (!changes.isEmpty()) {
+                this.postChange(true, changes, batch.getKey(), Delivery.BATCHED);
+            }
+        }
     }
 
     protected void postChange(final boolean add, final Iterable<IAEStack<?>> changes, final BaseActionSource src) {
+        this.postChange(add, changes, src, Delivery.ALL);
+    }
+
+    private void postChange(final boolean add, final Iterable<IAEStack<?>> changes, final BaseActionSource src,
+            final Delivery delivery) {
         if (localDepthSemaphore > 0 || GLOBAL_DEPTH.contains(this)) {
             return;
         }
@@ -299,7 +404,7 @@ public class NetworkMonitor<T extends IAEStack<T>> implements IMEMonitor<T> {
 
         this.sendEvent = true;
 
-        this.notifyListenersOfChange(changes, src);
+        this.notifyListenersOfChange(changes, src, delivery);
 
         for (final IAEStack<?> changedItem : changes) {
             if (changedItem == null) {
@@ -313,27 +418,11 @@ public class NetworkMonitor<T extends IAEStack<T>> implements IMEMonitor<T> {
                 difference.setStackSize(-changedItem.getStackSize());
             }
 
-            if (this.myGridCache.getInterestManager().containsKey(changedItem)) {
-                final Collection<ItemWatcher> list = this.myGridCache.getInterestManager().get(changedItem);
-
-                if (!list.isEmpty()) {
-                    IAEStack<T> fullStack = this.getHandler()
-                            .getAvailableItem((T) changedItem, IterationCounter.fetchNewId());
-
-                    if (fullStack == null) {
-                        fullStack = changedItem.copy();
-                        fullStack.setStackSize(0);
-                    }
-
-                    this.myGridCache.getInterestManager().enableTransactions();
-
-                    IItemList<T> itemList = new LazyItemList<>(this::getStorageList);
-                    for (final ItemWatcher iw : list) {
-                        iw.getHost().onStackChange(itemList, fullStack, difference, src, this.getChannel());
-                    }
-
-                    this.myGridCache.getInterestManager().disableTransactions();
-                }
+            if (delivery.includesImmediate()) {
+                this.notifyWatchers(this.myGridCache.getImmediateInterestManager(), changedItem, difference, src);
+            }
+            if (delivery.includesBatched()) {
+                this.notifyWatchers(this.myGridCache.getInterestManager(), changedItem, difference, src);
             }
         }
 
@@ -345,10 +434,41 @@ public class NetworkMonitor<T extends IAEStack<T>> implements IMEMonitor<T> {
         }
     }
 
+    @SuppressWarnings("unchecked")
+    private void notifyWatchers(final GenericInterestManager<ItemWatcher> interests, final IAEStack<?> changedItem,
+            final T difference, final BaseActionSource src) {
+        if (!interests.containsKey(changedItem)) {
+            return;
+        }
+
+        final Collection<ItemWatcher> list = interests.get(changedItem);
+        if (list.isEmpty()) {
+            return;
+        }
+
+        IAEStack<T> fullStack = this.getHandler().getAvailableItem((T) changedItem, IterationCounter.fetchNewId());
+        if (fullStack == null) {
+            fullStack = changedItem.copy();
+            fullStack.setStackSize(0);
+        }
+        final IItemList<T> itemList = new LazyItemList<>(this::getStorageList);
+
+        interests.enableTransactions();
+        for (final ItemWatcher iw : list) {
+            iw.getHost().onStackChange(itemList, fullStack, difference, src, this.getChannel());
+        }
+        interests.disableTransactions();
+    }
+
     void forceUpdate() {
         this.hasChanged = true;
 
-        final Iterator<Entry<IMEMonitorHandlerReceiver, Object>> i = this.getListeners();
+        this.forceUpdate(this.immediateListeners);
+        this.forceUpdate(this.listeners);
+    }
+
+    private void forceUpdate(final Map<IMEMonitorHandlerReceiver, Object> receivers) {
+        final Iterator<Entry<IMEMonitorHandlerReceiver, Object>> i = receivers.entrySet().iterator();
         while (i.hasNext()) {
             final Entry<IMEMonitorHandlerReceiver, Object> o = i.next();
             final IMEMonitorHandlerReceiver receiver = o.getKey();
@@ -362,6 +482,8 @@ public class NetworkMonitor<T extends IAEStack<T>> implements IMEMonitor<T> {
     }
 
     void onTick() {
+        this.flushPendingChanges();
+
         if (this.sendEvent) {
             this.sendEvent = false;
             this.myGridCache.getGrid().postEvent(new MENetworkStorageEvent(this, this.stackType));
@@ -33,12 +33,13 @@ import appeng.api.networking.security.ISecurityGrid;
 import appeng.api.networking.security.ISecurityProvider;
 import appeng.core.worlddata.WorldData;
 import appeng.me.GridNode;
+import appeng.me.cache.helpers.SecurityPermissionTable;
 
 public class SecurityCache implements ISecurityGrid {
 
     private final IGrid myGrid;
     private final List<ISecurityProvider> securityProvider = new ArrayList<>();
-    private final HashMap<Integer, EnumSet<SecurityPermissions>> playerPerms = new HashMap<>();
+    private final SecurityPermissionTable playerPerms = new SecurityPermissionTable();
     private long securityKey = -1;
     static final int STARTUP_DELAY = 20;
     private int startupTicks = 0;
@@ -55,7 +56,9 @@ public class SecurityCache implements ISecurityGrid {
             return;
         }
 
-        this.securityProvider.get(0).readPermissions(this.playerPerms);
+        final HashMap<Integer, EnumSet<SecurityPermissions>> perms = new HashMap<>();
+        this.securityProvider.get(0).readPermissions(perms);
+        this.playerPerms.rebuild(perms);
     }
 
     public long getSecurityKey() {
@@ -120,31 +123,27 @@ public class SecurityCache implements ISecurityGrid {
     @Override
     public boolean hasPermission(final EntityPlayer player, final SecurityPermissions perm) {
         Preconditions.checkNotNull(player);
+
+        return this.hasPermission(player.getGameProfile(), perm);
+    }
+
+    public boolean hasPermission(final GameProfile profile, final SecurityPermissions perm) {
+        Preconditions.checkNotNull(profile);
         Preconditions.checkNotNull(perm);
 
-        final GameProfile profile = player.getGameProfile();
-        if (isPlayerOP(profile)) return true;
-        return this.hasPermission(WorldData.instance().playerData().getPlayerID(profile), perm);
+        // no need to look up the player when everything is allowed
+        if (isPlayerOP(profile) || !this.isAvailable()) return true;
+        return this.playerPerms.hasPermission(this.getPlayerID(profile), perm);
+    }
+
+    int getPlayerID(final GameProfile profile) {
+        return WorldData.instance().playerData().getPlayerID(profile);
     }
 
     @Override
     public boolean hasPermission(final int playerID, final SecurityPermissions perm) {
         if (this.isAvailable()) {
-            final EnumSet<SecurityPermissions> perms = this.playerPerms.get(playerID);
-
-            if (perms == null) {
-                if (playerID == -1) // no default?
-                {
-                    return false;
-                } else {
-                    return this.hasPermission(-1, perm);
-                }
-            }
-            if (perm == SecurityPermissions.CRAFT && !perms.contains(SecurityPermissions.EXTRACT)) {
-                return false;
-            }
-
-            return perms.contains(perm);
+            return this.playerPerms.hasPermission(playerID, perm);
         }
         return true;
     }
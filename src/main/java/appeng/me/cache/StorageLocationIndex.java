@@ -0,0 +1,337 @@
+package appeng.me.cache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import appeng.api.storage.ICellInventory;
+import appeng.api.storage.ICellInventoryHandler;
+import appeng.api.storage.ICellProvider;
+import appeng.api.storage.IMEInventory;
+import appeng.api.storage.IMEInventoryHandler;
+import appeng.api.storage.data.IAEStack;
+import appeng.api.storage.data.IItemList;
+import appeng.me.storage.CellInventory;
+import appeng.me.storage.MEInventoryHandler;
+import appeng.me.storage.MEPassThrough;
+import appeng.util.IterationCounter;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
+
+/**
+ * Remembers which storage handlers of a grid hold a stack, so finding the drives, chests and storage buses a stack is
+ * stored in doesn't have to probe every one of them.
+ * <p>
+ * Every cell provider has its own index of the stacks its cells hold, filled from the stacks stored in the cells when
+ * a cell joins and kept up to date by injections and extractions through the network and the changes the provider
+ * posts. Stacks that leave a cell in other ways are noticed when the location is looked up. Handlers that aren't backed
+ * by a cell, like those of storage buses, are never enumerated; they are asked for the stack when it is looked up.
+ */
+public class StorageLocationIndex {
+
+    private final Reference2ObjectOpenHashMap<ICellProvider, ProviderIndex> providers =
+            new Reference2ObjectOpenHashMap<>();
+    private final Reference2ObjectOpenHashMap<IMEInventoryHandler<?>, ProviderIndex> handlers =
+            new Reference2ObjectOpenHashMap<>();
+    private final ReferenceOpenHashSet<IMEInventoryHandler<?>> probed = new ReferenceOpenHashSet<>();
+    private final Long2ObjectOpenHashMap<Entry> byKey = new Long2ObjectOpenHashMap<>();
+
+    public static final class StoredLocation {
+
+        private final ICellProvider provider;
+        private final IMEInventoryHandler<?> handler;
+        private final IAEStack<?> stored;
+
+        private StoredLocation(final ICellProvider provider, final IMEInventoryHandler<?> handler,
+                final IAEStack<?> stored) {
+            this.provider = provider;
+            this.handler = handler;
+            this.stored = stored;
+        }
+
+        public ICellProvider getProvider() {
+            return this.provider;
+        }
+
+        public IMEInventoryHandler<?> getHandler() {
+            return this.handler;
+        }
+
+        public IAEStack<?> getStored() {
+            return this.stored;
+        }
+    }
+
+    private static final class Entry {
+
+        // keeps the interned tag of the key alive
+        private final IAEStack<?> stack;
+        private final ReferenceOpenHashSet<ProviderIndex> providers = new ReferenceOpenHashSet<>();
+
+        private Entry(final IAEStack<?> stack) {
+            this.stack = stack;
+        }
+    }
+
+    private static final class ProviderIndex {
+
+        private final ICellProvider provider;
+        private final Long2ObjectOpenHashMap<ReferenceOpenHashSet<IMEInventoryHandler<?>>> byKey =
+                new Long2ObjectOpenHashMap<>();
+        private final Reference2ObjectOpenHashMap<IMEInventoryHandler<?>, LongOpenHashSet> cells =
+                new Reference2ObjectOpenHashMap<>();
+        private int probedHandlers;
+
+        private ProviderIndex(final ICellProvider provider) {
+            this.provider = provider;
+        }
+
+        private boolean isEmpty() {
+            return this.cells.isEmpty() && this.probedHandlers == 0;
+        }
+    }
+
+    /**
+     * Indexes a handler of a provider. If it is backed by a cell the stacks stored in the cell are indexed, otherwise
+     * it is asked for the stack on every lookup.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    void addHandler(final ICellProvider provider, final IMEInventoryHandler<?> handler) {
+        if (this.handlers.containsKey(handler)) {
+            return;
+        }
+
+        ProviderIndex index = this.providers.get(provider);
+        if (index == null) {
+            index = new ProviderIndex(provider);
+            this.providers.put(provider, index);
+        }
+        this.handlers.put(handler, index);
+
+        final ICellInventory<?> cell = getCellInventory(handler);
+        if (cell == null) {
+            this.probed.add(handler);
+            index.probedHandlers++;
+            return;
+        }
+
+        index.cells.put(handler, new LongOpenHashSet());
+        final Iterable<? extends IAEStack<?>> stored = cell instanceof CellInventory<?>ci
+                ? ci.getStoredStacks()
+                : ((IMEInventory) cell)
+                        .getAvailableItems(
+                                (IItemList) handler.getStackType().createList(),
+                                IterationCounter.fetchNewId());
+        for (final IAEStack<?> stack : stored) {
+            if (stack.getStackSize() > 0) {
+                this.add(index, handler, stack);
+            }
+        }
+    }
+
+    private static ICellInventory<?> getCellInventory(final IMEInventory<?> handler) {
+        IMEInventory<?> inv = handler;
+        while (true) {
+            if (inv instanceof ICellInventoryHandler<?>cih) {
+                return cih.getCellInv();
+            } else if (inv instanceof ICellInventory<?>ci) {
+                return ci;
+            } else if (inv instanceof MEInventoryHandler<?>h) {
+                inv = h.getInternal();
+            } else if (inv instanceof MEPassThrough<?>pt) {
+                inv = pt.getInternal();
+            } else {
+                return null;
+            }
+        }
+    }
+
+    void removeHandler(final IMEInventoryHandler<?> handler) {
+        final ProviderIndex index = this.handlers.remove(handler);
+        if (index == null) {
+            return;
+        }
+
+        final LongOpenHashSet keys = index.cells.remove(handler);
+        if (keys == null) {
+            this.probed.remove(handler);
+            index.probedHandlers--;
+        } else {
+            for (final LongIterator it = keys.iterator(); it.hasNext();) {
+                this.unlink(index, handler, it.nextLong());
+            }
+        }
+
+        if (index.isEmpty()) {
+            this.providers.remove(index.provider);
+        }
+    }
+
+    /**
+     * Drops the handlers no active provider offers anymore.
+     */
+    void retainHandlers(final Set<IMEInventoryHandler<?>> current) {
+        final List<IMEInventoryHandler<?>> removed = new ArrayList<>();
+        for (final IMEInventoryHandler<?> handler : this.handlers.keySet()) {
+            if (!current.contains(handler)) {
+                removed.add(handler);
+            }
+        }
+        for (final IMEInventoryHandler<?> handler : removed) {
+            this.removeHandler(handler);
+        }
+    }
+
+    /**
+     * A stack was stored in the handler, ignored for handlers that aren't indexed cells of the grid.
+     */
+    public void onInjected(final IMEInventoryHandler<?> handler, final IAEStack<?> stack) {
+        final ProviderIndex index = this.handlers.get(handler);
+        if (index != null && index.cells.containsKey(handler)) {
+            this.add(index, handler, stack);
+        }
+    }
+
+    /**
+     * A provider posted changes of its content, the stacks that were added are indexed for its cells of their type and
+     * those it lost are forgotten for the cells that ran out of them.
+     */
+    void onChanged(final ICellProvider provider, final Iterable<? extends IAEStack<?>> changes) {
+        final ProviderIndex index = this.providers.get(provider);
+        if (index == null || index.cells.isEmpty()) {
+            return;
+        }
+
+        for (final IAEStack<?> stack : changes) {
+            if (stack.getStackSize() == 0) {
+                continue;
+            }
+
+            for (final IMEInventoryHandler<?> handler : new ArrayList<>(index.cells.keySet())) {
+                if (handler.getStackType() != stack.getStackType()) {
+                    continue;
+                }
+                if (stack.getStackSize() > 0) {
+                    this.add(index, handler, stack);
+                } else {
+                    this.forgetIfGone(index, handler, stack.getIdentityKey());
+                }
+            }
+        }
+    }
+
+    private void add(final ProviderIndex index, final IMEInventoryHandler<?> handler, final IAEStack<?> stack) {
+        final long key = stack.getIdentityKey();
+        if (!index.cells.get(handler).add(key)) {
+            return;
+        }
+
+        ReferenceOpenHashSet<IMEInventoryHandler<?>> holders = index.byKey.get(key);
+        if (holders == null) {
+            holders = new ReferenceOpenHashSet<>();
+            index.byKey.put(key, holders);
+
+            Entry entry = this.byKey.get(key);
+            if (entry == null) {
+                final IAEStack<?> copy = stack.copy();
+                copy.setStackSize(1);
+                entry = new Entry(copy);
+                this.byKey.put(key, entry);
+            }
+            entry.providers.add(index);
+        }
+        holders.add(handler);
+    }
+
+    /**
+     * Some of the stack was taken from the handler. If it gave less than requested it may have run out, which is
+     * checked so it can be forgotten as a location of the stack.
+     */
+    public void onExtracted(final IMEInventoryHandler<?> handler, final IAEStack<?> request,
+            final IAEStack<?> extracted) {
+        if (extracted != null && extracted.getStackSize() >= request.getStackSize()) {
+            return;
+        }
+
+        final ProviderIndex index = this.handlers.get(handler);
+        if (index != null) {
+            this.forgetIfGone(index, handler, request.getIdentityKey());
+        }
+    }
+
+    private void forgetIfGone(final ProviderIndex index, final IMEInventoryHandler<?> handler, final long key) {
+        final LongOpenHashSet keys = index.cells.get(handler);
+        if (keys == null || !keys.contains(key)) {
+            return;
+        }
+
+        if (getStored(handler, this.byKey.get(key).stack) == null) {
+            this.forget(index, handler, key);
+        }
+    }
+
+    private void forget(final ProviderIndex index, final IMEInventoryHandler<?> handler, final long key) {
+        index.cells.get(handler).remove(key);
+        this.unlink(index, handler, key);
+    }
+
+    private void unlink(final ProviderIndex index, final IMEInventoryHandler<?> handler, final long key) {
+        final ReferenceOpenHashSet<IMEInventoryHandler<?>> holders = index.byKey.get(key);
+        if (holders == null || !holders.remove(handler) || !holders.isEmpty()) {
+            return;
+        }
+
+        index.byKey.remove(key);
+        final Entry entry = this.byKey.get(key);
+        entry.providers.remove(index);
+        if (entry.providers.isEmpty()) {
+            this.byKey.remove(key);
+        }
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static IAEStack<?> getStored(final IMEInventoryHandler handler, final IAEStack<?> stack) {
+        final IAEStack<?> stored = handler.getAvailableItem(stack, IterationCounter.fetchNewId());
+        return stored == null || stored.getStackSize() <= 0 ? null : stored;
+    }
+
+    /**
+     * @return every handler of the grid that holds the stack, with the amount it holds
+     */
+    public List<StoredLocation> find(final IAEStack<?> stack) {
+        final long key = stack.getIdentityKey();
+        final Entry entry = this.byKey.get(key);
+        if (entry == null && this.probed.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        final List<StoredLocation> found = new ArrayList<>();
+        if (entry != null) {
+            for (final ProviderIndex index : new ArrayList<>(entry.providers)) {
+                for (final IMEInventoryHandler<?> handler : new ArrayList<>(index.byKey.get(key))) {
+                    final IAEStack<?> stored = getStored(handler, entry.stack);
+                    if (stored == null) {
+                        this.forget(index, handler, key);
+                    } else {
+                        found.add(new StoredLocation(index.provider, handler, stored));
+                    }
+                }
+            }
+        }
+
+        for (final IMEInventoryHandler<?> handler : this.probed) {
+            if (handler.getStackType() == stack.getStackType()) {
+                final IAEStack<?> stored = getStored(handler, stack);
+                if (stored != null) {
+                    found.add(new StoredLocation(this.handlers.get(handler).provider, handler, stored));
+                }
+            }
+        }
+
+        return found;
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * This file is part of Applied Energistics 2. Copyright (c) 2013 - 2014, AlgorithmX2, All rights reserved. Applied
+ * Energistics 2 is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser General
+ * Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version. Applied Energistics 2 is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details. You should have received a copy of the GNU Lesser General Public License along with
+ * Applied Energistics 2. If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.me.cache;
+
+import appeng.api.implementations.tiles.IWirelessAccessPoint;
+import appeng.api.networking.IGrid;
+import appeng.api.networking.IGridCache;
+import appeng.api.networking.IGridHost;
+import appeng.api.networking.IGridNode;
+import appeng.api.networking.IGridStorage;
+import appeng.api.networking.events.MENetworkBootingStatusChange;
+import appeng.api.networking.events.MENetworkChannelsChanged;
+import appeng.api.networking.events.MENetworkEventSubscribe;
+import appeng.api.networking.events.MENetworkPowerStatusChange;
+import appeng.api.util.DimensionalCoord;
+import appeng.me.cache.helpers.AccessPointIndex;
+import appeng.tile.networking.TileWireless;
+import it.unimi.dsi.fastutil.objects.ReferenceLinkedOpenHashSet;
+
+/**
+ * Keeps the active wireless access points of the grid in an {@link AccessPointIndex}, so range checks don't have to
+ * go over all of them.
+ * <p>
+ * Power, channel and booster changes only mark the index as outdated, it is rebuilt by the next lookup.
+ */
+public class WirelessGridCache implements IGridCache {
+
+    private final IGrid myGrid;
+    private final ReferenceLinkedOpenHashSet<IWirelessAccessPoint> accessPoints = new ReferenceLinkedOpenHashSet<>();
+    private final AccessPointIndex<IWirelessAccessPoint> index = new AccessPointIndex<>();
+    private boolean outdated = true;
+
+    public WirelessGridCache(final IGrid g) {
+        this.myGrid = g;
+    }
+
+    @MENetworkEventSubscribe
+    public void bootingStatusChanged(final MENetworkBootingStatusChange c) {
+        this.outdated = true;
+    }
+
+    @MENetworkEventSubscribe
+    public void powerStatusChanged(final MENetworkPowerStatusChange c) {
+        this.outdated = true;
+    }
+
+    @MENetworkEventSubscribe
+    public void channelsChanged(final MENetworkChannelsChanged c) {
+        this.outdated = true;
+    }
+
+    /**
+     * Called by access points when their range changed.
+     */
+    public void accessPointChanged(final IWirelessAccessPoint accessPoint) {
+        if (this.accessPoints.contains(accessPoint)) {
+            this.outdated = true;
+        }
+    }
+
+    /**
+     * @return the nearest active access point that has the position in its range, or null if there is none
+     */
+    public IWirelessAccessPoint getAccessPointInRange(final int dim, final double x, final double y,
+            final double z) {
+        if (this.outdated) {
+            this.rebuild();
+        }
+        return this.index.findNearest(dim, x, y, z);
+    }
+
+    private void rebuild() {
+        this.outdated = false;
+        this.index.clear();
+        for (final IWirelessAccessPoint accessPoint : this.accessPoints) {
+            final DimensionalCoord dc = accessPoint.getLocation();
+            if (dc != null && dc.getWorld() != null && accessPoint.isActive()) {
+                this.index.put(accessPoint, dc.getDimension(), dc.x, dc.y, dc.z, accessPoint.getRange());
+            }
+        }
+    }
+
+    @Override
+    public void onUpdateTick() {}
+
+    @Override
+    public void removeNode(final IGridNode gridNode, final IGridHost machine) {
+        if (machine instanceof TileWireless accessPoint) {
+            this.accessPoints.remove(accessPoint);
+            this.index.remove(accessPoint);
+        }
+    }
+
+    @Override
+    public void addNode(final IGridNode gridNode, final IGridHost machine) {
+        if (machine instanceof TileWireless accessPoint) {
+            this.accessPoints.add(accessPoint);
+            this.outdated = true;
+        }
+    }
+
+    @Override
+    public void onSplit(final IGridStorage destinationStorage) {}
+
+    @Override
+    public void onJoin(final IGridStorage sourceStorage) {}
+
+    @Override
+    public void populateGridStorage(final IGridStorage destinationStorage) {}
+}
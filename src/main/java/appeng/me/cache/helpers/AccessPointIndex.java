@@ -0,0 +1,182 @@
+/*
+ * This file is part of Applied Energistics 2. Copyright (c) 2013 - 2014, AlgorithmX2, All rights reserved. Applied
+ * Energistics 2 is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser General
+ * Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version. Applied Energistics 2 is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details. You should have received a copy of the GNU Lesser General Public License along with
+ * Applied Energistics 2. If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.me.cache.helpers;
+
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+
+/**
+ * Finds the nearest access point that has a position in its range, per dimension.
+ * <p>
+ * Each dimension is split into columns of 64x64 blocks. An access point is listed in every column its range reaches,
+ * so a lookup only has to check the access points listed in the column of the position. Access points with a range
+ * that would span too many columns are kept in a separate list that is always checked.
+ */
+public final class AccessPointIndex<T> {
+
+    private static final int COLUMN_SHIFT = 6;
+    private static final int MAX_COLUMNS_PER_AXIS = 16;
+
+    private final Reference2ObjectOpenHashMap<T, Entry<T>> entries = new Reference2ObjectOpenHashMap<>();
+    private final Int2ObjectOpenHashMap<Dimension<T>> dimensions = new Int2ObjectOpenHashMap<>();
+
+    private static final class Entry<T> {
+
+        private final T accessPoint;
+        private final int dim;
+        private final double x;
+        private final double y;
+        private final double z;
+        private final double rangeSq;
+        private final int minColumnX;
+        private final int minColumnZ;
+        private final int maxColumnX;
+        private final int maxColumnZ;
+        private final boolean wide;
+
+        private Entry(final T accessPoint, final int dim, final double x, final double y, final double z,
+                final double range) {
+            this.accessPoint = accessPoint;
+            this.dim = dim;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.rangeSq = range * range;
+            this.minColumnX = column(x - range);
+            this.minColumnZ = column(z - range);
+            this.maxColumnX = column(x + range);
+            this.maxColumnZ = column(z + range);
+            this.wide = this.maxColumnX - this.minColumnX >= MAX_COLUMNS_PER_AXIS
+                    || this.maxColumnZ - this.minColumnZ >= MAX_COLUMNS_PER_AXIS;
+        }
+    }
+
+    private static final class Dimension<T> {
+
+        private final Long2ObjectOpenHashMap<ObjectArrayList<Entry<T>>> columns = new Long2ObjectOpenHashMap<>();
+        private final ObjectArrayList<Entry<T>> wide = new ObjectArrayList<>();
+        private int size;
+    }
+
+    private static int column(final double coordinate) {
+        return (int) Math.floor(coordinate) >> COLUMN_SHIFT;
+    }
+
+    private static long columnKey(final int columnX, final int columnZ) {
+        return ((long) columnX << 32) | (columnZ & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Adds the access point, or moves it if it was already added.
+     */
+    public void put(final T accessPoint, final int dim, final double x, final double y, final double z,
+            final double range) {
+        this.remove(accessPoint);
+        if (!(range > 0)) {
+            return;
+        }
+
+        final Entry<T> entry = new Entry<>(accessPoint, dim, x, y, z, range);
+        this.entries.put(accessPoint, entry);
+
+        final Dimension<T> dimension = this.dimensions.computeIfAbsent(dim, d -> new Dimension<>());
+        dimension.size++;
+        if (entry.wide) {
+            dimension.wide.add(entry);
+            return;
+        }
+
+        for (int cx = entry.minColumnX; cx <= entry.maxColumnX; cx++) {
+            for (int cz = entry.minColumnZ; cz <= entry.maxColumnZ; cz++) {
+                dimension.columns.computeIfAbsent(columnKey(cx, cz), k -> new ObjectArrayList<>()).add(entry);
+            }
+        }
+    }
+
+    public void remove(final T accessPoint) {
+        final Entry<T> entry = this.entries.remove(accessPoint);
+        if (entry == null) {
+            return;
+        }
+
+        final Dimension<T> dimension = this.dimensions.get(entry.dim);
+        if (entry.wide) {
+            dimension.wide.remove(entry);
+        } else {
+            for (int cx = entry.minColumnX; cx <= entry.maxColumnX; cx++) {
+                for (int cz = entry.minColumnZ; cz <= entry.maxColumnZ; cz++) {
+                    final long key = columnKey(cx, cz);
+                    final ObjectArrayList<Entry<T>> list = dimension.columns.get(key);
+                    list.remove(entry);
+                    if (list.isEmpty()) {
+                        dimension.columns.remove(key);
+                    }
+                }
+            }
+        }
+
+        if (--dimension.size == 0) {
+            this.dimensions.remove(entry.dim);
+        }
+    }
+
+    public void clear() {
+        this.entries.clear();
+        this.dimensions.clear();
+    }
+
+    public int size() {
+        return this.entries.size();
+    }
+
+    /**
+     * @return the nearest access point that has the position in its range, or null if there is none
+     */
+    public T findNearest(final int dim, final double x, final double y, final double z) {
+        final Dimension<T> dimension = this.dimensions.get(dim);
+        if (dimension == null) {
+            return null;
+        }
+
+        Entry<T> best = null;
+        double bestSq = Double.MAX_VALUE;
+
+        final ObjectArrayList<Entry<T>> column = dimension.columns.get(columnKey(column(x), column(z)));
+        if (column != null) {
+            for (final Entry<T> entry : column) {
+                final double distanceSq = distanceSq(entry, x, y, z);
+                if (distanceSq < entry.rangeSq && distanceSq < bestSq) {
+                    best = entry;
+                    bestSq = distanceSq;
+                }
+            }
+        }
+
+        for (final Entry<T> entry : dimension.wide) {
+            final double distanceSq = distanceSq(entry, x, y, z);
+            if (distanceSq < entry.rangeSq && distanceSq < bestSq) {
+                best = entry;
+                bestSq = distanceSq;
+            }
+        }
+
+        return best == null ? null : best.accessPoint;
+    }
+
+    private static double distanceSq(final Entry<?> entry, final double x, final double y, final double z) {
+        final double offX = entry.x - x;
+        final double offY = entry.y - y;
+        final double offZ = entry.z - z;
+        return offX * offX + offY * offY + offZ * offZ;
+    }
+}
@@ -0,0 +1,292 @@
+/*
+ * This file is part of Applied Energistics 2. Copyright (c) 2013 - 2014, AlgorithmX2, All rights reserved. Applied
+ * Energistics 2 is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser General
+ * Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version. Applied Energistics 2 is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details. You should have received a copy of the GNU Lesser General Public License along with
+ * Applied Energistics 2. If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.me.cache.helpers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import net.minecraft.item.ItemStack;
+
+import com.gtnewhorizon.gtnhlib.util.map.ItemStackMap;
+
+import appeng.api.storage.ICellCacheRegistry;
+import appeng.api.storage.ICellInventoryHandler;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
+
+/**
+ * The byte, type and status totals of the cells of a grid, kept up to date from the changes of the cells instead of
+ * counting all cells again.
+ * <p>
+ * Every cell contributes the values it had when it was last counted. Cells are added and removed per provider, and a
+ * cell that reports a change is counted again with the next {@link #applyChanges()}. Cells that can't report their
+ * changes, like the ones of other mods, are counted again with {@link #refreshUnreported()}.
+ */
+public final class CellStatistics {
+
+    private static final ICellCacheRegistry.TYPE[] TYPES = ICellCacheRegistry.TYPE.values();
+    private static final int STATUSES = 5;
+
+    private final Reference2ObjectOpenHashMap<Object, Cell> cells = new Reference2ObjectOpenHashMap<>();
+    private final Reference2ObjectOpenHashMap<Object, List<Cell>> cellsByProvider = new Reference2ObjectOpenHashMap<>();
+    private final ReferenceOpenHashSet<Cell> changed = new ReferenceOpenHashSet<>();
+
+    private final double[] bytesTotal = new double[TYPES.length];
+    private final double[] bytesUsed = new double[TYPES.length];
+    private final long[] typesTotal = new long[TYPES.length];
+    private final long[] typesUsed = new long[TYPES.length];
+    private final long[][] cellsByStatus = new long[TYPES.length][STATUSES];
+    private final long[] cellCount = new long[TYPES.length];
+    private final ItemStackMap<Integer>[] cellItems;
+
+    private static final class Cell {
+
+        private final Object key;
+        private final ICellCacheRegistry registry;
+        private final ItemStack cellItem;
+        private final boolean reportsChanges;
+
+        private boolean counted;
+        private ICellCacheRegistry.TYPE type;
+        private long totalBytes;
+        private long usedBytes;
+        private long totalTypes;
+        private long usedTypes;
+        private int status;
+
+        private Cell(final ICellCacheRegistry registry, final ItemStack cellStack) {
+            if (registry instanceof ICellInventoryHandler<?>handler && handler.getCellInv() != null) {
+                this.key = handler.getCellInv();
+                this.reportsChanges = true;
+            } else {
+                this.key = registry;
+                this.reportsChanges = false;
+            }
+            this.registry = registry;
+            this.cellItem = cellStack == null ? null
+                    : new ItemStack(cellStack.getItem(), 1, cellStack.getItemDamage());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public CellStatistics() {
+        this.cellItems = new ItemStackMap[TYPES.length];
+        for (int i = 0; i < TYPES.length; i++) {
+            this.cellItems[i] = new ItemStackMap<>();
+        }
+    }
+
+    /**
+     * Replaces the cells of a provider, cells it still has keep their counted values.
+     *
+     * @param cells the cells of the provider and the items of these cells
+     */
+    public void setCells(final Object provider, final Map<ICellCacheRegistry, ItemStack> cells) {
+        final List<Cell> previous = this.cellsByProvider.remove(provider);
+        final List<Cell> current = new ArrayList<>(cells.size());
+
+        if (previous != null) {
+            for (final Cell cell : previous) {
+                if (cells.containsKey(cell.registry)) {
+                    current.add(cell);
+                } else {
+                    this.remove(cell);
+                }
+            }
+        }
+
+        for (final Map.Entry<ICellCacheRegistry, ItemStack> entry : cells.entrySet()) {
+            if (!containsRegistry(current, entry.getKey())) {
+                final Cell cell = new Cell(entry.getKey(), entry.getValue());
+                // a cell can only be in one provider
+                final Cell other = this.cells.get(cell.key);
+                if (other != null) {
+                    this.remove(other);
+                    this.removeFromProvider(other);
+                }
+                this.cells.put(cell.key, cell);
+                this.count(cell, 1);
+                current.add(cell);
+            }
+        }
+
+        if (!current.isEmpty()) {
+            this.cellsByProvider.put(provider, current);
+        }
+    }
+
+    public void removeProvider(final Object provider) {
+        final List<Cell> previous = this.cellsByProvider.remove(provider);
+        if (previous != null) {
+            for (final Cell cell : previous) {
+                this.remove(cell);
+            }
+        }
+    }
+
+    /**
+     * Counts the cell again with the next {@link #applyChanges()}.
+     *
+     * @param key the inventory of the cell, or its {@link ICellCacheRegistry} if it has none
+     */
+    public void markChanged(final Object key) {
+        final Cell cell = this.cells.get(key);
+        if (cell != null) {
+            this.changed.add(cell);
+        }
+    }
+
+    public void applyChanges() {
+        if (this.changed.isEmpty()) {
+            return;
+        }
+
+        for (final Cell cell : this.changed) {
+            this.recount(cell);
+        }
+        this.changed.clear();
+    }
+
+    /**
+     * Counts the cells that don't report their changes again.
+     */
+    public void refreshUnreported() {
+        for (final Cell cell : this.cells.values()) {
+            if (!cell.reportsChanges) {
+                this.recount(cell);
+            }
+        }
+    }
+
+    /**
+     * @return true if both have the same totals
+     */
+    public boolean hasSameTotals(final CellStatistics other) {
+        for (int i = 0; i < TYPES.length; i++) {
+            if (this.bytesTotal[i] != other.bytesTotal[i] || this.bytesUsed[i] != other.bytesUsed[i]
+                    || this.typesTotal[i] != other.typesTotal[i]
+                    || this.typesUsed[i] != other.typesUsed[i]
+                    || this.cellCount[i] != other.cellCount[i]) {
+                return false;
+            }
+            for (int s = 0; s < STATUSES; s++) {
+                if (this.cellsByStatus[i][s] != other.cellsByStatus[i][s]) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean containsRegistry(final List<Cell> cells, final ICellCacheRegistry registry) {
+        for (final Cell cell : cells) {
+            if (cell.registry == registry) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void removeFromProvider(final Cell cell) {
+        for (final List<Cell> list : this.cellsByProvider.values()) {
+            if (list.remove(cell)) {
+                return;
+            }
+        }
+    }
+
+    private void remove(final Cell cell) {
+        if (this.cells.get(cell.key) == cell) {
+            this.cells.remove(cell.key);
+        }
+        this.changed.remove(cell);
+        this.count(cell, -1);
+    }
+
+    private void recount(final Cell cell) {
+        this.count(cell, -1);
+        this.count(cell, 1);
+    }
+
+    /**
+     * Adds the values of the cell, reading them from the cell first, or removes the values it was counted with.
+     */
+    private void count(final Cell cell, final int upOrDown) {
+        if (upOrDown > 0) {
+            cell.counted = cell.registry.canGetInv();
+            if (!cell.counted) {
+                return;
+            }
+            cell.type = cell.registry.getCellType();
+            cell.totalBytes = cell.registry.getTotalBytes();
+            cell.usedBytes = cell.registry.getUsedBytes();
+            cell.totalTypes = cell.registry.getTotalTypes();
+            cell.usedTypes = cell.registry.getUsedTypes();
+            cell.status = cell.registry.getCellStatus();
+        } else if (!cell.counted) {
+            return;
+        } else {
+            cell.counted = false;
+        }
+
+        final int t = cell.type.ordinal();
+        this.bytesTotal[t] += upOrDown * (double) cell.totalBytes;
+        this.bytesUsed[t] += upOrDown * (double) cell.usedBytes;
+        this.typesTotal[t] += upOrDown * cell.totalTypes;
+        this.typesUsed[t] += upOrDown * cell.usedTypes;
+        if (cell.status > 0 && cell.status < STATUSES) {
+            this.cellsByStatus[t][cell.status] += upOrDown;
+        }
+        this.cellCount[t] += upOrDown;
+
+        if (cell.cellItem != null) {
+            final ItemStackMap<Integer> items = this.cellItems[t];
+            final int count = items.getOrDefault(cell.cellItem, 0) + upOrDown;
+            if (count > 0) {
+                items.put(cell.cellItem, count);
+            } else {
+                items.remove(cell.cellItem);
+            }
+        }
+    }
+
+    public ItemStackMap<Integer> getCellItems(final ICellCacheRegistry.TYPE type) {
+        return this.cellItems[type.ordinal()];
+    }
+
+    public double getBytesTotal(final ICellCacheRegistry.TYPE type) {
+        return this.bytesTotal[type.ordinal()];
+    }
+
+    public double getBytesUsed(final ICellCacheRegistry.TYPE type) {
+        return this.bytesUsed[type.ordinal()];
+    }
+
+    public long getTypesTotal(final ICellCacheRegistry.TYPE type) {
+        return this.typesTotal[type.ordinal()];
+    }
+
+    public long getTypesUsed(final ICellCacheRegistry.TYPE type) {
+        return this.typesUsed[type.ordinal()];
+    }
+
+    /**
+     * @param status the status of the cells, 1 to 4 from green to red
+     */
+    public long getCells(final ICellCacheRegistry.TYPE type, final int status) {
+        return this.cellsByStatus[type.ordinal()][status];
+    }
+
+    public long getCellCount(final ICellCacheRegistry.TYPE type) {
+        return this.cellCount[type.ordinal()];
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * This file is part of Applied Energistics 2. Copyright (c) 2013 - 2014, AlgorithmX2, All rights reserved. Applied
+ * Energistics 2 is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser General
+ * Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version. Applied Energistics 2 is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details. You should have received a copy of the GNU Lesser General Public License along with
+ * Applied Energistics 2. If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.me.cache.helpers;
+
+import java.util.EnumSet;
+import java.util.Map;
+
+import appeng.api.config.SecurityPermissions;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+
+/**
+ * The permissions of the players of a security terminal, one bit per {@link SecurityPermissions} for every player ID.
+ * <p>
+ * Players without an entry get the permissions of the default player, the entry with the ID -1.
+ */
+public final class SecurityPermissionTable {
+
+    public static final int DEFAULT_PLAYER = -1;
+
+    private static final int NO_ENTRY = -1;
+    private static final int CRAFT = 1 << SecurityPermissions.CRAFT.ordinal();
+    private static final int EXTRACT = 1 << SecurityPermissions.EXTRACT.ordinal();
+
+    private final Int2IntOpenHashMap masks = new Int2IntOpenHashMap();
+
+    public SecurityPermissionTable() {
+        this.masks.defaultReturnValue(NO_ENTRY);
+    }
+
+    /**
+     * Replaces all entries.
+     *
+     * @param playerPerms the permissions by player ID, as read from the security terminal
+     */
+    public void rebuild(final Map<Integer, EnumSet<SecurityPermissions>> playerPerms) {
+        this.masks.clear();
+        for (final Map.Entry<Integer, EnumSet<SecurityPermissions>> entry : playerPerms.entrySet()) {
+            if (entry.getKey() != null && entry.getValue() != null) {
+                this.masks.put((int) entry.getKey(), toMask(entry.getValue()));
+            }
+        }
+    }
+
+    public void clear() {
+        this.masks.clear();
+    }
+
+    public boolean hasPermission(final int playerID, final SecurityPermissions perm) {
+        int mask = this.masks.get(playerID);
+
+        if (mask == NO_ENTRY) {
+            if (playerID == DEFAULT_PLAYER) // no default?
+            {
+                return false;
+            }
+
+            mask = this.masks.get(DEFAULT_PLAYER);
+            if (mask == NO_ENTRY) {
+                return false;
+            }
+        }
+
+        return (mask & 1 << perm.ordinal()) != 0;
+    }
+
+    private static int toMask(final EnumSet<SecurityPermissions> perms) {
+        int mask = 0;
+        for (final SecurityPermissions perm : perms) {
+            mask |= 1 << perm.ordinal();
+        }
+
+        // crafting needs extracting
+        if ((mask & EXTRACT) == 0) {
+            mask &= ~CRAFT;
+        }
+
+        return mask;
+    }
+}
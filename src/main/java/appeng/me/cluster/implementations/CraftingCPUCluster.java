@@ -151,6 +151,7 @@ public class CraftingCPUCluster implements IAECluster, ICraftingCPU {
     protected final LinkedList<TileCraftingTile> tiles = new LinkedList<>();
     protected final LinkedList<TileCraftingMonitorTile> status = new LinkedList<>();
     protected final HashMap<IMEMonitorHandlerReceiver, Object> listeners = new HashMap<>();
+    protected final CraftingCpuStatusTable statusTable = new CraftingCpuStatusTable(this);
     protected final HashMap<IAEStack<?>, List<NamedDimensionalCoord>> providers = new HashMap<>();
     protected ICraftingLink myLastLink;
     protected String myName = "";
@@ -297,6 +298,10 @@ public class CraftingCPUCluster implements IAECluster, ICraftingCPU {
         this.listeners.remove(l);
     }
 
+    public CraftingCpuStatusTable getStatusTable() {
+        return this.statusTable;
+    }
+
     public MECraftingInventory getInventory() {
         return this.inventory;
     }
@@ -520,6 +525,8 @@ public class CraftingCPUCluster implements IAECluster, ICraftingCPU {
     }
 
     protected void postChange(final IAEStack<?> diff, final BaseActionSource src) {
+        this.statusTable.markChanged(diff);
+
         final Iterator<Entry<IMEMonitorHandlerReceiver, Object>> i = this.getListeners();
 
         // protect integrity
@@ -1320,6 +1327,7 @@ public class CraftingCPUCluster implements IAECluster, ICraftingCPU {
                 isMissingMode = oldMissingMode;
                 tasks.clear();
                 tasks.putAll(tasksBackup);
+                this.statusTable.markAllChanged();
             }
         } catch (final CraftBranchFailure e) {
             inventory = backupInventory;
@@ -1327,6 +1335,7 @@ public class CraftingCPUCluster implements IAECluster, ICraftingCPU {
             isMissingMode = oldMissingMode;
             tasks.clear();
             tasks.putAll(tasksBackup);
+            this.statusTable.markAllChanged();
             handleCraftBranchFailure(e, src);
         } finally {
             this.currentPlanningDiagnosticSessionId = null;
@@ -1691,6 +1700,7 @@ public class CraftingCPUCluster implements IAECluster, ICraftingCPU {
             this.postCraftingStatusChange(is.copy());
         }
         this.waitingForMissing = readAEStackListNBT((NBTTagList) data.getTag("waitingForMissing"), true);
+        this.statusTable.markAllChanged();
 
         this.lastTime = System.nanoTime();
         this.elapsedTime = data.getLong("elapsedTime");
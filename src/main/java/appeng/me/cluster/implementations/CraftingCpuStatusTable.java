@@ -0,0 +1,192 @@
+package appeng.me.cluster.implementations;
+
+import java.util.List;
+import java.util.Map.Entry;
+
+import appeng.api.AEApi;
+import appeng.api.networking.crafting.CraftingItemList;
+import appeng.api.networking.crafting.ICraftingPatternDetails;
+import appeng.api.storage.data.IAEStack;
+import appeng.api.storage.data.IItemList;
+import appeng.container.implementations.CraftingCpuEntry;
+import appeng.me.cluster.implementations.CraftingCPUCluster.TaskProgress;
+import appeng.util.ScheduledReason;
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectRBTreeMap;
+
+/**
+ * The stored, active and pending amounts of every stack of a crafting CPU, shared by everyone watching it.
+ * <p>
+ * Changed stacks are only marked by the CPU and recomputed once, the next time a viewer asks for changes. Every
+ * recomputed row that actually changed gets a new version, so viewers only fetch the rows newer than the last version
+ * they have seen, and can page through a large table over several ticks. Rows that dropped to zero are kept so viewers
+ * learn about their removal; once there are too many of them they are dropped and the generation is increased, which
+ * makes viewers start over.
+ */
+public class CraftingCpuStatusTable {
+
+    private static final int MIN_REMOVED_ROWS = 256;
+
+    private final CraftingCPUCluster cpu;
+    private final Long2ObjectOpenHashMap<Row> rows = new Long2ObjectOpenHashMap<>();
+    private final Long2ObjectRBTreeMap<Row> byVersion = new Long2ObjectRBTreeMap<>();
+    private final Long2ObjectOpenHashMap<IAEStack<?>> changed = new Long2ObjectOpenHashMap<>();
+    private boolean rescan = true;
+    private long version;
+    private int generation;
+    private int removedRows;
+
+    private static final class Row {
+
+        private final long key;
+        private CraftingCpuEntry entry;
+        private long version;
+
+        private Row(final long key) {
+            this.key = key;
+        }
+
+        private boolean isRemoved() {
+            return this.entry.getTotalAmount() == 0;
+        }
+    }
+
+    CraftingCpuStatusTable(final CraftingCPUCluster cpu) {
+        this.cpu = cpu;
+    }
+
+    void markChanged(final IAEStack<?> stack) {
+        if (!this.rescan) {
+            final long key = stack.getIdentityKey();
+            if (!this.changed.containsKey(key)) {
+                this.changed.put(key, CraftingCpuEntry.normalizeStack(stack));
+            }
+        }
+    }
+
+    /**
+     * Recomputes every row on the next update, for changes the CPU didn't post one by one.
+     */
+    void markAllChanged() {
+        this.rescan = true;
+        this.changed.clear();
+    }
+
+    public int getGeneration() {
+        return this.generation;
+    }
+
+    /**
+     * Collects up to {@code max} rows changed after the given version, oldest first. Call {@link #update()} first.
+     *
+     * @return the version to continue from, {@code since} if nothing changed
+     */
+    public long collectChanges(final long since, final int max, final List<CraftingCpuEntry> out) {
+        long next = since;
+        for (final Row row : this.byVersion.tailMap(since + 1).values()) {
+            if (out.size() >= max) {
+                break;
+            }
+            next = row.version;
+            // a viewer starting over has nothing to remove
+            if (since > 0 || !row.isRemoved()) {
+                out.add(row.entry);
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Recomputes the rows of the stacks that changed since the last update.
+     */
+    public void update() {
+        if (this.rescan) {
+            this.rescan = false;
+            final IItemList<IAEStack<?>> all = AEApi.instance().storage().createAEStackList();
+            this.cpu.getModernListOfItem(all, CraftingItemList.ALL);
+            for (final Row row : this.rows.values()) {
+                this.changed.put(row.key, row.entry.getStack());
+            }
+            for (final IAEStack<?> stack : all) {
+                this.changed.put(stack.getIdentityKey(), CraftingCpuEntry.normalizeStack(stack));
+            }
+        }
+
+        if (this.changed.isEmpty()) {
+            return;
+        }
+
+        // a single pass over the tasks for all changed stacks
+        final Long2LongOpenHashMap pending = new Long2LongOpenHashMap();
+        final Long2ObjectOpenHashMap<ScheduledReason> reasons = new Long2ObjectOpenHashMap<>();
+        for (final Entry<ICraftingPatternDetails, TaskProgress> t : this.cpu.tasks.entrySet()) {
+            for (final IAEStack<?> ais : t.getKey().getCondensedAEOutputs()) {
+                final long key = ais.getIdentityKey();
+                if (this.changed.containsKey(key)) {
+                    pending.addTo(key, ais.getStackSize() * t.getValue().value);
+                    if (!reasons.containsKey(key)) {
+                        reasons.put(key, this.cpu.reasonProvider.getOrDefault(t.getKey(), ScheduledReason.UNDEFINED));
+                    }
+                }
+            }
+        }
+
+        for (final Long2ObjectOpenHashMap.Entry<IAEStack<?>> e : this.changed.long2ObjectEntrySet()) {
+            final long key = e.getLongKey();
+            final IAEStack<?> stack = e.getValue();
+            final CraftingCpuEntry entry = new CraftingCpuEntry(
+                    stack,
+                    this.cpu.getStackAmount(stack, CraftingItemList.STORAGE),
+                    this.cpu.getStackAmount(stack, CraftingItemList.ACTIVE),
+                    pending.get(key),
+                    reasons.getOrDefault(key, ScheduledReason.UNDEFINED));
+
+            Row row = this.rows.get(key);
+            if (row == null) {
+                if (entry.getTotalAmount() == 0) {
+                    continue;
+                }
+                row = new Row(key);
+                this.rows.put(key, row);
+            } else {
+                if (isSame(row.entry, entry)) {
+                    continue;
+                }
+                this.byVersion.remove(row.version);
+                if (row.isRemoved()) {
+                    this.removedRows--;
+                }
+            }
+
+            row.entry = entry;
+            row.version = ++this.version;
+            this.byVersion.put(row.version, row);
+            if (row.isRemoved()) {
+                this.removedRows++;
+            }
+        }
+        this.changed.clear();
+
+        if (this.removedRows > MIN_REMOVED_ROWS && this.removedRows > this.rows.size() - this.removedRows) {
+            this.dropRemovedRows();
+        }
+    }
+
+    private void dropRemovedRows() {
+        this.rows.values().removeIf(row -> {
+            if (row.isRemoved()) {
+                this.byVersion.remove(row.version);
+                return true;
+            }
+            return false;
+        });
+        this.removedRows = 0;
+        this.generation++;
+    }
+
+    private static boolean isSame(final CraftingCpuEntry a, final CraftingCpuEntry b) {
+        return a.getStoredAmount() == b.getStoredAmount() && a.getActiveAmount() == b.getActiveAmount()
+                && a.getPendingAmount() == b.getPendingAmount() && a.getScheduledReason() == b.getScheduledReason();
+    }
+}
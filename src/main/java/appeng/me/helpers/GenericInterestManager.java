@@ -11,20 +11,35 @@
 package appeng.me.helpers;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedList;
+import java.util.Set;
 
 import com.google.common.collect.Multimap;
 
 import appeng.api.storage.data.IAEStack;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet;
 
 public class GenericInterestManager<T> {
 
     private final Multimap<IAEStack, T> container;
+    /**
+     * Used instead of {@link #container} when created without one, keyed by {@link IAEStack#getIdentityKey()}. The
+     * watchers keep a copy of every stack they watch, which keeps the keys stable.
+     */
+    private final Long2ObjectOpenHashMap<Set<T>> byKey;
     private LinkedList<SavedTransactions> transactions = null;
     private int transDepth = 0;
 
     public GenericInterestManager(final Multimap<IAEStack, T> interests) {
         this.container = interests;
+        this.byKey = null;
+    }
+
+    public GenericInterestManager() {
+        this.container = null;
+        this.byKey = new Long2ObjectOpenHashMap<>();
     }
 
     public void enableTransactions() {
@@ -56,6 +71,13 @@ public class GenericInterestManager<T> {
         if (this.transactions != null) {
             this.transactions.add(new SavedTransactions(true, stack, iw));
             return true;
+        } else if (this.byKey != null) {
+            Set<T> set = this.byKey.get(stack.getIdentityKey());
+            if (set == null) {
+                set = new ObjectOpenHashSet<>();
+                this.byKey.put(stack.getIdentityKey(), set);
+            }
+            return set.add(iw);
         } else {
             return this.container.put(stack, iw);
         }
@@ -63,7 +85,16 @@ public class GenericInterestManager<T> {
 
     public boolean remove(final IAEStack stack, final T iw) {
         if (this.transactions != null) {
-            this.transactions.add(new SavedTransactions(true, stack, iw));
+            this.transactions.add(new SavedTransactions(false, stack, iw));
+            return true;
+        } else if (this.byKey != null) {
+            final Set<T> set = this.byKey.get(stack.getIdentityKey());
+            if (set == null || !set.remove(iw)) {
+                return false;
+            }
+            if (set.isEmpty()) {
+                this.byKey.remove(stack.getIdentityKey());
+            }
             return true;
         } else {
             return this.container.remove(stack, iw);
@@ -71,10 +102,24 @@ public class GenericInterestManager<T> {
     }
 
     public boolean containsKey(final IAEStack stack) {
+        if (this.byKey != null) {
+            return this.byKey.containsKey(stack.getIdentityKey());
+        }
         return this.container.containsKey(stack);
     }
 
+    public boolean isEmpty() {
+        if (this.byKey != null) {
+            return this.byKey.isEmpty();
+        }
+        return this.container.isEmpty();
+    }
+
     public Collection<T> get(final IAEStack stack) {
+        if (this.byKey != null) {
+            final Set<T> set = this.byKey.get(stack.getIdentityKey());
+            return set == null ? Collections.emptySet() : set;
+        }
         return this.container.get(stack);
     }
 
@@ -13,6 +13,8 @@ package appeng.me.storage;
 import static appeng.util.item.AEFluidStackType.FLUID_STACK_TYPE;
 import static appeng.util.item.AEItemStackType.ITEM_STACK_TYPE;
 
+import java.util.List;
+
 import javax.annotation.Nonnull;
 
 import net.minecraft.inventory.IInventory;
@@ -38,18 +40,23 @@ import appeng.api.storage.data.IAEItemStack;
 import appeng.api.storage.data.IAEStack;
 import appeng.api.storage.data.IAEStackType;
 import appeng.api.storage.data.IItemList;
+import appeng.core.AEConfig;
+import appeng.core.AELog;
 import appeng.tile.inventory.IAEStackInventory;
 
 public abstract class CellInventory<StackType extends IAEStack<StackType>> implements ICellInventory<StackType> {
 
     private static final String STACK_SLOT = "#";
     private static final String STACK_SLOT_COUNT = "@";
+    private static final String STACK_DATA = "StackData";
     protected final NBTTagCompound tagCompound;
     protected final ISaveProvider container;
     private int maxTypes = 63;
     protected short storedTypes = 0;
     protected long storedCount = 0;
     protected final IItemList<StackType> cellStacks;
+    private boolean cellStacksLoaded = false;
+    private boolean unreadable = false;
     private final ItemStack cellItem;
     private final IStorageCell cellType;
     private boolean cardVoidOverflow = false;
@@ -96,7 +103,6 @@ public abstract class CellInventory<StackType extends IAEStack<StackType>> imple
         this.restrictionLong = this.tagCompound.getLong("cellRestrictionAmount");
 
         this.cellStacks = (IItemList<StackType>) this.getStackType().createPrimitiveList();
-        this.loadCellStacks();
 
         final IInventory upgrades = this.getUpgradesInventory();
         for (int x = 0; x < upgrades.getSizeInventory(); x++) {
@@ -176,6 +182,10 @@ public abstract class CellInventory<StackType extends IAEStack<StackType>> imple
             return null;
         }
 
+        if (this.isUnreadable()) {
+            return input;
+        }
+
         if (this.cellType.isBlackListed(input)) {
             return input;
         }
@@ -258,7 +268,7 @@ public abstract class CellInventory<StackType extends IAEStack<StackType>> imple
                         final StackType toWrite = input.copy();
                         toWrite.setStackSize(remainingItemCount);
 
-                        this.cellStacks.add(toWrite);
+                        this.getCellStacks().add(toWrite);
                         this.updateItemCount(toWrite.getStackSize());
                         this.saveChanges();
                     }
@@ -267,7 +277,7 @@ public abstract class CellInventory<StackType extends IAEStack<StackType>> imple
 
                 if (mode == Actionable.MODULATE) {
                     this.updateItemCount(input.getStackSize());
-                    this.cellStacks.add(input);
+                    this.getCellStacks().add(input);
                     this.saveChanges();
                 }
 
@@ -280,7 +290,7 @@ public abstract class CellInventory<StackType extends IAEStack<StackType>> imple
 
     @Override
     public StackType extractItems(final StackType request, final Actionable mode, final BaseActionSource src) {
-        if (request == null) {
+        if (request == null || this.isUnreadable()) {
             return null;
         }
 
@@ -315,45 +325,82 @@ public abstract class CellInventory<StackType extends IAEStack<StackType>> imple
         return results;
     }
 
+    /**
+     * The stacks are only decoded when they are needed, the type and item counts are stored separately.
+     */
     private IItemList<StackType> getCellStacks() {
+        if (!this.cellStacksLoaded) {
+            this.cellStacksLoaded = true;
+            this.loadCellStacks();
+        }
         return this.cellStacks;
     }
 
+    /**
+     * @return the stacks stored in the cell, which must not be modified
+     */
+    public IItemList<StackType> getStoredStacks() {
+        return this.getCellStacks();
+    }
+
+    /**
+     * A cell whose stacks couldn't be decoded refuses every insert and extraction, so its data is never overwritten.
+     *
+     * @return true if the stored stacks couldn't be decoded
+     */
+    public boolean isUnreadable() {
+        this.getCellStacks();
+        return this.unreadable;
+    }
+
     private void updateItemCount(final long delta) {
         this.storedCount += delta;
         this.tagCompound.setLong(getStackCountTag(), this.storedCount);
     }
 
     protected void saveChanges() {
-        // cellItems.clean();
-        long itemCount = 0;
+        final IItemList<StackType> stacks = this.getCellStacks();
+        if (this.unreadable) {
+            return;
+        }
 
-        // add new pretty stuff...
+        final short oldStoredItems = this.storedTypes;
+        long itemCount = 0;
         int x = 0;
 
-        for (final StackType v : this.cellStacks) {
-            itemCount += v.getStackSize();
+        final byte[] compact = AEConfig.instance.compactCellStorage && !stacks.isEmpty()
+                ? CompactCellData.encode(stacks)
+                : null;
+        if (compact != null) {
+            for (final StackType v : stacks) {
+                itemCount += v.getStackSize();
+            }
+            this.tagCompound.setByteArray(STACK_DATA, compact);
+        } else {
+            // add new pretty stuff...
+            for (final StackType v : stacks) {
+                itemCount += v.getStackSize();
 
-            final NBTBase c = this.tagCompound.getTag(STACK_SLOT + x);
+                final NBTBase c = this.tagCompound.getTag(STACK_SLOT + x);
 
-            if (c instanceof NBTTagCompound nbt) {
-                v.writeToNBT(nbt);
-            } else {
-                final NBTTagCompound g = new NBTTagCompound();
-                v.writeToNBT(g);
-                this.tagCompound.setTag(STACK_SLOT + x, g);
-            }
+                if (c instanceof NBTTagCompound nbt) {
+                    v.writeToNBT(nbt);
+                } else {
+                    final NBTTagCompound g = new NBTTagCompound();
+                    v.writeToNBT(g);
+                    this.tagCompound.setTag(STACK_SLOT + x, g);
+                }
 
-            this.tagCompound.setLong(STACK_SLOT_COUNT + x, v.getStackSize());
+                this.tagCompound.setLong(STACK_SLOT_COUNT + x, v.getStackSize());
 
-            x++;
+                x++;
+            }
+            this.tagCompound.removeTag(STACK_DATA);
         }
 
-        final short oldStoredItems = this.storedTypes;
-
-        this.storedTypes = (short) this.cellStacks.size();
+        this.storedTypes = (short) stacks.size();
 
-        if (this.cellStacks.isEmpty()) {
+        if (stacks.isEmpty()) {
             this.tagCompound.removeTag(getStackTypeTag());
         } else {
             this.tagCompound.setShort(getStackTypeTag(), this.storedTypes);
@@ -381,8 +428,35 @@ public abstract class CellInventory<StackType extends IAEStack<StackType>> imple
     protected void loadCellStacks() {
         final int types = (int) this.getStoredItemTypes();
 
+        if (this.tagCompound.hasKey(STACK_DATA)) {
+            final List<IAEStack<?>> decoded;
+            try {
+                decoded = CompactCellData.decode(this.tagCompound.getByteArray(STACK_DATA));
+            } catch (final RuntimeException e) {
+                // leave the data alone, maybe a newer version can still read it
+                AELog.warn(e, "Unreadable storage cell data, the cell is locked");
+                this.unreadable = true;
+                return;
+            }
+
+            for (final IAEStack<?> stack : decoded) {
+                if (stack.getStackSize() > 0) {
+                    this.cellStacks.add((StackType) stack);
+                }
+            }
+
+            // fix broken singularity cells, the configured format is only applied on the next write
+            if (this.cellStacks.size() != types) {
+                this.saveChanges();
+            }
+            return;
+        }
+
+        final IAEStack<?>[] prefetched = CellStackPrefetcher.take(this.tagCompound, this.getStackType());
+
         for (int x = 0; x < types; x++) {
-            final StackType ias = readStack(this.tagCompound.getCompoundTag(STACK_SLOT + x));
+            final StackType ias = prefetched != null && x < prefetched.length ? (StackType) prefetched[x]
+                    : readStack(this.tagCompound.getCompoundTag(STACK_SLOT + x));
             if (ias != null) {
                 ias.setStackSize(this.tagCompound.getLong(STACK_SLOT_COUNT + x));
                 if (ias.getStackSize() > 0) {
@@ -0,0 +1,263 @@
+/*
+ * This file is part of Applied Energistics 2. Copyright (c) 2013 - 2014, AlgorithmX2, All rights reserved. Applied
+ * Energistics 2 is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser General
+ * Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version. Applied Energistics 2 is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details. You should have received a copy of the GNU Lesser General Public License along with
+ * Applied Energistics 2. If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.me.storage;
+
+import static appeng.util.item.AEFluidStackType.FLUID_STACK_TYPE;
+import static appeng.util.item.AEItemStackType.ITEM_STACK_TYPE;
+
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.minecraft.inventory.IInventory;
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.NBTTagCompound;
+
+import appeng.api.implementations.items.IStorageCell;
+import appeng.api.storage.data.IAEStack;
+import appeng.api.storage.data.IAEStackType;
+import appeng.core.AEConfig;
+import appeng.core.AELog;
+
+/**
+ * Decodes the stacks stored in cells on background threads while chunks load.
+ * <p>
+ * Drives and chests hand their cells over when they are validated, which happens right after their NBT was read. By
+ * the time they are ready at the end of the tick and create their {@link CellInventory}s, most stacks are already
+ * decoded, so the main thread only wires up the grid. A cell whose decoding hasn't started yet is decoded by the main
+ * thread instead of waiting for it. Used when {@link AEConfig#parallelCellDecoding} is enabled.
+ * <p>
+ * The workers decode a copy of the stacks taken on the main thread. Only item and fluid cells are prefetched, decoding
+ * their stacks only looks up registries that are filled before the server starts; stack types added by other mods may
+ * not be safe to decode off the main thread. Cells that are never read are forgotten when their drive or chest
+ * unloads, or after a minute.
+ */
+public final class CellStackPrefetcher {
+
+    private static final int MAX_PENDING_CELLS = 4096;
+    private static final int MAX_CELL_TYPES = 63;
+    private static final String STACK_SLOT = "#";
+    private static final long EXPIRE_NANOS = 60_000_000_000L;
+
+    private static final ThreadPoolExecutor DECODER;
+
+    static {
+        final ThreadFactory factory = ar -> {
+            final Thread thread = new Thread(ar, "AE Cell Decoder");
+            thread.setDaemon(true);
+            return thread;
+        };
+        final int threads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+        DECODER = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), factory);
+        DECODER.allowCoreThreadTimeOut(true);
+    }
+
+    // keyed by the tag of the cell, which its CellInventory uses as well
+    private static final Map<NBTTagCompound, Prefetch> PENDING = new IdentityHashMap<>();
+
+    private static final AtomicLong QUEUED = new AtomicLong();
+    private static final AtomicLong DECODED = new AtomicLong();
+    private static final AtomicLong USED = new AtomicLong();
+    private static final AtomicLong WAITED = new AtomicLong();
+    private static final AtomicLong DECODE_NANOS = new AtomicLong();
+
+    private CellStackPrefetcher() {}
+
+    private static final class Prefetch extends FutureTask<IAEStack<?>[]> {
+
+        private final IAEStackType<?> type;
+        private final long created = System.nanoTime();
+
+        private Prefetch(final IAEStackType<?> type, final NBTTagCompound stacks) {
+            super(() -> decode(type, stacks));
+            this.type = type;
+        }
+    }
+
+    /**
+     * Starts decoding the cells of an inventory that was just loaded.
+     */
+    public static void prefetch(final IInventory cells) {
+        for (int x = 0; x < cells.getSizeInventory(); x++) {
+            final ItemStack is = cells.getStackInSlot(x);
+            if (is == null || !(is.getItem() instanceof IStorageCell cell) || !cell.isStorageCell(is)) {
+                continue;
+            }
+
+            final IAEStackType<?> type = cell.getStackType();
+            if (type != ITEM_STACK_TYPE && type != FLUID_STACK_TYPE) {
+                continue;
+            }
+
+            final NBTTagCompound tag = is.getTagCompound();
+            if (tag == null || !tag.hasKey(STACK_SLOT + 0)) {
+                continue;
+            }
+
+            final Prefetch prefetch;
+            synchronized (PENDING) {
+                if (PENDING.size() >= MAX_PENDING_CELLS) {
+                    expire();
+                }
+                if (PENDING.size() >= MAX_PENDING_CELLS || PENDING.containsKey(tag)) {
+                    continue;
+                }
+                prefetch = new Prefetch(type, copyStacks(tag));
+                PENDING.put(tag, prefetch);
+            }
+
+            QUEUED.incrementAndGet();
+            DECODER.execute(prefetch);
+        }
+    }
+
+    /**
+     * Drops the cells of an inventory that is unloaded or removed.
+     */
+    public static void forget(final IInventory cells) {
+        synchronized (PENDING) {
+            if (PENDING.isEmpty()) {
+                return;
+            }
+
+            for (int x = 0; x < cells.getSizeInventory(); x++) {
+                final ItemStack is = cells.getStackInSlot(x);
+                if (is != null && is.getTagCompound() != null) {
+                    final Prefetch prefetch = PENDING.remove(is.getTagCompound());
+                    if (prefetch != null) {
+                        prefetch.cancel(false);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void expire() {
+        final long now = System.nanoTime();
+        final Iterator<Prefetch> it = PENDING.values().iterator();
+        while (it.hasNext()) {
+            final Prefetch prefetch = it.next();
+            if (now - prefetch.created > EXPIRE_NANOS) {
+                prefetch.cancel(false);
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * The stack tags of the cell, copied so the workers don't read the tag while the main thread changes it.
+     */
+    private static NBTTagCompound copyStacks(final NBTTagCompound tag) {
+        final NBTTagCompound stacks = new NBTTagCompound();
+        for (int x = 0; x < MAX_CELL_TYPES; x++) {
+            final String key = STACK_SLOT + x;
+            if (tag.hasKey(key)) {
+                stacks.setTag(key, tag.getCompoundTag(key).copy());
+            }
+        }
+        return stacks;
+    }
+
+    /**
+     * @return the stacks of the cell tag by slot, null if they weren't prefetched for the type
+     */
+    static IAEStack<?>[] take(final NBTTagCompound tag, final IAEStackType<?> type) {
+        final Prefetch prefetch;
+        synchronized (PENDING) {
+            if (PENDING.isEmpty()) {
+                return null;
+            }
+            prefetch = PENDING.remove(tag);
+        }
+
+        if (prefetch == null || prefetch.type != type) {
+            return null;
+        }
+
+        // not started yet, decoding it here is faster than waiting for it
+        if (prefetch.cancel(false)) {
+            return null;
+        }
+
+        if (!prefetch.isDone()) {
+            WAITED.incrementAndGet();
+        }
+
+        try {
+            final IAEStack<?>[] stacks = prefetch.get();
+            USED.incrementAndGet();
+            return stacks;
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (final ExecutionException e) {
+            AELog.debug(e.getCause());
+            return null;
+        }
+    }
+
+    private static IAEStack<?>[] decode(final IAEStackType<?> type, final NBTTagCompound stacks) {
+        final long start = System.nanoTime();
+        final IAEStack<?>[] decoded = new IAEStack<?>[MAX_CELL_TYPES];
+        for (int x = 0; x < MAX_CELL_TYPES; x++) {
+            final String key = STACK_SLOT + x;
+            if (stacks.hasKey(key)) {
+                decoded[x] = type.loadStackFromNBT(stacks.getCompoundTag(key));
+            }
+        }
+        DECODE_NANOS.addAndGet(System.nanoTime() - start);
+        DECODED.incrementAndGet();
+        return decoded;
+    }
+
+    public static long getQueuedCells() {
+        return QUEUED.get();
+    }
+
+    public static long getDecodedCells() {
+        return DECODED.get();
+    }
+
+    public static long getUsedCells() {
+        return USED.get();
+    }
+
+    public static long getWaitedCells() {
+        return WAITED.get();
+    }
+
+    public static long getDecodeNanos() {
+        return DECODE_NANOS.get();
+    }
+
+    public static int getPendingCells() {
+        synchronized (PENDING) {
+            return PENDING.size();
+        }
+    }
+
+    public static void clear() {
+        synchronized (PENDING) {
+            for (final Prefetch prefetch : PENDING.values()) {
+                prefetch.cancel(false);
+            }
+            PENDING.clear();
+        }
+    }
+}
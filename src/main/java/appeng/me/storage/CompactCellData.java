@@ -0,0 +1,201 @@
+/*
+ * This file is part of Applied Energistics 2. Copyright (c) 2013 - 2014, AlgorithmX2, All rights reserved. Applied
+ * Energistics 2 is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser General
+ * Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version. Applied Energistics 2 is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details. You should have received a copy of the GNU Lesser General Public License along with
+ * Applied Energistics 2. If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.me.storage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraftforge.fluids.Fluid;
+import net.minecraftforge.fluids.FluidRegistry;
+import net.minecraftforge.fluids.FluidStack;
+
+import appeng.api.storage.data.IAEFluidStack;
+import appeng.api.storage.data.IAEItemStack;
+import appeng.api.storage.data.IAEStack;
+import appeng.util.item.AEFluidStack;
+import appeng.util.item.AEItemStack;
+import cpw.mods.fml.common.network.ByteBufUtils;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+
+/**
+ * The compact encoding of the stacks of a storage cell: a single byte array instead of a compound per stored type.
+ * <p>
+ * The array holds a table of the item ids (or fluid names), a dictionary of the distinct tags and then one entry per
+ * stack with the index of its id, its damage, the index of its tag and its amount, all as varints. Only item and fluid
+ * cells can be encoded this way.
+ */
+final class CompactCellData {
+
+    private static final int VERSION = 1;
+    private static final byte ITEMS = 0;
+    private static final byte FLUIDS = 1;
+
+    private CompactCellData() {}
+
+    /**
+     * @return the encoded stacks, or null if they can't be encoded compactly
+     */
+    static byte[] encode(final Iterable<? extends IAEStack<?>> stacks) {
+        final Object2IntOpenHashMap<Object> ids = new Object2IntOpenHashMap<>();
+        final Object2IntOpenHashMap<NBTTagCompound> tags = new Object2IntOpenHashMap<>();
+        final List<Object> idTable = new ArrayList<>();
+        final List<NBTTagCompound> tagTable = new ArrayList<>();
+        final ByteBuf entries = Unpooled.buffer();
+        byte kind = -1;
+        int count = 0;
+
+        for (final IAEStack<?> stack : stacks) {
+            final Object id;
+            int damage = 0;
+            if (stack instanceof IAEItemStack ais && kind != FLUIDS) {
+                kind = ITEMS;
+                id = Item.getIdFromItem(ais.getItem());
+                damage = ais.getItemDamage();
+            } else if (stack instanceof IAEFluidStack afs && kind != ITEMS) {
+                kind = FLUIDS;
+                id = afs.getFluid().getName();
+            } else {
+                return null;
+            }
+
+            int idIndex = ids.getOrDefault(id, -1);
+            if (idIndex < 0) {
+                idIndex = idTable.size();
+                ids.put(id, idIndex);
+                idTable.add(id);
+            }
+
+            int tagIndex = -1;
+            if (stack.getTagCompound() instanceof NBTTagCompound tag) {
+                tagIndex = tags.getOrDefault(tag, -1);
+                if (tagIndex < 0) {
+                    tagIndex = tagTable.size();
+                    tags.put(tag, tagIndex);
+                    tagTable.add(tag);
+                }
+            }
+
+            ByteBufUtils.writeVarInt(entries, idIndex, 5);
+            ByteBufUtils.writeVarInt(entries, (damage << 1) ^ (damage >> 31), 5);
+            ByteBufUtils.writeVarInt(entries, tagIndex + 1, 5);
+            writeVarLong(entries, stack.getStackSize());
+            count++;
+        }
+
+        final ByteBuf out = Unpooled.buffer();
+        ByteBufUtils.writeVarInt(out, VERSION, 5);
+        out.writeByte(kind < 0 ? ITEMS : kind);
+        ByteBufUtils.writeVarInt(out, idTable.size(), 5);
+        for (final Object id : idTable) {
+            if (id instanceof Integer itemId) {
+                ByteBufUtils.writeVarInt(out, itemId, 5);
+            } else {
+                ByteBufUtils.writeUTF8String(out, (String) id);
+            }
+        }
+        ByteBufUtils.writeVarInt(out, tagTable.size(), 5);
+        for (final NBTTagCompound tag : tagTable) {
+            ByteBufUtils.writeTag(out, tag);
+        }
+        ByteBufUtils.writeVarInt(out, count, 5);
+        out.writeBytes(entries);
+
+        final byte[] data = new byte[out.readableBytes()];
+        out.readBytes(data);
+        return data;
+    }
+
+    /**
+     * @return the stacks, without the ones whose item or fluid doesn't exist anymore
+     * @throws RuntimeException if the data is corrupt or was written by a newer version
+     */
+    static List<IAEStack<?>> decode(final byte[] data) {
+        final ByteBuf in = Unpooled.wrappedBuffer(data);
+        final int version = ByteBufUtils.readVarInt(in, 5);
+        if (version != VERSION) {
+            throw new IllegalStateException("Unknown cell data version " + version);
+        }
+
+        final byte kind = in.readByte();
+        if (kind != ITEMS && kind != FLUIDS) {
+            throw new IllegalStateException("Unknown cell data kind " + kind);
+        }
+        final Object[] idTable = new Object[ByteBufUtils.readVarInt(in, 5)];
+        for (int i = 0; i < idTable.length; i++) {
+            if (kind == ITEMS) {
+                idTable[i] = Item.getItemById(ByteBufUtils.readVarInt(in, 5));
+            } else {
+                idTable[i] = FluidRegistry.getFluid(ByteBufUtils.readUTF8String(in));
+            }
+        }
+
+        final NBTTagCompound[] tagTable = new NBTTagCompound[ByteBufUtils.readVarInt(in, 5)];
+        for (int i = 0; i < tagTable.length; i++) {
+            tagTable[i] = ByteBufUtils.readTag(in);
+        }
+
+        final int count = ByteBufUtils.readVarInt(in, 5);
+        final List<IAEStack<?>> stacks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            final int idIndex = ByteBufUtils.readVarInt(in, 5);
+            final int zigZagDamage = ByteBufUtils.readVarInt(in, 5);
+            final int damage = (zigZagDamage >>> 1) ^ -(zigZagDamage & 1);
+            final int tagIndex = ByteBufUtils.readVarInt(in, 5) - 1;
+            if (idIndex < 0 || idIndex >= idTable.length || tagIndex >= tagTable.length) {
+                throw new IllegalStateException("Corrupt cell data entry " + i);
+            }
+
+            final Object id = idTable[idIndex];
+            final NBTTagCompound tag = tagIndex < 0 ? null : (NBTTagCompound) tagTable[tagIndex].copy();
+            final long amount = readVarLong(in);
+
+            final IAEStack<?> stack;
+            if (id instanceof Item item) {
+                final ItemStack is = new ItemStack(item, 1, damage);
+                is.setTagCompound(tag);
+                stack = AEItemStack.create(is);
+            } else if (id instanceof Fluid fluid) {
+                stack = AEFluidStack.create(new FluidStack(fluid, 1, tag));
+            } else {
+                continue;
+            }
+
+            stack.setStackSize(amount);
+            stacks.add(stack);
+        }
+        return stacks;
+    }
+
+    private static void writeVarLong(final ByteBuf out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(final ByteBuf in) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0 && shift < 64);
+        return value;
+    }
+}
@@ -18,18 +18,21 @@ import appeng.api.networking.storage.IStackWatcher;
 import appeng.api.networking.storage.IStackWatcherHost;
 import appeng.api.storage.data.IAEStack;
 import appeng.me.cache.GridStorageCache;
+import appeng.me.helpers.GenericInterestManager;
 
 /**
  * Maintain my interests, and a global watch list, they should always be fully synchronized.
  */
 public class ItemWatcher implements IStackWatcher {
 
-    private final GridStorageCache gsc;
+    private final GenericInterestManager<ItemWatcher> interests;
     private final IStackWatcherHost myObject;
     private final HashSet<IAEStack> myInterests = new HashSet<>();
 
     public ItemWatcher(final GridStorageCache cache, final IStackWatcherHost host) {
-        this.gsc = cache;
+        this.interests = host.requiresImmediateChanges()
+                ? cache.getImmediateInterestManager()
+                : cache.getInterestManager();
         this.myObject = host;
     }
 
@@ -73,12 +76,12 @@ public class ItemWatcher implements IStackWatcher {
             return false;
         }
 
-        return this.myInterests.add(e.copy()) && this.gsc.getInterestManager().put(e, this);
+        return this.myInterests.add(e.copy()) && this.interests.put(e, this);
     }
 
     @Override
     public boolean remove(final Object o) {
-        return this.myInterests.remove(o) && this.gsc.getInterestManager().remove((IAEStack) o, this);
+        return this.myInterests.remove(o) && this.interests.remove((IAEStack) o, this);
     }
 
     @Override
@@ -125,7 +128,7 @@ public class ItemWatcher implements IStackWatcher {
     public void clear() {
         final Iterator<IAEStack> i = this.myInterests.iterator();
         while (i.hasNext()) {
-            this.gsc.getInterestManager().remove(i.next(), this);
+            this.interests.remove(i.next(), this);
             i.remove();
         }
     }
@@ -153,7 +156,7 @@ public class ItemWatcher implements IStackWatcher {
 
         @Override
         public void remove() {
-            ItemWatcher.this.gsc.getInterestManager().remove(this.myLast, this.watcher);
+            ItemWatcher.this.interests.remove(this.myLast, this.watcher);
             this.interestIterator.remove();
         }
     }
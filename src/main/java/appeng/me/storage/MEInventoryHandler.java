@@ -30,6 +30,7 @@ import appeng.api.storage.data.IAEStack;
 import appeng.api.storage.data.IAEStackType;
 import appeng.api.storage.data.IItemList;
 import appeng.util.item.ItemFilterList;
+import appeng.util.prioitylist.CompiledPartitionList;
 import appeng.util.prioitylist.DefaultPriorityList;
 import appeng.util.prioitylist.IPartitionList;
 
@@ -41,6 +42,9 @@ public class MEInventoryHandler<T extends IAEStack<T>> implements IMEInventoryHa
     private AccessRestriction myAccess;
     private IPartitionList<T> myPartitionList;
     private IPartitionList<T> myExtractPartitionList;
+    // compiled from the partition lists above, used for the checks
+    private IPartitionList<T> myPartitionMatcher;
+    private IPartitionList<T> myExtractPartitionMatcher;
 
     private AccessRestriction cachedAccessRestriction;
     protected boolean hasReadAccess;
@@ -58,8 +62,8 @@ public class MEInventoryHandler<T extends IAEStack<T>> implements IMEInventoryHa
         this.myPriority = 0;
         this.myWhitelist = IncludeExclude.WHITELIST;
         this.setBaseAccess(AccessRestriction.READ_WRITE);
-        this.myPartitionList = new DefaultPriorityList<>();
-        this.myExtractPartitionList = new DefaultPriorityList<>();
+        this.setPartitionList(new DefaultPriorityList<>());
+        this.setExtractPartitionList(new DefaultPriorityList<>());
     }
 
     public IncludeExclude getWhitelist() {
@@ -87,6 +91,7 @@ public class MEInventoryHandler<T extends IAEStack<T>> implements IMEInventoryHa
 
     public void setExtractPartitionList(IPartitionList<T> myExtractPartitionList) {
         this.myExtractPartitionList = myExtractPartitionList;
+        this.myExtractPartitionMatcher = CompiledPartitionList.compile(myExtractPartitionList);
     }
 
     public IPartitionList<T> getPartitionList() {
@@ -95,6 +100,7 @@ public class MEInventoryHandler<T extends IAEStack<T>> implements IMEInventoryHa
 
     public void setPartitionList(final IPartitionList<T> myPartitionList) {
         this.myPartitionList = myPartitionList;
+        this.myPartitionMatcher = CompiledPartitionList.compile(myPartitionList);
     }
 
     @Override
@@ -177,8 +183,8 @@ public class MEInventoryHandler<T extends IAEStack<T>> implements IMEInventoryHa
     }
 
     public Predicate<T> getExtractFilterCondition() {
-        return this.myWhitelist == IncludeExclude.WHITELIST ? i -> this.myExtractPartitionList.isListed(i)
-                : i -> !this.myExtractPartitionList.isListed(i);
+        return this.myWhitelist == IncludeExclude.WHITELIST ? i -> this.myExtractPartitionMatcher.isListed(i)
+                : i -> !this.myExtractPartitionMatcher.isListed(i);
     }
 
     public boolean isExtractFilterActive() {
@@ -207,7 +213,7 @@ public class MEInventoryHandler<T extends IAEStack<T>> implements IMEInventoryHa
     @Override
     public boolean isPrioritized(final T input) {
         if (this.myWhitelist == IncludeExclude.WHITELIST) {
-            return this.myPartitionList.isListed(input) || this.internal.isPrioritized(input);
+            return this.myPartitionMatcher.isListed(input) || this.internal.isPrioritized(input);
         }
         return false;
     }
@@ -222,13 +228,13 @@ public class MEInventoryHandler<T extends IAEStack<T>> implements IMEInventoryHa
             return false;
         }
 
-        if (this.myWhitelist == IncludeExclude.BLACKLIST && this.myPartitionList.isListed(input)) {
+        if (this.myWhitelist == IncludeExclude.BLACKLIST && this.myPartitionMatcher.isListed(input)) {
             return false;
         }
         if (this.myPartitionList.isEmpty() || this.myWhitelist == IncludeExclude.BLACKLIST) {
             return this.internal.canAccept(input);
         }
-        return this.myPartitionList.isListed(input) && this.internal.canAccept(input);
+        return this.myPartitionMatcher.isListed(input) && this.internal.canAccept(input);
     }
 
     @Override
@@ -42,6 +42,7 @@ import appeng.api.storage.data.IAEStack;
 import appeng.api.storage.data.IAEStackType;
 import appeng.api.storage.data.IItemList;
 import appeng.me.cache.SecurityCache;
+import appeng.me.cache.StorageLocationIndex;
 import appeng.util.SortedArrayList;
 import appeng.util.inv.ItemListIgnoreCrafting;
 import appeng.util.item.NetworkItemList;
@@ -90,14 +91,21 @@ public class NetworkInventoryHandler<T extends IAEStack<T>> implements IMENetwor
 
     private final IAEStackType<?> type;
     private final SecurityCache security;
+    private final StorageLocationIndex locations;
     private final List<IMEInventoryHandler<T>> priorityInventory;
     private int myPass = 0;
     private NetworkItemList<T> iterationItems = null;
     private PrioritizedNetworkItemList<T> prioritizedIterationItems = null;
 
     public NetworkInventoryHandler(final IAEStackType<?> type, final SecurityCache security) {
+        this(type, security, null);
+    }
+
+    public NetworkInventoryHandler(final IAEStackType<?> type, final SecurityCache security,
+            final StorageLocationIndex locations) {
         this.type = type;
         this.security = security;
+        this.locations = locations;
         this.priorityInventory = new SortedArrayList<>(CRAFTING_STICKY_PRIORITY_PLACEMENT_PASS_SORTER);
     }
 
@@ -132,7 +140,7 @@ public class NetworkInventoryHandler<T extends IAEStack<T>> implements IMENetwor
 
             if (inv.canAccept(input)
                     && (inv.isPrioritized(input) || inv.extractItems(input, Actionable.SIMULATE, src) != null)) {
-                input = inv.injectItems(input, type, src);
+                input = this.injectInto(inv, input, type, src);
                 if (!stickyInventoryFound && inv.getSticky()) stickyInventoryFound = true;
             }
         }
@@ -161,7 +169,7 @@ public class NetworkInventoryHandler<T extends IAEStack<T>> implements IMENetwor
                         && (inv.isPrioritized(input) || inv.extractItems(input, Actionable.SIMULATE, src) != null)) {
                     long before = input.getStackSize();
 
-                    input = inv.injectItems(input, type, src);
+                    input = this.injectInto(inv, input, type, src);
                     if (input == null) break outer;
 
                     if (type == Actionable.SIMULATE && inv.validForPass(2)) {
@@ -224,7 +232,7 @@ public class NetworkInventoryHandler<T extends IAEStack<T>> implements IMENetwor
                                 input = inv.injectItems(input, type, src);
                             }
                         } else {
-                            input = inv.injectItems(input, type, src);
+                            input = this.injectInto(inv, input, type, src);
                         }
                         if (input == null) break outer;
                     }
@@ -252,6 +260,29 @@ public class NetworkInventoryHandler<T extends IAEStack<T>> implements IMENetwor
         return input;
     }
 
+    private T injectInto(final IMEInventoryHandler<T> inv, final T input, final Actionable type,
+            final BaseActionSource src) {
+        if (type == Actionable.SIMULATE || this.locations == null) {
+            return inv.injectItems(input, type, src);
+        }
+
+        final long before = input.getStackSize();
+        final T leftover = inv.injectItems(input, type, src);
+        if (leftover == null || leftover.getStackSize() < before) {
+            this.locations.onInjected(inv, input);
+        }
+        return leftover;
+    }
+
+    private T extractFrom(final IMEInventoryHandler<T> inv, final T request, final Actionable mode,
+            final BaseActionSource src) {
+        final T extracted = inv.extractItems(request, mode, src);
+        if (mode == Actionable.MODULATE && this.locations != null) {
+            this.locations.onExtracted(inv, request, extracted);
+        }
+        return extracted;
+    }
+
     private boolean diveList(final NetworkInventoryHandler<T> networkInventoryHandler, final Actionable type) {
         final LinkedList cDepth = this.getDepth(type);
         if (cDepth.contains(networkInventoryHandler)) {
@@ -330,7 +361,7 @@ public class NetworkInventoryHandler<T extends IAEStack<T>> implements IMENetwor
             final IMEInventoryHandler<T> inv = priorityInventory.get(i);
 
             request.setStackSize(req - output.getStackSize());
-            output.add(inv.extractItems(request, mode, src));
+            output.add(this.extractFrom(inv, request, mode, src));
         }
 
         this.surface(this, mode);
@@ -0,0 +1,155 @@
+/*
+ * This file is part of Applied Energistics 2. Copyright (c) 2013 - 2014, AlgorithmX2, All rights reserved. Applied
+ * Energistics 2 is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser General
+ * Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version. Applied Energistics 2 is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details. You should have received a copy of the GNU Lesser General Public License along with
+ * Applied Energistics 2. If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.parts.automation;
+
+import java.util.Arrays;
+
+import net.minecraft.item.ItemStack;
+
+import appeng.api.networking.ticking.TickRateModulation;
+import appeng.api.storage.data.IAEItemStack;
+import appeng.util.inv.ItemSlot;
+import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet;
+
+/**
+ * Remembers what an import bus saw in its source inventory, so it doesn't try the same slots again as long as neither
+ * the inventory nor the network changed.
+ * <p>
+ * The slots are hashed in ranges from the item, damage, size and tag of their stacks. The check stops at the first
+ * range that changed. Stacks the network refused completely are remembered until the storage of the network changes,
+ * so every slot with such a stack costs a set lookup instead of a simulated insert.
+ */
+public final class ImportBusScanState {
+
+    static final int RANGE_SIZE = 64;
+    // unproductive passes before the bus goes idle
+    private static final int SLOWER_PASSES = 8;
+
+    private final ObjectOpenHashSet<IAEItemStack> rejected = new ObjectOpenHashSet<>();
+    private long[] fingerprints = new long[0];
+    private int slots = -1;
+    private boolean idle;
+    private boolean storageChanged = true;
+    private int unproductivePasses;
+
+    /**
+     * @return true if the network refused the whole stack since the last storage change
+     */
+    public boolean isRejected(final IAEItemStack stack) {
+        return this.rejected.contains(stack);
+    }
+
+    public void setRejected(final IAEItemStack stack) {
+        this.rejected.add(stack.copy());
+    }
+
+    public void onStorageChanged() {
+        this.rejected.clear();
+        this.storageChanged = true;
+    }
+
+    /**
+     * Forgets everything, for changes of the bus itself.
+     */
+    public void reset() {
+        this.onStorageChanged();
+        this.idle = false;
+        this.unproductivePasses = 0;
+    }
+
+    /**
+     * @return false if the last pass moved nothing and neither the network nor the source changed since
+     */
+    public boolean needsScan(final Iterable<ItemSlot> source) {
+        if (!this.idle || this.storageChanged) {
+            return true;
+        }
+
+        int range = 0;
+        int inRange = 0;
+        long hash = 0;
+        for (final ItemSlot slot : source) {
+            hash = hash * 31 + fingerprint(slot);
+            if (++inRange == RANGE_SIZE) {
+                if (range >= this.fingerprints.length || this.fingerprints[range] != hash) {
+                    return true;
+                }
+                range++;
+                inRange = 0;
+                hash = 0;
+            }
+        }
+
+        final int slots = range * RANGE_SIZE + inRange;
+        if (slots != this.slots) {
+            return true;
+        }
+        return inRange > 0 && this.fingerprints[range] != hash;
+    }
+
+    /**
+     * @return the rate for a tick that was skipped, slower the longer nothing happens
+     */
+    public TickRateModulation skip() {
+        this.unproductivePasses++;
+        return this.unproductivePasses > SLOWER_PASSES ? TickRateModulation.IDLE : TickRateModulation.SLOWER;
+    }
+
+    /**
+     * Remembers the source after a pass of the bus.
+     *
+     * @param idle true if the bus could have moved items but didn't
+     */
+    public void afterScan(final Iterable<ItemSlot> source, final boolean idle) {
+        int range = 0;
+        int inRange = 0;
+        long hash = 0;
+        for (final ItemSlot slot : source) {
+            hash = hash * 31 + fingerprint(slot);
+            if (++inRange == RANGE_SIZE) {
+                this.setFingerprint(range++, hash);
+                inRange = 0;
+                hash = 0;
+            }
+        }
+        if (inRange > 0) {
+            this.setFingerprint(range, hash);
+        }
+
+        this.slots = range * RANGE_SIZE + inRange;
+        this.idle = idle;
+        this.storageChanged = false;
+        if (!idle) {
+            this.unproductivePasses = 0;
+        }
+    }
+
+    private void setFingerprint(final int range, final long hash) {
+        if (range >= this.fingerprints.length) {
+            this.fingerprints = Arrays.copyOf(this.fingerprints, Math.max(range + 1, this.fingerprints.length * 2));
+        }
+        this.fingerprints[range] = hash;
+    }
+
+    private static long fingerprint(final ItemSlot slot) {
+        final ItemStack is = slot.getItemStack();
+        if (is == null) {
+            return 0;
+        }
+
+        long hash = System.identityHashCode(is.getItem());
+        hash = hash * 31 + is.getItemDamage();
+        hash = hash * 31 + is.stackSize;
+        // the identity of the tag is enough to see it replaced, hashing its contents is not worth it here
+        hash = hash * 31 + System.identityHashCode(is.getTagCompound());
+        return hash * 2 + (slot.isExtractable() ? 1 : 0);
+    }
+}
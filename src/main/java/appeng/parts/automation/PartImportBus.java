@@ -19,11 +19,16 @@ import appeng.api.config.Actionable;
 import appeng.api.config.FuzzyMode;
 import appeng.api.config.PowerMultiplier;
 import appeng.api.config.Upgrades;
+import appeng.api.networking.events.MENetworkCellArrayUpdate;
+import appeng.api.networking.events.MENetworkEventSubscribe;
+import appeng.api.networking.events.MENetworkStorageEvent;
 import appeng.api.networking.energy.IEnergyGrid;
 import appeng.api.networking.energy.IEnergySource;
+import appeng.api.networking.ticking.TickRateModulation;
 import appeng.api.storage.IMEMonitor;
 import appeng.api.storage.data.IAEItemStack;
 import appeng.api.storage.data.IAEStackType;
+import appeng.api.util.IConfigManager;
 import appeng.helpers.Reflected;
 import appeng.me.GridAccessException;
 import appeng.util.InventoryAdaptor;
@@ -35,6 +40,8 @@ import appeng.util.prioitylist.OreFilteredList;
 
 public class PartImportBus extends PartBaseImportBus<IAEItemStack> implements IInventoryDestination {
 
+    private final ImportBusScanState scanState = new ImportBusScanState();
+
     @Reflected
     public PartImportBus(final ItemStack is) {
         super(is);
@@ -46,14 +53,73 @@ public class PartImportBus extends PartBaseImportBus<IAEItemStack> implements II
             return false;
         }
 
-        final IAEItemStack out = this.destination.injectItems(
-                this.lastItemChecked = AEApi.instance().storage().createItemStack(stack),
-                Actionable.SIMULATE,
-                this.mySrc);
+        this.lastItemChecked = AEApi.instance().storage().createItemStack(stack);
+        if (this.scanState.isRejected(this.lastItemChecked)) {
+            return false;
+        }
+
+        final IAEItemStack out = this.destination.injectItems(this.lastItemChecked, Actionable.SIMULATE, this.mySrc);
         if (out == null) {
             return true;
         }
-        return out.getStackSize() != stack.stackSize;
+        if (out.getStackSize() == stack.stackSize) {
+            this.scanState.setRejected(this.lastItemChecked);
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    protected TickRateModulation doBusWork() {
+        if (!this.getProxy().isActive() || !this.canDoBusWork()
+                || !(this.getTarget() instanceof InventoryAdaptor adaptor)) {
+            return super.doBusWork();
+        }
+
+        if (!this.scanState.needsScan(adaptor)) {
+            return this.scanState.skip();
+        }
+
+        final TickRateModulation rate = super.doBusWork();
+        // a bus that ran out of power or speed didn't see everything
+        this.scanState.afterScan(adaptor, !this.worked && this.itemToSend > 0);
+        return rate;
+    }
+
+    @MENetworkEventSubscribe
+    public void storageChanged(final MENetworkStorageEvent event) {
+        if (event.type == ITEM_STACK_TYPE) {
+            this.scanState.onStorageChanged();
+        }
+    }
+
+    @MENetworkEventSubscribe
+    public void cellsChanged(final MENetworkCellArrayUpdate event) {
+        this.scanState.onStorageChanged();
+    }
+
+    @Override
+    public void updateSetting(final IConfigManager manager, final Enum settingName, final Enum newValue) {
+        super.updateSetting(manager, settingName, newValue);
+        this.scanState.reset();
+    }
+
+    @Override
+    public void upgradesChanged() {
+        super.upgradesChanged();
+        this.scanState.reset();
+    }
+
+    @Override
+    public void setFilter(final String filter) {
+        super.setFilter(filter);
+        this.scanState.reset();
+    }
+
+    @Override
+    public void saveAEStackInv() {
+        super.saveAEStackInv();
+        this.scanState.reset();
     }
 
     @Override
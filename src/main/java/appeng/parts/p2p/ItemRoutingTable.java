@@ -0,0 +1,315 @@
+/*
+ * This file is part of Applied Energistics 2. Copyright (c) 2013 - 2014, AlgorithmX2, All rights reserved. Applied
+ * Energistics 2 is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser General
+ * Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version. Applied Energistics 2 is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details. You should have received a copy of the GNU Lesser General Public License along with
+ * Applied Energistics 2. If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.parts.p2p;
+
+import java.util.Arrays;
+import java.util.Set;
+
+import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.inventory.IInventory;
+import net.minecraft.item.ItemStack;
+
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+
+/**
+ * The outputs of an item tunnel input as one inventory: the slots of all outputs one after the other.
+ * <p>
+ * Inserters usually fill the first slots they can, so the output that comes first gets the items. {@link #advance()}
+ * moves the start of the slots to the next output, either in turn or weighted by the number of slots of the outputs.
+ * The outputs are kept in arrays with the first slot of each output, so a slot is found by a binary search and
+ * advancing doesn't move anything. Adding, replacing or removing one output only updates the arrays.
+ * <p>
+ * Outputs can change their number of slots without telling anyone, like drawer controllers, so the sizes are read
+ * again with every {@link #advance()}, and slots past the current size of an output are ignored until then.
+ */
+@SuppressWarnings("unchecked")
+public final class ItemRoutingTable<K> implements IInventory {
+
+    public enum Strategy {
+        ROUND_ROBIN,
+        CAPACITY_WEIGHTED
+    }
+
+    private final Strategy strategy;
+    private final Reference2IntOpenHashMap<K> indices = new Reference2IntOpenHashMap<>();
+
+    private Object[] keys = new Object[4];
+    private IInventory[] inventories = new IInventory[4];
+    private int[] sizes = new int[4];
+    // first slot of each output, offsets[count] is the total size
+    private int[] offsets = new int[5];
+    private long[] currentWeights = new long[4];
+    private int count;
+    private int cursor;
+    // the slot in the output found by the last findOutput
+    private int slotIndex;
+
+    public ItemRoutingTable(final Strategy strategy) {
+        this.strategy = strategy;
+        this.indices.defaultReturnValue(-1);
+    }
+
+    public int getOutputCount() {
+        return this.count;
+    }
+
+    public boolean contains(final K key) {
+        return this.indices.containsKey(key);
+    }
+
+    /**
+     * @return the output that currently comes first, null if there are no outputs
+     */
+    public IInventory getFirstOutput() {
+        return this.count == 0 ? null : this.inventories[this.cursor];
+    }
+
+    /**
+     * Adds the output, or replaces its inventory. A null inventory removes it.
+     */
+    public void put(final K key, final IInventory inventory) {
+        if (inventory == null) {
+            this.remove(key);
+            return;
+        }
+
+        final int index = this.indices.getInt(key);
+        if (index >= 0) {
+            this.inventories[index] = inventory;
+            this.sizes[index] = inventory.getSizeInventory();
+            this.updateOffsets(index);
+            return;
+        }
+
+        if (this.count == this.keys.length) {
+            final int capacity = this.count * 2;
+            this.keys = Arrays.copyOf(this.keys, capacity);
+            this.inventories = Arrays.copyOf(this.inventories, capacity);
+            this.sizes = Arrays.copyOf(this.sizes, capacity);
+            this.offsets = Arrays.copyOf(this.offsets, capacity + 1);
+            this.currentWeights = Arrays.copyOf(this.currentWeights, capacity);
+        }
+
+        final int added = this.count++;
+        this.keys[added] = key;
+        this.inventories[added] = inventory;
+        this.sizes[added] = inventory.getSizeInventory();
+        this.indices.put(key, added);
+        this.updateOffsets(added);
+    }
+
+    public void remove(final K key) {
+        final int index = this.indices.removeInt(key);
+        if (index < 0) {
+            return;
+        }
+
+        final int moved = this.count - index - 1;
+        System.arraycopy(this.keys, index + 1, this.keys, index, moved);
+        System.arraycopy(this.inventories, index + 1, this.inventories, index, moved);
+        System.arraycopy(this.sizes, index + 1, this.sizes, index, moved);
+        System.arraycopy(this.currentWeights, index + 1, this.currentWeights, index, moved);
+        this.count--;
+        this.keys[this.count] = null;
+        this.inventories[this.count] = null;
+
+        for (int i = index; i < this.count; i++) {
+            this.indices.put((K) this.keys[i], i);
+        }
+
+        if (this.cursor > index || this.cursor >= this.count) {
+            this.cursor = this.cursor > index ? this.cursor - 1 : 0;
+        }
+        this.updateOffsets(index);
+    }
+
+    /**
+     * Removes all outputs that are not in the set.
+     */
+    public void retain(final Set<K> keys) {
+        for (int i = this.count - 1; i >= 0; i--) {
+            if (!keys.contains(this.keys[i])) {
+                this.remove((K) this.keys[i]);
+            }
+        }
+    }
+
+    private void updateOffsets(final int from) {
+        for (int i = from; i < this.count; i++) {
+            this.offsets[i + 1] = this.offsets[i] + this.sizes[i];
+        }
+        // the weights changed, start a new period
+        Arrays.fill(this.currentWeights, 0, this.count, 0);
+    }
+
+    /**
+     * Reads the number of slots of all outputs again.
+     */
+    public void refreshSizes() {
+        int changed = -1;
+        for (int i = 0; i < this.count; i++) {
+            final int size = this.inventories[i].getSizeInventory();
+            if (size != this.sizes[i]) {
+                this.sizes[i] = size;
+                if (changed < 0) {
+                    changed = i;
+                }
+            }
+        }
+
+        if (changed >= 0) {
+            this.updateOffsets(changed);
+        }
+    }
+
+    /**
+     * Lets the next output come first.
+     */
+    public void advance() {
+        this.refreshSizes();
+
+        if (this.count < 2) {
+            return;
+        }
+
+        if (this.strategy == Strategy.ROUND_ROBIN) {
+            this.cursor = (this.cursor + 1) % this.count;
+            return;
+        }
+
+        // smooth weighted round-robin: every output gets its turns spread over the period
+        final long totalWeight = this.offsets[this.count];
+        int best = 0;
+        for (int i = 0; i < this.count; i++) {
+            this.currentWeights[i] += this.sizes[i];
+            if (this.currentWeights[i] > this.currentWeights[best]) {
+                best = i;
+            }
+        }
+        this.currentWeights[best] -= totalWeight;
+        this.cursor = best;
+    }
+
+    /**
+     * @return the output of the slot and sets {@link #slotIndex} to the slot in it, or -1 if there is none
+     */
+    private int findOutput(final int slot) {
+        final int size = this.offsets[this.count];
+        if (slot < 0 || slot >= size) {
+            return -1;
+        }
+
+        int physical = slot + this.offsets[this.cursor];
+        if (physical >= size) {
+            physical -= size;
+        }
+
+        int low = 0;
+        int high = this.count - 1;
+        while (low < high) {
+            final int mid = (low + high + 1) >>> 1;
+            if (this.offsets[mid] <= physical) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+
+        this.slotIndex = physical - this.offsets[low];
+        // the output got smaller since its size was read
+        if (this.slotIndex >= this.inventories[low].getSizeInventory()) {
+            return -1;
+        }
+        return low;
+    }
+
+    /**
+     * @return the output the slot belongs to, null if there is none
+     */
+    IInventory getOutputOfSlot(final int slot) {
+        final int output = this.findOutput(slot);
+        return output < 0 ? null : this.inventories[output];
+    }
+
+    @Override
+    public int getSizeInventory() {
+        return this.offsets[this.count];
+    }
+
+    @Override
+    public ItemStack getStackInSlot(final int slot) {
+        final int output = this.findOutput(slot);
+        return output < 0 ? null : this.inventories[output].getStackInSlot(this.slotIndex);
+    }
+
+    @Override
+    public ItemStack decrStackSize(final int slot, final int amount) {
+        final int output = this.findOutput(slot);
+        return output < 0 ? null : this.inventories[output].decrStackSize(this.slotIndex, amount);
+    }
+
+    @Override
+    public ItemStack getStackInSlotOnClosing(final int slot) {
+        final int output = this.findOutput(slot);
+        return output < 0 ? null : this.inventories[output].getStackInSlotOnClosing(this.slotIndex);
+    }
+
+    @Override
+    public void setInventorySlotContents(final int slot, final ItemStack stack) {
+        final int output = this.findOutput(slot);
+        if (output >= 0) {
+            this.inventories[output].setInventorySlotContents(this.slotIndex, stack);
+        }
+    }
+
+    @Override
+    public boolean isItemValidForSlot(final int slot, final ItemStack stack) {
+        final int output = this.findOutput(slot);
+        return output >= 0 && this.inventories[output].isItemValidForSlot(this.slotIndex, stack);
+    }
+
+    @Override
+    public String getInventoryName() {
+        return "ChainedInv";
+    }
+
+    @Override
+    public boolean hasCustomInventoryName() {
+        return false;
+    }
+
+    @Override
+    public int getInventoryStackLimit() {
+        int smallest = Integer.MAX_VALUE;
+        for (int i = 0; i < this.count; i++) {
+            smallest = Math.min(smallest, this.inventories[i].getInventoryStackLimit());
+        }
+        return smallest;
+    }
+
+    @Override
+    public void markDirty() {
+        for (int i = 0; i < this.count; i++) {
+            this.inventories[i].markDirty();
+        }
+    }
+
+    @Override
+    public boolean isUseableByPlayer(final EntityPlayer player) {
+        return false;
+    }
+
+    @Override
+    public void openInventory() {}
+
+    @Override
+    public void closeInventory() {}
+}
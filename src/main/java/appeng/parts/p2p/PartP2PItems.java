@@ -11,7 +11,6 @@
 package appeng.parts.p2p;
 
 import java.util.LinkedList;
-import java.util.List;
 
 import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.init.Blocks;
@@ -31,6 +30,7 @@ import appeng.api.networking.events.MENetworkPowerStatusChange;
 import appeng.api.networking.ticking.IGridTickable;
 import appeng.api.networking.ticking.TickRateModulation;
 import appeng.api.networking.ticking.TickingRequest;
+import appeng.core.AEConfig;
 import appeng.core.settings.TickRates;
 import appeng.integration.IntegrationRegistry;
 import appeng.integration.IntegrationType;
@@ -42,12 +42,12 @@ import appeng.transformer.annotations.Integration.Interface;
 import appeng.transformer.annotations.Integration.Method;
 import appeng.util.Platform;
 import appeng.util.inv.WrapperBCPipe;
-import appeng.util.inv.WrapperChainedInventory;
 import appeng.util.inv.WrapperMCISidedInventory;
 import buildcraft.api.transport.IPipeConnection;
 import buildcraft.api.transport.IPipeTile.PipeType;
 import cpw.mods.fml.relauncher.Side;
 import cpw.mods.fml.relauncher.SideOnly;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
 
 @Interface(iface = "buildcraft.api.transport.IPipeConnection", iname = IntegrationType.BuildCraftTransport)
 public class PartP2PItems extends PartP2PTunnelNormal<PartP2PItems>
@@ -56,7 +56,7 @@ public class PartP2PItems extends PartP2PTunnelNormal<PartP2PItems>
     private final LinkedList<IInventory> which = new LinkedList<>();
     private int oldSize = 0;
     private boolean requested;
-    private IInventory cachedInv;
+    private ItemRoutingTable<PartP2PItems> routing;
 
     public PartP2PItems(final ItemStack is) {
         super(is);
@@ -64,21 +64,19 @@ public class PartP2PItems extends PartP2PTunnelNormal<PartP2PItems>
 
     @Override
     public void onNeighborChanged() {
-        this.cachedInv = null;
         final PartP2PItems input = this.getInput();
         if (input != null && this.isOutput()) {
-            input.onTunnelNetworkChange();
+            input.onOutputChanged(this);
         }
     }
 
     private IInventory getDestination() {
         this.requested = true;
 
-        if (this.cachedInv != null) {
-            return this.cachedInv;
+        if (this.routing != null) {
+            return this.routing;
         }
 
-        final List<IInventory> outs = new LinkedList<>();
         final TunnelCollection<PartP2PItems> itemTunnels;
 
         try {
@@ -87,18 +85,55 @@ public class PartP2PItems extends PartP2PTunnelNormal<PartP2PItems>
             return new AppEngNullInventory();
         }
 
+        final ItemRoutingTable<PartP2PItems> routing = new ItemRoutingTable<>(
+                AEConfig.instance.weightedItemTunnelRouting ? ItemRoutingTable.Strategy.CAPACITY_WEIGHTED
+                        : ItemRoutingTable.Strategy.ROUND_ROBIN);
         for (final PartP2PItems t : itemTunnels) {
-            final IInventory inv = t.getOutputInv();
-            if (inv != null) {
-                if (Platform.getRandomInt() % 2 == 0) {
-                    outs.add(inv);
-                } else {
-                    outs.add(0, inv);
+            routing.put(t, t.getOutputInv());
+        }
+
+        return this.routing = routing;
+    }
+
+    /**
+     * Only the inventory of this output changed, the other outputs keep their place.
+     */
+    private void onOutputChanged(final PartP2PItems output) {
+        if (this.routing != null) {
+            this.routing.put(output, output.getOutputInv());
+        }
+        this.updateDestinationSize();
+    }
+
+    /**
+     * Adds the new outputs of the frequency and removes the ones that left, without looking at the others again.
+     */
+    private void updateOutputs() {
+        if (this.routing == null) {
+            return;
+        }
+
+        final ReferenceOpenHashSet<PartP2PItems> outputs = new ReferenceOpenHashSet<>();
+        try {
+            for (final PartP2PItems t : this.getOutputs()) {
+                outputs.add(t);
+                if (!this.routing.contains(t)) {
+                    this.routing.put(t, t.getOutputInv());
                 }
             }
+        } catch (final GridAccessException e) {
+            this.routing = null;
+            return;
         }
+        this.routing.retain(outputs);
+    }
 
-        return this.cachedInv = new WrapperChainedInventory(outs);
+    private void updateDestinationSize() {
+        final int olderSize = this.oldSize;
+        this.oldSize = this.getDestination().getSizeInventory();
+        if (olderSize != this.oldSize) {
+            this.getHost().notifyNeighbors();
+        }
     }
 
     private IInventory getOutputInv() {
@@ -157,8 +192,9 @@ public class PartP2PItems extends PartP2PTunnelNormal<PartP2PItems>
     public TickRateModulation tickingRequest(final IGridNode node, final int ticksSinceLastCall) {
         final boolean wasReq = this.requested;
 
-        if (this.requested && this.cachedInv != null) {
-            ((WrapperChainedInventory) this.cachedInv).cycleOrder();
+        if (this.requested && this.routing != null) {
+            this.routing.advance();
+            this.updateDestinationSize();
         }
 
         this.requested = false;
@@ -168,36 +204,24 @@ public class PartP2PItems extends PartP2PTunnelNormal<PartP2PItems>
     @MENetworkEventSubscribe
     public void changeStateA(final MENetworkBootingStatusChange bs) {
         if (!this.isOutput()) {
-            this.cachedInv = null;
-            final int olderSize = this.oldSize;
-            this.oldSize = this.getDestination().getSizeInventory();
-            if (olderSize != this.oldSize) {
-                this.getHost().notifyNeighbors();
-            }
+            this.routing = null;
+            this.updateDestinationSize();
         }
     }
 
     @MENetworkEventSubscribe
     public void changeStateB(final MENetworkChannelsChanged bs) {
         if (!this.isOutput()) {
-            this.cachedInv = null;
-            final int olderSize = this.oldSize;
-            this.oldSize = this.getDestination().getSizeInventory();
-            if (olderSize != this.oldSize) {
-                this.getHost().notifyNeighbors();
-            }
+            this.routing = null;
+            this.updateDestinationSize();
         }
     }
 
     @MENetworkEventSubscribe
     public void changeStateC(final MENetworkPowerStatusChange bs) {
         if (!this.isOutput()) {
-            this.cachedInv = null;
-            final int olderSize = this.oldSize;
-            this.oldSize = this.getDestination().getSizeInventory();
-            if (olderSize != this.oldSize) {
-                this.getHost().notifyNeighbors();
-            }
+            this.routing = null;
+            this.updateDestinationSize();
         }
     }
 
@@ -210,12 +234,8 @@ public class PartP2PItems extends PartP2PTunnelNormal<PartP2PItems>
     @Override
     public void onTunnelNetworkChange() {
         if (!this.isOutput()) {
-            this.cachedInv = null;
-            final int olderSize = this.oldSize;
-            this.oldSize = this.getDestination().getSizeInventory();
-            if (olderSize != this.oldSize) {
-                this.getHost().notifyNeighbors();
-            }
+            this.updateOutputs();
+            this.updateDestinationSize();
         } else {
             final PartP2PItems input = this.getInput();
             if (input != null) {
@@ -10,7 +10,9 @@
 
 package appeng.server;
 
+import appeng.server.subcommands.CellLoading;
 import appeng.server.subcommands.ChunkLogger;
+import appeng.server.subcommands.CraftingScheduler;
 import appeng.server.subcommands.Profile;
 import appeng.server.subcommands.Supporters;
 import appeng.server.subcommands.ToggleDebugPathfinding;
@@ -24,7 +26,9 @@ public enum Commands {
     profile(2, new Profile()),
     toggleFullAccess(2, new ToggleFullAccess()),
     toggleDebugPaths(2, new ToggleDebugPathfinding()),
-    toggleDebugTiming(2, new ToggleDebugTiming());
+    toggleDebugTiming(2, new ToggleDebugTiming()),
+    craftingScheduler(2, new CraftingScheduler()),
+    cellLoading(2, new CellLoading());
 
     public final int level;
     public final ISubCommand command;
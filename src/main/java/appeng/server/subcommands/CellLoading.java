@@ -0,0 +1,34 @@
+package appeng.server.subcommands;
+
+import net.minecraft.command.ICommandSender;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.util.ChatComponentText;
+
+import appeng.me.storage.CellStackPrefetcher;
+import appeng.server.ISubCommand;
+
+public class CellLoading implements ISubCommand {
+
+    @Override
+    public String getHelp(MinecraftServer srv) {
+        return "commands.ae2.CellLoading";
+    }
+
+    @Override
+    public void call(MinecraftServer srv, String[] args, ICommandSender sender) {
+        sender.addChatMessage(
+                new ChatComponentText(
+                        String.format(
+                                "Cells queued: %d, decoded: %d, used: %d (%d waited for), pending: %d",
+                                CellStackPrefetcher.getQueuedCells(),
+                                CellStackPrefetcher.getDecodedCells(),
+                                CellStackPrefetcher.getUsedCells(),
+                                CellStackPrefetcher.getWaitedCells(),
+                                CellStackPrefetcher.getPendingCells())));
+        sender.addChatMessage(
+                new ChatComponentText(
+                        String.format(
+                                "Decoding time on worker threads: %d ms",
+                                CellStackPrefetcher.getDecodeNanos() / 1_000_000L)));
+    }
+}
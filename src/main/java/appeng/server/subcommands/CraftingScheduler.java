@@ -0,0 +1,41 @@
+package appeng.server.subcommands;
+
+import net.minecraft.command.ICommandSender;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.util.ChatComponentText;
+
+import appeng.crafting.CraftingCalculationScheduler;
+import appeng.crafting.CraftingCalculationScheduler.Priority;
+import appeng.hooks.TickHandler;
+import appeng.server.ISubCommand;
+
+public class CraftingScheduler implements ISubCommand {
+
+    @Override
+    public String getHelp(MinecraftServer srv) {
+        return "commands.ae2.CraftingScheduler";
+    }
+
+    @Override
+    public void call(MinecraftServer srv, String[] args, ICommandSender sender) {
+        final CraftingCalculationScheduler scheduler = TickHandler.INSTANCE.getCraftingScheduler();
+        for (final Priority priority : Priority.values()) {
+            sender.addChatMessage(
+                    new ChatComponentText(
+                            String.format(
+                                    "%s: %d jobs in %d queues, %d ms spent",
+                                    priority,
+                                    scheduler.getQueueDepth(priority),
+                                    scheduler.getQueueCount(priority),
+                                    scheduler.getNanosSpent(priority) / 1_000_000L)));
+        }
+        sender.addChatMessage(
+                new ChatComponentText(
+                        String.format(
+                                "Last tick: %d us, total: %d ms, completed: %d, abandoned: %d",
+                                scheduler.getLastTickNanos() / 1_000L,
+                                scheduler.getTotalNanos() / 1_000_000L,
+                                scheduler.getCompletedJobs(),
+                                scheduler.getAbandonedJobs())));
+    }
+}
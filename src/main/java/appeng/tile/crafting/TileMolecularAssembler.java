@@ -10,7 +10,6 @@
 
 package appeng.tile.crafting;
 
-import java.io.IOException;
 import java.util.List;
 
 import net.minecraft.inventory.IInventory;
@@ -40,13 +39,11 @@ import appeng.api.networking.ticking.IGridTickable;
 import appeng.api.networking.ticking.TickRateModulation;
 import appeng.api.networking.ticking.TickingRequest;
 import appeng.api.parts.ISimplifiedBundle;
-import appeng.api.storage.data.IAEItemStack;
 import appeng.api.util.AECableType;
 import appeng.api.util.DimensionalCoord;
 import appeng.api.util.IConfigManager;
 import appeng.container.ContainerNull;
-import appeng.core.sync.network.NetworkHandler;
-import appeng.core.sync.packets.PacketAssemblerAnimation;
+import appeng.hooks.TickHandler;
 import appeng.items.misc.ItemEncodedPattern;
 import appeng.me.GridAccessException;
 import appeng.parts.automation.DefinitionUpgradeInventory;
@@ -60,9 +57,7 @@ import appeng.util.ConfigManager;
 import appeng.util.IConfigManagerHost;
 import appeng.util.InventoryAdaptor;
 import appeng.util.Platform;
-import appeng.util.item.AEItemStack;
 import cpw.mods.fml.common.FMLCommonHandler;
-import cpw.mods.fml.common.network.NetworkRegistry.TargetPoint;
 import io.netty.buffer.ByteBuf;
 
 public class TileMolecularAssembler extends AENetworkInvTile
@@ -416,20 +411,8 @@ public class TileMolecularAssembler extends AENetworkInvTile
 
                 this.ejectHeldItems();
 
-                try {
-                    final TargetPoint where = new TargetPoint(
-                            this.worldObj.provider.dimensionId,
-                            this.xCoord,
-                            this.yCoord,
-                            this.zCoord,
-                            32);
-                    final IAEItemStack item = AEItemStack.create(output);
-                    NetworkHandler.instance.sendToAllAround(
-                            new PacketAssemblerAnimation(this.xCoord, this.yCoord, this.zCoord, (byte) speed, item),
-                            where);
-                } catch (final IOException e) {
-                    // ;P
-                }
+                TickHandler.INSTANCE.getAssemblerAnimations()
+                        .add(this.worldObj, this.xCoord, this.yCoord, this.zCoord, (byte) speed, output);
 
                 this.markDirty();
                 this.updateSleepiness();
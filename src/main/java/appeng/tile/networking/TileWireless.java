@@ -34,6 +34,7 @@ import appeng.api.util.AECableType;
 import appeng.api.util.DimensionalCoord;
 import appeng.core.AEConfig;
 import appeng.me.GridAccessException;
+import appeng.me.cache.WirelessGridCache;
 import appeng.tile.TileEvent;
 import appeng.tile.events.TileEventType;
 import appeng.tile.grid.AENetworkInvTile;
@@ -184,6 +185,13 @@ public class TileWireless extends AENetworkInvTile implements IWirelessAccessPoi
     public void markDirty() {
         this.updatePower();
         super.markDirty();
+
+        try {
+            final WirelessGridCache cache = this.getProxy().getGrid().getCache(WirelessGridCache.class);
+            cache.accessPointChanged(this);
+        } catch (final GridAccessException e) {
+            // :P
+        }
     }
 
     @Override
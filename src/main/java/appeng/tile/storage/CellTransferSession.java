@@ -0,0 +1,221 @@
+/*
+ * This file is part of Applied Energistics 2. Copyright (c) 2013 - 2014, AlgorithmX2, All rights reserved. Applied
+ * Energistics 2 is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser General
+ * Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version. Applied Energistics 2 is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details. You should have received a copy of the GNU Lesser General Public License along with
+ * Applied Energistics 2. If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.tile.storage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import appeng.api.config.Actionable;
+import appeng.api.networking.energy.IEnergySource;
+import appeng.api.networking.security.BaseActionSource;
+import appeng.api.storage.IMEInventory;
+import appeng.api.storage.IMEMonitor;
+import appeng.api.storage.data.IAEStack;
+import appeng.util.IterationCounter;
+import appeng.util.Platform;
+
+/**
+ * Moves the content of one inventory into another over several ticks for the {@link TileIOPort}.
+ * <p>
+ * The stacks of the source are listed once, and every transfer continues at the stack the previous one stopped at. The
+ * source is only listed again once all stacks of the list were visited. Stacks are extracted first and then inserted
+ * once; the insert is only simulated first while the destination is turning stacks down, or for every stack if the
+ * session can't hold a leftover. Anything the destination didn't take goes back to the source. Stacks neither of them
+ * takes back are kept as the leftover of the session, no more stacks are moved until the leftover found a place again.
+ */
+public final class CellTransferSession {
+
+    private final IMEInventory source;
+    private final IMEInventory destination;
+    private final BaseActionSource actionSource;
+    private final boolean holdsLeftovers;
+
+    private IAEStack<?>[] stacks;
+    private int position;
+    private boolean sourceHasRemainingItems;
+    private boolean destinationRefused;
+    private IAEStack<?> leftover;
+    private int listings;
+
+    public static final class Result {
+
+        private final long itemsLeftToMove;
+        private final boolean sourceEmpty;
+        private final boolean destinationFull;
+
+        private Result(final long itemsLeftToMove, final boolean sourceEmpty, final boolean destinationFull) {
+            this.itemsLeftToMove = itemsLeftToMove;
+            this.sourceEmpty = sourceEmpty;
+            this.destinationFull = destinationFull;
+        }
+
+        public long getItemsLeftToMove() {
+            return this.itemsLeftToMove;
+        }
+
+        public boolean isSourceEmpty() {
+            return this.sourceEmpty;
+        }
+
+        public boolean isDestinationFull() {
+            return this.destinationFull;
+        }
+    }
+
+    /**
+     * @param holdsLeftovers if the owner can keep a leftover of the session when it is discarded, the insert is
+     *                       simulated before every extraction otherwise
+     */
+    public CellTransferSession(final IMEInventory<?> source, final IMEInventory<?> destination,
+            final BaseActionSource actionSource, final boolean holdsLeftovers) {
+        this.source = source;
+        this.destination = destination;
+        this.actionSource = actionSource;
+        this.holdsLeftovers = holdsLeftovers;
+    }
+
+    public boolean isFor(final IMEInventory<?> source, final IMEInventory<?> destination) {
+        return this.source == source && this.destination == destination;
+    }
+
+    /**
+     * @return how often the stacks of the source were listed
+     */
+    public int getListings() {
+        return this.listings;
+    }
+
+    /**
+     * @return the stack that neither the destination nor the source took, or null if there is none
+     */
+    public IAEStack<?> getLeftover() {
+        return this.leftover;
+    }
+
+    /**
+     * Restores the leftover of an earlier session, it is placed before anything else is moved.
+     */
+    public void setLeftover(final IAEStack<?> leftover) {
+        this.leftover = leftover;
+    }
+
+    /**
+     * The stack that neither the destination nor the source took, has to be kept by the owner if the session is
+     * discarded.
+     *
+     * @return the leftover, or null if there is none
+     */
+    public IAEStack<?> takeLeftover() {
+        final IAEStack<?> out = this.leftover;
+        this.leftover = null;
+        return out;
+    }
+
+    /**
+     * Moves up to the given amount, continuing where the last transfer stopped. Stops at the end of the list of stacks,
+     * the next transfer lists the source again.
+     */
+    @SuppressWarnings("unchecked")
+    public Result transfer(final IEnergySource energy, long itemsToMove) {
+        if (this.leftover != null && !this.placeLeftover(energy)) {
+            return new Result(itemsToMove, false, true);
+        }
+
+        if (this.stacks == null || this.position >= this.stacks.length) {
+            this.listStacks();
+        }
+
+        while (itemsToMove > 0 && this.position < this.stacks.length) {
+            final IAEStack<?> s = this.stacks[this.position];
+            final IAEStack<?> request = s.copy();
+            request.setStackSize(itemsToMove);
+
+            if (this.destinationRefused || !this.holdsLeftovers) {
+                final IAEStack<?> remainder = Platform
+                        .poweredInsert(energy, this.destination, request, this.actionSource, Actionable.SIMULATE);
+                if (remainder != null) {
+                    request.decStackSize(remainder.getStackSize());
+                }
+                if (request.getStackSize() <= 0) {
+                    this.sourceHasRemainingItems = true;
+                    this.position++;
+                    continue;
+                }
+            }
+
+            final long requested = request.getStackSize();
+            final IAEStack<?> extracted = this.source.extractItems(request, Actionable.MODULATE, this.actionSource);
+            if (extracted == null || extracted.getStackSize() <= 0) {
+                this.position++;
+                continue;
+            }
+
+            long moved = extracted.getStackSize();
+            final IAEStack<?> failed = Platform
+                    .poweredInsert(energy, this.destination, extracted.setCraftable(false), this.actionSource);
+            if (failed != null) {
+                moved -= failed.getStackSize();
+                this.sourceHasRemainingItems = true;
+                this.destinationRefused = true;
+                this.leftover = failed;
+                if (!this.placeLeftover(energy)) {
+                    itemsToMove -= moved;
+                    break;
+                }
+            } else if (extracted.getStackSize() == requested) {
+                this.destinationRefused = false;
+            }
+
+            itemsToMove -= moved;
+            // keep going with this stack next time unless it ran out or the destination didn't want it
+            if (moved <= 0 || failed != null || extracted.getStackSize() < requested) {
+                this.position++;
+            }
+        }
+
+        final boolean stuck = this.leftover != null;
+        final boolean sourceEmpty = this.position >= this.stacks.length && !this.sourceHasRemainingItems && !stuck;
+        return new Result(itemsToMove, sourceEmpty, itemsToMove > 0 || stuck);
+    }
+
+    /**
+     * Puts the leftover back into the source, or into the destination if the source doesn't take it.
+     *
+     * @return true if nothing is left
+     */
+    @SuppressWarnings("unchecked")
+    private boolean placeLeftover(final IEnergySource energy) {
+        this.leftover = (IAEStack<?>) this.source.injectItems(this.leftover, Actionable.MODULATE, this.actionSource);
+        if (this.leftover != null) {
+            this.leftover = Platform.poweredInsert(energy, this.destination, this.leftover, this.actionSource);
+        }
+        return this.leftover == null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void listStacks() {
+        final List<IAEStack<?>> list = new ArrayList<>();
+        if (this.source instanceof IMEMonitor monitor) {
+            monitor.getAvailableItemsWithPriority(IterationCounter.fetchNewId()).getItems(true).distinct()
+                    .forEach(s -> list.add((IAEStack<?>) s));
+        } else {
+            for (final Object s : this.source
+                    .getAvailableItems(this.source.getStackType().createList(), IterationCounter.fetchNewId())) {
+                list.add((IAEStack<?>) s);
+            }
+        }
+
+        this.stacks = list.toArray(new IAEStack<?>[0]);
+        this.position = 0;
+        this.sourceHasRemainingItems = false;
+        this.listings++;
+    }
+}
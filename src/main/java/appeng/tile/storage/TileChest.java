@@ -85,11 +85,14 @@ import appeng.api.storage.data.IAEStack;
 import appeng.api.storage.data.IAEStackType;
 import appeng.api.util.AEColor;
 import appeng.api.util.IConfigManager;
+import appeng.core.AEConfig;
 import appeng.core.localization.GuiText;
 import appeng.helpers.IPrimaryGuiIconProvider;
 import appeng.helpers.IPriorityHost;
 import appeng.items.storage.ItemBasicStorageCell;
 import appeng.me.GridAccessException;
+import appeng.me.cache.GridStorageCache;
+import appeng.me.storage.CellStackPrefetcher;
 import appeng.me.storage.MEInventoryHandler;
 import appeng.tile.TileEvent;
 import appeng.tile.events.TileEventType;
@@ -142,6 +145,20 @@ public class TileChest extends AENetworkPowerTile implements IMEChest, IFluidHan
         this.setInternalPowerFlow(AccessRestriction.WRITE);
     }
 
+    @Override
+    public void validate() {
+        super.validate();
+        if (AEConfig.instance.parallelCellDecoding && Platform.isServer()) {
+            CellStackPrefetcher.prefetch(this.inv);
+        }
+    }
+
+    @Override
+    public void invalidate() {
+        super.invalidate();
+        CellStackPrefetcher.forget(this.inv);
+    }
+
     @Override
     protected void PowerEvent(final PowerEventType x) {
         if (x == PowerEventType.REQUEST_POWER) {
@@ -729,6 +746,14 @@ public class TileChest extends AENetworkPowerTile implements IMEChest, IFluidHan
     @Override
     public void saveChanges(final IMEInventory cellInventory) {
         this.worldObj.markTileEntityChunkModified(this.xCoord, this.yCoord, this.zCoord, this);
+
+        try {
+            if (this.getProxy().getStorage() instanceof GridStorageCache storageCache) {
+                storageCache.postCellChanged(cellInventory);
+            }
+        } catch (final GridAccessException e) {
+            // :P
+        }
     }
 
     public boolean toggleItemStorageCellLocking() {
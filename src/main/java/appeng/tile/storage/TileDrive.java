@@ -59,12 +59,15 @@ import appeng.api.storage.data.IAEStackType;
 import appeng.api.util.AECableType;
 import appeng.api.util.AEColor;
 import appeng.api.util.DimensionalCoord;
+import appeng.core.AEConfig;
 import appeng.helpers.IPrimaryGuiIconProvider;
 import appeng.helpers.IPriorityHost;
 import appeng.items.AEBaseCell;
 import appeng.items.materials.ItemMultiMaterial;
 import appeng.items.storage.ItemBasicStorageCell;
 import appeng.me.GridAccessException;
+import appeng.me.cache.GridStorageCache;
+import appeng.me.storage.CellStackPrefetcher;
 import appeng.me.storage.MEInventoryHandler;
 import appeng.tile.TileEvent;
 import appeng.tile.events.TileEventType;
@@ -351,6 +354,20 @@ public class TileDrive extends AENetworkInvTile
         }
     }
 
+    @Override
+    public void validate() {
+        super.validate();
+        if (AEConfig.instance.parallelCellDecoding && Platform.isServer()) {
+            CellStackPrefetcher.prefetch(this.inv);
+        }
+    }
+
+    @Override
+    public void invalidate() {
+        super.invalidate();
+        CellStackPrefetcher.forget(this.inv);
+    }
+
     @Override
     public void onReady() {
         super.onReady();
@@ -391,6 +408,14 @@ public class TileDrive extends AENetworkInvTile
     @Override
     public void saveChanges(final IMEInventory cellInventory) {
         this.worldObj.markTileEntityChunkModified(this.xCoord, this.yCoord, this.zCoord, this);
+
+        try {
+            if (this.getProxy().getStorage() instanceof GridStorageCache storageCache) {
+                storageCache.postCellChanged(cellInventory);
+            }
+        } catch (final GridAccessException e) {
+            // :P
+        }
     }
 
     public static void partitionStorageCellToItemsOnCell(ICellInventoryHandler handler) {
@@ -10,7 +10,10 @@
 
 package appeng.tile.storage;
 
-import java.util.Iterator;
+import static appeng.util.item.AEItemStackType.ITEM_STACK_TYPE;
+
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import net.minecraft.block.Block;
@@ -18,7 +21,9 @@ import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.inventory.IInventory;
 import net.minecraft.item.ItemStack;
 import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.nbt.NBTTagList;
 import net.minecraft.world.World;
+import net.minecraftforge.common.util.Constants.NBT;
 import net.minecraftforge.common.util.ForgeDirection;
 
 import appeng.api.AEApi;
@@ -42,6 +47,7 @@ import appeng.api.networking.ticking.TickingRequest;
 import appeng.api.storage.IMEInventory;
 import appeng.api.storage.IMEMonitor;
 import appeng.api.storage.data.AEStackTypeRegistry;
+import appeng.api.storage.data.IAEItemStack;
 import appeng.api.storage.data.IAEStack;
 import appeng.api.storage.data.IAEStackType;
 import appeng.api.storage.data.IItemList;
@@ -49,6 +55,7 @@ import appeng.api.util.AECableType;
 import appeng.api.util.AEColor;
 import appeng.api.util.DimensionalCoord;
 import appeng.api.util.IConfigManager;
+import appeng.core.AELog;
 import appeng.core.settings.TickRates;
 import appeng.helpers.Reflected;
 import appeng.me.GridAccessException;
@@ -107,21 +114,11 @@ public class TileIOPort extends AENetworkInvTile
     private ItemStack currentCell;
     private IMEInventory<?> cachedInventory;
     private int[] moveQueue = { 0, 0, 0, 0, 0, 0 };
+    private final CellTransferSession[] sessions = new CellTransferSession[6];
+    // leftovers read from NBT that no session took over yet
+    private final IAEStack<?>[] leftovers = new IAEStack<?>[6];
     private AEColor paintedColor = AEColor.Transparent;
 
-    private static final class TransferResult {
-
-        private final long itemsLeftToMove;
-        private final boolean sourceEmpty;
-        private final boolean destinationFull;
-
-        private TransferResult(final long itemsLeftToMove, final boolean sourceEmpty, final boolean destinationFull) {
-            this.itemsLeftToMove = itemsLeftToMove;
-            this.sourceEmpty = sourceEmpty;
-            this.destinationFull = destinationFull;
-        }
-    }
-
     @Reflected
     public TileIOPort() {
         this.getProxy().setFlags(GridFlags.REQUIRE_CHANNEL);
@@ -146,6 +143,17 @@ public class TileIOPort extends AENetworkInvTile
         data.setInteger("lastRedstoneState", this.lastRedstoneState.ordinal());
         data.setIntArray("moveQueue", moveQueue);
         data.setByte("paintedColor", (byte) this.paintedColor.ordinal());
+
+        final NBTTagList leftoverList = new NBTTagList();
+        for (int x = 0; x < 6; x++) {
+            final IAEStack<?> leftover = this.getLeftover(x);
+            if (leftover != null) {
+                final NBTTagCompound tag = Platform.writeStackNBT(leftover, new NBTTagCompound());
+                tag.setByte("slot", (byte) x);
+                leftoverList.appendTag(tag);
+            }
+        }
+        data.setTag("leftovers", leftoverList);
     }
 
     @TileEvent(TileEventType.WORLD_NBT_READ)
@@ -163,6 +171,16 @@ public class TileIOPort extends AENetworkInvTile
             this.paintedColor = AEColor.fromOrdinal(data.getByte("paintedColor"));
             this.getProxy().setColor(this.paintedColor);
         }
+
+        Arrays.fill(this.leftovers, null);
+        final NBTTagList leftoverList = data.getTagList("leftovers", NBT.TAG_COMPOUND);
+        for (int i = 0; i < leftoverList.tagCount(); i++) {
+            final NBTTagCompound tag = leftoverList.getCompoundTagAt(i);
+            final int slot = tag.getByte("slot");
+            if (slot >= 0 && slot < this.leftovers.length) {
+                this.leftovers[slot] = Platform.readStackNBT(tag);
+            }
+        }
     }
 
     @TileEvent(TileEventType.NETWORK_WRITE)
@@ -296,6 +314,7 @@ public class TileIOPort extends AENetworkInvTile
                 || slot == INPUT_SLOT_INDEX_BOTTOM_LEFT
                 || slot == INPUT_SLOT_INDEX_BOTTOM_RIGHT)) {
             moveQueue[slot] = 0;
+            this.closeSession(slot);
         }
         if (this.cells == inv) {
             this.updateTask();
@@ -402,17 +421,19 @@ public class TileIOPort extends AENetworkInvTile
                         if (monitor != null) {
                             final long amountPerUnit = inv.getStackType().getAmountPerUnit();
                             final long transferBudget = amountToMove * amountPerUnit;
-                            final TransferResult transferResult;
-                            if (operationMode == OperationMode.EMPTY) {
-                                transferResult = this.transferContents(energy, inv, monitor, transferBudget);
-                            } else {
-                                transferResult = this.transferContents(energy, monitor, inv, transferBudget);
+                            final CellTransferSession session = operationMode == OperationMode.EMPTY
+                                    ? this.getSession(x, inv, monitor)
+                                    : this.getSession(x, monitor, inv);
+                            final IAEStack<?> leftoverBefore = session.getLeftover();
+                            final CellTransferSession.Result transferResult = session.transfer(energy, transferBudget);
+                            if (session.getLeftover() != leftoverBefore) {
+                                this.saveChanges();
                             }
 
-                            amountToMove = Platform.ceilDiv(transferResult.itemsLeftToMove, amountPerUnit);
-                            sourceEmptyAfterTransfer = transferResult.sourceEmpty;
-                            destinationFull = transferResult.destinationFull;
-                            didWork = transferResult.itemsLeftToMove != transferBudget;
+                            amountToMove = Platform.ceilDiv(transferResult.getItemsLeftToMove(), amountPerUnit);
+                            sourceEmptyAfterTransfer = transferResult.isSourceEmpty();
+                            destinationFull = transferResult.isDestinationFull();
+                            didWork = transferResult.getItemsLeftToMove() != transferBudget;
                         }
                     }
 
@@ -481,72 +502,76 @@ public class TileIOPort extends AENetworkInvTile
         return this.cachedInventory;
     }
 
-    private TransferResult transferContents(final IEnergySource energy, final IMEInventory src,
-            final IMEInventory destination, long itemsToMove) {
-        final Iterator<? extends IAEStack<?>> it;
-        if (src instanceof IMEMonitor monitor) {
-            it = monitor.getAvailableItemsWithPriority(IterationCounter.fetchNewId()).getItems(true).distinct()
-                    .iterator();
-        } else {
-            it = src.getAvailableItems(src.getStackType().createList(), IterationCounter.fetchNewId()).iterator();
+    private CellTransferSession getSession(final int slot, final IMEInventory<?> src,
+            final IMEInventory<?> destination) {
+        CellTransferSession session = this.sessions[slot];
+        if (session == null || !session.isFor(src, destination)) {
+            final IAEStack<?> leftover = this.getLeftover(slot);
+            if (leftover != null && leftover.getStackType() != src.getStackType()) {
+                this.closeSession(slot);
+            }
+            // only items can be dropped when the session is discarded with a leftover
+            session = new CellTransferSession(src, destination, this.mySrc, src.getStackType() == ITEM_STACK_TYPE);
+            // the leftover of the previous session of the slot, or the one read from NBT, is placed first
+            session.setLeftover(this.takeLeftover(slot));
+            this.sessions[slot] = session;
         }
+        return session;
+    }
 
-        boolean didStuff;
-        boolean sourceHasRemainingItems = false;
-        boolean destinationFull = false;
-
-        do {
-            didStuff = false;
-
-            while (it.hasNext()) {
-                final IAEStack<?> s = it.next();
-                final long availableBeforeExtract = s.getStackSize();
-                if (availableBeforeExtract > 0) {
-                    final IAEStack<?> extractStack = s.copy();
-                    extractStack.setStackSize(itemsToMove);
-                    final IAEStack<?> remainder = Platform
-                            .poweredInsert(energy, destination, extractStack, this.mySrc, Actionable.SIMULATE);
-
-                    long possible = extractStack.getStackSize();
-                    if (remainder != null) {
-                        possible -= remainder.getStackSize();
-                    }
-
-                    if (possible > 0) {
-                        extractStack.setStackSize(possible);
+    private IAEStack<?> getLeftover(final int slot) {
+        final CellTransferSession session = this.sessions[slot];
+        return session != null ? session.getLeftover() : this.leftovers[slot];
+    }
 
-                        final IAEStack<?> extracted = src.extractItems(extractStack, Actionable.MODULATE, this.mySrc);
-                        if (extracted != null) {
-                            possible = extracted.getStackSize();
-                            final IAEStack<?> failed = Platform
-                                    .poweredInsert(energy, destination, extracted.setCraftable(false), this.mySrc);
+    private IAEStack<?> takeLeftover(final int slot) {
+        final CellTransferSession session = this.sessions[slot];
+        final IAEStack<?> leftover = session != null ? session.takeLeftover() : this.leftovers[slot];
+        this.leftovers[slot] = null;
+        return leftover;
+    }
 
-                            if (failed != null) {
-                                possible -= failed.getStackSize();
-                                src.injectItems(failed, Actionable.MODULATE, this.mySrc);
-                                sourceHasRemainingItems = true;
-                            }
+    private void closeSession(final int slot) {
+        final IAEStack<?> leftover = this.takeLeftover(slot);
+        this.sessions[slot] = null;
 
-                            if (possible > 0) {
-                                itemsToMove -= possible;
-                                didStuff = true;
-                                if (availableBeforeExtract > possible) {
-                                    sourceHasRemainingItems = true;
-                                }
-                            }
+        if (leftover != null && this.worldObj != null) {
+            final List<ItemStack> drops = new ArrayList<>();
+            this.addLeftover(leftover, drops);
+            Platform.spawnDrops(this.worldObj, this.xCoord, this.yCoord, this.zCoord, drops);
+            this.saveChanges();
+        }
+    }
 
-                            break;
-                        }
-                    } else {
-                        sourceHasRemainingItems = true;
-                    }
+    /**
+     * Stacks neither the cell nor the network took back are dropped. Other types can't be dropped, the network gets
+     * another chance to take them.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private void addLeftover(IAEStack<?> leftover, final List<ItemStack> drops) {
+        if (leftover != null && !(leftover instanceof IAEItemStack)) {
+            try {
+                final IMEMonitor monitor = this.getProxy().getStorage().getMEMonitor(leftover.getStackType());
+                if (monitor != null) {
+                    leftover = Platform.poweredInsert(this.getProxy().getEnergy(), monitor, leftover, this.mySrc);
                 }
+            } catch (final GridAccessException e) {
+                // :P
             }
-        } while (itemsToMove > 0 && didStuff);
-        if (itemsToMove > 0 && !didStuff) {
-            destinationFull = true;
         }
-        return new TransferResult(itemsToMove, !sourceHasRemainingItems && !it.hasNext(), destinationFull);
+
+        if (leftover instanceof IAEItemStack ais) {
+            long remaining = ais.getStackSize();
+            final int maxStackSize = Math.max(1, ais.getItemStack().getMaxStackSize());
+            while (remaining > 0) {
+                final ItemStack is = ais.getItemStack();
+                is.stackSize = (int) Math.min(remaining, maxStackSize);
+                remaining -= is.stackSize;
+                drops.add(is);
+            }
+        } else if (leftover != null) {
+            AELog.warn("IO Port at %d %d %d lost %s", this.xCoord, this.yCoord, this.zCoord, leftover);
+        }
     }
 
     private boolean shouldMove(final IMEInventory<?> inventory, final boolean sourceEmptyAfterTransfer,
@@ -633,6 +658,10 @@ public class TileIOPort extends AENetworkInvTile
                 drops.add(stackInSlot);
             }
         }
+
+        for (int slot = 0; slot < 6; slot++) {
+            this.addLeftover(this.takeLeftover(slot), drops);
+        }
     }
 
     @Override
@@ -0,0 +1,343 @@
+/*
+ * This file is part of Applied Energistics 2. Copyright (c) 2013 - 2014, AlgorithmX2, All rights reserved. Applied
+ * Energistics 2 is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser General
+ * Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version. Applied Energistics 2 is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details. You should have received a copy of the GNU Lesser General Public License along with
+ * Applied Energistics 2. If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.util;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.minecraft.inventory.InventoryCrafting;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.crafting.CraftingManager;
+import net.minecraft.item.crafting.IRecipe;
+import net.minecraft.item.crafting.ShapedRecipes;
+import net.minecraft.item.crafting.ShapelessRecipes;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.world.World;
+import net.minecraftforge.oredict.ShapedOreRecipe;
+import net.minecraftforge.oredict.ShapelessOreRecipe;
+
+import appeng.recipes.ores.IOreListener;
+import appeng.recipes.ores.OreDictionaryHandler;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ReferenceArraySet;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
+
+/**
+ * Finds the crafting recipe matching a crafting grid without testing every recipe of the {@link CraftingManager}.
+ * <p>
+ * Shaped and shapeless recipes, vanilla and ore dictionary ones, are bucketed by the items one of their ingredients
+ * accepts, the ingredient whose items have the fewest recipes so far. A grid only tests the recipes of the buckets of
+ * its own items that need as many ingredients as it has stacks, plus every recipe of another type. Candidates are tested
+ * in recipe list order, so the result is the same recipe a linear scan finds; subclasses of the indexed recipe types
+ * are assumed to only ever add restrictions to the matching of their parent.
+ * <p>
+ * The recipes of the last {@link #RESULT_CACHE_SIZE} grids that matched one are remembered and re-checked with
+ * {@code matches()} before they are used. Grids without a recipe are searched every time, since {@code matches()} may
+ * depend on more than the items of the grid. The index is rebuilt when the recipe list changes or an ore is
+ * registered.
+ */
+public final class CraftingRecipeIndex implements IOreListener {
+
+    private static final int RESULT_CACHE_SIZE = 1024;
+    private static final CraftingRecipeIndex INSTANCE = new CraftingRecipeIndex();
+
+    private volatile Index index;
+    private volatile int oreVersion;
+
+    private CraftingRecipeIndex() {
+        OreDictionaryHandler.INSTANCE.observe(this);
+    }
+
+    @Override
+    public void oreRegistered(final String name, final ItemStack item) {
+        this.oreVersion++;
+    }
+
+    /**
+     * @return the first recipe of the recipe list matching the grid, or null
+     */
+    public static IRecipe findMatchingRecipe(final InventoryCrafting inv, final World w) {
+        return INSTANCE.getIndex().find(inv, w);
+    }
+
+    private Index getIndex() {
+        final List<IRecipe> recipes = CraftingManager.getInstance().getRecipeList();
+        Index current = this.index;
+        if (current == null || !current.isValid(recipes, this.oreVersion)) {
+            synchronized (this) {
+                current = this.index;
+                if (current == null || !current.isValid(recipes, this.oreVersion)) {
+                    current = new Index(recipes, this.oreVersion);
+                    this.index = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private static final class Candidate {
+
+        private final IRecipe recipe;
+        private final int order;
+        private final int ingredients;
+
+        private Candidate(final IRecipe recipe, final int order, final int ingredients) {
+            this.recipe = recipe;
+            this.order = order;
+            this.ingredients = ingredients;
+        }
+    }
+
+    private static final class Index {
+
+        private static final Comparator<Candidate> BY_ORDER = Comparator.comparingInt(c -> c.order);
+
+        private final List<IRecipe> recipeList;
+        private final int recipeCount;
+        private final int oreVersion;
+        private final Reference2ObjectOpenHashMap<Item, ObjectArrayList<Candidate>> byItem = new Reference2ObjectOpenHashMap<>();
+        private final ObjectArrayList<Candidate> unindexed = new ObjectArrayList<>();
+        private final Map<GridKey, IRecipe> results = new LinkedHashMap<>(16, 0.75f, true) {
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<GridKey, IRecipe> eldest) {
+                return this.size() > RESULT_CACHE_SIZE;
+            }
+        };
+
+        private Index(final List<IRecipe> recipes, final int oreVersion) {
+            this.recipeList = recipes;
+            this.recipeCount = recipes.size();
+            this.oreVersion = oreVersion;
+
+            for (int order = 0; order < this.recipeCount; order++) {
+                final Object o = recipes.get(order);
+                if (o instanceof IRecipe recipe) {
+                    this.add(recipe, order);
+                }
+            }
+        }
+
+        private boolean isValid(final List<IRecipe> recipes, final int oreVersion) {
+            return recipes == this.recipeList && recipes.size() == this.recipeCount && oreVersion == this.oreVersion;
+        }
+
+        private void add(final IRecipe recipe, final int order) {
+            final Collection<?> ingredients = getIngredients(recipe);
+            ReferenceOpenHashSet<Item> bestItems = null;
+            long bestCost = Long.MAX_VALUE;
+            int count = 0;
+
+            if (ingredients != null) {
+                for (final Object ingredient : ingredients) {
+                    if (ingredient == null) {
+                        continue;
+                    }
+
+                    count++;
+                    final ReferenceOpenHashSet<Item> items = getItems(ingredient);
+                    if (items == null) {
+                        bestItems = null;
+                        break;
+                    }
+
+                    long cost = items.size();
+                    for (final Item item : items) {
+                        final ObjectArrayList<Candidate> bucket = this.byItem.get(item);
+                        cost += bucket == null ? 0 : bucket.size();
+                    }
+
+                    if (cost < bestCost) {
+                        bestCost = cost;
+                        bestItems = items;
+                    }
+                }
+            }
+
+            if (bestItems == null) {
+                this.unindexed.add(new Candidate(recipe, order, -1));
+                return;
+            }
+
+            final Candidate candidate = new Candidate(recipe, order, count);
+            for (final Item item : bestItems) {
+                this.byItem.computeIfAbsent(item, k -> new ObjectArrayList<>()).add(candidate);
+            }
+        }
+
+        private IRecipe find(final InventoryCrafting inv, final World w) {
+            final GridKey key = new GridKey(inv);
+
+            final IRecipe cached;
+            synchronized (this.results) {
+                cached = this.results.get(key);
+            }
+
+            if (cached != null && cached.matches(inv, w)) {
+                return cached;
+            }
+
+            final IRecipe recipe = this.search(key, inv, w);
+            synchronized (this.results) {
+                if (recipe != null) {
+                    this.results.put(key.copy(), recipe);
+                } else if (cached != null) {
+                    this.results.remove(key);
+                }
+            }
+            return recipe;
+        }
+
+        private IRecipe search(final GridKey key, final InventoryCrafting inv, final World w) {
+            final ReferenceArraySet<Item> items = new ReferenceArraySet<>(key.items.length);
+            int count = 0;
+            for (final Item item : key.items) {
+                if (item != null) {
+                    items.add(item);
+                    count++;
+                }
+            }
+
+            final ObjectArrayList<Candidate> candidates = new ObjectArrayList<>(this.unindexed);
+            for (final Item item : items) {
+                final ObjectArrayList<Candidate> bucket = this.byItem.get(item);
+                if (bucket != null) {
+                    for (final Candidate candidate : bucket) {
+                        if (candidate.ingredients == count) {
+                            candidates.add(candidate);
+                        }
+                    }
+                }
+            }
+            candidates.sort(BY_ORDER);
+
+            int lastOrder = -1;
+            for (final Candidate candidate : candidates) {
+                if (candidate.order != lastOrder) {
+                    lastOrder = candidate.order;
+                    if (candidate.recipe.matches(inv, w)) {
+                        return candidate.recipe;
+                    }
+                }
+            }
+
+            return null;
+        }
+
+        private static Collection<?> getIngredients(final IRecipe recipe) {
+            if (recipe instanceof ShapedRecipes shaped) {
+                return Arrays.asList(shaped.recipeItems);
+            }
+            if (recipe instanceof ShapelessRecipes shapeless) {
+                return shapeless.recipeItems;
+            }
+            if (recipe instanceof ShapedOreRecipe shaped) {
+                return Arrays.asList(shaped.getInput());
+            }
+            if (recipe instanceof ShapelessOreRecipe shapeless) {
+                return shapeless.getInput();
+            }
+            return null;
+        }
+
+        /**
+         * @return the items an ingredient accepts, or null if they can't be told
+         */
+        private static ReferenceOpenHashSet<Item> getItems(final Object ingredient) {
+            final ReferenceOpenHashSet<Item> items = new ReferenceOpenHashSet<>();
+            if (ingredient instanceof ItemStack is) {
+                if (is.getItem() == null) {
+                    return null;
+                }
+                items.add(is.getItem());
+            } else if (ingredient instanceof Collection<?>alternatives) {
+                for (final Object alternative : alternatives) {
+                    if (alternative instanceof ItemStack is && is.getItem() != null) {
+                        items.add(is.getItem());
+                    } else {
+                        return null;
+                    }
+                }
+            }
+            return items.isEmpty() ? null : items;
+        }
+    }
+
+    /**
+     * Item, damage and tag of every slot of a crafting grid.
+     */
+    private static final class GridKey {
+
+        private final Item[] items;
+        private final int[] damage;
+        private final NBTTagCompound[] tags;
+        private final int hash;
+
+        private GridKey(final InventoryCrafting inv) {
+            final int size = inv.getSizeInventory();
+            this.items = new Item[size];
+            this.damage = new int[size];
+            this.tags = new NBTTagCompound[size];
+
+            int h = size;
+            for (int x = 0; x < size; x++) {
+                final ItemStack is = inv.getStackInSlot(x);
+                if (is != null) {
+                    this.items[x] = is.getItem();
+                    this.damage[x] = is.getItemDamage();
+                    this.tags[x] = is.getTagCompound();
+                }
+                h = 31 * h + System.identityHashCode(this.items[x]);
+                h = 31 * h + this.damage[x];
+            }
+            this.hash = h;
+        }
+
+        private GridKey(final GridKey other) {
+            this.items = other.items;
+            this.damage = other.damage;
+            this.tags = new NBTTagCompound[other.tags.length];
+            for (int x = 0; x < this.tags.length; x++) {
+                if (other.tags[x] != null) {
+                    this.tags[x] = (NBTTagCompound) other.tags[x].copy();
+                }
+            }
+            this.hash = other.hash;
+        }
+
+        /**
+         * @return a key that doesn't share the tags of the grid's stacks
+         */
+        private GridKey copy() {
+            return new GridKey(this);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof GridKey other) || other.hash != this.hash) {
+                return false;
+            }
+            return Arrays.equals(this.items, other.items) && Arrays.equals(this.damage, other.damage)
+                    && Arrays.equals(this.tags, other.tags);
+        }
+    }
+}
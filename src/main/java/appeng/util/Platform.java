@@ -613,25 +613,11 @@ public class Platform {
         }
     }
 
-    private static IRecipe lastUsedRecipe = null;
-
     /*
      * The usual version of this returns an ItemStack, this version returns the recipe.
      */
     public static IRecipe findMatchingRecipe(final InventoryCrafting inventoryCrafting, final World par2World) {
-        if (lastUsedRecipe != null && lastUsedRecipe.matches(inventoryCrafting, par2World)) return lastUsedRecipe;
-
-        final CraftingManager cm = CraftingManager.getInstance();
-        final List<IRecipe> rl = cm.getRecipeList();
-
-        for (final IRecipe r : rl) {
-            if (r.matches(inventoryCrafting, par2World)) {
-                lastUsedRecipe = r;
-                return r;
-            }
-        }
-
-        return null;
+        return CraftingRecipeIndex.findMatchingRecipe(inventoryCrafting, par2World);
     }
 
     public static ItemStack[] getBlockDrops(final World w, final int x, final int y, final int z) {
@@ -794,7 +780,38 @@ public class Platform {
     }
 
     public static ItemStack findMatchingRecipeOutput(final InventoryCrafting ic, final World worldObj) {
-        return CraftingManager.getInstance().findMatchingRecipe(ic, worldObj);
+        if (isToolRepair(ic)) {
+            return CraftingManager.getInstance().findMatchingRecipe(ic, worldObj);
+        }
+
+        final IRecipe r = findMatchingRecipe(ic, worldObj);
+        return r == null ? null : r.getCraftingResult(ic);
+    }
+
+    /**
+     * Two damaged tools of the same kind are repaired by the {@link CraftingManager} itself, without a recipe.
+     */
+    private static boolean isToolRepair(final InventoryCrafting ic) {
+        ItemStack first = null;
+        ItemStack second = null;
+        int count = 0;
+
+        for (int x = 0; x < ic.getSizeInventory(); x++) {
+            final ItemStack is = ic.getStackInSlot(x);
+            if (is != null) {
+                if (count == 0) {
+                    first = is;
+                } else if (count == 1) {
+                    second = is;
+                }
+                count++;
+            }
+        }
+
+        return count == 2 && first.getItem() == second.getItem()
+                && first.stackSize == 1
+                && second.stackSize == 1
+                && first.getItem().isRepairable();
     }
 
     @SideOnly(Side.CLIENT)
@@ -43,6 +43,7 @@ import com.glodblock.github.common.item.ItemFluidPacket;
 
 import appeng.api.config.FuzzyMode;
 import appeng.api.storage.StorageChannel;
+import appeng.api.storage.data.AEStackIdentityKeys;
 import appeng.api.storage.data.IAEFluidStack;
 import appeng.api.storage.data.IAEStack;
 import appeng.api.storage.data.IAEStackType;
@@ -296,6 +297,12 @@ public final class AEFluidStack extends AEStack<IAEFluidStack> implements IAEFlu
         return this.myHash;
     }
 
+    @Override
+    public long getIdentityKey() {
+        return this.tagCompound == null ? AEStackKeys.getFluidKey(this.fluid.getID())
+                : AEStackIdentityKeys.getKey(this);
+    }
+
     @Override
     public boolean equals(final Object ia) {
         if (ia instanceof AEFluidStack) {
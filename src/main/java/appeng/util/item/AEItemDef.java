@@ -23,9 +23,6 @@ import cpw.mods.fml.relauncher.SideOnly;
 
 public class AEItemDef {
 
-    static final AESharedNBT LOW_TAG = new AESharedNBT(Integer.MIN_VALUE);
-    static final AESharedNBT HIGH_TAG = new AESharedNBT(Integer.MAX_VALUE);
-
     private final int itemID;
     private final Item item;
     private int myHash;
@@ -34,6 +31,7 @@ public class AEItemDef {
     private int displayDamage;
     private int maxDamage;
     private AESharedNBT tagCompound;
+    private long identityKey;
 
     private String displayName;
 
@@ -107,6 +105,7 @@ public class AEItemDef {
 
     void setTagCompound(final AESharedNBT tagCompound) {
         this.tagCompound = tagCompound;
+        this.identityKey = 0;
     }
 
     int getDamageValue() {
@@ -115,6 +114,7 @@ public class AEItemDef {
 
     int setDamageValue(final int damageValue) {
         this.damageValue = damageValue;
+        this.identityKey = 0;
         return damageValue;
     }
 
@@ -168,6 +168,18 @@ public class AEItemDef {
         return this.itemID;
     }
 
+    /**
+     * @return the identity key of the item, or 0 if it has none
+     */
+    long getIdentityKey() {
+        long key = this.identityKey;
+        if (key == 0) {
+            key = this.identityKey = AEStackKeys
+                    .getItemKey(this.getItemID(), this.getDamageValue(), this.getTagCompound());
+        }
+        return key;
+    }
+
     int getMaxDamage() {
         return this.maxDamage;
     }
@@ -47,6 +47,7 @@ import org.lwjgl.opengl.GL12;
 
 import appeng.api.config.FuzzyMode;
 import appeng.api.storage.StorageChannel;
+import appeng.api.storage.data.AEStackIdentityKeys;
 import appeng.api.storage.data.IAEItemStack;
 import appeng.api.storage.data.IAEStackType;
 import appeng.api.storage.data.IAETagCompound;
@@ -455,6 +456,12 @@ public final class AEItemStack extends AEStack<IAEItemStack> implements IAEItemS
         return this.getDefinition().getMyHash();
     }
 
+    @Override
+    public long getIdentityKey() {
+        final long key = this.getDefinition().getIdentityKey();
+        return key != 0 ? key : AEStackIdentityKeys.getKey(this);
+    }
+
     @Override
     public boolean equals(final Object ia) {
         if (ia instanceof AEItemStack) {
@@ -584,70 +591,70 @@ public final class AEItemStack extends AEStack<IAEItemStack> implements IAEItemS
         return uniqueIdentifier.modId == null ? "** Null" : uniqueIdentifier.modId;
     }
 
-    IAEItemStack getLow(final FuzzyMode fuzzy, final boolean ignoreMeta) {
-        final AEItemStack bottom = new AEItemStack(this);
-        final AEItemDef newDef = bottom.setDefinition(bottom.getDefinition().copy());
-
+    /**
+     * Lower bound of the fuzzy damage range matched by this stack, packed with {@link #packDamageKey(int, int)}.
+     */
+    long getLowDamageKey(final FuzzyMode fuzzy, final boolean ignoreMeta) {
         if (ignoreMeta) {
-            newDef.setDisplayDamage(newDef.setDamageValue(0));
-            newDef.reHash();
-            return bottom;
+            return packDamageKey(0, 0);
         }
 
-        if (newDef.getItem().isDamageable()) {
+        final AEItemDef def = this.getDefinition();
+
+        if (def.getItem().isDamageable()) {
+            final int displayDamage;
             if (fuzzy == FuzzyMode.IGNORE_ALL) {
-                newDef.setDisplayDamage(0);
+                displayDamage = 0;
             } else if (fuzzy == FuzzyMode.PERCENT_99) {
-                if (this.getDefinition().getDamageValue() == 0) {
-                    newDef.setDisplayDamage(0);
-                } else {
-                    newDef.setDisplayDamage(1);
-                }
+                displayDamage = def.getDamageValue() == 0 ? 0 : 1;
             } else {
-                final int breakpoint = fuzzy.calculateBreakPoint(this.getDefinition().getMaxDamage());
-                newDef.setDisplayDamage(breakpoint <= this.getDefinition().getDisplayDamage() ? breakpoint : 0);
+                final int breakpoint = fuzzy.calculateBreakPoint(def.getMaxDamage());
+                displayDamage = breakpoint <= def.getDisplayDamage() ? breakpoint : 0;
             }
 
-            newDef.setDamageValue(newDef.getDisplayDamage());
+            return packDamageKey(displayDamage, displayDamage);
         }
 
-        newDef.setTagCompound(AEItemDef.LOW_TAG);
-        newDef.reHash();
-        return bottom;
+        return packDamageKey(def.getDamageValue(), def.getDisplayDamage());
     }
 
-    IAEItemStack getHigh(final FuzzyMode fuzzy, final boolean ignoreMeta) {
-        final AEItemStack top = new AEItemStack(this);
-        final AEItemDef newDef = top.setDefinition(top.getDefinition().copy());
-
+    /**
+     * Upper bound of the fuzzy damage range matched by this stack, packed with {@link #packDamageKey(int, int)}.
+     */
+    long getHighDamageKey(final FuzzyMode fuzzy, final boolean ignoreMeta) {
         if (ignoreMeta) {
-            newDef.setDisplayDamage(newDef.setDamageValue(Integer.MAX_VALUE));
-            newDef.reHash();
-            return top;
+            return packDamageKey(Integer.MAX_VALUE, Integer.MAX_VALUE);
         }
 
-        if (newDef.getItem().isDamageable()) {
+        final AEItemDef def = this.getDefinition();
+
+        if (def.getItem().isDamageable()) {
+            final int displayDamage;
             if (fuzzy == FuzzyMode.IGNORE_ALL) {
-                newDef.setDisplayDamage(this.getDefinition().getMaxDamage() + 1);
+                displayDamage = def.getMaxDamage() + 1;
             } else if (fuzzy == FuzzyMode.PERCENT_99) {
-                if (this.getDefinition().getDamageValue() == 0) {
-                    newDef.setDisplayDamage(0);
-                } else {
-                    newDef.setDisplayDamage(this.getDefinition().getMaxDamage() + 1);
-                }
+                displayDamage = def.getDamageValue() == 0 ? 0 : def.getMaxDamage() + 1;
             } else {
-                final int breakpoint = fuzzy.calculateBreakPoint(this.getDefinition().getMaxDamage());
-                newDef.setDisplayDamage(
-                        this.getDefinition().getDisplayDamage() < breakpoint ? breakpoint - 1
-                                : this.getDefinition().getMaxDamage() + 1);
+                final int breakpoint = fuzzy.calculateBreakPoint(def.getMaxDamage());
+                displayDamage = def.getDisplayDamage() < breakpoint ? breakpoint - 1 : def.getMaxDamage() + 1;
             }
 
-            newDef.setDamageValue(newDef.getDisplayDamage());
+            return packDamageKey(displayDamage, displayDamage);
         }
 
-        newDef.setTagCompound(AEItemDef.HIGH_TAG);
-        newDef.reHash();
-        return top;
+        return packDamageKey(def.getDamageValue(), def.getDisplayDamage());
+    }
+
+    long getDamageKey() {
+        return packDamageKey(this.getDefinition().getDamageValue(), this.getDefinition().getDisplayDamage());
+    }
+
+    /**
+     * Packs damage and display damage into a long which orders the same way {@link #compareTo(AEItemStack)} orders
+     * stacks of the same item, ignoring NBT.
+     */
+    static long packDamageKey(final int damageValue, final int displayDamage) {
+        return ((long) damageValue << 32) | ((displayDamage ^ Integer.MIN_VALUE) & 0xFFFFFFFFL);
     }
 
     public boolean isOre() {
@@ -36,16 +36,19 @@ public class AESharedNBT extends NBTTagCompound implements IAETagCompound {
     private SharedSearchObject sso;
     private int hash;
     private IItemComparison comp;
+    private final int id;
 
     private AESharedNBT(final Item itemID, final int damageValue) {
         this.item = itemID;
         this.meta = damageValue;
+        this.id = AEStackKeys.nextTagId();
     }
 
     public AESharedNBT(final int fakeValue) {
         this.item = null;
         this.meta = 0;
         this.hash = fakeValue;
+        this.id = AEStackKeys.nextTagId();
     }
 
     /*
@@ -126,6 +129,13 @@ public class AESharedNBT extends NBTTagCompound implements IAETagCompound {
         return this.hash;
     }
 
+    /**
+     * @return id of this interned tag, used for {@link appeng.api.storage.data.IAEStack#getIdentityKey()}
+     */
+    int getId() {
+        return this.id;
+    }
+
     @Override
     public NBTTagCompound getNBTTagCompoundCopy() {
         return (NBTTagCompound) this.copy();
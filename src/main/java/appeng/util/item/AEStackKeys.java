@@ -0,0 +1,52 @@
+/*
+ * This file is part of Applied Energistics 2. Copyright (c) 2013 - 2015, AlgorithmX2, All rights reserved. Applied
+ * Energistics 2 is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser General
+ * Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version. Applied Energistics 2 is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details. You should have received a copy of the GNU Lesser General Public License along with
+ * Applied Energistics 2. If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.util.item;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import appeng.api.storage.data.AEStackIdentityKeys;
+import appeng.api.storage.data.IAEStack;
+
+/**
+ * Builds the primitive identity keys returned by {@link IAEStack#getIdentityKey()} for items and fluids.
+ * <p>
+ * Item keys hold the item id in the upper 16 bits, the damage value in the next 16 bits and the id of the interned
+ * {@link AESharedNBT} in the lower 32 bits, so they are always {@code >= 1L << 48}. Items whose damage value doesn't fit
+ * in a short fall back to {@link AEStackIdentityKeys}, like any other stack type. Fluid keys without a tag are the
+ * fluid id plus one.
+ * <p>
+ * A tag id is only stable while the interned tag is alive, so keep a stack with the key when using it as a map key.
+ */
+public final class AEStackKeys {
+
+    private static final AtomicInteger NEXT_TAG_ID = new AtomicInteger(1);
+
+    private AEStackKeys() {}
+
+    /**
+     * @return the key, or 0 if the item can't be packed into one
+     */
+    static long getItemKey(final int itemID, final int damageValue, final AESharedNBT tag) {
+        if (itemID <= 0 || itemID > Short.MAX_VALUE || damageValue != (short) damageValue) {
+            return 0;
+        }
+        return ((long) itemID << 48) | ((damageValue & 0xFFFFL) << 32)
+                | (tag == null ? 0 : tag.getId() & 0xFFFFFFFFL);
+    }
+
+    static int nextTagId() {
+        return NEXT_TAG_ID.getAndIncrement();
+    }
+
+    static long getFluidKey(final int fluidID) {
+        return fluidID + 1L;
+    }
+}
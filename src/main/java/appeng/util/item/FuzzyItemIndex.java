@@ -0,0 +1,281 @@
+/*
+ * This file is part of Applied Energistics 2. Copyright (c) 2013 - 2015, AlgorithmX2, All rights reserved. Applied
+ * Energistics 2 is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser General
+ * Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version. Applied Energistics 2 is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details. You should have received a copy of the GNU Lesser General Public License along with
+ * Applied Energistics 2. If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.util.item;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import net.minecraft.item.Item;
+
+import appeng.api.config.FuzzyMode;
+import appeng.api.storage.data.IAEItemStack;
+import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+
+/**
+ * Secondary index of an {@link ItemList} used for fuzzy lookups.
+ * <p>
+ * Records are grouped by {@link Item}; every group keeps its records in an array sorted by damage, next to a primitive
+ * array of packed damage keys used for the range search. Adding appends to the group and only marks it unsorted, the
+ * sort happens on the next query of that group. Removed records are dropped on that query too, or as soon as they make
+ * up a quarter of their group, so groups of items that are only removed don't keep growing.
+ * <p>
+ * A sort or a cleanup always produces new arrays, so a result handed out earlier keeps iterating its own snapshot even
+ * if the list changes in the meantime.
+ */
+final class FuzzyItemIndex {
+
+    private final ItemList list;
+    private final ObjectOpenHashSet<IAEItemStack> owner;
+    private final Reference2ObjectOpenHashMap<Item, Group> groups = new Reference2ObjectOpenHashMap<>();
+
+    FuzzyItemIndex(final ItemList list, final ObjectOpenHashSet<IAEItemStack> owner) {
+        this.list = list;
+        this.owner = owner;
+        for (final IAEItemStack stack : owner) {
+            this.add((AEItemStack) stack);
+        }
+    }
+
+    void add(final AEItemStack stack) {
+        final Item item = stack.getDefinition().getItem();
+        Group group = this.groups.get(item);
+        if (group == null) {
+            group = new Group();
+            this.groups.put(item, group);
+        }
+        group.append(stack);
+    }
+
+    void remove(final AEItemStack stack) {
+        final Item item = stack.getDefinition().getItem();
+        final Group group = this.groups.get(item);
+        if (group == null) {
+            return;
+        }
+
+        group.removed++;
+        if (group.removed > group.size / 4) {
+            group.prepare(this.owner);
+            if (group.size == 0) {
+                this.groups.remove(item);
+            }
+        }
+    }
+
+    void clear() {
+        this.groups.clear();
+    }
+
+    /**
+     * @return all records of the filter's item inside its fuzzy damage range, highest damage first
+     */
+    Range findFuzzyDamage(final AEItemStack filter, final FuzzyMode fuzzy, final boolean ignoreMeta) {
+        final Group group = this.groups.get(filter.getDefinition().getItem());
+        if (group == null) {
+            return Range.EMPTY;
+        }
+
+        group.prepare(this.owner);
+
+        final long low = filter.getLowDamageKey(fuzzy, ignoreMeta);
+        final long high = filter.getHighDamageKey(fuzzy, ignoreMeta);
+        final int from = lowerBound(group.keys, group.size, low);
+        final int to = upperBound(group.keys, group.size, high);
+
+        if (from >= to) {
+            return Range.EMPTY;
+        }
+
+        return new Range(this.list, group.records, from, to);
+    }
+
+    /**
+     * Combines the results of several lookups, used for ore dictionary filters. Keeps the snapshots of the parts
+     * instead of copying their records.
+     */
+    static Range concat(final Range a, final Range b) {
+        if (a.isEmpty()) {
+            return b;
+        }
+        if (b.isEmpty()) {
+            return a;
+        }
+        a.last().next = b;
+        a.size += b.size;
+        return a;
+    }
+
+    private static int lowerBound(final long[] keys, final int size, final long key) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (keys[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int upperBound(final long[] keys, final int size, final long key) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (keys[mid] <= key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static final class Group {
+
+        private AEItemStack[] records = new AEItemStack[4];
+        private long[] keys = new long[4];
+        private int size = 0;
+        private boolean unsorted = false;
+        // removed records that are still in the arrays
+        private int removed = 0;
+
+        private void append(final AEItemStack stack) {
+            if (this.size == this.records.length) {
+                this.records = Arrays.copyOf(this.records, this.size * 2);
+                this.keys = Arrays.copyOf(this.keys, this.size * 2);
+            }
+
+            final long key = stack.getDamageKey();
+            if (this.size > 0 && (this.keys[this.size - 1] > key
+                    || this.keys[this.size - 1] == key && this.records[this.size - 1].compareTo(stack) > 0)) {
+                this.unsorted = true;
+            }
+
+            this.records[this.size] = stack;
+            this.keys[this.size] = key;
+            this.size++;
+        }
+
+        private void prepare(final ObjectOpenHashSet<IAEItemStack> owner) {
+            if (!this.unsorted && this.removed == 0) {
+                return;
+            }
+
+            final AEItemStack[] newRecords = new AEItemStack[Math.max(4, this.size)];
+            int newSize = 0;
+            for (int i = 0; i < this.size; i++) {
+                final AEItemStack stack = this.records[i];
+                if (this.removed == 0 || owner.get(stack) == stack) {
+                    newRecords[newSize++] = stack;
+                }
+            }
+
+            if (this.unsorted) {
+                Arrays.sort(newRecords, 0, newSize);
+            }
+
+            final long[] newKeys = new long[newRecords.length];
+            for (int i = 0; i < newSize; i++) {
+                newKeys[i] = newRecords[i].getDamageKey();
+            }
+
+            this.records = newRecords;
+            this.keys = newKeys;
+            this.size = newSize;
+            this.unsorted = false;
+            this.removed = 0;
+        }
+    }
+
+    /**
+     * View over a range of a group snapshot, iterated from high to low damage. Removing through the iterator
+     * removes the record from the owning list.
+     */
+    static final class Range extends AbstractCollection<IAEItemStack> {
+
+        static final Range EMPTY = new Range(null, null, 0, 0);
+
+        private final ItemList list;
+        private final AEItemStack[] records;
+        private final int from;
+        private final int to;
+        private int size;
+        private Range next;
+
+        private Range(final ItemList list, final AEItemStack[] records, final int from, final int to) {
+            this.list = list;
+            this.records = records;
+            this.from = from;
+            this.to = to;
+            this.size = to - from;
+        }
+
+        private Range last() {
+            Range c = this;
+            while (c.next != null) {
+                c = c.next;
+            }
+            return c;
+        }
+
+        @Override
+        public int size() {
+            return this.size;
+        }
+
+        @Override
+        public Iterator<IAEItemStack> iterator() {
+            return new Iterator<>() {
+
+                private Range current = Range.this;
+                private int position = Range.this.to;
+                private AEItemStack last;
+
+                @Override
+                public boolean hasNext() {
+                    while (this.current != null) {
+                        if (this.position > this.current.from) {
+                            return true;
+                        }
+                        this.current = this.current.next;
+                        if (this.current != null) {
+                            this.position = this.current.to;
+                        }
+                    }
+                    return false;
+                }
+
+                @Override
+                public IAEItemStack next() {
+                    if (!this.hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    return this.last = this.current.records[--this.position];
+                }
+
+                @Override
+                public void remove() {
+                    if (this.last == null) {
+                        throw new IllegalStateException();
+                    }
+                    this.current.list.removeItemRecord(this.last);
+                    this.last = null;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * This file is part of Applied Energistics 2. Copyright (c) 2013 - 2015, AlgorithmX2, All rights reserved. Applied
+ * Energistics 2 is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser General
+ * Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version. Applied Energistics 2 is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details. You should have received a copy of the GNU Lesser General Public License along with
+ * Applied Energistics 2. If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.util.item;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraftforge.oredict.OreDictionary;
+
+import appeng.api.config.FuzzyMode;
+import appeng.api.storage.data.IAEItemStack;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+
+/**
+ * Answers whether {@link ItemList#findFuzzy} would find anything in a fixed set of items, without building the result.
+ * <p>
+ * The damage keys of the items are kept sorted per {@link Item}, so a check is one map lookup and a binary search. For
+ * ore dictionary items the ores of the items themselves are checked up front, an item whose ores are all among them
+ * only needs the bits of its ores. Other ore items go through their equivalents like {@link ItemList} does.
+ */
+public final class FuzzyItemMatcher {
+
+    private final FuzzyMode mode;
+    private final Reference2ObjectOpenHashMap<Item, long[]> damageKeys = new Reference2ObjectOpenHashMap<>();
+    private final BitSet checkedOres = new BitSet();
+    private final BitSet matchedOres = new BitSet();
+
+    public FuzzyItemMatcher(final Iterable<? extends IAEItemStack> items, final FuzzyMode mode) {
+        this.mode = mode;
+
+        final Reference2ObjectOpenHashMap<Item, List<AEItemStack>> byItem = new Reference2ObjectOpenHashMap<>();
+        for (final IAEItemStack stack : items) {
+            final AEItemStack ais = (AEItemStack) stack;
+            byItem.computeIfAbsent(ais.getDefinition().getItem(), i -> new ArrayList<>()).add(ais);
+        }
+
+        for (final List<AEItemStack> stacks : byItem.values()) {
+            final long[] keys = new long[stacks.size()];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = stacks.get(i).getDamageKey();
+            }
+            Arrays.sort(keys);
+            this.damageKeys.put(stacks.get(0).getDefinition().getItem(), keys);
+        }
+
+        for (final List<AEItemStack> stacks : byItem.values()) {
+            for (final AEItemStack stack : stacks) {
+                final OreReference ore = stack.getDefinition().getIsOre();
+                if (ore != null) {
+                    for (final int id : ore.getOres()) {
+                        this.checkOre(id);
+                    }
+                }
+            }
+        }
+    }
+
+    public FuzzyMode getMode() {
+        return this.mode;
+    }
+
+    private void checkOre(final int id) {
+        if (this.checkedOres.get(id)) {
+            return;
+        }
+        this.checkedOres.set(id);
+
+        for (final ItemStack is : OreHelper.INSTANCE.getCachedOres(OreDictionary.getOreName(id))) {
+            if (is.getItem() != null) {
+                final AEItemStack equivalent = AEItemStack.create(is);
+                if (this.matches(equivalent, equivalent.getItemDamage() == OreDictionary.WILDCARD_VALUE)) {
+                    this.matchedOres.set(id);
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return true if {@link ItemList#findFuzzy} with the stack would find at least one of the items
+     */
+    public boolean isMatched(final IAEItemStack stack) {
+        if (stack == null) {
+            return false;
+        }
+
+        final AEItemStack ais = (AEItemStack) stack;
+        final OreReference ore = ais.getDefinition().getIsOre();
+
+        if (ore == null) {
+            return this.matches(ais, false);
+        }
+
+        boolean allChecked = true;
+        for (final int id : ore.getOres()) {
+            if (this.matchedOres.get(id)) {
+                return true;
+            }
+            allChecked &= this.checkedOres.get(id);
+        }
+
+        if (allChecked) {
+            return false;
+        }
+
+        for (final IAEItemStack equivalent : ore.getAEEquivalents()) {
+            if (this.matches(
+                    (AEItemStack) equivalent,
+                    equivalent.getItemDamage() == OreDictionary.WILDCARD_VALUE)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private boolean matches(final AEItemStack filter, final boolean ignoreMeta) {
+        final long[] keys = this.damageKeys.get(filter.getDefinition().getItem());
+        if (keys == null) {
+            return false;
+        }
+
+        final long low = filter.getLowDamageKey(this.mode, ignoreMeta);
+        final long high = filter.getHighDamageKey(this.mode, ignoreMeta);
+
+        int from = 0;
+        int to = keys.length;
+        while (from < to) {
+            final int mid = (from + to) >>> 1;
+            if (keys[mid] < low) {
+                from = mid + 1;
+            } else {
+                to = mid;
+            }
+        }
+
+        return from < keys.length && keys[from] <= high;
+    }
+}
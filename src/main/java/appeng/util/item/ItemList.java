@@ -12,12 +12,10 @@ package appeng.util.item;
 
 import static appeng.util.item.AEItemStackType.ITEM_STACK_TYPE;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.NavigableSet;
-import java.util.concurrent.ConcurrentSkipListSet;
 
 import javax.annotation.Nullable;
 
@@ -36,13 +34,24 @@ public final class ItemList implements IItemList<IAEItemStack> {
     }
 
     public ItemList(boolean sorted) {
-        if (sorted) initNavigableSet();
+        this.sorted = sorted;
     }
 
-    @Nullable
-    private NavigableSet<IAEItemStack> records = null;
+    private boolean sorted;
     private final ObjectOpenHashSet<IAEItemStack> setRecords = new ObjectOpenHashSet<>();
 
+    /**
+     * Built on the first fuzzy query, kept up to date afterwards.
+     */
+    @Nullable
+    private FuzzyItemIndex fuzzyIndex = null;
+
+    /**
+     * The records in iteration order, shared by all iterators until a record is added or removed.
+     */
+    @Nullable
+    private IAEItemStack[] iterationOrder = null;
+
     @Override
     public void add(final IAEItemStack option) {
         if (option == null) {
@@ -87,10 +96,11 @@ public final class ItemList implements IItemList<IAEItemStack> {
                 return this
                         .findFuzzyDamage((AEItemStack) is, fuzzy, is.getItemDamage() == OreDictionary.WILDCARD_VALUE);
             } else {
-                final Collection<IAEItemStack> output = new LinkedList<>();
+                FuzzyItemIndex.Range output = FuzzyItemIndex.Range.EMPTY;
 
                 for (final IAEItemStack is : or.getAEEquivalents()) {
-                    output.addAll(
+                    output = FuzzyItemIndex.concat(
+                            output,
                             this.findFuzzyDamage(
                                     (AEItemStack) is,
                                     fuzzy,
@@ -106,6 +116,17 @@ public final class ItemList implements IItemList<IAEItemStack> {
 
     @Override
     public boolean isEmpty() {
+        if (this.setRecords.isEmpty()) {
+            return true;
+        }
+
+        for (final IAEItemStack stack : this.setRecords) {
+            if (stack.isMeaningful()) {
+                return false;
+            }
+        }
+
+        // drops the records that aren't meaningful anymore
         return !this.iterator().hasNext();
     }
 
@@ -191,61 +212,28 @@ public final class ItemList implements IItemList<IAEItemStack> {
 
     @Override
     public Iterator<IAEItemStack> iterator() {
-        Iterator<IAEItemStack> iterator;
-
-        if (ItemList.this.records == null) {
-            iterator = new Iterator<>() {
-
-                private final IAEItemStack[] array = ItemList.this.setRecords
-                        .toArray(new IAEItemStack[ItemList.this.setRecords.size()]);
-                // fastutil Hash Set throws NPE when nested iterator removes an entry
-                // make a copy to prevent it
-                private int index = 0;
-
-                @Override
-                public boolean hasNext() {
-                    return index < array.length;
-                }
-
-                @Override
-                public IAEItemStack next() {
-                    return array[index++];
-                }
-
-                @Override
-                public void remove() {
-                    ItemList.this.setRecords.remove(array[index - 1]);
-                    if (ItemList.this.records != null) {
-                        // records should be null here, remove just in case it's initialized during the iteration
-                        ItemList.this.records.remove(array[index - 1]);
-                    }
-                }
-            };
-        } else {
-
-            iterator = new Iterator<>() {
+        final Iterator<IAEItemStack> iterator = new Iterator<>() {
 
-                private final Iterator<IAEItemStack> i = ItemList.this.records.iterator();
-                private IAEItemStack next = null;
+            private final IAEItemStack[] array = ItemList.this.snapshot();
+            // fastutil Hash Set throws NPE when nested iterator removes an entry
+            // make a copy to prevent it
+            private int index = 0;
 
-                @Override
-                public boolean hasNext() {
-                    return i.hasNext();
-                }
-
-                @Override
-                public IAEItemStack next() {
-                    return (next = i.next());
-                }
+            @Override
+            public boolean hasNext() {
+                return index < array.length;
+            }
 
-                @Override
-                public void remove() {
-                    i.remove();
-                    ItemList.this.setRecords.remove(next);
-                }
-            };
+            @Override
+            public IAEItemStack next() {
+                return array[index++];
+            }
 
-        }
+            @Override
+            public void remove() {
+                ItemList.this.removeItemRecord(array[index - 1]);
+            }
+        };
 
         return new MeaningfulItemIterator<>(iterator);
     }
@@ -259,27 +247,43 @@ public final class ItemList implements IItemList<IAEItemStack> {
 
     public void clear() {
         this.setRecords.clear();
-        if (this.records != null) this.records.clear();
+        this.iterationOrder = null;
+        if (this.fuzzyIndex != null) this.fuzzyIndex.clear();
     }
 
     private void putItemRecord(final IAEItemStack itemStack) {
         this.setRecords.add(itemStack);
-        if (this.records != null) this.records.add(itemStack);
+        this.iterationOrder = null;
+        if (this.fuzzyIndex != null) this.fuzzyIndex.add((AEItemStack) itemStack);
     }
 
-    private Collection<IAEItemStack> findFuzzyDamage(final AEItemStack filter, final FuzzyMode fuzzy,
-            final boolean ignoreMeta) {
-        final IAEItemStack low = filter.getLow(fuzzy, ignoreMeta);
-        final IAEItemStack high = filter.getHigh(fuzzy, ignoreMeta);
-        if (this.records == null) {
-            initNavigableSet();
+    void removeItemRecord(final IAEItemStack itemStack) {
+        if (this.setRecords.get(itemStack) != itemStack) {
+            return;
         }
-        return this.records.subSet(low, true, high, true).descendingSet();
+
+        this.setRecords.remove(itemStack);
+        this.iterationOrder = null;
+        if (this.fuzzyIndex != null) this.fuzzyIndex.remove((AEItemStack) itemStack);
     }
 
-    private void initNavigableSet() {
-        records = new ConcurrentSkipListSet();
-        records.addAll(setRecords);
+    private IAEItemStack[] snapshot() {
+        if (this.iterationOrder == null) {
+            final IAEItemStack[] array = this.setRecords.toArray(new IAEItemStack[this.setRecords.size()]);
+            if (this.sorted) {
+                Arrays.sort(array);
+            }
+            this.iterationOrder = array;
+        }
+        return this.iterationOrder;
+    }
+
+    private FuzzyItemIndex.Range findFuzzyDamage(final AEItemStack filter, final FuzzyMode fuzzy,
+            final boolean ignoreMeta) {
+        if (this.fuzzyIndex == null) {
+            this.fuzzyIndex = new FuzzyItemIndex(this, this.setRecords);
+        }
+        return this.fuzzyIndex.findFuzzyDamage(filter, fuzzy, ignoreMeta);
     }
 
     @Override
@@ -289,13 +293,14 @@ public final class ItemList implements IItemList<IAEItemStack> {
 
     @Override
     public boolean isSorted() {
-        return this.records != null;
+        return this.sorted;
     }
 
     @Override
     public ItemList toSorted() {
-        if (this.records == null) {
-            initNavigableSet();
+        if (!this.sorted) {
+            this.sorted = true;
+            this.iterationOrder = null;
         }
         return this;
     }
@@ -19,10 +19,10 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.stream.Stream;
-import java.util.stream.StreamSupport;
 
 import org.jetbrains.annotations.Nullable;
 
@@ -31,6 +31,8 @@ import appeng.api.storage.IMENetworkInventory;
 import appeng.api.storage.data.IAEStack;
 import appeng.api.storage.data.IAEStackType;
 import appeng.api.storage.data.IItemList;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ReferenceArrayList;
 
 /**
  * A NetworkItemList contains one or more IItemLists from different networks. These IItemLists can themselves be
@@ -101,46 +103,119 @@ public class NetworkItemList<T extends IAEStack> implements IItemList<T> {
         networkItemLists.put(network, itemList);
     }
 
-    private Stream<NetworkItemStack<T>> getNetworkItemStackStream(final Set<IMENetworkInventory<T>> visitedNetworks) {
-        return networkItemLists.entrySet().stream()
-                // equivalent to a worse performing mapMulti
-                .flatMap(entry -> {
-                    if (entry.getValue() instanceof NetworkItemList) {
-                        if (visitedNetworks.contains(entry.getKey())) {
-                            return Stream.empty();
-                        }
-                        final Set<IMENetworkInventory<T>> localVisitedNetworks = new HashSet<>(visitedNetworks);
-                        localVisitedNetworks.add(entry.getKey());
-                        return ((NetworkItemList<T>) entry.getValue())
-                                .getFilteredNetworkItemStackStream(Collections.unmodifiableSet(localVisitedNetworks));
-                    } else {
-                        List<NetworkItemStack<T>> buffer = new ArrayList<>();
-                        StreamSupport.stream(entry.getValue().spliterator(), false)
-                                .forEach(item -> buffer.add(new NetworkItemStack<>(entry.getKey(), item)));
-                        return buffer.stream();
-                    }
-                });
+    /**
+     * Receives the items of a network item list one by one.
+     */
+    @FunctionalInterface
+    public interface ItemVisitor<T> {
+
+        /**
+         * @return false to stop visiting
+         */
+        boolean visit(T item);
     }
 
-    private Stream<NetworkItemStack<T>> filter(Stream<NetworkItemStack<T>> stream) {
-        Predicate<T> predicate = buildFilter();
-        if (predicate == null) return stream;
-        else return stream.filter(e -> predicate.test(e.getItemStack()));
+    /**
+     * The state of a single walk over the nested lists: the networks on the current path, the filters of the lists
+     * on it and the filters every leaf list was already visited with.
+     */
+    private static final class Walk<T> {
+
+        private final ReferenceArrayList<IMENetworkInventory<T>> path = new ReferenceArrayList<>();
+        private final ReferenceArrayList<Predicate<T>> filters = new ReferenceArrayList<>();
+        private Reference2ObjectOpenHashMap<IItemList<T>, List<Predicate<T>[]>> visitedLeaves;
+
+        @SuppressWarnings("unchecked")
+        private boolean visitLeaf(final IItemList<T> list, final ItemVisitor<T> visitor) {
+            if (this.visitedLeaves == null) {
+                this.visitedLeaves = new Reference2ObjectOpenHashMap<>();
+            }
+
+            final Predicate<T>[] chain = this.filters.toArray(new Predicate[0]);
+            List<Predicate<T>[]> previousChains = this.visitedLeaves.get(list);
+            for (final T item : list) {
+                if (!matches(chain, item)) {
+                    continue;
+                }
+                // the list was reached through another path already, skip what that path let through
+                if (previousChains != null && matchesAny(previousChains, item)) {
+                    continue;
+                }
+                if (!visitor.visit(item)) {
+                    return false;
+                }
+            }
+
+            if (previousChains == null) {
+                previousChains = new ArrayList<>(1);
+                this.visitedLeaves.put(list, previousChains);
+            }
+            previousChains.add(chain);
+            return true;
+        }
+
+        private static <T> boolean matches(final Predicate<T>[] chain, final T item) {
+            for (final Predicate<T> filter : chain) {
+                if (!filter.test(item)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static <T> boolean matchesAny(final List<Predicate<T>[]> chains, final T item) {
+            for (final Predicate<T>[] chain : chains) {
+                if (matches(chain, item)) {
+                    return true;
+                }
+            }
+            return false;
+        }
     }
 
-    public Stream<T> getItems() {
-        return getFilteredNetworkItemStackStream().distinct().map(NetworkItemStack::getItemStack);
+    /**
+     * Visits the items of all networks in place, with the filters of every level applied while walking. Items are
+     * neither copied nor buffered, and an item reachable through several networks is only visited once.
+     *
+     * @return false if the visitor stopped early
+     */
+    public boolean visitItems(final ItemVisitor<T> visitor) {
+        final Walk<T> walk = new Walk<>();
+        walk.path.add(this.network);
+        return this.visitItems(walk, visitor);
     }
 
-    private Stream<NetworkItemStack<T>> getFilteredNetworkItemStackStream() {
-        Set<IMENetworkInventory<T>> visitedNetworks = new HashSet<>();
-        visitedNetworks.add(this.network);
-        return filter(getNetworkItemStackStream(Collections.unmodifiableSet(visitedNetworks)));
+    private boolean visitItems(final Walk<T> walk, final ItemVisitor<T> visitor) {
+        final Predicate<T> filter = this.buildFilter();
+        if (filter != null) {
+            walk.filters.add(filter);
+        }
+
+        for (final Map.Entry<IMENetworkInventory<T>, IItemList<T>> entry : this.networkItemLists.entrySet()) {
+            if (entry.getValue() instanceof NetworkItemList<T> nested) {
+                if (walk.path.contains(entry.getKey())) {
+                    continue;
+                }
+                walk.path.add(entry.getKey());
+                if (!nested.visitItems(walk, visitor)) {
+                    return false;
+                }
+                walk.path.remove(walk.path.size() - 1);
+            } else if (!walk.visitLeaf(entry.getValue(), visitor)) {
+                return false;
+            }
+        }
+
+        if (filter != null) {
+            walk.filters.remove(walk.filters.size() - 1);
+        }
+        return true;
     }
 
-    private Stream<NetworkItemStack<T>> getFilteredNetworkItemStackStream(
-            final Set<IMENetworkInventory<T>> visitedNetworks) {
-        return filter(getNetworkItemStackStream(visitedNetworks));
+    public Stream<T> getItems() {
+        final List<T> items = new ArrayList<>();
+        this.visitItems(items::add);
+        return items.stream();
     }
 
     public void addFilter(Predicate<T> filter) {
@@ -192,7 +267,10 @@ public class NetworkItemList<T extends IAEStack> implements IItemList<T> {
      * @return returns same list that was passed in, is passed out
      */
     public IItemList<T> buildFinalItemList(IItemList<T> out) {
-        getItems().forEach(out::add);
+        this.visitItems(item -> {
+            out.add(item);
+            return true;
+        });
         return out;
     }
 
@@ -212,13 +290,24 @@ public class NetworkItemList<T extends IAEStack> implements IItemList<T> {
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public T getFirstItem() {
-        return getItems().findFirst().orElse(null);
+        final Object[] first = new Object[1];
+        this.visitItems(item -> {
+            first[0] = item;
+            return false;
+        });
+        return (T) first[0];
     }
 
     @Override
     public int size() {
-        return (int) getItems().count();
+        final int[] count = new int[1];
+        this.visitItems(item -> {
+            count[0]++;
+            return true;
+        });
+        return count[0];
     }
 
     @Override
@@ -226,6 +315,14 @@ public class NetworkItemList<T extends IAEStack> implements IItemList<T> {
         return getItems().iterator();
     }
 
+    @Override
+    public void forEach(final Consumer<? super T> action) {
+        this.visitItems(item -> {
+            action.accept(item);
+            return true;
+        });
+    }
+
     @Override
     public void resetStatus() {
         for (IItemList<T> list : networkItemLists.values()) {
@@ -255,7 +352,7 @@ public class NetworkItemList<T extends IAEStack> implements IItemList<T> {
 
     @Override
     public boolean isEmpty() {
-        return !getItems().findAny().isPresent();
+        return this.visitItems(item -> false);
     }
 
     @Override
@@ -165,6 +165,17 @@ public class PrioritizedNetworkItemList<T extends IAEStack> extends NetworkItemL
                         .map(NetworkItemStack::getItemStack);
     }
 
+    @Override
+    public boolean visitItems(final ItemVisitor<T> visitor) {
+        // the items have to be sorted by priority first, so there is nothing to gain from visiting them in place
+        for (final Iterator<T> it = this.getItems().iterator(); it.hasNext();) {
+            if (!visitor.visit(it.next())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     @SuppressWarnings({ "rawtypes", "unchecked" })
     private static <T extends IAEStack> Comparator<PrioritizedNetworkItemStack<T>> getPriorityPathOrder(
             boolean ascendingPriority) {
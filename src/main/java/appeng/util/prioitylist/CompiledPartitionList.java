@@ -0,0 +1,211 @@
+/*
+ * This file is part of Applied Energistics 2. Copyright (c) 2013 - 2014, AlgorithmX2, All rights reserved. Applied
+ * Energistics 2 is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser General
+ * Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version. Applied Energistics 2 is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details. You should have received a copy of the GNU Lesser General Public License along with
+ * Applied Energistics 2. If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.util.prioitylist;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import appeng.api.config.FuzzyMode;
+import appeng.api.storage.data.IAEItemStack;
+import appeng.api.storage.data.IAEStack;
+import appeng.util.item.AEItemStack;
+import appeng.util.item.FuzzyItemMatcher;
+import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet;
+
+/**
+ * A partition list flattened for {@link #isListed}, which is asked for every stack that is routed through a storage
+ * bus or a cell.
+ * <p>
+ * The precise lists are merged into one set, the fuzzy lists into one {@link FuzzyItemMatcher} per fuzzy mode, and a
+ * {@link MergedPriorityList} becomes one whitelist and one blacklist of those. Lists that can't be flattened, like the
+ * ore filters, are asked as they are. The compiled list is a snapshot, it has to be compiled again when the config of
+ * the list changes.
+ */
+public final class CompiledPartitionList<T extends IAEStack<T>> implements IPartitionList<T> {
+
+    private final IPartitionList<T> source;
+    // null if every stack that isn't blacklisted is listed
+    private final Group<T> whitelist;
+    // null if nothing is blacklisted
+    private final Group<T> blacklist;
+
+    private CompiledPartitionList(final IPartitionList<T> source, final Group<T> whitelist, final Group<T> blacklist) {
+        this.source = source;
+        this.whitelist = whitelist;
+        this.blacklist = blacklist;
+    }
+
+    /**
+     * @return a list that gives the same answers as the list, faster if the list is one of the priority lists
+     */
+    public static <T extends IAEStack<T>> IPartitionList<T> compile(final IPartitionList<T> list) {
+        if (list instanceof MergedPriorityList<T>merged) {
+            Group<T> whitelist = null;
+            if (!merged.getWhitelists().isEmpty()) {
+                whitelist = new Group<>();
+                for (final IPartitionList<T> l : merged.getWhitelists()) {
+                    whitelist.add(l, true);
+                }
+                whitelist.build();
+            }
+
+            final Group<T> blacklist = new Group<>();
+            for (final IPartitionList<T> l : merged.getBlacklists()) {
+                blacklist.add(l, true);
+            }
+            blacklist.build();
+
+            return new CompiledPartitionList<>(list, whitelist, blacklist.isEmpty() ? null : blacklist);
+        }
+
+        if (list instanceof PrecisePriorityList || list instanceof FuzzyPriorityList) {
+            final Group<T> whitelist = new Group<>();
+            whitelist.add(list, false);
+            whitelist.build();
+            return new CompiledPartitionList<>(list, whitelist, null);
+        }
+
+        return list;
+    }
+
+    @Override
+    public boolean isListed(final T input) {
+        if (this.blacklist != null && this.blacklist.matches(input)) {
+            return false;
+        }
+
+        return this.whitelist == null || this.whitelist.matches(input);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.source.isEmpty();
+    }
+
+    @Override
+    public Iterable<T> getItems() {
+        return this.source.getItems();
+    }
+
+    /**
+     * Stacks that match any of the lists.
+     */
+    @SuppressWarnings("unchecked")
+    private static final class Group<T extends IAEStack<T>> {
+
+        private static final FuzzyItemMatcher[] NO_MATCHERS = new FuzzyItemMatcher[0];
+        private static final IPartitionList<?>[] NO_LISTS = new IPartitionList<?>[0];
+
+        private final ObjectOpenHashSet<T> precise = new ObjectOpenHashSet<>();
+        private final Map<FuzzyMode, List<IAEItemStack>> fuzzyItems = new EnumMap<>(FuzzyMode.class);
+        private final List<IPartitionList<T>> itemListsToBuild = new ArrayList<>();
+        private final List<IPartitionList<T>> listsToBuild = new ArrayList<>();
+
+        private FuzzyItemMatcher[] fuzzy = NO_MATCHERS;
+        // only asked for items, like MergedPriorityList does with ore filters
+        private IPartitionList<T>[] itemLists = (IPartitionList<T>[]) NO_LISTS;
+        private IPartitionList<T>[] lists = (IPartitionList<T>[]) NO_LISTS;
+
+        private void add(final IPartitionList<T> list, final boolean merged) {
+            if (list instanceof DefaultPriorityList) {
+                return;
+            }
+
+            if (list instanceof PrecisePriorityList) {
+                for (final T stack : list.getItems()) {
+                    this.precise.add(stack);
+                }
+                return;
+            }
+
+            if (list instanceof FuzzyPriorityList<T>fuzzyList && canFlatten(fuzzyList)) {
+                for (final T stack : fuzzyList.getItems()) {
+                    if (stack instanceof AEItemStack ais) {
+                        this.fuzzyItems.computeIfAbsent(fuzzyList.getMode(), m -> new ArrayList<>()).add(ais);
+                    } else {
+                        // fluids are only found precisely
+                        this.precise.add(stack);
+                    }
+                }
+                return;
+            }
+
+            if (merged && list instanceof OreFilteredList) {
+                this.itemListsToBuild.add(list);
+            } else {
+                this.listsToBuild.add(list);
+            }
+        }
+
+        private static boolean canFlatten(final FuzzyPriorityList<?> list) {
+            for (final IAEStack<?> stack : list.getItems()) {
+                if (!(stack instanceof AEItemStack) && !stack.isFluid()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void build() {
+            this.precise.trim();
+            this.fuzzy = new FuzzyItemMatcher[this.fuzzyItems.size()];
+            int i = 0;
+            for (final Map.Entry<FuzzyMode, List<IAEItemStack>> entry : this.fuzzyItems.entrySet()) {
+                this.fuzzy[i++] = new FuzzyItemMatcher(entry.getValue(), entry.getKey());
+            }
+            this.fuzzyItems.clear();
+            this.itemLists = this.itemListsToBuild.toArray(this.itemLists);
+            this.lists = this.listsToBuild.toArray(this.lists);
+            this.itemListsToBuild.clear();
+            this.listsToBuild.clear();
+        }
+
+        private boolean isEmpty() {
+            return this.precise.isEmpty() && this.fuzzy.length == 0
+                    && this.itemLists.length == 0
+                    && this.lists.length == 0;
+        }
+
+        private boolean matches(final T input) {
+            if (input == null) {
+                return false;
+            }
+
+            if (this.precise.contains(input)) {
+                return true;
+            }
+
+            if (input.isItem()) {
+                for (final FuzzyItemMatcher matcher : this.fuzzy) {
+                    if (matcher.isMatched((IAEItemStack) input)) {
+                        return true;
+                    }
+                }
+
+                for (final IPartitionList<T> list : this.itemLists) {
+                    if (list.isListed(input)) {
+                        return true;
+                    }
+                }
+            }
+
+            for (final IPartitionList<T> list : this.lists) {
+                if (list.isListed(input)) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+    }
+}
@@ -26,6 +26,10 @@ public class FuzzyPriorityList<T extends IAEStack<T>> implements IPartitionList<
         this.mode = mode;
     }
 
+    FuzzyMode getMode() {
+        return this.mode;
+    }
+
     @Override
     public boolean isListed(final T input) {
         final Collection<T> out = this.list.findFuzzy(input, this.mode);
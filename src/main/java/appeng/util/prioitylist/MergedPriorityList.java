@@ -28,6 +28,14 @@ public final class MergedPriorityList<T extends IAEStack<T>> implements IPartiti
         }
     }
 
+    Collection<IPartitionList<T>> getWhitelists() {
+        return this.positive;
+    }
+
+    Collection<IPartitionList<T>> getBlacklists() {
+        return this.negative;
+    }
+
     @Override
     public boolean isListed(final T input) {
         for (final IPartitionList<T> l : this.negative) {
@@ -0,0 +1,76 @@
+package appeng.core.worlddata;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import net.minecraftforge.common.config.Configuration;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.mojang.authlib.GameProfile;
+
+public class PlayerDataTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private static GameProfile profile(final int i) {
+        return new GameProfile(new UUID(0x1234L, i), "player" + i);
+    }
+
+    private static PlayerData load(final File file) {
+        final PlayerData data = new PlayerData(new Configuration(file));
+        data.onWorldStart();
+        return data;
+    }
+
+    @Test
+    public void testIdsSurviveSave() {
+        final File file = new File(this.folder.getRoot(), "settings.cfg");
+        final PlayerData data = load(file);
+
+        final List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            ids.add(data.getPlayerID(profile(i)));
+        }
+        for (int i = 0; i < 100; i++) {
+            assertEquals((int) ids.get(i), data.getPlayerID(profile(i)));
+        }
+        data.flush();
+
+        final PlayerData reloaded = load(file);
+        for (int i = 0; i < 100; i++) {
+            assertEquals((int) ids.get(i), reloaded.getPlayerID(profile(i)));
+        }
+
+        // new players don't get an ID that is already taken
+        final int newID = reloaded.getPlayerID(profile(100));
+        assertFalse(ids.contains(newID));
+    }
+
+    @Test
+    public void testNewPlayersAreWrittenWithTheWorld() {
+        final File file = new File(this.folder.getRoot(), "settings.cfg");
+        final PlayerData data = load(file);
+        final int first = data.getPlayerID(profile(1));
+        data.flush();
+
+        final int second = data.getPlayerID(profile(2));
+        assertNotEquals(first, second);
+        assertFalse(new Configuration(file).getCategory("players").containsKey(profile(2).getId().toString()));
+
+        data.flush();
+        final Configuration written = new Configuration(file);
+        assertTrue(written.getCategory("players").containsKey(profile(2).getId().toString()));
+        assertEquals(second, load(file).getPlayerID(profile(2)));
+    }
+}
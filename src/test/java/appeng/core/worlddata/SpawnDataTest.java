@@ -0,0 +1,174 @@
+package appeng.core.worlddata;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+import net.minecraft.nbt.CompressedStreamTools;
+import net.minecraft.nbt.NBTTagCompound;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SpawnDataTest {
+
+    private static final int DIM = 0;
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private static NBTTagCompound meteorite(final int x, final int z) {
+        final NBTTagCompound data = new NBTTagCompound();
+        data.setInteger("x", x);
+        data.setInteger("z", z);
+        return data;
+    }
+
+    private static void writeCompressed(final File file, final NBTTagCompound data) throws IOException {
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            CompressedStreamTools.writeCompressed(data, out);
+        }
+    }
+
+    private static NBTTagCompound readCompressed(final File file) throws IOException {
+        try (FileInputStream in = new FileInputStream(file)) {
+            return CompressedStreamTools.readCompressed(in);
+        }
+    }
+
+    @Test
+    public void testLegacyFilesAreMigrated() throws IOException {
+        final File directory = this.folder.getRoot();
+        final File file = new File(directory, new MeteorDataNameEncoder(4).encode(DIM, -16, 32));
+
+        final NBTTagCompound legacy = new NBTTagCompound();
+        legacy.setBoolean("-16,32", true);
+        legacy.setBoolean("-1,47", true);
+        legacy.setBoolean("-5,40", false);
+        legacy.setInteger("num", 2);
+        legacy.setTag("0", meteorite(-200, 520));
+        legacy.setTag("1", meteorite(-30, 700));
+        writeCompressed(file, legacy);
+
+        final SpawnData migrated = new SpawnData(directory);
+        assertTrue(migrated.hasGenerated(DIM, -16, 32));
+        assertTrue(migrated.hasGenerated(DIM, -1, 47));
+        assertFalse(migrated.hasGenerated(DIM, -5, 40));
+        assertFalse(migrated.hasGenerated(DIM, -15, 32));
+        assertEquals(2, migrated.getNearByMeteorites(DIM, -10, 40).size());
+
+        migrated.flush();
+        final NBTTagCompound written = readCompressed(file);
+        assertFalse(written.hasKey("-16,32"));
+        assertFalse(written.hasKey("num"));
+
+        final SpawnData reloaded = new SpawnData(directory);
+        assertTrue(reloaded.hasGenerated(DIM, -16, 32));
+        assertTrue(reloaded.hasGenerated(DIM, -1, 47));
+        assertFalse(reloaded.hasGenerated(DIM, -5, 40));
+
+        final Collection<NBTTagCompound> meteorites = reloaded.getNearByMeteorites(DIM, -10, 40);
+        assertEquals(2, meteorites.size());
+        assertTrue(meteorites.contains(meteorite(-200, 520)));
+        assertTrue(meteorites.contains(meteorite(-30, 700)));
+    }
+
+    @Test
+    public void testEvictedRegionsAreWritten() {
+        final File directory = this.folder.getRoot();
+        final SpawnData data = new SpawnData(directory, 16);
+
+        for (int x = -40; x < 40; x += 4) {
+            for (int z = -40; z < 40; z += 4) {
+                data.setGenerated(DIM, x * 16, z * 16);
+            }
+        }
+        data.addNearByMeteorites(DIM, 5, 5, meteorite(80, 80));
+        assertTrue(data.getCachedRegions() <= 16);
+
+        data.flush();
+        final SpawnData reloaded = new SpawnData(directory, 16);
+        for (int x = -40; x < 40; x++) {
+            for (int z = -40; z < 40; z++) {
+                final boolean expected = x % 4 == 0 && z % 4 == 0;
+                assertEquals(expected, reloaded.hasGenerated(DIM, x * 16, z * 16));
+            }
+        }
+        assertEquals(1, reloaded.getNearByMeteorites(DIM, 20, 20).size());
+    }
+
+    @Test
+    public void testRegionsAreKeptUntilTheyAreWritten() {
+        // the directory doesn't exist yet, so no region can be written
+        final File directory = new File(this.folder.getRoot(), "spawndata");
+        final SpawnData data = new SpawnData(directory, 16);
+
+        for (int x = 0; x < 8; x++) {
+            for (int z = 0; z < 8; z++) {
+                data.setGenerated(DIM, x * 16, z * 16);
+            }
+        }
+        assertEquals(64, data.getCachedRegions());
+
+        assertTrue(directory.mkdir());
+        data.flush();
+        final SpawnData reloaded = new SpawnData(directory, 16);
+        for (int x = 0; x < 8; x++) {
+            for (int z = 0; z < 8; z++) {
+                assertTrue(reloaded.hasGenerated(DIM, x * 16, z * 16));
+            }
+        }
+    }
+
+    /**
+     * Runs the lookups of a meteorite spawn attempt, a 12x12 area around the chunk, for every chunk of a 100x100
+     * pregeneration and compares the answers with a plain set. Every region the lookups touch is loaded once and stays
+     * cached.
+     */
+    @Test
+    public void testPregenerationLookups() {
+        final SpawnData data = new SpawnData(this.folder.getRoot());
+        final Set<Long> model = new HashSet<>();
+        long lookups = 0;
+        long found = 0;
+        long expectedFound = 0;
+
+        for (int px = 0; px < 100; px++) {
+            for (int pz = 0; pz < 100; pz++) {
+                for (int cx = px - 6; cx < px + 6; cx++) {
+                    for (int cz = pz - 6; cz < pz + 6; cz++) {
+                        lookups++;
+                        if (data.hasGenerated(DIM, cx, cz)) {
+                            found++;
+                        }
+                    }
+                }
+
+                for (int cx = px - 6; cx < px + 6; cx++) {
+                    for (int cz = pz - 6; cz < pz + 6; cz++) {
+                        if (model.contains(((long) cx << 32) | (cz & 0xFFFFFFFFL))) {
+                            expectedFound++;
+                        }
+                    }
+                }
+
+                data.setGenerated(DIM, px, pz);
+                model.add(((long) px << 32) | (pz & 0xFFFFFFFFL));
+            }
+        }
+
+        assertEquals(10_000L * 144, lookups);
+        assertEquals(expectedFound, found);
+        // chunks -6 to 104 on both axes, regions -1 to 6
+        assertEquals(8 * 8, data.getCachedRegions());
+    }
+}
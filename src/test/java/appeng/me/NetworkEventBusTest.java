@@ -0,0 +1,327 @@
+package appeng.me;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+
+import net.minecraft.item.ItemStack;
+import net.minecraftforge.common.util.ForgeDirection;
+
+import org.junit.Test;
+
+import appeng.api.networking.GridFlags;
+import appeng.api.networking.GridNotification;
+import appeng.api.networking.IGrid;
+import appeng.api.networking.IGridBlock;
+import appeng.api.networking.IGridCache;
+import appeng.api.networking.IGridHost;
+import appeng.api.networking.IGridNode;
+import appeng.api.networking.IGridStorage;
+import appeng.api.networking.events.MENetworkEvent;
+import appeng.api.networking.events.MENetworkEventSubscribe;
+import appeng.api.util.AECableType;
+import appeng.api.util.AEColor;
+import appeng.api.util.DimensionalCoord;
+
+public class NetworkEventBusTest {
+
+    public static class TestEvent extends MENetworkEvent {
+
+        private final List<Object> visited = new ArrayList<>();
+        private final Object cancelAt;
+
+        public TestEvent(final Object cancelAt) {
+            this.cancelAt = cancelAt;
+        }
+
+        private void visit(final Object obj) {
+            this.visited.add(obj);
+            if (obj == this.cancelAt) {
+                this.cancel();
+            }
+        }
+    }
+
+    public static class OtherEvent extends MENetworkEvent {}
+
+    public static class TestMachine implements IGridHost {
+
+        int received;
+
+        @MENetworkEventSubscribe
+        public void onEvent(final TestEvent e) {
+            this.received++;
+            e.visit(this);
+        }
+
+        @Override
+        public IGridNode getGridNode(final ForgeDirection dir) {
+            return null;
+        }
+
+        @Override
+        public AECableType getCableConnectionType(final ForgeDirection dir) {
+            return AECableType.GLASS;
+        }
+
+        @Override
+        public void securityBreak() {}
+    }
+
+    public static class OtherMachine extends TestMachine {}
+
+    public static class OtherEventMachine extends TestMachine {
+
+        @MENetworkEventSubscribe
+        public void onOtherEvent(final OtherEvent e) {}
+    }
+
+    /**
+     * Can't be seen by the generated invokers, is called through its method handle.
+     */
+    private static class HiddenMachine extends TestMachine {
+
+        @Override
+        @MENetworkEventSubscribe
+        public void onEvent(final TestEvent e) {
+            super.onEvent(e);
+        }
+    }
+
+    public static class InvalidMachine extends TestMachine {
+
+        @MENetworkEventSubscribe
+        public void onEvent(final TestEvent e, final int extra) {}
+    }
+
+    public static class TestCache implements IGridCache {
+
+        @MENetworkEventSubscribe
+        public void onEvent(final TestEvent e) {
+            e.visit(this);
+        }
+
+        @Override
+        public void onUpdateTick() {}
+
+        @Override
+        public void removeNode(final IGridNode gridNode, final IGridHost machine) {}
+
+        @Override
+        public void addNode(final IGridNode gridNode, final IGridHost machine) {}
+
+        @Override
+        public void onSplit(final IGridStorage destinationStorage) {}
+
+        @Override
+        public void onJoin(final IGridStorage sourceStorage) {}
+
+        @Override
+        public void populateGridStorage(final IGridStorage destinationStorage) {}
+    }
+
+    private static final class TestBlock implements IGridBlock {
+
+        private final IGridHost machine;
+
+        private TestBlock(final IGridHost machine) {
+            this.machine = machine;
+        }
+
+        @Override
+        public double getIdlePowerUsage() {
+            return 0;
+        }
+
+        @Override
+        public EnumSet<GridFlags> getFlags() {
+            return EnumSet.noneOf(GridFlags.class);
+        }
+
+        @Override
+        public boolean isWorldAccessible() {
+            return false;
+        }
+
+        @Override
+        public DimensionalCoord getLocation() {
+            return null;
+        }
+
+        @Override
+        public AEColor getGridColor() {
+            return AEColor.Transparent;
+        }
+
+        @Override
+        public void onGridNotification(final GridNotification notification) {}
+
+        @Override
+        public void setNetworkStatus(final IGrid grid, final int channelsInUse) {}
+
+        @Override
+        public EnumSet<ForgeDirection> getConnectableSides() {
+            return EnumSet.allOf(ForgeDirection.class);
+        }
+
+        @Override
+        public IGridHost getMachine() {
+            return this.machine;
+        }
+
+        @Override
+        public void gridChanged() {}
+
+        @Override
+        public ItemStack getMachineRepresentation() {
+            return null;
+        }
+    }
+
+    private static GridNode node(final IGridHost machine) {
+        return new GridNode(new TestBlock(machine));
+    }
+
+    private static MachineSet machines(final Class<? extends IGridHost> c, final IGridHost... hosts) {
+        final MachineSet set = new MachineSet(c);
+        for (final IGridHost host : hosts) {
+            set.add(node(host));
+        }
+        return set;
+    }
+
+    @Test
+    public void testCachesFirstThenMachinesInJoinOrder() {
+        final TestCache cacheA = new TestCache();
+        final TestCache cacheB = new TestCache();
+        final TestMachine m1 = new TestMachine();
+        final TestMachine m2 = new TestMachine();
+        final TestMachine m3 = new TestMachine();
+        final OtherMachine o1 = new OtherMachine();
+
+        final NetworkEventBus bus = new NetworkEventBus();
+        bus.addCache(cacheA);
+        bus.addCache(cacheB);
+        bus.addMachines(machines(TestMachine.class, m1, m2, m3));
+        bus.addMachines(machines(OtherMachine.class, o1));
+
+        final TestEvent e = (TestEvent) bus.postEvent(new TestEvent(null));
+        assertEquals(Arrays.asList(cacheA, cacheB, m1, m2, m3, o1), e.visited);
+        assertEquals(6, e.getVisitedObjects());
+    }
+
+    @Test
+    public void testCanceledEventsStopAtTheCancelingSubscriber() {
+        final TestCache cache = new TestCache();
+        final TestMachine m1 = new TestMachine();
+        final TestMachine m2 = new TestMachine();
+        final TestMachine m3 = new TestMachine();
+        final OtherMachine o1 = new OtherMachine();
+
+        final NetworkEventBus bus = new NetworkEventBus();
+        bus.addCache(cache);
+        bus.addMachines(machines(TestMachine.class, m1, m2, m3));
+        bus.addMachines(machines(OtherMachine.class, o1));
+
+        final TestEvent atMachine = (TestEvent) bus.postEvent(new TestEvent(m2));
+        assertEquals(Arrays.asList(cache, m1, m2), atMachine.visited);
+        assertEquals(3, atMachine.getVisitedObjects());
+        assertEquals(0, m3.received);
+        assertEquals(0, o1.received);
+
+        final TestEvent atCache = (TestEvent) bus.postEvent(new TestEvent(cache));
+        assertEquals(Arrays.asList(cache), atCache.visited);
+        assertEquals(1, atCache.getVisitedObjects());
+    }
+
+    @Test
+    public void testOnlySubscribersAreVisited() {
+        final TestMachine m1 = new TestMachine();
+        final OtherEventMachine o1 = new OtherEventMachine();
+        final MachineSet testMachines = machines(TestMachine.class, m1);
+
+        final NetworkEventBus bus = new NetworkEventBus();
+        bus.addMachines(testMachines);
+        bus.addMachines(machines(OtherEventMachine.class, o1));
+
+        assertEquals(1, bus.postEvent(new OtherEvent()).getVisitedObjects());
+        assertEquals(2, bus.postEvent(new TestEvent(null)).getVisitedObjects());
+        assertEquals(0, bus.postEvent(new MENetworkEvent()).getVisitedObjects());
+
+        // nodes leaving the grid leave their machine set
+        testMachines.clear();
+        final TestEvent e = (TestEvent) bus.postEvent(new TestEvent(null));
+        assertEquals(Arrays.asList(o1), e.visited);
+    }
+
+    @Test
+    public void testPostEventToVisitsOneNode() {
+        final TestMachine m1 = new TestMachine();
+        final TestMachine m2 = new TestMachine();
+        final GridNode target = node(m2);
+
+        final NetworkEventBus bus = new NetworkEventBus();
+        final MachineSet set = machines(TestMachine.class, m1);
+        set.add(target);
+        bus.addMachines(set);
+
+        final TestEvent e = (TestEvent) bus.postEventTo(target, new TestEvent(null));
+        assertEquals(Arrays.asList(m2), e.visited);
+        assertEquals(1, e.getVisitedObjects());
+        assertEquals(0, bus.postEventTo(target, new OtherEvent()).getVisitedObjects());
+    }
+
+    @Test
+    public void testHiddenClassesAreStillCalled() {
+        final HiddenMachine hidden = new HiddenMachine();
+
+        final NetworkEventBus bus = new NetworkEventBus();
+        bus.addMachines(machines(HiddenMachine.class, hidden));
+
+        final TestEvent e = (TestEvent) bus.postEvent(new TestEvent(null));
+        assertEquals(Arrays.asList(hidden), e.visited);
+    }
+
+    @Test
+    public void testInvalidSubscribersAreRejected() {
+        try {
+            new NetworkEventBus().addMachines(machines(InvalidMachine.class));
+            fail();
+        } catch (final IllegalStateException e) {
+            assertTrue(e.getMessage().contains(InvalidMachine.class.getName()));
+        }
+    }
+
+    @Test
+    public void testManyNodes() {
+        final int nodes = 50_000;
+        final TestMachine[] hosts = new TestMachine[nodes];
+        final MachineSet testMachines = new MachineSet(TestMachine.class);
+        final MachineSet otherMachines = new MachineSet(OtherEventMachine.class);
+        for (int i = 0; i < nodes; i++) {
+            // a few nodes subscribe to the other event too
+            hosts[i] = i % 100 == 0 ? new OtherEventMachine() : new TestMachine();
+            (i % 100 == 0 ? otherMachines : testMachines).add(node(hosts[i]));
+        }
+
+        final NetworkEventBus bus = new NetworkEventBus();
+        bus.addCache(new TestCache());
+        bus.addMachines(testMachines);
+        bus.addMachines(otherMachines);
+
+        final int posts = 20;
+        for (int i = 0; i < posts; i++) {
+            assertEquals(nodes + 1, bus.postEvent(new TestEvent(null)).getVisitedObjects());
+        }
+
+        assertEquals(nodes / 100, bus.postEvent(new OtherEvent()).getVisitedObjects());
+        for (final TestMachine host : hosts) {
+            assertEquals(posts, host.received);
+        }
+    }
+}
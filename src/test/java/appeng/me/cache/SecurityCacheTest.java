@@ -0,0 +1,119 @@
+package appeng.me.cache;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.UUID;
+
+import net.minecraftforge.common.util.ForgeDirection;
+
+import org.junit.Test;
+
+import com.mojang.authlib.GameProfile;
+
+import appeng.api.config.SecurityPermissions;
+import appeng.api.networking.IGridHost;
+import appeng.api.networking.IGridNode;
+import appeng.api.networking.events.MENetworkSecurityChange;
+import appeng.api.networking.security.ISecurityProvider;
+import appeng.api.util.AECableType;
+
+public class SecurityCacheTest {
+
+    private static final int OWNER = 0;
+    private static final int PLAYER = 7;
+
+    private static final class TestProvider implements IGridHost, ISecurityProvider {
+
+        @Override
+        public long getSecurityKey() {
+            // the key the cache starts with, so no grid is needed to announce it
+            return -1;
+        }
+
+        @Override
+        public void readPermissions(final HashMap<Integer, EnumSet<SecurityPermissions>> playerPerms) {
+            playerPerms.put(OWNER, EnumSet.allOf(SecurityPermissions.class));
+        }
+
+        @Override
+        public boolean isSecurityEnabled() {
+            return true;
+        }
+
+        @Override
+        public int getOwner() {
+            return OWNER;
+        }
+
+        @Override
+        public IGridNode getGridNode(final ForgeDirection dir) {
+            return null;
+        }
+
+        @Override
+        public AECableType getCableConnectionType(final ForgeDirection dir) {
+            return AECableType.GLASS;
+        }
+
+        @Override
+        public void securityBreak() {}
+    }
+
+    /**
+     * @return a cache secured by a terminal that only lets its owner in, every profile is looked up as {@link #PLAYER}
+     */
+    private static SecurityCache securedCache() {
+        final SecurityCache cache = new SecurityCache(null) {
+
+            @Override
+            int getPlayerID(final GameProfile profile) {
+                return PLAYER;
+            }
+        };
+        cache.addNode(null, new TestProvider());
+        cache.updatePermissions(new MENetworkSecurityChange());
+
+        assertFalse(cache.isAvailable());
+        for (int i = 0; i < SecurityCache.STARTUP_DELAY; i++) {
+            cache.onUpdateTick();
+        }
+        assertTrue(cache.isAvailable());
+        return cache;
+    }
+
+    @Test
+    public void testOpPlayersBypassSecurity() {
+        final GameProfile player = new GameProfile(UUID.randomUUID(), "player");
+        final GameProfile op = new GameProfile(UUID.randomUUID(), "op");
+        final SecurityCache cache = securedCache();
+
+        SecurityCache.registerOpPlayer(op);
+        try {
+            for (final SecurityPermissions perm : SecurityPermissions.values()) {
+                assertFalse(cache.hasPermission(player, perm));
+                assertTrue(cache.hasPermission(op, perm));
+                assertTrue(cache.hasPermission(OWNER, perm));
+            }
+        } finally {
+            SecurityCache.unregisterOpPlayer(op);
+        }
+
+        for (final SecurityPermissions perm : SecurityPermissions.values()) {
+            assertFalse(cache.hasPermission(op, perm));
+        }
+    }
+
+    @Test
+    public void testEverythingIsAllowedWithoutSecurity() {
+        final GameProfile player = new GameProfile(UUID.randomUUID(), "player");
+        final SecurityCache cache = new SecurityCache(null);
+
+        for (final SecurityPermissions perm : SecurityPermissions.values()) {
+            assertTrue(cache.hasPermission(player, perm));
+            assertTrue(cache.hasPermission(3, perm));
+        }
+    }
+}
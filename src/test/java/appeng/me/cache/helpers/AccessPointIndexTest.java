@@ -0,0 +1,132 @@
+package appeng.me.cache.helpers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class AccessPointIndexTest {
+
+    private static final class AccessPoint {
+
+        private int dim;
+        private double x;
+        private double y;
+        private double z;
+        private double range;
+    }
+
+    private static double distanceSq(final AccessPoint ap, final double x, final double y, final double z) {
+        final double offX = ap.x - x;
+        final double offY = ap.y - y;
+        final double offZ = ap.z - z;
+        return offX * offX + offY * offY + offZ * offZ;
+    }
+
+    private static AccessPoint findNearest(final List<AccessPoint> accessPoints, final int dim, final double x,
+            final double y, final double z) {
+        AccessPoint best = null;
+        double bestSq = Double.MAX_VALUE;
+        for (final AccessPoint ap : accessPoints) {
+            final double distanceSq = distanceSq(ap, x, y, z);
+            if (ap.dim == dim && distanceSq < ap.range * ap.range && distanceSq < bestSq) {
+                best = ap;
+                bestSq = distanceSq;
+            }
+        }
+        return best;
+    }
+
+    private static void place(final AccessPoint ap, final Random random, final int spread) {
+        ap.dim = random.nextInt(3) - 1;
+        ap.x = random.nextInt(spread * 2) - spread;
+        ap.y = random.nextInt(256);
+        ap.z = random.nextInt(spread * 2) - spread;
+        // mostly boosted access points, some with a range that spans a large part of the world
+        ap.range = random.nextInt(20) == 0 ? 500 + random.nextInt(3000) : 16 + random.nextInt(200);
+    }
+
+    private static void assertSameAnswer(final AccessPointIndex<AccessPoint> index, final List<AccessPoint> oracle,
+            final int dim, final double x, final double y, final double z) {
+        final AccessPoint expected = findNearest(oracle, dim, x, y, z);
+        final AccessPoint actual = index.findNearest(dim, x, y, z);
+        if (expected == null) {
+            assertNull(actual);
+        } else {
+            // equally distant access points are both right
+            assertEquals(distanceSq(expected, x, y, z), distanceSq(actual, x, y, z), 0);
+        }
+    }
+
+    @Test
+    public void testRandomLayoutsMatchBruteForce() {
+        final Random random = new Random(7);
+
+        for (int layout = 0; layout < 20; layout++) {
+            final int spread = 200 + random.nextInt(5000);
+            final AccessPointIndex<AccessPoint> index = new AccessPointIndex<>();
+            final List<AccessPoint> oracle = new ArrayList<>();
+
+            for (int i = 0; i < 300; i++) {
+                final AccessPoint ap = new AccessPoint();
+                place(ap, random, spread);
+                oracle.add(ap);
+                index.put(ap, ap.dim, ap.x, ap.y, ap.z, ap.range);
+            }
+            assertEquals(oracle.size(), index.size());
+
+            for (int step = 0; step < 2000; step++) {
+                final int action = random.nextInt(10);
+                if (action == 0 && !oracle.isEmpty()) {
+                    // power loss, or the access point was broken
+                    final AccessPoint ap = oracle.remove(random.nextInt(oracle.size()));
+                    index.remove(ap);
+                } else if (action == 1 && !oracle.isEmpty()) {
+                    // boosters were added or taken out
+                    final AccessPoint ap = oracle.get(random.nextInt(oracle.size()));
+                    ap.range = 16 + random.nextInt(200);
+                    index.put(ap, ap.dim, ap.x, ap.y, ap.z, ap.range);
+                } else if (action == 2) {
+                    final AccessPoint ap = new AccessPoint();
+                    place(ap, random, spread);
+                    oracle.add(ap);
+                    index.put(ap, ap.dim, ap.x, ap.y, ap.z, ap.range);
+                }
+
+                assertSameAnswer(
+                        index,
+                        oracle,
+                        random.nextInt(3) - 1,
+                        random.nextDouble() * spread * 2.4 - spread * 1.2,
+                        random.nextDouble() * 256,
+                        random.nextDouble() * spread * 2.4 - spread * 1.2);
+            }
+            assertEquals(oracle.size(), index.size());
+        }
+    }
+
+    @Test
+    public void testRangeBordersAndNegativeCoordinates() {
+        final AccessPointIndex<AccessPoint> index = new AccessPointIndex<>();
+        final AccessPoint ap = new AccessPoint();
+        ap.x = -64;
+        ap.y = 64;
+        ap.z = -1;
+        ap.range = 64;
+        index.put(ap, 0, ap.x, ap.y, ap.z, ap.range);
+
+        assertEquals(ap, index.findNearest(0, -127.9, 64, -1));
+        assertNull(index.findNearest(0, -128, 64, -1));
+        assertEquals(ap, index.findNearest(0, -0.1, 64, -1));
+        assertNull(index.findNearest(0, 0, 64, -1));
+        assertNull(index.findNearest(1, -64, 64, -1));
+
+        index.remove(ap);
+        assertNull(index.findNearest(0, -64, 64, -1));
+        assertEquals(0, index.size());
+    }
+}
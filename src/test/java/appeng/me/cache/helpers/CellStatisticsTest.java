@@ -0,0 +1,188 @@
+package appeng.me.cache.helpers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import net.minecraft.item.ItemStack;
+
+import org.junit.Test;
+
+import appeng.api.storage.ICellCacheRegistry;
+
+public class CellStatisticsTest {
+
+    private static final class TestCell implements ICellCacheRegistry {
+
+        private final TYPE type;
+        private final long totalBytes;
+        private final long totalTypes;
+        private long usedBytes;
+        private long usedTypes;
+
+        private TestCell(final TYPE type, final long totalBytes, final long totalTypes) {
+            this.type = type;
+            this.totalBytes = totalBytes;
+            this.totalTypes = totalTypes;
+        }
+
+        @Override
+        public boolean canGetInv() {
+            return true;
+        }
+
+        @Override
+        public long getTotalBytes() {
+            return this.totalBytes;
+        }
+
+        @Override
+        public long getFreeBytes() {
+            return this.totalBytes - this.usedBytes;
+        }
+
+        @Override
+        public long getUsedBytes() {
+            return this.usedBytes;
+        }
+
+        @Override
+        public long getTotalTypes() {
+            return this.totalTypes;
+        }
+
+        @Override
+        public long getFreeTypes() {
+            return this.totalTypes - this.usedTypes;
+        }
+
+        @Override
+        public long getUsedTypes() {
+            return this.usedTypes;
+        }
+
+        @Override
+        public int getCellStatus() {
+            if (this.usedBytes == 0) {
+                return 1;
+            }
+            if (this.usedBytes >= this.totalBytes) {
+                return 4;
+            }
+            return this.usedTypes >= this.totalTypes ? 3 : 2;
+        }
+
+        @Override
+        public TYPE getCellType() {
+            return this.type;
+        }
+    }
+
+    private static Map<ICellCacheRegistry, ItemStack> cellsOf(final List<TestCell> cells) {
+        final Map<ICellCacheRegistry, ItemStack> map = new LinkedHashMap<>();
+        for (final TestCell cell : cells) {
+            map.put(cell, null);
+        }
+        return map;
+    }
+
+    private static TestCell newCell(final Random random) {
+        final ICellCacheRegistry.TYPE[] types = ICellCacheRegistry.TYPE.values();
+        final long totalBytes = 1024L << random.nextInt(8);
+        return new TestCell(types[random.nextInt(types.length)], totalBytes, 1 + random.nextInt(63));
+    }
+
+    @Test
+    public void testIncrementalTotalsMatchFullCount() {
+        final Random random = new Random(42);
+        final CellStatistics statistics = new CellStatistics();
+        final List<List<TestCell>> providers = new ArrayList<>();
+        for (int p = 0; p < 20; p++) {
+            providers.add(new ArrayList<>());
+        }
+
+        for (int step = 0; step < 20_000; step++) {
+            final int p = random.nextInt(providers.size());
+            final List<TestCell> cells = providers.get(p);
+
+            switch (random.nextInt(5)) {
+                case 0 -> {
+                    // insert a cell
+                    if (cells.size() < 10) {
+                        cells.add(newCell(random));
+                        statistics.setCells(providers.get(p), cellsOf(cells));
+                    }
+                }
+                case 1 -> {
+                    // take out a cell
+                    if (!cells.isEmpty()) {
+                        cells.remove(random.nextInt(cells.size()));
+                        statistics.setCells(providers.get(p), cellsOf(cells));
+                    }
+                }
+                case 2 -> {
+                    // the provider leaves the grid and comes back
+                    statistics.removeProvider(providers.get(p));
+                    statistics.setCells(providers.get(p), cellsOf(cells));
+                }
+                default -> {
+                    // store or extract something
+                    if (!cells.isEmpty()) {
+                        final TestCell cell = cells.get(random.nextInt(cells.size()));
+                        cell.usedBytes = random.nextInt((int) cell.totalBytes + 1);
+                        cell.usedTypes = cell.usedBytes == 0 ? 0 : 1 + random.nextInt((int) cell.totalTypes);
+                        statistics.markChanged(cell);
+                    }
+                }
+            }
+
+            if (step % 97 == 0) {
+                statistics.applyChanges();
+                this.assertMatchesFullCount(statistics, providers);
+            }
+        }
+
+        statistics.applyChanges();
+        this.assertMatchesFullCount(statistics, providers);
+    }
+
+    private void assertMatchesFullCount(final CellStatistics statistics, final List<List<TestCell>> providers) {
+        final CellStatistics counted = new CellStatistics();
+        for (final List<TestCell> cells : providers) {
+            counted.setCells(cells, cellsOf(cells));
+        }
+        assertTrue(counted.hasSameTotals(statistics));
+
+        for (final ICellCacheRegistry.TYPE type : ICellCacheRegistry.TYPE.values()) {
+            double bytesTotal = 0;
+            double bytesUsed = 0;
+            long typesUsed = 0;
+            long cellCount = 0;
+            final long[] byStatus = new long[5];
+            for (final List<TestCell> cells : providers) {
+                for (final TestCell cell : cells) {
+                    if (cell.type == type) {
+                        bytesTotal += cell.totalBytes;
+                        bytesUsed += cell.usedBytes;
+                        typesUsed += cell.usedTypes;
+                        byStatus[cell.getCellStatus()]++;
+                        cellCount++;
+                    }
+                }
+            }
+
+            assertEquals(bytesTotal, statistics.getBytesTotal(type), 0);
+            assertEquals(bytesUsed, statistics.getBytesUsed(type), 0);
+            assertEquals(typesUsed, statistics.getTypesUsed(type));
+            assertEquals(cellCount, statistics.getCellCount(type));
+            for (int status = 1; status <= 4; status++) {
+                assertEquals(byStatus[status], statistics.getCells(type, status));
+            }
+        }
+    }
+}
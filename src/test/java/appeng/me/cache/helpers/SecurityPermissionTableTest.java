@@ -0,0 +1,82 @@
+package appeng.me.cache.helpers;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import appeng.api.config.SecurityPermissions;
+
+public class SecurityPermissionTableTest {
+
+    private static final int OWNER = 0;
+    private static final int GUEST = 7;
+    private static final int UNKNOWN = 42;
+
+    @Test
+    public void testPlayersWithoutEntryUseDefault() {
+        final Map<Integer, EnumSet<SecurityPermissions>> perms = new HashMap<>();
+        perms.put(OWNER, EnumSet.allOf(SecurityPermissions.class));
+        perms.put(SecurityPermissionTable.DEFAULT_PLAYER, EnumSet.of(SecurityPermissions.INJECT));
+
+        final SecurityPermissionTable table = new SecurityPermissionTable();
+        table.rebuild(perms);
+
+        for (final SecurityPermissions perm : SecurityPermissions.values()) {
+            assertTrue(table.hasPermission(OWNER, perm));
+            assertTrue(table.hasPermission(UNKNOWN, perm) == (perm == SecurityPermissions.INJECT));
+        }
+    }
+
+    @Test
+    public void testNoDefaultDeniesEverything() {
+        final Map<Integer, EnumSet<SecurityPermissions>> perms = new HashMap<>();
+        perms.put(GUEST, EnumSet.noneOf(SecurityPermissions.class));
+
+        final SecurityPermissionTable table = new SecurityPermissionTable();
+        table.rebuild(perms);
+
+        for (final SecurityPermissions perm : SecurityPermissions.values()) {
+            assertFalse(table.hasPermission(GUEST, perm));
+            assertFalse(table.hasPermission(UNKNOWN, perm));
+            assertFalse(table.hasPermission(SecurityPermissionTable.DEFAULT_PLAYER, perm));
+        }
+    }
+
+    @Test
+    public void testCraftingNeedsExtracting() {
+        final Map<Integer, EnumSet<SecurityPermissions>> perms = new HashMap<>();
+        perms.put(OWNER, EnumSet.of(SecurityPermissions.CRAFT, SecurityPermissions.EXTRACT));
+        perms.put(GUEST, EnumSet.of(SecurityPermissions.CRAFT, SecurityPermissions.INJECT));
+
+        final SecurityPermissionTable table = new SecurityPermissionTable();
+        table.rebuild(perms);
+
+        assertTrue(table.hasPermission(OWNER, SecurityPermissions.CRAFT));
+        assertFalse(table.hasPermission(GUEST, SecurityPermissions.CRAFT));
+        assertTrue(table.hasPermission(GUEST, SecurityPermissions.INJECT));
+    }
+
+    @Test
+    public void testRebuildReplacesEntries() {
+        final Map<Integer, EnumSet<SecurityPermissions>> perms = new HashMap<>();
+        perms.put(GUEST, EnumSet.of(SecurityPermissions.BUILD));
+
+        final SecurityPermissionTable table = new SecurityPermissionTable();
+        table.rebuild(perms);
+        assertTrue(table.hasPermission(GUEST, SecurityPermissions.BUILD));
+
+        perms.clear();
+        perms.put(OWNER, EnumSet.of(SecurityPermissions.BUILD));
+        table.rebuild(perms);
+        assertFalse(table.hasPermission(GUEST, SecurityPermissions.BUILD));
+        assertTrue(table.hasPermission(OWNER, SecurityPermissions.BUILD));
+
+        table.clear();
+        assertFalse(table.hasPermission(OWNER, SecurityPermissions.BUILD));
+    }
+}
@@ -0,0 +1,251 @@
+package appeng.parts.p2p;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.inventory.IInventory;
+import net.minecraft.item.ItemStack;
+
+import org.junit.Test;
+
+public class ItemRoutingTableTest {
+
+    private static final int OUTPUTS = 256;
+
+    private static final class TestInventory implements IInventory {
+
+        private final int id;
+        private int size;
+        private int sizeQueries;
+
+        private TestInventory(final int id, final int size) {
+            this.id = id;
+            this.size = size;
+        }
+
+        @Override
+        public int getSizeInventory() {
+            this.sizeQueries++;
+            return this.size;
+        }
+
+        @Override
+        public ItemStack getStackInSlot(final int slot) {
+            return null;
+        }
+
+        @Override
+        public ItemStack decrStackSize(final int slot, final int amount) {
+            return null;
+        }
+
+        @Override
+        public ItemStack getStackInSlotOnClosing(final int slot) {
+            return null;
+        }
+
+        @Override
+        public void setInventorySlotContents(final int slot, final ItemStack stack) {}
+
+        @Override
+        public String getInventoryName() {
+            return "test" + this.id;
+        }
+
+        @Override
+        public boolean hasCustomInventoryName() {
+            return false;
+        }
+
+        @Override
+        public int getInventoryStackLimit() {
+            return 64;
+        }
+
+        @Override
+        public void markDirty() {}
+
+        @Override
+        public boolean isUseableByPlayer(final EntityPlayer player) {
+            return false;
+        }
+
+        @Override
+        public void openInventory() {}
+
+        @Override
+        public void closeInventory() {}
+
+        @Override
+        public boolean isItemValidForSlot(final int slot, final ItemStack stack) {
+            return true;
+        }
+    }
+
+    private static List<TestInventory> createOutputs(final Random random) {
+        final List<TestInventory> outputs = new ArrayList<>();
+        for (int i = 0; i < OUTPUTS; i++) {
+            outputs.add(new TestInventory(i, 1 + random.nextInt(27)));
+        }
+        return outputs;
+    }
+
+    private static ItemRoutingTable<Integer> createTable(final ItemRoutingTable.Strategy strategy,
+            final List<TestInventory> outputs) {
+        final ItemRoutingTable<Integer> table = new ItemRoutingTable<>(strategy);
+        for (final TestInventory output : outputs) {
+            table.put(output.id, output);
+        }
+        return table;
+    }
+
+    @Test
+    public void testRoundRobinGivesEveryOutputTheSameTurns() {
+        final List<TestInventory> outputs = createOutputs(new Random(1));
+        final ItemRoutingTable<Integer> table = createTable(ItemRoutingTable.Strategy.ROUND_ROBIN, outputs);
+
+        final Map<IInventory, Integer> turns = new IdentityHashMap<>();
+        final int rounds = 5;
+        for (int i = 0; i < OUTPUTS * rounds; i++) {
+            turns.merge(table.getFirstOutput(), 1, Integer::sum);
+            table.advance();
+        }
+
+        assertEquals(OUTPUTS, turns.size());
+        for (final int count : turns.values()) {
+            assertEquals(rounds, count);
+        }
+    }
+
+    @Test
+    public void testCapacityWeightedTurnsFollowTheSlots() {
+        final List<TestInventory> outputs = createOutputs(new Random(2));
+        final ItemRoutingTable<Integer> table = createTable(ItemRoutingTable.Strategy.CAPACITY_WEIGHTED, outputs);
+
+        final int totalSlots = table.getSizeInventory();
+        final Map<IInventory, Integer> turns = new IdentityHashMap<>();
+        for (int i = 0; i < totalSlots * 2; i++) {
+            table.advance();
+            turns.merge(table.getFirstOutput(), 1, Integer::sum);
+        }
+
+        for (final TestInventory output : outputs) {
+            assertEquals(output.size * 2, (int) turns.get(output));
+        }
+    }
+
+    @Test
+    public void testSlotsFollowTheFirstOutput() {
+        final List<TestInventory> outputs = createOutputs(new Random(3));
+        final ItemRoutingTable<Integer> table = createTable(ItemRoutingTable.Strategy.CAPACITY_WEIGHTED, outputs);
+        final int totalSlots = table.getSizeInventory();
+
+        for (int step = 0; step < 50; step++) {
+            table.advance();
+            final TestInventory first = (TestInventory) table.getFirstOutput();
+            final int start = outputs.indexOf(first);
+
+            // the slots are the ones of the outputs in order, starting with the first output
+            int slot = 0;
+            for (int i = 0; i < OUTPUTS; i++) {
+                final TestInventory output = outputs.get((start + i) % OUTPUTS);
+                for (int s = 0; s < output.size; s++) {
+                    assertSame(output, table.getOutputOfSlot(slot++));
+                }
+            }
+            assertEquals(totalSlots, slot);
+            assertNull(table.getOutputOfSlot(totalSlots));
+            assertNull(table.getOutputOfSlot(-1));
+        }
+    }
+
+    @Test
+    public void testChangingOneOutputLeavesTheOthersAlone() {
+        final Random random = new Random(4);
+        final List<TestInventory> outputs = createOutputs(random);
+        final ItemRoutingTable<Integer> table = createTable(ItemRoutingTable.Strategy.ROUND_ROBIN, outputs);
+        for (int i = 0; i < 100; i++) {
+            table.advance();
+        }
+        final IInventory first = table.getFirstOutput();
+        for (final TestInventory output : outputs) {
+            output.sizeQueries = 0;
+        }
+
+        // an output joins
+        final TestInventory added = new TestInventory(OUTPUTS, 9);
+        table.put(added.id, added);
+        // an output gets a new inventory next to it
+        final TestInventory replaced = new TestInventory(7, 54);
+        table.put(replaced.id, replaced);
+        // an output leaves
+        table.remove(200);
+        // the frequency lost a few outputs
+        final Set<Integer> remaining = new HashSet<>();
+        for (int i = 0; i <= OUTPUTS; i++) {
+            if (i % 50 != 1 && i != 200) {
+                remaining.add(i);
+            }
+        }
+        table.retain(remaining);
+        table.getSizeInventory();
+        table.getFirstOutput();
+
+        // only advancing reads the sizes of the other outputs again
+        for (final TestInventory output : outputs) {
+            assertEquals(output.getInventoryName(), 0, output.sizeQueries);
+        }
+        assertEquals(1, added.sizeQueries);
+        assertEquals(1, replaced.sizeQueries);
+        // 1, 51, 101, 151, 201, 251 and 200 left
+        assertEquals(OUTPUTS + 1 - 7, table.getOutputCount());
+        // the turn doesn't go back to the start
+        assertSame(first, table.getFirstOutput());
+
+        int expectedSlots = 9 + 54;
+        for (final TestInventory output : outputs) {
+            if (remaining.contains(output.id) && output.id != 7) {
+                expectedSlots += output.size;
+            }
+        }
+        assertEquals(expectedSlots, table.getSizeInventory());
+    }
+
+    @Test
+    public void testOutputsChangingSizeOnTheirOwn() {
+        final List<TestInventory> outputs = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            outputs.add(new TestInventory(i, 10));
+        }
+        final ItemRoutingTable<Integer> table = createTable(ItemRoutingTable.Strategy.ROUND_ROBIN, outputs);
+        assertSame(outputs.get(0), table.getFirstOutput());
+
+        // a drawer controller lost some drawers
+        outputs.get(0).size = 4;
+        assertSame(outputs.get(0), table.getOutputOfSlot(3));
+        assertNull(table.getOutputOfSlot(4));
+        assertNull(table.getOutputOfSlot(9));
+        assertSame(outputs.get(1), table.getOutputOfSlot(10));
+
+        // another one got new drawers
+        outputs.get(2).size = 15;
+        table.advance();
+        assertEquals(4 + 10 + 15, table.getSizeInventory());
+        assertSame(outputs.get(1), table.getFirstOutput());
+        assertSame(outputs.get(1), table.getOutputOfSlot(9));
+        assertSame(outputs.get(2), table.getOutputOfSlot(24));
+        assertSame(outputs.get(0), table.getOutputOfSlot(25));
+        assertSame(outputs.get(0), table.getOutputOfSlot(28));
+        assertNull(table.getOutputOfSlot(29));
+    }
+}